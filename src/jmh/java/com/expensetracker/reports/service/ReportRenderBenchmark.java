@@ -0,0 +1,212 @@
+package com.expensetracker.reports.service;
+
+import com.expensetracker.model.Expense;
+import com.expensetracker.model.Income;
+import com.expensetracker.reports.dto.ExportRequest;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Render time of the Excel and PDF reports for every {@link ExportRequest.ExportType},
+ * from 1k to 200k records, with output size and the live heap a render holds as
+ * secondary results.
+ *
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="ReportRender -prof gc -rf csv -rff report-render.csv"
+ * </pre>
+ *
+ * <p>JMH prints one row per format, export type and size, so the formats sit side
+ * by side; {@code -prof gc} adds the allocation per render
+ * ({@code gc.alloc.rate.norm}).  {@code outputBytes} is the size of the last report
+ * rendered in an iteration.  Rows are generated as they are read
+ * ({@link SyntheticReportRows}); the PDF summary visits them once more where
+ * production would aggregate in the database.  Output is counted and discarded, so
+ * disk and network are left out.</p>
+ *
+ * <p>{@link #renderLiveHeap} renders the same report but forces a GC every tenth of
+ * the rows and reads the heap left in use, so {@code liveHeapBytes} is the largest
+ * live set the renderer held above what was live before it started.  That is the
+ * figure that shows whether memory stays flat as reports grow; the sum of pool
+ * peaks would mostly measure how full eden got between collections.  Its time
+ * includes the forced GCs and is not comparable with {@link #render}'s.</p>
+ *
+ * <p>A report of {@code rows} records has only expenses or only income for
+ * {@code EXPENSES} and {@code INCOME}; {@code BOTH} splits it nine expenses to one
+ * income.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ReportRenderBenchmark {
+
+    private static final LocalDate START = LocalDate.of(2025, 4, 1);
+    private static final LocalDate END   = LocalDate.of(2026, 3, 31);
+    private static final int LIVE_HEAP_SAMPLES = 10;
+
+    @Param({"EXCEL", "PDF"})
+    public ExportRequest.ExportFormat format;
+
+    @Param({"EXPENSES", "INCOME", "BOTH"})
+    public ExportRequest.ExportType exportType;
+
+    @Param({"1000", "10000", "50000", "200000"})
+    public int rows;
+
+    private ExcelExportService excelExportService;
+    private PdfExportService pdfExportService;
+    private ReportRows reportRows;
+    private Map<Integer, String> categoryMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // The defaults of app.reports.excel.* and app.reports.pdf.*
+        excelExportService = new ExcelExportService(100, 500);
+        pdfExportService   = new PdfExportService(200);
+        int expenses = switch (exportType) {
+            case EXPENSES -> rows;
+            case INCOME   -> 0;
+            case BOTH     -> rows - rows / 10;
+        };
+        reportRows  = new SyntheticReportRows(42, expenses, rows - expenses, START, END);
+        categoryMap = SyntheticReportRows.categoryMap();
+    }
+
+    @Benchmark
+    public void render(Output output) throws IOException {
+        CountingSink out = new CountingSink();
+        render(reportRows, out);
+        output.outputBytes = out.count;
+    }
+
+    @Benchmark
+    public void renderLiveHeap(LiveHeap liveHeap) throws IOException {
+        LiveHeapSampler sampler = new LiveHeapSampler(reportRows, Math.max(1, rows / LIVE_HEAP_SAMPLES));
+        render(sampler, new CountingSink());
+        liveHeap.liveHeapBytes = sampler.peakAboveBaseline();
+    }
+
+    private void render(ReportRows rows, OutputStream out) throws IOException {
+        if (format == ExportRequest.ExportFormat.EXCEL) {
+            excelExportService.writeReport(rows, categoryMap, exportType, START, END, START, END, "C", out);
+        } else {
+            pdfExportService.writeReport(rows, categoryMap, exportType, START, END, START, END, "C", out);
+        }
+    }
+
+    /** Secondary result of {@link #render}. */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Output {
+        public long outputBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            outputBytes = 0;
+        }
+    }
+
+    /** Secondary result of {@link #renderLiveHeap}. */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class LiveHeap {
+        public long liveHeapBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            liveHeapBytes = 0;
+        }
+    }
+
+    /**
+     * Passes the rows through, forcing a GC every {@code every} rows and keeping the
+     * largest heap still in use after it.
+     */
+    private static final class LiveHeapSampler implements ReportRows {
+        private final ReportRows delegate;
+        private final long every;
+        private final long baseline;
+        private long visited;
+        private long peak;
+
+        LiveHeapSampler(ReportRows delegate, long every) {
+            this.delegate = delegate;
+            this.every    = every;
+            this.baseline = liveHeap();
+            this.peak     = baseline;
+        }
+
+        @Override
+        public void forEachExpense(BiConsumer<Expense, BigDecimal> handler) {
+            delegate.forEachExpense((expense, adjusted) -> {
+                handler.accept(expense, adjusted);
+                sample();
+            });
+        }
+
+        @Override
+        public void forEachIncome(Consumer<Income> handler) {
+            delegate.forEachIncome(income -> {
+                handler.accept(income);
+                sample();
+            });
+        }
+
+        @Override
+        public ReportSummary summarize() {
+            return delegate.summarize();
+        }
+
+        long peakAboveBaseline() {
+            return peak - baseline;
+        }
+
+        private void sample() {
+            if (++visited % every == 0) {
+                peak = Math.max(peak, liveHeap());
+            }
+        }
+
+        private static long liveHeap() {
+            System.gc();
+            return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        }
+    }
+
+    private static final class CountingSink extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
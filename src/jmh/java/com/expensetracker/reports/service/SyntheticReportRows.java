@@ -0,0 +1,125 @@
+package com.expensetracker.reports.service;
+
+import com.expensetracker.model.Expense;
+import com.expensetracker.model.Income;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Generated report rows for benchmarks.  Rows are made up as they are visited, the
+ * way {@link ReportRowCursor} maps them from a result set, so only the renderer's
+ * own memory shows up in heap figures.  Every visit yields the same rows for the
+ * same seed.
+ *
+ * <p>Narrations vary from a few words to the long UPI / NEFT strings of imported
+ * statements; about one expense in twenty has adjustments.</p>
+ */
+final class SyntheticReportRows implements ReportRows {
+
+    static final int CATEGORY_COUNT = 20;
+
+    private static final String USER_ID = "bench-user";
+    private static final String[] WORDS = {
+            "UPI", "NEFT", "IMPS", "POS", "SWIGGY", "ZOMATO", "AMAZON", "FLIPKART", "BIGBASKET",
+            "ELECTRICITY", "RENT", "PETROL", "PHARMACY", "GROCERIES", "SALARY", "TRANSFER",
+            "HDFC0001234", "ICICI0004321", "PAYMENT", "REFUND", "MUMBAI", "BANGALORE"};
+    private static final String[] SOURCES = {"Salary", "Freelance", "Interest", "Dividend", "Rent received"};
+
+    private final long seed;
+    private final int expenseCount;
+    private final int incomeCount;
+    private final LocalDate startDate;
+    private final int days;
+
+    SyntheticReportRows(long seed, int expenseCount, int incomeCount, LocalDate startDate, LocalDate endDate) {
+        this.seed         = seed;
+        this.expenseCount = expenseCount;
+        this.incomeCount  = incomeCount;
+        this.startDate    = startDate;
+        this.days         = (int) (endDate.toEpochDay() - startDate.toEpochDay()) + 1;
+    }
+
+    static Map<Integer, String> categoryMap() {
+        Map<Integer, String> categories = new LinkedHashMap<>();
+        for (int id = 1; id <= CATEGORY_COUNT; id++) {
+            categories.put(id, "Category " + id);
+        }
+        return categories;
+    }
+
+    @Override
+    public void forEachExpense(BiConsumer<Expense, BigDecimal> handler) {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 1; i <= expenseCount; i++) {
+            LocalDate date = date(random);
+            Expense expense = new Expense();
+            expense.setExpensesId(i);
+            expense.setUserId(USER_ID);
+            expense.setExpenseName(narration(random));
+            expense.setExpenseAmount(amount(random, 5_000_000));
+            expense.setUserExpenseCategoryId(1 + random.nextInt(CATEGORY_COUNT));
+            expense.setExpenseDate(date);
+            expense.setLastUpdateTmstp(date.atTime(12, 0));
+            BigDecimal adjusted = random.nextInt(20) == 0 ? amount(random, 50_000) : null;
+            handler.accept(expense, adjusted);
+        }
+    }
+
+    @Override
+    public void forEachIncome(Consumer<Income> handler) {
+        SplittableRandom random = new SplittableRandom(~seed);
+        for (int i = 1; i <= incomeCount; i++) {
+            LocalDate date = date(random);
+            Income income = new Income();
+            income.setIncomeId(i);
+            income.setUserId(USER_ID);
+            income.setSource(SOURCES[random.nextInt(SOURCES.length)]);
+            income.setAmount(amount(random, 50_000_000));
+            income.setReceivedDate(date);
+            income.setLastUpdateTmstp(date.atTime(12, 0));
+            income.setMonth(date.getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH));
+            income.setYear(date.getYear());
+            handler.accept(income);
+        }
+    }
+
+    /** Summed over a visit of the rows, as the database would aggregate them. */
+    @Override
+    public ReportSummary summarize() {
+        BigDecimal[] expenseTotals = {BigDecimal.ZERO, BigDecimal.ZERO};
+        forEachExpense((expense, adjusted) -> {
+            expenseTotals[0] = expenseTotals[0].add(expense.getExpenseAmount());
+            if (adjusted != null) expenseTotals[1] = expenseTotals[1].add(adjusted);
+        });
+        BigDecimal[] incomeTotal = {BigDecimal.ZERO};
+        forEachIncome(income -> incomeTotal[0] = incomeTotal[0].add(income.getAmount()));
+        return new ReportSummary(expenseCount, expenseTotals[0], expenseTotals[1], incomeCount, incomeTotal[0]);
+    }
+
+    private LocalDate date(SplittableRandom random) {
+        return startDate.plusDays(random.nextInt(days));
+    }
+
+    /** Amount in paise below {@code maxPaise}, as rupees with two decimals. */
+    private static BigDecimal amount(SplittableRandom random, int maxPaise) {
+        return BigDecimal.valueOf(1 + random.nextInt(maxPaise), 2);
+    }
+
+    private static String narration(SplittableRandom random) {
+        int words = 1 + random.nextInt(random.nextInt(4) == 0 ? 12 : 4);
+        StringBuilder narration = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            if (w > 0) narration.append(w % 3 == 0 ? '/' : ' ');
+            narration.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return narration.length() > 100 ? narration.substring(0, 100) : narration.toString();
+    }
+}
@@ -0,0 +1,229 @@
+package com.expensetracker.service;
+
+import com.expensetracker.dto.EstimatesSyncReport;
+import com.expensetracker.model.UserCreditCardEstimates;
+import com.expensetracker.model.UserExpenseCategory;
+import com.expensetracker.model.UserExpensesEstimates;
+import com.expensetracker.repository.UserCreditCardEstimatesRepository;
+import com.expensetracker.repository.UserExpenseCategoryRepository;
+import com.expensetracker.repository.UserExpensesEstimatesRepository;
+import com.expensetracker.util.Constants;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Time of the month-start estimates sync ({@code UserExpensesEstimatesService.syncUsers})
+ * over {@code users} users with {@code estimates} expense estimates and three credit
+ * card estimates each, for changes to the sync plan, its JDBC batches and the worker
+ * fan-out.
+ *
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="EstimatesSync -prof gc"
+ * </pre>
+ *
+ * <p>{@link #syncAll} is the single-node sync ({@code syncAllUsersEstimatesToUserExpenses})
+ * on {@code parallelism} workers; {@link #syncShardChunks} is the sharded path, one
+ * {@code syncEstimatesForUsers} call per chunk of 100 users on the calling thread,
+ * so {@code parallelism} does not apply to it.</p>
+ *
+ * <p>Every call alternates between two versions of the estimates, so each sync
+ * re-prices about four in five rows, deletes the tenth that went inactive and
+ * inserts the tenth that came back; a sync that found nothing to do would only
+ * measure the reads.  user_expenses lives in an in-memory H2 database in MySQL mode
+ * behind a Hikari pool, so results cover the service and its JDBC batches but not
+ * the network round trips to MySQL.  Estimates and categories come from in-memory
+ * repositories, and credit card estimates are never cleared.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EstimatesSyncBenchmark {
+
+    private static final int CATEGORIES_PER_USER = 8; // The first is the user's Credit Card category
+    private static final int CARDS_PER_USER = 3;
+    private static final int SHARD_CHUNK_SIZE = 100;  // app.scheduler.shards.chunk-size
+
+    @Param({"100", "1000"})
+    public int users;
+
+    @Param({"10", "50"})
+    public int estimates;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private HikariDataSource dataSource;
+    private UserExpensesEstimatesService service;
+    private List<String> userIds;
+    private final Map<String, Integer> userNumbers = new HashMap<>();
+    /** Both versions of each user's estimates; {@link #version} picks the one the next sync reads. */
+    private final List<Map<String, List<UserExpensesEstimates>>> estimatesByVersion = new ArrayList<>();
+    private final List<Map<String, List<UserCreditCardEstimates>>> cardsByVersion = new ArrayList<>();
+    private int version;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:estimates-sync-bench;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(parallelism + 1);
+        dataSource = new HikariDataSource(config);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS user_expenses");
+        jdbcTemplate.execute("CREATE TABLE user_expenses (" +
+                "user_expenses_id INT AUTO_INCREMENT PRIMARY KEY, user_id VARCHAR(100) NOT NULL, " +
+                "user_expense_name VARCHAR(100), user_expense_category_id INT NOT NULL, amount DECIMAL(10,2), " +
+                "paid CHAR(1) NOT NULL, status CHAR(1) NOT NULL, last_update_tmstp DATETIME)");
+        jdbcTemplate.execute("CREATE INDEX idx_user_expenses_user ON user_expenses (user_id)");
+
+        userIds = new ArrayList<>(users);
+        for (int u = 0; u < users; u++) {
+            userIds.add("bench-user-" + u);
+            userNumbers.put(userIds.get(u), u);
+        }
+        for (int v = 0; v < 2; v++) {
+            Map<String, List<UserExpensesEstimates>> estimatesByUser = new HashMap<>();
+            Map<String, List<UserCreditCardEstimates>> cardsByUser = new HashMap<>();
+            for (int u = 0; u < users; u++) {
+                estimatesByUser.put(userIds.get(u), expenseEstimates(u, v));
+                cardsByUser.put(userIds.get(u), cards(u, v));
+            }
+            estimatesByVersion.add(estimatesByUser);
+            cardsByVersion.add(cardsByUser);
+        }
+
+        service = new UserExpensesEstimatesService(estimatesRepository(), categoryRepository(), cardRepository(),
+                jdbcTemplate, new DataSourceTransactionManager(dataSource), parallelism);
+
+        // Seed user_expenses with the first version; a sync that fails users would time the rollbacks
+        check(service.syncAllUsersEstimatesToUserExpenses());
+        int expected = users * (estimates - (estimates + 9) / 10 + CARDS_PER_USER);
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_expenses", Integer.class);
+        if (rows == null || rows != expected) {
+            throw new IllegalStateException("Seeded " + rows + " user_expenses rows, expected " + expected);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public EstimatesSyncReport syncAll() {
+        version ^= 1;
+        return service.syncAllUsersEstimatesToUserExpenses();
+    }
+
+    @Benchmark
+    public int syncShardChunks() {
+        version ^= 1;
+        int synced = 0;
+        for (int from = 0; from < userIds.size(); from += SHARD_CHUNK_SIZE) {
+            synced += service.syncEstimatesForUsers(
+                    userIds.subList(from, Math.min(from + SHARD_CHUNK_SIZE, userIds.size()))).getSucceededUsers();
+        }
+        return synced;
+    }
+
+    /** Version 0 deactivates every tenth estimate from the first, version 1 from the sixth, and re-prices the rest. */
+    private List<UserExpensesEstimates> expenseEstimates(int user, int version) {
+        List<UserExpensesEstimates> list = new ArrayList<>(estimates);
+        for (int i = 0; i < estimates; i++) {
+            UserExpensesEstimates estimate = new UserExpensesEstimates();
+            estimate.setUserExpensesEstimatesId(user * estimates + i + 1);
+            estimate.setUserId(userIds.get(user));
+            estimate.setUserExpenseName("Estimate " + i);
+            estimate.setUserExpenseCategoryId(user * CATEGORIES_PER_USER + 1 + i % (CATEGORIES_PER_USER - 1));
+            estimate.setAmount(BigDecimal.valueOf(100_000 + i * 100L + version, 2));
+            estimate.setStatus(i % 10 == (version == 0 ? 0 : 5) ? "I" : "A");
+            list.add(estimate);
+        }
+        return list;
+    }
+
+    private List<UserCreditCardEstimates> cards(int user, int version) {
+        List<UserCreditCardEstimates> list = new ArrayList<>(CARDS_PER_USER);
+        for (int c = 0; c < CARDS_PER_USER; c++) {
+            UserCreditCardEstimates card = new UserCreditCardEstimates();
+            card.setUserCreditCardEstimatesId(user * CARDS_PER_USER + c + 1);
+            card.setUserId(userIds.get(user));
+            card.setCardName("Card " + c);
+            card.setAmount(BigDecimal.valueOf(2_500_000 + c * 1000L + version, 2));
+            list.add(card);
+        }
+        return list;
+    }
+
+    private UserExpensesEstimatesRepository estimatesRepository() {
+        return repository(UserExpensesEstimatesRepository.class, Map.of(
+                "findByUserIdOrderByUserExpenseName", args -> estimatesByVersion.get(version).get((String) args[0]),
+                "findDistinctUserIds", args -> userIds));
+    }
+
+    private UserCreditCardEstimatesRepository cardRepository() {
+        return repository(UserCreditCardEstimatesRepository.class, Map.of(
+                "findByUserIdOrderByCardName", args -> cardsByVersion.get(version).get((String) args[0]),
+                "findDistinctUserIds", args -> userIds,
+                "deleteByUserIdIn", args -> null)); // Kept, so every sync has cards to reconcile
+    }
+
+    private UserExpenseCategoryRepository categoryRepository() {
+        return repository(UserExpenseCategoryRepository.class, Map.of(
+                "findByUserIdAndUserExpenseCategoryNameIgnoreCase", args -> {
+                    int user = userNumbers.get((String) args[0]);
+                    UserExpenseCategory category = new UserExpenseCategory();
+                    category.setUserExpenseCategoryId(user * CATEGORIES_PER_USER);
+                    category.setUserId((String) args[0]);
+                    category.setUserExpenseCategoryName(Constants.CREDIT_CARD_CATEGORY_NAME);
+                    category.setStatus("A");
+                    return Optional.of(category);
+                },
+                "findDistinctUserIdsByCategoryNameIgnoreCase", args -> userIds));
+    }
+
+    /** A repository answering {@code methods} by name; the sync calls nothing else. */
+    @SuppressWarnings("unchecked")
+    private static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> handler = methods.get(method.getName());
+            if (handler == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+            return handler.apply(args);
+        });
+    }
+
+    private void check(EstimatesSyncReport report) {
+        if (report.getFailedUsers() > 0) {
+            throw new IllegalStateException("Estimates sync failed for " + report.getFailures());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.expensetracker.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link HdfcStatementParserService} on generated statements
+ * ({@link SyntheticHdfcStatement}), for changes to its patterns,
+ * {@code parseSingleBlock} and {@code extractAllAmounts}.
+ *
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="HdfcStatementParser -prof gc"
+ * </pre>
+ *
+ * <p>{@link #parseText} runs the line and block parser over page texts, as PDFBox
+ * would return them; {@link #parsePdf} parses the same statement end to end from a
+ * PDF, so the share of text extraction can be read off the difference.  Results are
+ * statements per second; {@code -prof gc} adds the allocation rate
+ * ({@code gc.alloc.rate}) and bytes per statement ({@code gc.alloc.rate.norm}).</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HdfcStatementParserBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int transactions;
+
+    /** Longest narration, in words; four fit on the transaction line, the rest wrap. */
+    @Param({"3", "12"})
+    public int narrationWords;
+
+    /** Share of reference numbers split by a space, which only the fallback pattern matches. */
+    @Param({"0", "50"})
+    public int splitRefPercent;
+
+    private HdfcStatementParserService parser;
+    private List<String> pages;
+    private Path pdf;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // No parse cache and sequential extraction, the defaults for a single import
+        parser = new HdfcStatementParserService(new StatementParseCache(0, 0), 16, 256, 1);
+        pages = SyntheticHdfcStatement.pages(42, transactions, narrationWords, splitRefPercent);
+        pdf = Files.createTempFile("hdfc-statement-bench-", ".pdf");
+        SyntheticHdfcStatement.writePdf(pages, pdf);
+
+        // A statement the parser only half reads would make either benchmark meaningless
+        check(parseText());
+        check(parsePdf());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        parser.shutdown();
+        Files.deleteIfExists(pdf);
+    }
+
+    @Benchmark
+    public StatementParseResult parseText() {
+        return parser.parseText(pages);
+    }
+
+    @Benchmark
+    public StatementParseResult parsePdf() {
+        return parser.parseStatement(pdf.toFile(), null);
+    }
+
+    private void check(StatementParseResult result) {
+        int parsed = result.getTransactions().size();
+        if (parsed != transactions) {
+            throw new IllegalStateException("Parsed " + parsed + " of " + transactions + " generated transactions");
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.expensetracker.service;
+
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Font;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.PdfWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generated HDFC statement text, laid out the way PDFBox extracts a real statement:
+ * a column header on every page, one line per transaction starting with its date,
+ * narration overflow on continuation lines, the {@code *Closing balance} footnote
+ * at the foot of each page and a {@code STATEMENT SUMMARY} at the end.
+ *
+ * <p>Narrations run to {@code narrationWords} words, the first few on the
+ * transaction line and the rest wrapped; {@code splitRefPercent} of the reference
+ * numbers carry the column-alignment space that {@code REF_NO_SPLIT_PATTERN}
+ * handles.  The same seed gives the same statement.</p>
+ */
+final class SyntheticHdfcStatement {
+
+    static final int TRANSACTIONS_PER_PAGE = 20;
+
+    private static final String HEADER =
+            "Date Narration Chq./Ref.No. Value Dt Withdrawal Amt. Deposit Amt. Closing Balance";
+    private static final String FOOTNOTE =
+            "*Closing balance includes funds earmarked for hold and uncleared funds";
+    private static final String[] WORDS = {
+            "UPI", "NEFT", "IMPS", "POS", "SWIGGY", "ZOMATO", "AMAZON", "FLIPKART", "BIGBASKET",
+            "ELECTRICITY", "RENT", "PETROL", "PHARMACY", "GROCERIES", "SALARY", "TRANSFER",
+            "HDFC0001234", "ICICI0004321", "PAYMENT", "REFUND", "9876543210@YBL", "MARKET99.60998088@HDFC"};
+    private static final int WORDS_PER_LINE = 4;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("dd/MM/yy");
+
+    private SyntheticHdfcStatement() {
+    }
+
+    /** One string per page, lines separated by {@code \n}. */
+    static List<String> pages(long seed, int transactions, int narrationWords, int splitRefPercent) {
+        SplittableRandom random = new SplittableRandom(seed);
+        DecimalFormat money = new DecimalFormat("#,##0.00");
+        BigDecimal opening = BigDecimal.valueOf(100_000_000_000L, 2); // Never runs negative
+        BigDecimal balance = opening;
+        BigDecimal debits = BigDecimal.ZERO;
+        BigDecimal credits = BigDecimal.ZERO;
+        int creditCount = 0;
+        LocalDate date = LocalDate.of(2025, 4, 1);
+
+        List<String> pages = new ArrayList<>();
+        StringBuilder page = new StringBuilder(HEADER).append('\n');
+        for (int t = 1; t <= transactions; t++) {
+            if (random.nextInt(3) == 0) date = date.plusDays(1);
+            BigDecimal amount = BigDecimal.valueOf(100 + random.nextInt(2_000_000), 2);
+            boolean deposit = random.nextInt(5) == 0;
+            balance = deposit ? balance.add(amount) : balance.subtract(amount);
+            if (deposit) {
+                credits = credits.add(amount);
+                creditCount++;
+            } else {
+                debits = debits.add(amount);
+            }
+
+            String ref = String.format("%016d", random.nextLong(1, 100_000_000_000L));
+            if (random.nextInt(100) < splitRefPercent) {
+                ref = ref.substring(0, 8) + " " + ref.substring(8);
+            }
+            List<String> narration = narration(random, narrationWords);
+
+            page.append(date.format(DATE)).append(' ')
+                    .append(String.join(" ", narration.subList(0, Math.min(WORDS_PER_LINE, narration.size()))))
+                    .append(' ').append(ref).append(' ').append(date.format(DATE)).append(' ')
+                    .append(money.format(amount)).append(' ').append(money.format(balance)).append('\n');
+            for (int w = WORDS_PER_LINE; w < narration.size(); w += WORDS_PER_LINE) {
+                page.append(String.join(" ", narration.subList(w, Math.min(w + WORDS_PER_LINE, narration.size()))))
+                        .append('\n');
+            }
+
+            if (t % TRANSACTIONS_PER_PAGE == 0 && t < transactions) {
+                pages.add(page.append(FOOTNOTE).append('\n').toString());
+                page = new StringBuilder(HEADER).append('\n');
+            }
+        }
+        page.append("STATEMENT SUMMARY :-\n")
+                .append("Opening Balance Dr Count Cr Count Debits Credits Closing Bal\n")
+                .append(money.format(opening)).append(' ').append(transactions - creditCount).append(' ')
+                .append(creditCount).append(' ')
+                .append(money.format(debits)).append(' ').append(money.format(credits)).append(' ')
+                .append(money.format(balance)).append('\n')
+                .append("Generated On: ").append(date.format(DATE)).append('\n');
+        pages.add(page.toString());
+        return pages;
+    }
+
+    /** Writes {@code pages} to {@code file} as a PDF, one statement page per PDF page. */
+    static void writePdf(List<String> pages, Path file) throws IOException {
+        Font font = new Font(Font.COURIER, 7);
+        Document document = new Document(PageSize.A4.rotate(), 20, 20, 20, 20);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            PdfWriter.getInstance(document, out);
+            document.open();
+            for (int p = 0; p < pages.size(); p++) {
+                if (p > 0) document.newPage();
+                for (String line : pages.get(p).split("\n")) {
+                    Paragraph paragraph = new Paragraph(8, line, font);
+                    document.add(paragraph);
+                }
+            }
+            document.close();
+        } catch (DocumentException e) {
+            throw new IOException("Could not write synthetic statement PDF", e);
+        }
+    }
+
+    private static List<String> narration(SplittableRandom random, int maxWords) {
+        int words = 1 + random.nextInt(Math.max(1, maxWords));
+        List<String> narration = new ArrayList<>(words);
+        for (int w = 0; w < words; w++) {
+            narration.add(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return narration;
+    }
+}
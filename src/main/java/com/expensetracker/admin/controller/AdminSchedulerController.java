@@ -1,15 +1,23 @@
 package com.expensetracker.admin.controller;
 
+import com.expensetracker.dto.EstimatesSyncReport;
+import com.expensetracker.scheduler.EstimatesScheduler;
 import com.expensetracker.service.CurrentBalanceUpdateService;
 import com.expensetracker.service.IncomeEstimatesService;
+import com.expensetracker.service.SchedulerLockService;
+import com.expensetracker.service.ShardedJobService;
 import com.expensetracker.service.UserExpensesEstimatesService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
+import java.time.YearMonth;
 import java.util.Map;
 
 /**
@@ -27,13 +35,50 @@ public class AdminSchedulerController {
     private final UserExpensesEstimatesService userExpensesEstimatesService;
     private final IncomeEstimatesService incomeEstimatesService;
     private final CurrentBalanceUpdateService currentBalanceUpdateService;
+    private final SchedulerLockService schedulerLockService;
+    private final ShardedJobService shardedJobService;
 
     public AdminSchedulerController(UserExpensesEstimatesService userExpensesEstimatesService,
                                     IncomeEstimatesService incomeEstimatesService,
-                                    CurrentBalanceUpdateService currentBalanceUpdateService) {
+                                    CurrentBalanceUpdateService currentBalanceUpdateService,
+                                    SchedulerLockService schedulerLockService,
+                                    ShardedJobService shardedJobService) {
         this.userExpensesEstimatesService = userExpensesEstimatesService;
         this.incomeEstimatesService = incomeEstimatesService;
         this.currentBalanceUpdateService = currentBalanceUpdateService;
+        this.schedulerLockService = schedulerLockService;
+        this.shardedJobService = shardedJobService;
+    }
+
+    /**
+     * Lists scheduler lock holders across the cluster (lock name, holder node,
+     * lease expiry, fencing token) together with this node's id.
+     *
+     * GET /api/admin/scheduler/locks
+     */
+    @GetMapping("/locks")
+    public ResponseEntity<?> getLocks() {
+        return ResponseEntity.ok(Map.of(
+                "nodeId", schedulerLockService.getNodeId(),
+                "locks", schedulerLockService.findAllLocks()
+        ));
+    }
+
+    /**
+     * Lists month-end shard progress (status, owner node, lease, users processed).
+     * runKey is the month the job ran for (yyyy-MM; the monthly balance snapshot uses
+     * the previous month) and defaults to the current month. jobName is optional.
+     *
+     * GET /api/admin/scheduler/shards?runKey=2026-10&jobName=current-balance-update
+     */
+    @GetMapping("/shards")
+    public ResponseEntity<?> getShards(@RequestParam(required = false) String jobName,
+                                       @RequestParam(required = false) String runKey) {
+        String key = (runKey == null || runKey.isBlank()) ? YearMonth.now().toString() : runKey.trim();
+        return ResponseEntity.ok(Map.of(
+                "runKey", key,
+                "shards", shardedJobService.findShards(jobName, key)
+        ));
     }
 
     /**
@@ -47,17 +92,21 @@ public class AdminSchedulerController {
         logger.warn("Admin manually triggered estimates sync");
 
         try {
-            // Sync expense estimates
-            userExpensesEstimatesService.syncAllUsersEstimatesToUserExpenses();
+            // Sync expense estimates (per-user transactions; failures are reported, not thrown)
+            EstimatesSyncReport expensesReport = userExpensesEstimatesService.syncAllUsersEstimatesToUserExpenses();
 
-            // Sync income estimates (but don't delete them)
-            int incomeCount = incomeEstimatesService.syncAllIncomeEstimatesToIncome();
+            // Sync income estimates (but don't delete them), under the same lock as the scheduler
+            int[] incomeCount = {0};
+            boolean incomeSynced = schedulerLockService.runExclusively(EstimatesScheduler.INCOME_LOCK_NAME,
+                    EstimatesScheduler.LOCK_LEASE, Duration.ZERO,
+                    lock -> incomeCount[0] = incomeEstimatesService.syncAllIncomeEstimatesToIncome(lock));
 
             logger.info("Admin estimates sync completed successfully");
             return ResponseEntity.ok(Map.of(
-                    "status", "success",
+                    "status", expensesReport.getFailedUsers() == 0 ? "success" : "partial",
                     "message", "Estimates sync completed",
-                    "incomeRecordsCopied", incomeCount
+                    "expensesSync", expensesReport,
+                    "incomeRecordsCopied", incomeSynced ? incomeCount[0] : "skipped: running on another node"
             ));
         } catch (Exception e) {
             logger.error("Error during admin estimates sync", e);
@@ -70,7 +119,8 @@ public class AdminSchedulerController {
 
     /**
      * Manually trigger the current balance update for all users.
-     * Normally runs at 00:05 on the 1st of each month.
+     * Normally runs from 00:05 on the 1st of each month, once the monthly balance
+     * snapshot is done; this trigger does not wait for the snapshot.
      *
      * POST /api/admin/scheduler/run-current-balance-update
      */
@@ -79,12 +129,13 @@ public class AdminSchedulerController {
         logger.warn("Admin manually triggered current balance update");
 
         try {
-            currentBalanceUpdateService.updateCurrentBalanceForAllUsers();
+            int usersUpdated = currentBalanceUpdateService.updateCurrentBalanceForAllUsers();
 
             logger.info("Admin current balance update completed successfully");
             return ResponseEntity.ok(Map.of(
                     "status", "success",
-                    "message", "Current balance update completed for all users"
+                    "message", "Current balance update completed for all users",
+                    "usersUpdated", usersUpdated
             ));
         } catch (Exception e) {
             logger.error("Error during admin current balance update", e);
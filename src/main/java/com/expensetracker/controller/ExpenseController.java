@@ -1,5 +1,6 @@
 package com.expensetracker.controller;
 
+import com.expensetracker.dto.BankStatementImportJobResponse;
 import com.expensetracker.dto.BankStatementImportResult;
 import com.expensetracker.dto.ExpenseDeleteRequest;
 import com.expensetracker.dto.ExpensePageRequest;
@@ -8,6 +9,8 @@ import com.expensetracker.exception.BadRequestException;
 import com.expensetracker.exception.ExpenseCategoryNotFoundException;
 import com.expensetracker.exception.ExpenseNotFoundException;
 import com.expensetracker.exception.UserNotFoundException;
+import com.expensetracker.model.BankStatementImportJob;
+import com.expensetracker.service.BankStatementImportJobService;
 import com.expensetracker.service.BankStatementImportService;
 import com.expensetracker.service.ExpenseService;
 import com.expensetracker.service.UserExpenseCategoryService;
@@ -17,6 +20,7 @@ import com.expensetracker.validator.RequestValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -36,18 +40,21 @@ public class ExpenseController {
     private final UserService userService;
     private final UserExpenseCategoryService userExpenseCategoryService;
     private final BankStatementImportService bankStatementImportService;
+    private final BankStatementImportJobService bankStatementImportJobService;
 
     @Autowired
     public ExpenseController(ExpenseService expenseService,
                              RequestValidator requestValidator,
                              UserService userService,
                              UserExpenseCategoryService userExpenseCategoryService,
-                             BankStatementImportService bankStatementImportService) {
+                             BankStatementImportService bankStatementImportService,
+                             BankStatementImportJobService bankStatementImportJobService) {
         this.expenseService = expenseService;
         this.requestValidator = requestValidator;
         this.userService = userService;
         this.userExpenseCategoryService = userExpenseCategoryService;
         this.bankStatementImportService = bankStatementImportService;
+        this.bankStatementImportJobService = bankStatementImportJobService;
     }
 
     @PostMapping("/all")
@@ -227,24 +234,28 @@ public class ExpenseController {
     }
 
     /**
-     * Import expenses and incomes from an HDFC Bank account statement PDF.
+     * Import expenses and incomes from a bank account statement: an HDFC PDF, or a
+     * CSV / OFX export from any bank (the format is detected from the file).
      *
      * <h3>Request parameters</h3>
      * <ul>
-     *   <li>{@code file}             – multipart PDF (required)</li>
+     *   <li>{@code file}             – multipart PDF, CSV or OFX (required)</li>
      *   <li>{@code userId}           – user id (required)</li>
-     *   <li>{@code password}         – explicit PDF password (optional)</li>
+     *   <li>{@code password}         – explicit PDF password (optional; ignored for CSV/OFX)</li>
      *   <li>{@code useStoredPassword}– {@code true}  → use the password already saved in DB (optional, default false)</li>
      *   <li>{@code storePassword}    – {@code true}  → encrypt and save the supplied password to DB (optional, default false)</li>
+     *   <li>{@code async}            – {@code true}  → return {@code 202} with a {@code jobId} immediately and import in the
+     *       background; poll {@code GET /import/jobs/{jobId}} (optional, default false)</li>
      * </ul>
      */
-    @PostMapping(value = "/import/hdfc", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PostMapping(value = {"/import/hdfc", "/import/statement"}, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> importHdfcBankStatement(
             @RequestParam("file")                                       MultipartFile file,
             @RequestParam("userId")                                     String userId,
             @RequestParam(value = "password",          required = false) String password,
             @RequestParam(value = "useStoredPassword", defaultValue = "false") boolean useStoredPassword,
-            @RequestParam(value = "storePassword",     defaultValue = "false") boolean storePassword) {
+            @RequestParam(value = "storePassword",     defaultValue = "false") boolean storePassword,
+            @RequestParam(value = "async",             defaultValue = "false") boolean async) {
 
         logger.debug("importHdfcBankStatement called: userId={}, useStoredPassword={}, storePassword={}",
                 userId, useStoredPassword, storePassword);
@@ -253,7 +264,7 @@ public class ExpenseController {
             throw new BadRequestException("userId is required");
         }
         if (file == null || file.isEmpty()) {
-            throw new BadRequestException("A non-empty PDF file is required");
+            throw new BadRequestException("A non-empty statement file is required");
         }
         if (storePassword && (password == null || password.isBlank())) {
             throw new BadRequestException("A password must be provided when storePassword is true");
@@ -264,6 +275,15 @@ public class ExpenseController {
                     + "If you want to replace the stored password, pass the new password with 'storePassword=true'.");
         }
 
+        if (async) {
+            BankStatementImportJob job = bankStatementImportJobService
+                    .submit(file, userId, password, useStoredPassword, storePassword);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                    "jobId", job.getJobId(),
+                    "status", job.getStatus()
+            ));
+        }
+
         BankStatementImportResult result = bankStatementImportService
                 .importStatement(file, userId, password, useStoredPassword, storePassword);
 
@@ -272,4 +292,17 @@ public class ExpenseController {
 
         return ResponseEntity.ok(result);
     }
+
+    /**
+     * Status of a background import started with {@code async=true}: phase, rows processed
+     * and, once finished, the {@link BankStatementImportResult} or the error message.
+     */
+    @GetMapping("/import/jobs/{jobId}")
+    public ResponseEntity<BankStatementImportJobResponse> getImportJob(@PathVariable String jobId,
+                                                                       @RequestParam("userId") String userId) {
+        if (userId == null || userId.isBlank()) {
+            throw new BadRequestException("userId is required");
+        }
+        return ResponseEntity.ok(bankStatementImportJobService.getJob(jobId, userId));
+    }
 }
@@ -0,0 +1,45 @@
+package com.expensetracker.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status of a background bank statement import, returned by
+ * {@code GET /api/expense/import/jobs/{jobId}}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BankStatementImportJobResponse {
+
+    private String jobId;
+
+    /** QUEUED | RUNNING | SUCCEEDED | FAILED */
+    private String status;
+
+    /** QUEUED | PARSING | IMPORTING | SAVING | RECONCILING | DONE */
+    private String phase;
+
+    /** Statement rows handled so far, out of {@link #rowsTotal} (0 until parsing finishes). */
+    private int rowsProcessed;
+    private int rowsTotal;
+
+    /** Present once the job has succeeded. */
+    private BankStatementImportResult result;
+
+    /** Present once the job has failed. */
+    private String errorMessage;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+}
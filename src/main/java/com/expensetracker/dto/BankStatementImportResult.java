@@ -24,6 +24,9 @@ public class BankStatementImportResult {
     /** Number of transactions skipped (zero-amount or unresolvable). */
     private int skippedCount;
 
+    /** Number of transactions skipped because their bank reference number was already imported. */
+    private int duplicateCount;
+
     /** Informational / warning messages produced during the import. */
     private List<String> messages;
 
@@ -0,0 +1,42 @@
+package com.expensetracker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Outcome of syncing estimates → user_expenses for a set of users.
+ * Each user is synced in its own transaction, so failures are isolated per user.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EstimatesSyncReport {
+
+    /** Number of users the sync visited. */
+    private int totalUsers;
+
+    /** Users whose regular and credit card sync committed. */
+    private int succeededUsers;
+
+    /** Users whose sync was rolled back. */
+    private int failedUsers;
+
+    /** user_expenses rows inserted / updated / deleted across all succeeded users. */
+    private int inserted;
+    private int updated;
+    private int deleted;
+
+    /** Whether credit card estimates of succeeded users were cleared after the sync. */
+    private boolean creditCardEstimatesCleared;
+
+    /** Worker threads used. */
+    private int parallelism;
+
+    private long durationMs;
+
+    /** userId → error message for every failed user. */
+    private Map<String, String> failures;
+}
@@ -0,0 +1,88 @@
+package com.expensetracker.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A background bank statement import. Rows are created and advanced through
+ * {@link com.expensetracker.service.BankStatementImportJobService}; status
+ * transitions are conditional JDBC updates so two nodes never run the same job.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "bank_statement_import_job")
+public class BankStatementImportJob {
+
+    @Id
+    @Column(name = "job_id", length = 36)
+    private String jobId;
+
+    @Column(name = "user_id", nullable = false, length = 100)
+    private String userId;
+
+    @Column(name = "status", nullable = false, length = 10)
+    private String status; // QUEUED | RUNNING | SUCCEEDED | FAILED
+
+    @Column(name = "phase", nullable = false, length = 20)
+    private String phase; // QUEUED | PARSING | IMPORTING | SAVING | RECONCILING | DONE
+
+    @Column(name = "rows_processed", nullable = false)
+    private Integer rowsProcessed;
+
+    @Column(name = "rows_total", nullable = false)
+    private Integer rowsTotal;
+
+    /** Uploaded PDF, kept until the job finishes. */
+    @Column(name = "spool_path", length = 500)
+    private String spoolPath;
+
+    /** Explicit PDF password encrypted with the bank statement key; cleared when the job finishes. */
+    @Column(name = "password_enc", length = 512)
+    private String passwordEnc;
+
+    @Column(name = "use_stored_password", nullable = false)
+    private Boolean useStoredPassword;
+
+    @Column(name = "store_password", nullable = false)
+    private Boolean storePassword;
+
+    @Column(name = "owner", length = 255)
+    private String owner;
+
+    /** Set on every claim; only the run holding the current token may record progress, commit or finish. */
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    /** Serialized {@link com.expensetracker.dto.BankStatementImportResult} once the job succeeds. */
+    @Column(name = "result_json", columnDefinition = "TEXT")
+    private String resultJson;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime updatedAt;
+}
@@ -57,6 +57,11 @@ public class Expense {
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd")
     private LocalDate expenseDate;
 
+    /** HDFC Chq./Ref.No. for rows created by a bank statement import; {@code null} otherwise. */
+    @Column(name = "bank_ref_no", length = 16)
+    @JsonIgnore
+    private String bankRefNo;
+
     @PrePersist
     public void prePersist() {
         if (this.lastUpdateTmstp == null) {
@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -45,6 +46,11 @@ public class Income {
     @Column(name = "year", nullable = false)
     private Integer year;
 
+    /** HDFC Chq./Ref.No. for rows created by a bank statement import; {@code null} otherwise. */
+    @Column(name = "bank_ref_no", length = 16)
+    @JsonIgnore
+    private String bankRefNo;
+
     @PrePersist
     public void prePersist() {
         if (this.lastUpdateTmstp == null) {
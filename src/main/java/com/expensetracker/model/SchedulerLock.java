@@ -0,0 +1,42 @@
+package com.expensetracker.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease-based lock row guarding a scheduled job so only one application
+ * instance executes it at a time. Rows are written through
+ * {@link com.expensetracker.service.SchedulerLockService}; this entity is
+ * used for read-only views (admin endpoint).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "scheduler_lock")
+public class SchedulerLock {
+
+    @Id
+    @Column(name = "lock_name", nullable = false, length = 100)
+    private String lockName;
+
+    @Column(name = "locked_by", nullable = false, length = 255)
+    private String lockedBy;
+
+    @Column(name = "locked_at", nullable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime lockedAt;
+
+    @Column(name = "lock_until", nullable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime lockUntil;
+
+    /** Incremented on every successful acquisition; stale holders are rejected by comparing it. */
+    @Column(name = "fencing_token", nullable = false)
+    private Long fencingToken;
+}
@@ -0,0 +1,70 @@
+package com.expensetracker.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One hash shard of a month-end job run. Users belong to shard
+ * {@code floorMod(userId.hashCode(), shardCount)}. Rows are claimed and
+ * completed through {@link com.expensetracker.service.ShardedJobService};
+ * this entity is used for read-only views (admin endpoint).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "scheduler_shard",
+        uniqueConstraints = {@UniqueConstraint(columnNames = {"job_name", "run_key", "shard_no"})})
+public class SchedulerShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "scheduler_shard_id")
+    private Long schedulerShardId;
+
+    @Column(name = "job_name", nullable = false, length = 100)
+    private String jobName;
+
+    @Column(name = "run_key", nullable = false, length = 50)
+    private String runKey; // e.g. 2026-09 for the month being processed
+
+    @Column(name = "shard_no", nullable = false)
+    private Integer shardNo;
+
+    @Column(name = "shard_count", nullable = false)
+    private Integer shardCount;
+
+    @Column(name = "status", nullable = false, length = 10)
+    private String status; // PENDING | RUNNING | DONE | FAILED
+
+    @Column(name = "owner", length = 255)
+    private String owner;
+
+    @Column(name = "lease_until")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime leaseUntil;
+
+    /** Incremented on every claim; doubles as the fencing token for lease renewal and completion. */
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "users_processed", nullable = false)
+    private Integer usersProcessed;
+
+    /** Last user id of the last finished chunk; a re-claimed shard resumes after it. */
+    @Column(name = "resume_after", length = 100)
+    private String resumeAfter;
+
+    @Column(name = "started_at")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+}
@@ -3,16 +3,25 @@ package com.expensetracker.reports.controller;
 import com.expensetracker.reports.dto.EmailExportRequest;
 import com.expensetracker.reports.dto.ExportRequest;
 import com.expensetracker.reports.dto.ExportResponse;
+import com.expensetracker.reports.dto.MonthlyStatementSubscriptionRequest;
+import com.expensetracker.reports.dto.MonthlyStatementSubscriptionResponse;
+import com.expensetracker.reports.dto.ReportJobResponse;
+import com.expensetracker.reports.model.ReportJob;
+import com.expensetracker.reports.service.MonthlyStatementService;
+import com.expensetracker.reports.service.ReportDownload;
+import com.expensetracker.reports.service.ReportJobService;
 import com.expensetracker.reports.service.ReportService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.IOException;
 import java.time.LocalDate;
 
 @RestController
@@ -22,9 +31,14 @@ public class ReportController {
     private static final Logger logger = LoggerFactory.getLogger(ReportController.class);
 
     private final ReportService reportService;
+    private final ReportJobService reportJobService;
+    private final MonthlyStatementService monthlyStatementService;
 
-    public ReportController(ReportService reportService) {
+    public ReportController(ReportService reportService, ReportJobService reportJobService,
+                            MonthlyStatementService monthlyStatementService) {
         this.reportService = reportService;
+        this.reportJobService = reportJobService;
+        this.monthlyStatementService = monthlyStatementService;
     }
 
     /**
@@ -32,10 +46,11 @@ public class ReportController {
      * GET /api/reports/expenses/excel?userId={userId}&startDate={startDate}&endDate={endDate}
      */
     @GetMapping("/expenses/excel")
-    public ResponseEntity<byte[]> exportExpensesExcel(
+    public ResponseEntity<StreamingResponseBody> exportExpensesExcel(
             @RequestParam String userId,
             @RequestParam LocalDate startDate,
-            @RequestParam LocalDate endDate) {
+            @RequestParam LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         logger.info("Export expenses Excel request - userId: {}, startDate: {}, endDate: {}", userId, startDate, endDate);
 
@@ -46,7 +61,7 @@ public class ReportController {
         request.setExportType(ExportRequest.ExportType.EXPENSES);
         request.setFormat(ExportRequest.ExportFormat.EXCEL);
 
-        return generateDownloadResponse(request);
+        return generateDownloadResponse(request, ifNoneMatch);
     }
 
     /**
@@ -54,10 +69,11 @@ public class ReportController {
      * GET /api/reports/expenses/pdf?userId={userId}&startDate={startDate}&endDate={endDate}
      */
     @GetMapping("/expenses/pdf")
-    public ResponseEntity<byte[]> exportExpensesPdf(
+    public ResponseEntity<StreamingResponseBody> exportExpensesPdf(
             @RequestParam String userId,
             @RequestParam LocalDate startDate,
-            @RequestParam LocalDate endDate) {
+            @RequestParam LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         logger.info("Export expenses PDF request - userId: {}, startDate: {}, endDate: {}", userId, startDate, endDate);
 
@@ -68,7 +84,7 @@ public class ReportController {
         request.setExportType(ExportRequest.ExportType.EXPENSES);
         request.setFormat(ExportRequest.ExportFormat.PDF);
 
-        return generateDownloadResponse(request);
+        return generateDownloadResponse(request, ifNoneMatch);
     }
 
     /**
@@ -76,10 +92,11 @@ public class ReportController {
      * GET /api/reports/income/excel?userId={userId}&startDate={startDate}&endDate={endDate}
      */
     @GetMapping("/income/excel")
-    public ResponseEntity<byte[]> exportIncomeExcel(
+    public ResponseEntity<StreamingResponseBody> exportIncomeExcel(
             @RequestParam String userId,
             @RequestParam LocalDate startDate,
-            @RequestParam LocalDate endDate) {
+            @RequestParam LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         logger.info("Export income Excel request - userId: {}, startDate: {}, endDate: {}", userId, startDate, endDate);
 
@@ -90,7 +107,7 @@ public class ReportController {
         request.setExportType(ExportRequest.ExportType.INCOME);
         request.setFormat(ExportRequest.ExportFormat.EXCEL);
 
-        return generateDownloadResponse(request);
+        return generateDownloadResponse(request, ifNoneMatch);
     }
 
     /**
@@ -98,10 +115,11 @@ public class ReportController {
      * GET /api/reports/income/pdf?userId={userId}&startDate={startDate}&endDate={endDate}
      */
     @GetMapping("/income/pdf")
-    public ResponseEntity<byte[]> exportIncomePdf(
+    public ResponseEntity<StreamingResponseBody> exportIncomePdf(
             @RequestParam String userId,
             @RequestParam LocalDate startDate,
-            @RequestParam LocalDate endDate) {
+            @RequestParam LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         logger.info("Export income PDF request - userId: {}, startDate: {}, endDate: {}", userId, startDate, endDate);
 
@@ -112,7 +130,7 @@ public class ReportController {
         request.setExportType(ExportRequest.ExportType.INCOME);
         request.setFormat(ExportRequest.ExportFormat.PDF);
 
-        return generateDownloadResponse(request);
+        return generateDownloadResponse(request, ifNoneMatch);
     }
 
     /**
@@ -120,10 +138,11 @@ public class ReportController {
      * GET /api/reports/all/excel?userId={userId}&startDate={startDate}&endDate={endDate}
      */
     @GetMapping("/all/excel")
-    public ResponseEntity<byte[]> exportAllExcel(
+    public ResponseEntity<StreamingResponseBody> exportAllExcel(
             @RequestParam String userId,
             @RequestParam LocalDate startDate,
-            @RequestParam LocalDate endDate) {
+            @RequestParam LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         logger.info("Export all (expenses + income) Excel request - userId: {}, startDate: {}, endDate: {}", userId, startDate, endDate);
 
@@ -134,7 +153,7 @@ public class ReportController {
         request.setExportType(ExportRequest.ExportType.BOTH);
         request.setFormat(ExportRequest.ExportFormat.EXCEL);
 
-        return generateDownloadResponse(request);
+        return generateDownloadResponse(request, ifNoneMatch);
     }
 
     /**
@@ -142,10 +161,11 @@ public class ReportController {
      * GET /api/reports/all/pdf?userId={userId}&startDate={startDate}&endDate={endDate}
      */
     @GetMapping("/all/pdf")
-    public ResponseEntity<byte[]> exportAllPdf(
+    public ResponseEntity<StreamingResponseBody> exportAllPdf(
             @RequestParam String userId,
             @RequestParam LocalDate startDate,
-            @RequestParam LocalDate endDate) {
+            @RequestParam LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         logger.info("Export all (expenses + income) PDF request - userId: {}, startDate: {}, endDate: {}", userId, startDate, endDate);
 
@@ -156,20 +176,22 @@ public class ReportController {
         request.setExportType(ExportRequest.ExportType.BOTH);
         request.setFormat(ExportRequest.ExportFormat.PDF);
 
-        return generateDownloadResponse(request);
+        return generateDownloadResponse(request, ifNoneMatch);
     }
 
     /**
-     * Generic export endpoint using POST
+     * Generic export endpoint using POST (any format, optionally gzip-compressed)
      * POST /api/reports/export
      */
     @PostMapping("/export")
-    public ResponseEntity<byte[]> exportReport(@RequestBody ExportRequest request) {
+    public ResponseEntity<StreamingResponseBody> exportReport(
+            @RequestBody ExportRequest request,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.info("Generic export request - userId: {}, type: {}, format: {}, startDate: {}, endDate: {}",
                 request.getUserId(), request.getExportType(), request.getFormat(),
                 request.getStartDate(), request.getEndDate());
 
-        return generateDownloadResponse(request);
+        return generateDownloadResponse(request, ifNoneMatch);
     }
 
     /**
@@ -212,7 +234,8 @@ public class ReportController {
     }
 
     /**
-     * Generic email endpoint
+     * Generic email endpoint.  Returns once the email is queued in the outbox; the
+     * report is rendered and sent in the background.
      * POST /api/reports/email
      */
     @PostMapping("/email")
@@ -231,28 +254,124 @@ public class ReportController {
     }
 
     /**
-     * Helper method to generate download response
+     * Queue a report for background rendering (any format, optionally gzip-compressed).
+     * Returns {@code 202} with a {@code jobId}; poll {@code GET /api/reports/jobs/{jobId}}
+     * and fetch the file from its {@code downloadUrl} once the job has succeeded.
+     * POST /api/reports/jobs
      */
-    private ResponseEntity<byte[]> generateDownloadResponse(ExportRequest request) {
-        try {
-            byte[] reportData = reportService.generateReport(request);
-            String fileName = reportService.generateFileName(request);
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentDispositionFormData("attachment", fileName);
-
-            MediaType contentType = request.getFormat() == ExportRequest.ExportFormat.EXCEL ?
-                    MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet") :
-                    MediaType.APPLICATION_PDF;
-            headers.setContentType(contentType);
-            headers.setContentLength(reportData.length);
-
-            logger.info("Report generated successfully - fileName: {}, size: {} bytes", fileName, reportData.length);
-            return new ResponseEntity<>(reportData, headers, HttpStatus.OK);
-
-        } catch (IOException e) {
-            logger.error("Error generating report", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    @PostMapping("/jobs")
+    public ResponseEntity<ReportJobResponse> submitReportJob(@RequestBody ExportRequest request) {
+        logger.info("Report job request - userId: {}, type: {}, format: {}, startDate: {}, endDate: {}",
+                request.getUserId(), request.getExportType(), request.getFormat(),
+                request.getStartDate(), request.getEndDate());
+
+        ReportJob job = reportJobService.submitDownload(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reportJobService.getJob(job.getJobId(), job.getUserId()));
+    }
+
+    /**
+     * Queue a report email; returns {@code 202} once it is in the email outbox, which
+     * renders, sends and retries it in the background like {@code POST /api/reports/email}.
+     * POST /api/reports/jobs/email
+     */
+    @PostMapping("/jobs/email")
+    public ResponseEntity<ExportResponse> submitEmailReportJob(@RequestBody EmailExportRequest request) {
+        logger.info("Email report job request - userId: {}, email: {}, type: {}, format: {}, startDate: {}, endDate: {}",
+                request.getUserId(), request.getEmail(), request.getExportType(), request.getFormat(),
+                request.getStartDate(), request.getEndDate());
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reportService.generateAndEmailReport(request));
+    }
+
+    /**
+     * Status of a background report job
+     * GET /api/reports/jobs/{jobId}?userId={userId}
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ReportJobResponse> getReportJob(@PathVariable String jobId,
+                                                          @RequestParam String userId) {
+        return ResponseEntity.ok(reportJobService.getJob(jobId, userId));
+    }
+
+    /**
+     * Download the file rendered by a background report job.  The file is served from
+     * disk with a Content-Length, and {@code Range} requests are answered with
+     * {@code 206 Partial Content} so interrupted downloads can resume.
+     * GET /api/reports/jobs/{jobId}/download?userId={userId}
+     */
+    @GetMapping("/jobs/{jobId}/download")
+    public ResponseEntity<Resource> downloadReportJob(@PathVariable String jobId,
+                                                      @RequestParam String userId) {
+        ReportJob job = reportJobService.getDownloadableJob(jobId, userId);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDispositionFormData("attachment", job.getFileName());
+        headers.setContentType(MediaType.parseMediaType(job.getContentType()));
+
+        logger.info("Serving report job {} - fileName: {}", jobId, job.getFileName());
+        return new ResponseEntity<>(new FileSystemResource(job.getArtifactPath()), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Subscribe to (or update) the monthly statement, emailed on the 1st of every
+     * month with the previous month's report
+     * PUT /api/reports/monthly-statement
+     */
+    @PutMapping("/monthly-statement")
+    public ResponseEntity<MonthlyStatementSubscriptionResponse> subscribeMonthlyStatement(
+            @RequestBody MonthlyStatementSubscriptionRequest request) {
+        logger.info("Monthly statement subscription request - userId: {}, email: {}, type: {}, format: {}",
+                request.getUserId(), request.getEmail(), request.getExportType(), request.getFormat());
+        return ResponseEntity.ok(monthlyStatementService.subscribe(request));
+    }
+
+    /**
+     * Monthly statement subscription and recent deliveries
+     * GET /api/reports/monthly-statement?userId={userId}
+     */
+    @GetMapping("/monthly-statement")
+    public ResponseEntity<MonthlyStatementSubscriptionResponse> getMonthlyStatement(@RequestParam String userId) {
+        return ResponseEntity.ok(monthlyStatementService.getSubscription(userId));
+    }
+
+    /**
+     * Stop the monthly statement
+     * DELETE /api/reports/monthly-statement?userId={userId}
+     */
+    @DeleteMapping("/monthly-statement")
+    public ResponseEntity<Void> unsubscribeMonthlyStatement(@RequestParam String userId) {
+        logger.info("Monthly statement unsubscribe request - userId: {}", userId);
+        monthlyStatementService.unsubscribe(userId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Helper method to generate download response.  The report is rendered from a
+     * row cursor straight to the servlet output stream, so no copy of it is held in
+     * the heap and no Content-Length is sent.  Closed periods are served from the
+     * report cache instead, with an ETag and Content-Length; a matching
+     * {@code If-None-Match} gets {@code 304 Not Modified}.
+     */
+    private ResponseEntity<StreamingResponseBody> generateDownloadResponse(ExportRequest request, String ifNoneMatch) {
+        ReportDownload download = reportService.prepareDownload(request, ifNoneMatch);
+        String fileName = reportService.generateFileName(request);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (download.getEtag() != null) {
+            headers.setETag(download.getEtag());
+        }
+        if (download.isNotModified()) {
+            logger.info("Report not modified - fileName: {}", fileName);
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
         }
+
+        headers.setContentDispositionFormData("attachment", fileName);
+        headers.setContentType(reportService.getContentType(request));
+        if (download.getContentLength() != null) {
+            headers.setContentLength(download.getContentLength());
+        }
+
+        logger.info("Streaming report - fileName: {}", fileName);
+        return new ResponseEntity<>(download.getBody(), headers, HttpStatus.OK);
     }
 }
@@ -26,7 +26,7 @@ public class EmailExportRequest {
     private ExportRequest.ExportType exportType = ExportRequest.ExportType.BOTH;
 
     /**
-     * Format: EXCEL or PDF
+     * Format: EXCEL, PDF, CSV or NDJSON
      */
     private ExportRequest.ExportFormat format = ExportRequest.ExportFormat.EXCEL;
 
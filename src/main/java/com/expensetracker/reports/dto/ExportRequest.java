@@ -26,15 +26,20 @@ public class ExportRequest {
     private ExportType exportType = ExportType.BOTH;
 
     /**
-     * Format: EXCEL or PDF
+     * Format: EXCEL, PDF, CSV or NDJSON (JSON Lines)
      */
     private ExportFormat format = ExportFormat.EXCEL;
 
+    /**
+     * Gzip-compress the file (adds {@code .gz} to the file name); most useful for CSV and NDJSON
+     */
+    private boolean gzip = false;
+
     public enum ExportType {
         EXPENSES, INCOME, BOTH
     }
 
     public enum ExportFormat {
-        EXCEL, PDF
+        EXCEL, PDF, CSV, NDJSON
     }
 }
@@ -0,0 +1,31 @@
+package com.expensetracker.reports.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Opt-in to the monthly statement email, sent on the 1st for the previous month.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyStatementSubscriptionRequest {
+
+    private String userId;
+
+    /**
+     * Email address the statements are sent to
+     */
+    private String email;
+
+    /**
+     * Export type: EXPENSES, INCOME, or BOTH
+     */
+    private ExportRequest.ExportType exportType = ExportRequest.ExportType.BOTH;
+
+    /**
+     * Format: EXCEL, PDF, CSV or NDJSON
+     */
+    private ExportRequest.ExportFormat format = ExportRequest.ExportFormat.PDF;
+}
@@ -0,0 +1,31 @@
+package com.expensetracker.reports.dto;
+
+import com.expensetracker.reports.model.MonthlyStatementDelivery;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A user's monthly statement subscription, returned by {@code GET /api/reports/monthly-statement}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MonthlyStatementSubscriptionResponse {
+
+    private String userId;
+    private String email;
+    private ExportRequest.ExportType exportType;
+    private ExportRequest.ExportFormat format;
+    private boolean enabled;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime updatedAt;
+
+    /** Most recent statements first. */
+    private List<MonthlyStatementDelivery> recentDeliveries;
+}
@@ -0,0 +1,47 @@
+package com.expensetracker.reports.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status of a background report job, returned by {@code GET /api/reports/jobs/{jobId}}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReportJobResponse {
+
+    private String jobId;
+
+    /** DOWNLOAD */
+    private String jobType;
+
+    /** QUEUED | RUNNING | SUCCEEDED | FAILED */
+    private String status;
+
+    private String fileName;
+
+    /** Present once a download job has succeeded. */
+    private String downloadUrl;
+    private Long fileSizeBytes;
+
+    /** Present once the job has failed. */
+    private String errorMessage;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    /** When the download and this status are deleted. */
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,88 @@
+package com.expensetracker.reports.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A report email waiting to be (or already) delivered.  Rows are written by
+ * {@link com.expensetracker.reports.service.ReportService#generateAndEmailReport}
+ * and advanced by {@link com.expensetracker.reports.service.EmailOutboxDispatcher}
+ * with conditional JDBC updates, so a message is sent by one node at a time.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "email_outbox")
+public class EmailOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "outbox_id")
+    private Long outboxId;
+
+    @Column(name = "user_id", nullable = false, length = 100)
+    private String userId;
+
+    @Column(name = "email", nullable = false, length = 255)
+    private String email;
+
+    /** Serialized {@link com.expensetracker.reports.dto.EmailExportRequest}. */
+    @Column(name = "request_json", nullable = false, columnDefinition = "TEXT")
+    private String requestJson;
+
+    @Column(name = "file_name", nullable = false, length = 255)
+    private String fileName;
+
+    @Column(name = "status", nullable = false, length = 10)
+    private String status; // PENDING | SENDING | RETRY | SENT | FAILED
+
+    /** Identifies the batch that claimed the row; cleared when it is released. */
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "owner", length = 255)
+    private String owner;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "parts_sent", nullable = false)
+    private Integer partsSent;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "claimed_at")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "sent_at")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime sentAt;
+
+    @Column(name = "total_records")
+    private Integer totalRecords;
+
+    /** Outcome of the send, e.g. how many emails were sent. */
+    @Column(name = "message", length = 500)
+    private String message;
+
+    /** Error of the most recent failed attempt. */
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime updatedAt;
+}
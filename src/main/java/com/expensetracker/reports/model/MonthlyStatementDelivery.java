@@ -0,0 +1,78 @@
+package com.expensetracker.reports.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one user's statement for one month.  Rows are created and advanced
+ * through {@link com.expensetracker.reports.service.MonthlyStatementService} with
+ * conditional JDBC updates, so a statement is claimed by one node at a time and is
+ * not sent again once SENT.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "monthly_statement_delivery",
+       uniqueConstraints = {@UniqueConstraint(columnNames = {"user_id", "statement_month"})})
+public class MonthlyStatementDelivery {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "delivery_id")
+    private Long deliveryId;
+
+    @Column(name = "user_id", nullable = false, length = 100)
+    private String userId;
+
+    /** The month the statement covers, as {@code yyyy-MM}. */
+    @Column(name = "statement_month", nullable = false, length = 7)
+    private String statementMonth;
+
+    @Column(name = "status", nullable = false, length = 10)
+    private String status; // PENDING | SENDING | RETRY | SENT | SKIPPED | FAILED
+
+    @Column(name = "owner", length = 255)
+    private String owner;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "parts_sent", nullable = false)
+    private Integer partsSent;
+
+    @Column(name = "total_records")
+    private Integer totalRecords;
+
+    @Column(name = "file_name", length = 255)
+    private String fileName;
+
+    /** Outcome of the send, e.g. how many emails were sent. */
+    @Column(name = "message", length = 500)
+    private String message;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    /** Earliest time a RETRY row is picked up again. */
+    @Column(name = "next_attempt_at")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "sent_at")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime sentAt;
+
+    @Column(name = "created_at", nullable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,86 @@
+package com.expensetracker.reports.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A background report render for download. Rows are created and advanced
+ * through {@link com.expensetracker.reports.service.ReportJobService}; status
+ * transitions are conditional JDBC updates so two nodes never run the same job.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "report_job")
+public class ReportJob {
+
+    @Id
+    @Column(name = "job_id", length = 36)
+    private String jobId;
+
+    @Column(name = "user_id", nullable = false, length = 100)
+    private String userId;
+
+    @Column(name = "job_type", nullable = false, length = 10)
+    private String jobType; // DOWNLOAD
+
+    @Column(name = "status", nullable = false, length = 10)
+    private String status; // QUEUED | RUNNING | SUCCEEDED | FAILED
+
+    /** Serialized {@link com.expensetracker.reports.dto.ExportRequest}. */
+    @Column(name = "request_json", nullable = false, columnDefinition = "TEXT")
+    private String requestJson;
+
+    @Column(name = "file_name", nullable = false, length = 255)
+    private String fileName;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    /** Rendered report on the owner's disk; set once a download job succeeds. */
+    @Column(name = "artifact_path", length = 500)
+    private String artifactPath;
+
+    @Column(name = "artifact_bytes")
+    private Long artifactBytes;
+
+    @Column(name = "owner", length = 255)
+    private String owner;
+
+    /** Set on every claim; only the run holding the current token may heartbeat or finish the job. */
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @Column(name = "started_at")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+
+    /** When the artifact and this row are removed by the cleanup task. */
+    @Column(name = "expires_at")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime expiresAt;
+
+    @Column(name = "updated_at", nullable = false)
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,12 @@
+package com.expensetracker.reports.repository;
+
+import com.expensetracker.reports.model.EmailOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+    List<EmailOutboxMessage> findByClaimTokenOrderByOutboxId(String claimToken);
+}
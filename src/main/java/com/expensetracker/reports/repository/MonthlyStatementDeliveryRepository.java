@@ -0,0 +1,17 @@
+package com.expensetracker.reports.repository;
+
+import com.expensetracker.reports.model.MonthlyStatementDelivery;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MonthlyStatementDeliveryRepository extends JpaRepository<MonthlyStatementDelivery, Long> {
+    Optional<MonthlyStatementDelivery> findByUserIdAndStatementMonth(String userId, String statementMonth);
+    List<MonthlyStatementDelivery> findTop20ByUserIdOrderByStatementMonthDesc(String userId);
+    List<MonthlyStatementDelivery> findByStatusAndNextAttemptAtBefore(String status, LocalDateTime dueBefore);
+    List<MonthlyStatementDelivery> findByStatusAndUpdatedAtBefore(String status, LocalDateTime updatedBefore);
+}
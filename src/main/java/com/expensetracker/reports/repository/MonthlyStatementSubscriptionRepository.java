@@ -0,0 +1,18 @@
+package com.expensetracker.reports.repository;
+
+import com.expensetracker.reports.model.MonthlyStatementSubscription;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MonthlyStatementSubscriptionRepository extends JpaRepository<MonthlyStatementSubscription, String> {
+
+    @Query("SELECT s.userId FROM MonthlyStatementSubscription s WHERE s.enabled = true")
+    List<String> findEnabledUserIds();
+
+    List<MonthlyStatementSubscription> findByUserIdInAndEnabledTrue(Collection<String> userIds);
+}
@@ -0,0 +1,17 @@
+package com.expensetracker.reports.repository;
+
+import com.expensetracker.reports.model.ReportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReportJobRepository extends JpaRepository<ReportJob, String> {
+    Optional<ReportJob> findByJobIdAndUserId(String jobId, String userId);
+    List<ReportJob> findByStatusInAndUpdatedAtBefore(Collection<String> statuses, LocalDateTime updatedBefore);
+    List<ReportJob> findByExpiresAtBefore(LocalDateTime expiresBefore);
+}
@@ -0,0 +1,55 @@
+package com.expensetracker.reports.service;
+
+import com.expensetracker.model.Expense;
+import com.expensetracker.model.Income;
+
+import java.math.BigDecimal;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Counts the rows a renderer visits, so the record count of a report comes from
+ * the same pass that wrote it.  Sections the export type leaves out are never
+ * visited and count as zero.
+ */
+class CountingReportRows implements ReportRows {
+
+    private final ReportRows delegate;
+    private long expenseCount;
+    private long incomeCount;
+
+    CountingReportRows(ReportRows delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void forEachExpense(BiConsumer<Expense, BigDecimal> handler) {
+        expenseCount = 0;
+        delegate.forEachExpense((expense, adjustments) -> {
+            expenseCount++;
+            handler.accept(expense, adjustments);
+        });
+    }
+
+    @Override
+    public void forEachIncome(Consumer<Income> handler) {
+        incomeCount = 0;
+        delegate.forEachIncome(income -> {
+            incomeCount++;
+            handler.accept(income);
+        });
+    }
+
+    @Override
+    public ReportSummary summarize() {
+        return delegate.summarize();
+    }
+
+    long getExpenseCount() {
+        return expenseCount;
+    }
+
+    int getRecordCount() {
+        return Math.toIntExact(expenseCount + incomeCount);
+    }
+}
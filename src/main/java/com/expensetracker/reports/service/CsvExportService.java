@@ -0,0 +1,140 @@
+package com.expensetracker.reports.service;
+
+import com.expensetracker.model.Expense;
+import com.expensetracker.model.Income;
+import com.expensetracker.reports.dto.ExportRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Writes a report as one RFC 4180 CSV table, row by row.
+ *
+ * <p>Expenses and income share the table and are told apart by {@code record_type};
+ * columns that do not apply to a record are left empty.  Amounts are written as
+ * plain decimals and dates in ISO format, so the file loads into BI tools without
+ * locale handling.  Values are appended straight into a large buffered writer; a
+ * field is only quoted when it contains a delimiter, quote or line break.</p>
+ */
+@Service
+public class CsvExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvExportService.class);
+
+    static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    static final int WRITE_BUFFER_CHARS = 64 * 1024;
+
+    private static final String HEADER =
+            "record_type,id,date,name,category,amount,adjustments,net_amount,month,year,last_updated\n";
+
+    /**
+     * Writes the report to {@code out}; {@code out} is flushed but not closed.
+     */
+    public void writeReport(ReportRows rows,
+                            Map<Integer, String> categoryMap,
+                            ExportRequest.ExportType exportType,
+                            OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_CHARS);
+        long[] count = {0};
+        try {
+            writer.write(HEADER);
+            if (exportType == ExportRequest.ExportType.EXPENSES || exportType == ExportRequest.ExportType.BOTH) {
+                rows.forEachExpense((expense, adjustment) -> {
+                    writeExpense(writer, expense, adjustment, categoryMap);
+                    count[0]++;
+                });
+            }
+            if (exportType == ExportRequest.ExportType.INCOME || exportType == ExportRequest.ExportType.BOTH) {
+                rows.forEachIncome(income -> {
+                    writeIncome(writer, income);
+                    count[0]++;
+                });
+            }
+            writer.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        logger.info("CSV report written: {} rows", count[0]);
+    }
+
+    private static void writeExpense(Writer writer, Expense expense, BigDecimal adjustment,
+                                     Map<Integer, String> categoryMap) {
+        BigDecimal amount = expense.getExpenseAmount() != null ? expense.getExpenseAmount() : BigDecimal.ZERO;
+        BigDecimal adjusted = adjustment != null ? adjustment : BigDecimal.ZERO;
+        BigDecimal net = amount.subtract(adjusted).max(BigDecimal.ZERO);
+        try {
+            writer.write("expense,");
+            writer.write(String.valueOf(expense.getExpensesId()));
+            writer.write(',');
+            if (expense.getExpenseDate() != null) writer.write(expense.getExpenseDate().toString());
+            writer.write(',');
+            writeField(writer, expense.getExpenseName());
+            writer.write(',');
+            writeField(writer, categoryMap.getOrDefault(expense.getUserExpenseCategoryId(), "Unknown"));
+            writer.write(',');
+            writer.write(amount.toPlainString());
+            writer.write(',');
+            writer.write(adjusted.toPlainString());
+            writer.write(',');
+            writer.write(net.toPlainString());
+            writer.write(",,,");
+            if (expense.getLastUpdateTmstp() != null) writer.write(TIMESTAMP_FORMATTER.format(expense.getLastUpdateTmstp()));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeIncome(Writer writer, Income income) {
+        try {
+            writer.write("income,");
+            writer.write(String.valueOf(income.getIncomeId()));
+            writer.write(',');
+            if (income.getReceivedDate() != null) writer.write(income.getReceivedDate().toString());
+            writer.write(',');
+            writeField(writer, income.getSource());
+            writer.write(",,");
+            if (income.getAmount() != null) writer.write(income.getAmount().toPlainString());
+            writer.write(",,,");
+            writeField(writer, income.getMonth());
+            writer.write(',');
+            if (income.getYear() != null) writer.write(String.valueOf(income.getYear()));
+            writer.write(',');
+            if (income.getLastUpdateTmstp() != null) writer.write(TIMESTAMP_FORMATTER.format(income.getLastUpdateTmstp()));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Writes a text field, quoting it only when needed. */
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value == null || value.isEmpty()) return;
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,239 @@
+package com.expensetracker.reports.service;
+
+import com.expensetracker.exception.BadRequestException;
+import com.expensetracker.reports.dto.EmailExportRequest;
+import com.expensetracker.reports.dto.ExportResponse;
+import com.expensetracker.reports.model.EmailOutboxMessage;
+import com.expensetracker.reports.repository.EmailOutboxRepository;
+import com.expensetracker.service.SchedulerLockService;
+import com.expensetracker.util.ClaimedJobs;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers the report emails queued in the {@code email_outbox} table (see
+ * {@code db/email_outbox.sql}).
+ *
+ * <p>Every {@code app.reports.outbox.poll-interval-ms} a single dispatcher thread per
+ * node claims up to {@code batch-size} due rows with one conditional
+ * {@code UPDATE ... LIMIT}, tagging them with a claim token, then renders and sends
+ * them one after another.  Sending from one thread keeps the batch on one kept-alive
+ * connection of the {@link PooledMailSender}.  The dispatcher keeps claiming batches
+ * until none are due.</p>
+ *
+ * <p>Each claim counts as an attempt.  A failed send is retried with capped
+ * exponential backoff from {@code retry-backoff-seconds} until {@code max-attempts},
+ * then marked FAILED; an invalid request fails at once.  Rows left SENDING by a node
+ * that stopped are released after {@code stale-minutes}, so a message interrupted
+ * after the SMTP send may be delivered twice.  A report split into parts records each
+ * part as it goes out, and a retry sends only the rest.  SENT and FAILED rows are
+ * deleted after {@code retention-days}.</p>
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SENDING = "SENDING";
+    public static final String STATUS_RETRY   = "RETRY";
+    public static final String STATUS_SENT    = "SENT";
+    public static final String STATUS_FAILED  = "FAILED";
+
+    private static final String CLAIM_BATCH_SQL =
+            "UPDATE email_outbox SET status = 'SENDING', claim_token = ?, owner = ?, claimed_at = ?, " +
+            "attempts = attempts + 1, updated_at = ? " +
+            "WHERE status IN ('PENDING', 'RETRY') AND next_attempt_at <= ? ORDER BY next_attempt_at, outbox_id LIMIT ?";
+    private static final String TOUCH_SQL =
+            "UPDATE email_outbox SET claimed_at = ?, updated_at = ? WHERE outbox_id = ? AND claim_token = ? AND status = 'SENDING'";
+    private static final String PARTS_SENT_SQL =
+            "UPDATE email_outbox SET parts_sent = ?, claimed_at = ?, updated_at = ? " +
+            "WHERE outbox_id = ? AND claim_token = ? AND status = 'SENDING'";
+    private static final String SENT_SQL =
+            "UPDATE email_outbox SET status = 'SENT', claim_token = NULL, sent_at = ?, total_records = ?, message = ?, " +
+            "last_error = NULL, updated_at = ? WHERE outbox_id = ? AND claim_token = ? AND status = 'SENDING'";
+    private static final String FAILED_SQL =
+            "UPDATE email_outbox SET status = ?, claim_token = NULL, next_attempt_at = ?, last_error = ?, updated_at = ? " +
+            "WHERE outbox_id = ? AND claim_token = ? AND status = 'SENDING'";
+    private static final String RELEASE_STALE_SQL =
+            "UPDATE email_outbox SET status = CASE WHEN attempts >= ? THEN 'FAILED' ELSE 'RETRY' END, " +
+            "claim_token = NULL, next_attempt_at = ?, last_error = 'Interrupted while sending.', updated_at = ? " +
+            "WHERE status = 'SENDING' AND claimed_at < ?";
+    private static final String DELETE_FINISHED_SQL =
+            "DELETE FROM email_outbox WHERE status IN ('SENT', 'FAILED') AND updated_at < ?";
+
+    private final EmailOutboxRepository outboxRepository;
+    private final ReportService reportService;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId;
+    private final Path workDir;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final long staleMinutes;
+    private final long retentionDays;
+    private final ExecutorService dispatcher;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    public EmailOutboxDispatcher(EmailOutboxRepository outboxRepository,
+                                 ReportService reportService,
+                                 ObjectMapper objectMapper,
+                                 JdbcTemplate jdbcTemplate,
+                                 SchedulerLockService schedulerLockService,
+                                 @Value("${app.reports.outbox.work-dir:${java.io.tmpdir}/expense-tracker/outbox}") String workDir,
+                                 @Value("${app.reports.outbox.batch-size:20}") int batchSize,
+                                 @Value("${app.reports.outbox.max-attempts:6}") int maxAttempts,
+                                 @Value("${app.reports.outbox.retry-backoff-seconds:30}") long retryBackoffSeconds,
+                                 @Value("${app.reports.outbox.max-retry-backoff-minutes:60}") long maxRetryBackoffMinutes,
+                                 @Value("${app.reports.outbox.stale-minutes:15}") long staleMinutes,
+                                 @Value("${app.reports.outbox.retention-days:30}") long retentionDays) {
+        this.outboxRepository = outboxRepository;
+        this.reportService    = reportService;
+        this.objectMapper     = objectMapper;
+        this.jdbcTemplate     = jdbcTemplate;
+        this.nodeId           = schedulerLockService.getNodeId();
+        this.workDir          = Path.of(workDir);
+        this.batchSize        = Math.max(1, batchSize);
+        this.maxAttempts      = Math.max(1, maxAttempts);
+        this.retryBackoff     = Duration.ofSeconds(Math.max(1, retryBackoffSeconds));
+        this.maxRetryBackoff  = Duration.ofMinutes(Math.max(1, maxRetryBackoffMinutes));
+        this.staleMinutes     = Math.max(1, staleMinutes);
+        this.retentionDays    = Math.max(1, retentionDays);
+        this.dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "email-outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    /**
+     * Starts draining the outbox on the dispatcher thread unless it is already busy;
+     * the scheduler thread never waits for SMTP.
+     */
+    @Scheduled(fixedDelayString = "${app.reports.outbox.poll-interval-ms:2000}",
+               initialDelayString = "${app.reports.outbox.poll-initial-delay-ms:10000}")
+    public void poll() {
+        if (!draining.compareAndSet(false, true)) return;
+        try {
+            dispatcher.execute(() -> {
+                try {
+                    drain();
+                } finally {
+                    draining.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            draining.set(false); // Shutting down
+        }
+    }
+
+    /**
+     * Releases rows whose claim has outlived {@code stale-minutes} and deletes
+     * finished rows past {@code retention-days}.
+     */
+    @Scheduled(fixedDelayString = "${app.reports.outbox.maintenance-interval-ms:60000}",
+               initialDelayString = "${app.reports.outbox.maintenance-initial-delay-ms:30000}")
+    public void maintain() {
+        LocalDateTime now = LocalDateTime.now();
+        int released = jdbcTemplate.update(RELEASE_STALE_SQL, maxAttempts, now, now, now.minusMinutes(staleMinutes));
+        if (released > 0) {
+            logger.warn("Released {} outbox email(s) left sending by a stopped node", released);
+        }
+        int deleted = jdbcTemplate.update(DELETE_FINISHED_SQL, now.minusDays(retentionDays));
+        if (deleted > 0) {
+            logger.info("Deleted {} finished outbox email(s)", deleted);
+        }
+    }
+
+    /** Claims and sends due batches until none are left; runs on the dispatcher thread. */
+    void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            String claimToken = UUID.randomUUID().toString();
+            LocalDateTime now = LocalDateTime.now();
+            if (jdbcTemplate.update(CLAIM_BATCH_SQL, claimToken, nodeId, now, now, now, batchSize) == 0) {
+                return;
+            }
+            List<EmailOutboxMessage> batch = outboxRepository.findByClaimTokenOrderByOutboxId(claimToken);
+            logger.debug("Claimed {} outbox email(s)", batch.size());
+            for (EmailOutboxMessage message : batch) {
+                send(message, claimToken);
+            }
+        }
+    }
+
+    private void send(EmailOutboxMessage message, String claimToken) {
+        Long id = message.getOutboxId();
+        LocalDateTime started = LocalDateTime.now();
+        // Restarts the stale clock, which runs from the claim, for the rows later in the batch
+        if (jdbcTemplate.update(TOUCH_SQL, started, started, id, claimToken) == 0) {
+            return; // Released as stale meanwhile
+        }
+        Path workFile = null;
+        try {
+            EmailExportRequest request = objectMapper.readValue(message.getRequestJson(), EmailExportRequest.class);
+            Files.createDirectories(workDir);
+            workFile = Files.createTempFile(workDir, "outbox-" + id + "-", ".tmp");
+            ExportResponse response = reportService.emailReport(request, workFile, message.getPartsSent(), sent -> {
+                LocalDateTime now = LocalDateTime.now();
+                jdbcTemplate.update(PARTS_SENT_SQL, sent, now, now, id, claimToken);
+            });
+            LocalDateTime now = LocalDateTime.now();
+            jdbcTemplate.update(SENT_SQL, now, response.getTotalRecords(), response.getMessage(), now, id, claimToken);
+            logger.info("Outbox email {} sent {} to {}", id, message.getFileName(), message.getEmail());
+        } catch (BadRequestException e) {
+            fail(message, claimToken, e.getMessage());
+            logger.warn("Outbox email {} cannot be sent: {}", id, e.getMessage());
+        } catch (MessagingException e) {
+            retryOrFail(message, claimToken, "Failed to send email: " + e.getMessage());
+            logger.warn("Outbox email {} could not be sent (attempt {}): {}", id, message.getAttempts(), e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            retryOrFail(message, claimToken, "Failed to generate report: " + e.getMessage());
+            logger.error("Outbox email {} failed (attempt {})", id, message.getAttempts(), e);
+        } finally {
+            ClaimedJobs.deleteQuietly(workFile);
+        }
+    }
+
+    private void retryOrFail(EmailOutboxMessage message, String claimToken, String error) {
+        int attempt = message.getAttempts();
+        if (attempt >= maxAttempts) {
+            fail(message, claimToken, error);
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(FAILED_SQL, STATUS_RETRY, now.plus(ClaimedJobs.retryBackoff(retryBackoff, maxRetryBackoff, attempt)),
+                ClaimedJobs.truncateError(error), now,
+                message.getOutboxId(), claimToken);
+    }
+
+    private void fail(EmailOutboxMessage message, String claimToken, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(FAILED_SQL, STATUS_FAILED, now, ClaimedJobs.truncateError(error), now, message.getOutboxId(), claimToken);
+    }
+}
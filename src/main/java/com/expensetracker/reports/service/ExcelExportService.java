@@ -1,22 +1,20 @@
 package com.expensetracker.reports.service;
 
-import com.expensetracker.model.Expense;
-import com.expensetracker.model.Income;
 import com.expensetracker.model.UserExpenseCategory;
 import com.expensetracker.reports.dto.ExportRequest;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.OutputStream;
+import java.text.DecimalFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 import java.util.Map;
 
 @Service
@@ -24,21 +22,39 @@ public class ExcelExportService {
 
     private static final Logger logger = LoggerFactory.getLogger(ExcelExportService.class);
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final String TIMESTAMP_PATTERN = "yyyy-MM-dd HH:mm";
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern(TIMESTAMP_PATTERN);
+
+    /** Mirrors the currency cell format, to estimate how wide an amount renders. */
+    private static final ThreadLocal<DecimalFormat> AMOUNT_WIDTH_FORMAT =
+            ThreadLocal.withInitial(() -> new DecimalFormat("#,##0.00"));
+    /** Excel's own limit is 255 characters; wider columns are unreadable anyway. */
+    private static final int MAX_COLUMN_CHARS = 80;
+
+    private final int rowWindow;
+    private final int widthSampleRows;
+
+    public ExcelExportService(@Value("${app.reports.excel.row-window:100}") int rowWindow,
+                              @Value("${app.reports.excel.width-sample-rows:500}") int widthSampleRows) {
+        this.rowWindow       = Math.max(1, rowWindow);
+        this.widthSampleRows = Math.max(0, widthSampleRows);
+    }
 
     /**
-     * Generate Excel report for expenses and/or income.
-     *
-     * @param incomeStartDate actual start date used to fetch incomes (may differ from startDate when preference is P)
-     * @param incomeEndDate   actual end date used to fetch incomes
-     * @param incomeMonthPref user's income month preference ("C" or "P")
+     * Writes the Excel report to {@code out} with a row-windowed {@link SXSSFWorkbook}:
+     * only the last {@code app.reports.excel.row-window} rows of a sheet stay in the
+     * heap, older rows are flushed to a compressed temp file, so memory stays flat
+     * however many rows {@code rows} yields.  Column widths are computed from the
+     * first {@code app.reports.excel.width-sample-rows} data rows instead of
+     * {@code autoSizeColumn}, which would need every row in memory.
      */
-    public byte[] generateReport(List<Expense> expenses, List<Income> incomes,
-                                  Map<Integer, String> categoryMap,
-                                  Map<Integer, BigDecimal> adjustmentsMap,
-                                  ExportRequest.ExportType exportType,
-                                  LocalDate startDate, LocalDate endDate,
-                                  LocalDate incomeStartDate, LocalDate incomeEndDate,
-                                  String incomeMonthPref) throws IOException {
+    public void writeReport(ReportRows rows,
+                            Map<Integer, String> categoryMap,
+                            ExportRequest.ExportType exportType,
+                            LocalDate startDate, LocalDate endDate,
+                            LocalDate incomeStartDate, LocalDate incomeEndDate,
+                            String incomeMonthPref,
+                            OutputStream out) throws IOException {
 
         logger.info("Generating Excel report for type: {}, expense range: {} to {}, income range: {} to {} (pref={})",
                 exportType, startDate, endDate, incomeStartDate, incomeEndDate, incomeMonthPref);
@@ -47,53 +63,96 @@ public class ExcelExportService {
         LocalDate effectiveIncomeStart = incomeStartDate != null ? incomeStartDate : startDate;
         LocalDate effectiveIncomeEnd = incomeEndDate != null ? incomeEndDate : endDate;
 
-        try (Workbook workbook = new XSSFWorkbook();
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        workbook.setCompressTempFiles(true);
+        try {
             // Create cell styles
             CellStyle headerStyle = createHeaderStyle(workbook);
             CellStyle dateStyle = createDateStyle(workbook);
             CellStyle currencyStyle = createCurrencyStyle(workbook);
             CellStyle titleStyle = createTitleStyle(workbook);
+            Totals totals = new Totals();
 
             // Create Expenses sheet if needed
             if (exportType == ExportRequest.ExportType.EXPENSES || exportType == ExportRequest.ExportType.BOTH) {
-                createExpensesSheet(workbook, expenses, categoryMap, adjustmentsMap, headerStyle, dateStyle, currencyStyle, titleStyle, startDate, endDate);
+                createExpensesSheet(workbook, rows, categoryMap, totals, headerStyle, dateStyle, currencyStyle, titleStyle, startDate, endDate);
             }
 
             // Create Income sheet if needed
             if (exportType == ExportRequest.ExportType.INCOME || exportType == ExportRequest.ExportType.BOTH) {
-                createIncomeSheet(workbook, incomes, headerStyle, dateStyle, currencyStyle, titleStyle,
+                createIncomeSheet(workbook, rows, totals, headerStyle, dateStyle, currencyStyle, titleStyle,
                         effectiveIncomeStart, effectiveIncomeEnd, incomeMonthPref);
             }
 
             // Create Summary sheet if both
             if (exportType == ExportRequest.ExportType.BOTH) {
-                createSummarySheet(workbook, expenses, incomes, adjustmentsMap, headerStyle, currencyStyle, titleStyle,
+                createSummarySheet(workbook, totals, headerStyle, currencyStyle, titleStyle,
                         startDate, endDate, effectiveIncomeStart, effectiveIncomeEnd, incomeMonthPref);
             }
 
-            workbook.write(outputStream);
-            logger.info("Excel report generated successfully");
-            return outputStream.toByteArray();
+            workbook.write(out);
+            logger.info("Excel report generated successfully ({} expense rows, {} income rows)",
+                    totals.expenseCount, totals.incomeCount);
+        } finally {
+            workbook.dispose(); // Deletes the row temp files
+            workbook.close();
         }
     }
 
+    /** Running totals collected while the data sheets stream, for the total rows and the Summary sheet. */
+    private static class Totals {
+        double expenseAmount;
+        double adjustments;
+        double netExpenses;
+        double incomeAmount;
+        int expenseCount;
+        int incomeCount;
+    }
+
     /**
-     * Overload for backward compatibility — uses expense range as income range (preference C).
+     * Tracks the widest text per column over the first sampled data rows; header
+     * and title text is always included.
      */
-    public byte[] generateReport(List<Expense> expenses, List<Income> incomes,
-                                  Map<Integer, String> categoryMap,
-                                  Map<Integer, BigDecimal> adjustmentsMap,
-                                  ExportRequest.ExportType exportType,
-                                  LocalDate startDate, LocalDate endDate) throws IOException {
-        return generateReport(expenses, incomes, categoryMap, adjustmentsMap,
-                exportType, startDate, endDate, startDate, endDate, "C");
+    private class ColumnWidths {
+        private final int[] maxChars;
+        private int sampledRows;
+
+        ColumnWidths(String[] headers) {
+            maxChars = new int[headers.length];
+            for (int i = 0; i < headers.length; i++) {
+                maxChars[i] = headers[i].length();
+            }
+        }
+
+        boolean sampling() {
+            return sampledRows < widthSampleRows;
+        }
+
+        void sample(int column, String text) {
+            if (text != null && text.length() > maxChars[column]) {
+                maxChars[column] = text.length();
+            }
+        }
+
+        void sampleAmount(int column, double amount) {
+            sample(column, AMOUNT_WIDTH_FORMAT.get().format(amount));
+        }
+
+        void rowDone() {
+            sampledRows++;
+        }
+
+        void apply(Sheet sheet) {
+            for (int i = 0; i < maxChars.length; i++) {
+                int chars = Math.min(maxChars[i] + 2, MAX_COLUMN_CHARS);
+                sheet.setColumnWidth(i, chars * 256);
+            }
+        }
     }
 
-    private void createExpensesSheet(Workbook workbook, List<Expense> expenses,
+    private void createExpensesSheet(SXSSFWorkbook workbook, ReportRows rows,
                                       Map<Integer, String> categoryMap,
-                                      Map<Integer, BigDecimal> adjustmentsMap,
+                                      Totals totals,
                                       CellStyle headerStyle, CellStyle dateStyle,
                                       CellStyle currencyStyle, CellStyle titleStyle,
                                       LocalDate startDate, LocalDate endDate) {
@@ -126,20 +185,23 @@ public class ExcelExportService {
         }
 
         // Data rows
-        double totalAmount = 0;
-        double totalAdjustments = 0;
-        double totalNetAmount = 0;
+        ColumnWidths widths = new ColumnWidths(headers);
+        int[] nextRow = {rowNum};
 
-        for (Expense expense : expenses) {
-            Row row = sheet.createRow(rowNum++);
+        rows.forEachExpense((expense, adjustment) -> {
+            Row row = sheet.createRow(nextRow[0]++);
+            boolean sample = widths.sampling();
 
             Cell dateCell = row.createCell(0);
             if (expense.getExpenseDate() != null) {
-                dateCell.setCellValue(expense.getExpenseDate().format(DATE_FORMATTER));
+                String date = expense.getExpenseDate().format(DATE_FORMATTER);
+                dateCell.setCellValue(date);
+                if (sample) widths.sample(0, date);
             }
             dateCell.setCellStyle(dateStyle);
 
-            row.createCell(1).setCellValue(expense.getExpenseName() != null ? expense.getExpenseName() : "");
+            String expenseName = expense.getExpenseName() != null ? expense.getExpenseName() : "";
+            row.createCell(1).setCellValue(expenseName);
 
             String categoryName = categoryMap.getOrDefault(expense.getUserExpenseCategoryId(), "Unknown");
             row.createCell(2).setCellValue(categoryName);
@@ -150,18 +212,17 @@ public class ExcelExportService {
             if (expense.getExpenseAmount() != null) {
                 expenseAmount = expense.getExpenseAmount().doubleValue();
                 amountCell.setCellValue(expenseAmount);
-                totalAmount += expenseAmount;
+                totals.expenseAmount += expenseAmount;
             }
             amountCell.setCellStyle(currencyStyle);
 
             // Adjustments (Refunds/Cashbacks/Reversals)
             Cell adjustmentCell = row.createCell(4);
             double adjustmentAmount = 0;
-            BigDecimal adjustment = adjustmentsMap.get(expense.getExpensesId());
             if (adjustment != null) {
                 adjustmentAmount = adjustment.doubleValue();
                 adjustmentCell.setCellValue(adjustmentAmount);
-                totalAdjustments += adjustmentAmount;
+                totals.adjustments += adjustmentAmount;
             } else {
                 adjustmentCell.setCellValue(0.0);
             }
@@ -171,14 +232,26 @@ public class ExcelExportService {
             Cell netAmountCell = row.createCell(5);
             double netAmount = Math.max(0, expenseAmount - adjustmentAmount);
             netAmountCell.setCellValue(netAmount);
-            totalNetAmount += netAmount;
+            totals.netExpenses += netAmount;
             netAmountCell.setCellStyle(currencyStyle);
 
             Cell lastUpdatedCell = row.createCell(6);
             if (expense.getLastUpdateTmstp() != null) {
-                lastUpdatedCell.setCellValue(expense.getLastUpdateTmstp().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
+                lastUpdatedCell.setCellValue(expense.getLastUpdateTmstp().format(TIMESTAMP_FORMATTER));
             }
-        }
+            totals.expenseCount++;
+
+            if (sample) {
+                widths.sample(1, expenseName);
+                widths.sample(2, categoryName);
+                widths.sampleAmount(3, expenseAmount);
+                widths.sampleAmount(4, adjustmentAmount);
+                widths.sampleAmount(5, netAmount);
+                widths.sample(6, TIMESTAMP_PATTERN);
+                widths.rowDone();
+            }
+        });
+        rowNum = nextRow[0];
 
         // Total row
         rowNum++; // Empty row
@@ -186,24 +259,25 @@ public class ExcelExportService {
         totalRow.createCell(2).setCellValue("Total:");
 
         Cell totalAmountCell = totalRow.createCell(3);
-        totalAmountCell.setCellValue(totalAmount);
+        totalAmountCell.setCellValue(totals.expenseAmount);
         totalAmountCell.setCellStyle(currencyStyle);
 
         Cell totalAdjustmentCell = totalRow.createCell(4);
-        totalAdjustmentCell.setCellValue(totalAdjustments);
+        totalAdjustmentCell.setCellValue(totals.adjustments);
         totalAdjustmentCell.setCellStyle(currencyStyle);
 
         Cell totalNetCell = totalRow.createCell(5);
-        totalNetCell.setCellValue(totalNetAmount);
+        totalNetCell.setCellValue(totals.netExpenses);
         totalNetCell.setCellStyle(currencyStyle);
 
-        // Auto-size columns
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
+        widths.sampleAmount(3, totals.expenseAmount);
+        widths.sampleAmount(4, totals.adjustments);
+        widths.sampleAmount(5, totals.netExpenses);
+        widths.apply(sheet);
     }
 
-    private void createIncomeSheet(Workbook workbook, List<Income> incomes,
+    private void createIncomeSheet(SXSSFWorkbook workbook, ReportRows rows,
+                                    Totals totals,
                                     CellStyle headerStyle, CellStyle dateStyle,
                                     CellStyle currencyStyle, CellStyle titleStyle,
                                     LocalDate incomeStartDate, LocalDate incomeEndDate,
@@ -240,45 +314,61 @@ public class ExcelExportService {
         }
 
         // Data rows
-        double totalAmount = 0;
-        for (Income income : incomes) {
-            Row row = sheet.createRow(rowNum++);
+        ColumnWidths widths = new ColumnWidths(headers);
+        int[] nextRow = {rowNum};
+
+        rows.forEachIncome(income -> {
+            Row row = sheet.createRow(nextRow[0]++);
+            boolean sample = widths.sampling();
 
             Cell dateCell = row.createCell(0);
             if (income.getReceivedDate() != null) {
-                dateCell.setCellValue(income.getReceivedDate().format(DATE_FORMATTER));
+                String date = income.getReceivedDate().format(DATE_FORMATTER);
+                dateCell.setCellValue(date);
+                if (sample) widths.sample(0, date);
             }
             dateCell.setCellStyle(dateStyle);
 
-            row.createCell(1).setCellValue(income.getSource() != null ? income.getSource() : "");
+            String source = income.getSource() != null ? income.getSource() : "";
+            row.createCell(1).setCellValue(source);
 
             Cell amountCell = row.createCell(2);
+            double amount = 0;
             if (income.getAmount() != null) {
-                amountCell.setCellValue(income.getAmount().doubleValue());
-                totalAmount += income.getAmount().doubleValue();
+                amount = income.getAmount().doubleValue();
+                amountCell.setCellValue(amount);
+                totals.incomeAmount += amount;
             }
             amountCell.setCellStyle(currencyStyle);
 
-            row.createCell(3).setCellValue(income.getMonth() != null ? income.getMonth() : "");
+            String month = income.getMonth() != null ? income.getMonth() : "";
+            row.createCell(3).setCellValue(month);
             row.createCell(4).setCellValue(income.getYear() != null ? income.getYear() : 0);
-        }
+            totals.incomeCount++;
+
+            if (sample) {
+                widths.sample(1, source);
+                widths.sampleAmount(2, amount);
+                widths.sample(3, month);
+                widths.sample(4, String.valueOf(income.getYear()));
+                widths.rowDone();
+            }
+        });
+        rowNum = nextRow[0];
 
         // Total row
         rowNum++; // Empty row
         Row totalRow = sheet.createRow(rowNum);
         totalRow.createCell(1).setCellValue("Total:");
         Cell totalCell = totalRow.createCell(2);
-        totalCell.setCellValue(totalAmount);
+        totalCell.setCellValue(totals.incomeAmount);
         totalCell.setCellStyle(currencyStyle);
 
-        // Auto-size columns
-        for (int i = 0; i < headers.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
+        widths.sampleAmount(2, totals.incomeAmount);
+        widths.apply(sheet);
     }
 
-    private void createSummarySheet(Workbook workbook, List<Expense> expenses, List<Income> incomes,
-                                     Map<Integer, BigDecimal> adjustmentsMap,
+    private void createSummarySheet(SXSSFWorkbook workbook, Totals totals,
                                      CellStyle headerStyle, CellStyle currencyStyle, CellStyle titleStyle,
                                      LocalDate startDate, LocalDate endDate,
                                      LocalDate incomeStartDate, LocalDate incomeEndDate,
@@ -286,21 +376,10 @@ public class ExcelExportService {
 
         Sheet sheet = workbook.createSheet("Summary");
 
-        double totalExpenses = expenses.stream()
-                .filter(e -> e.getExpenseAmount() != null)
-                .mapToDouble(e -> e.getExpenseAmount().doubleValue())
-                .sum();
-
-        double totalAdjustments = adjustmentsMap.values().stream()
-                .mapToDouble(BigDecimal::doubleValue)
-                .sum();
-
+        double totalExpenses = totals.expenseAmount;
+        double totalAdjustments = totals.adjustments;
         double netExpenses = Math.max(0, totalExpenses - totalAdjustments);
-
-        double totalIncome = incomes.stream()
-                .filter(i -> i.getAmount() != null)
-                .mapToDouble(i -> i.getAmount().doubleValue())
-                .sum();
+        double totalIncome = totals.incomeAmount;
 
         int rowNum = 0;
 
@@ -364,15 +443,16 @@ public class ExcelExportService {
 
         Row countRow = sheet.createRow(rowNum++);
         countRow.createCell(0).setCellValue("Number of Expense Records:");
-        countRow.createCell(1).setCellValue(expenses.size());
+        countRow.createCell(1).setCellValue(totals.expenseCount);
 
         Row incomeCountRow = sheet.createRow(rowNum);
         incomeCountRow.createCell(0).setCellValue("Number of Income Records:");
-        incomeCountRow.createCell(1).setCellValue(incomes.size());
+        incomeCountRow.createCell(1).setCellValue(totals.incomeCount);
 
-        // Auto-size columns
-        sheet.autoSizeColumn(0);
-        sheet.autoSizeColumn(1);
+        // Fixed-size sheet: width from the longest label and amount
+        sheet.setColumnWidth(0, ("Total Adjustments (Refunds/Cashbacks):".length() + 2) * 256);
+        double widest = Math.max(Math.max(totalIncome, totalExpenses), Math.abs(totalIncome - netExpenses));
+        sheet.setColumnWidth(1, (AMOUNT_WIDTH_FORMAT.get().format(widest).length() + 3) * 256);
     }
 
     private CellStyle createHeaderStyle(Workbook workbook) {
@@ -0,0 +1,111 @@
+package com.expensetracker.reports.service;
+
+import com.expensetracker.model.Expense;
+import com.expensetracker.model.Income;
+import com.expensetracker.reports.dto.ExportRequest;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Writes a report as newline-delimited JSON (one object per line), row by row.
+ *
+ * <p>Each line carries a {@code type} of {@code expense} or {@code income}.  Objects
+ * are emitted with Jackson's streaming {@link JsonGenerator}, so no tree or DTO is
+ * built per row; amounts are JSON numbers with their exact decimal scale.</p>
+ */
+@Service
+public class JsonLinesExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonLinesExportService.class);
+
+    private final ObjectMapper objectMapper;
+
+    public JsonLinesExportService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes the report to {@code out}; {@code out} is flushed but not closed.
+     */
+    public void writeReport(ReportRows rows,
+                            Map<Integer, String> categoryMap,
+                            ExportRequest.ExportType exportType,
+                            OutputStream out) throws IOException {
+        long[] count = {0};
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null); // Lines end with '\n' instead of the default ' ' separator
+            if (exportType == ExportRequest.ExportType.EXPENSES || exportType == ExportRequest.ExportType.BOTH) {
+                rows.forEachExpense((expense, adjustment) -> {
+                    writeExpense(json, expense, adjustment, categoryMap);
+                    count[0]++;
+                });
+            }
+            if (exportType == ExportRequest.ExportType.INCOME || exportType == ExportRequest.ExportType.BOTH) {
+                rows.forEachIncome(income -> {
+                    writeIncome(json, income);
+                    count[0]++;
+                });
+            }
+            json.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        logger.info("NDJSON report written: {} rows", count[0]);
+    }
+
+    private static void writeExpense(JsonGenerator json, Expense expense, BigDecimal adjustment,
+                                     Map<Integer, String> categoryMap) {
+        BigDecimal amount = expense.getExpenseAmount() != null ? expense.getExpenseAmount() : BigDecimal.ZERO;
+        BigDecimal adjusted = adjustment != null ? adjustment : BigDecimal.ZERO;
+        try {
+            json.writeStartObject();
+            json.writeStringField("type", "expense");
+            json.writeNumberField("id", expense.getExpensesId());
+            json.writeStringField("date", expense.getExpenseDate() != null ? expense.getExpenseDate().toString() : null);
+            json.writeStringField("name", expense.getExpenseName());
+            json.writeStringField("category", categoryMap.getOrDefault(expense.getUserExpenseCategoryId(), "Unknown"));
+            json.writeNumberField("amount", amount);
+            json.writeNumberField("adjustments", adjusted);
+            json.writeNumberField("netAmount", amount.subtract(adjusted).max(BigDecimal.ZERO));
+            json.writeStringField("lastUpdated", expense.getLastUpdateTmstp() != null
+                    ? CsvExportService.TIMESTAMP_FORMATTER.format(expense.getLastUpdateTmstp()) : null);
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeIncome(JsonGenerator json, Income income) {
+        try {
+            json.writeStartObject();
+            json.writeStringField("type", "income");
+            json.writeNumberField("id", income.getIncomeId());
+            json.writeStringField("date", income.getReceivedDate() != null ? income.getReceivedDate().toString() : null);
+            json.writeStringField("source", income.getSource());
+            json.writeNumberField("amount", income.getAmount());
+            json.writeStringField("month", income.getMonth());
+            if (income.getYear() != null) {
+                json.writeNumberField("year", income.getYear());
+            } else {
+                json.writeNullField("year");
+            }
+            json.writeStringField("lastUpdated", income.getLastUpdateTmstp() != null
+                    ? CsvExportService.TIMESTAMP_FORMATTER.format(income.getLastUpdateTmstp()) : null);
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
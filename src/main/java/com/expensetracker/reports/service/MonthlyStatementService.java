@@ -0,0 +1,406 @@
+package com.expensetracker.reports.service;
+
+import com.expensetracker.exception.BadRequestException;
+import com.expensetracker.exception.ResourceNotFoundException;
+import com.expensetracker.exception.UserNotFoundException;
+import com.expensetracker.reports.dto.EmailExportRequest;
+import com.expensetracker.reports.dto.ExportRequest;
+import com.expensetracker.reports.dto.ExportResponse;
+import com.expensetracker.reports.dto.MonthlyStatementSubscriptionRequest;
+import com.expensetracker.reports.dto.MonthlyStatementSubscriptionResponse;
+import com.expensetracker.reports.model.MonthlyStatementDelivery;
+import com.expensetracker.reports.model.MonthlyStatementSubscription;
+import com.expensetracker.reports.repository.MonthlyStatementDeliveryRepository;
+import com.expensetracker.reports.repository.MonthlyStatementSubscriptionRepository;
+import com.expensetracker.repository.UserRepository;
+import com.expensetracker.service.SchedulerLockService;
+import com.expensetracker.util.ClaimedJobs;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Emails each subscribed user the previous month's report.
+ *
+ * <p>The month-end run ({@link com.expensetracker.scheduler.MonthlyStatementScheduler})
+ * hands chunks of subscribed user ids to {@link #deliverStatements}.  Each statement
+ * has a {@code monthly_statement_delivery} row (see {@code db/monthly_statement.sql})
+ * that is claimed with a conditional UPDATE before the report is rendered on a
+ * bounded worker pool and sent through the {@link PooledMailSender}.  Rows that are
+ * SENT or SKIPPED are never claimed again, so a restarted run or a re-claimed shard
+ * only picks up the statements still outstanding.</p>
+ *
+ * <p>A failed statement is retried with exponential backoff from
+ * {@code app.reports.monthly.retry-backoff-minutes} by {@link #retryDueStatements()},
+ * up to {@code max-attempts}.  Statements left SENDING by a node that stopped are
+ * retried once {@code stale-minutes} have passed; one interrupted after the SMTP
+ * send may therefore be delivered twice.</p>
+ */
+@Service
+public class MonthlyStatementService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MonthlyStatementService.class);
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SENDING = "SENDING";
+    public static final String STATUS_RETRY   = "RETRY";
+    public static final String STATUS_SENT    = "SENT";
+    public static final String STATUS_SKIPPED = "SKIPPED";
+    public static final String STATUS_FAILED  = "FAILED";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO monthly_statement_delivery (user_id, statement_month, status, attempts, created_at, updated_at) " +
+            "VALUES (?, ?, 'PENDING', 0, ?, ?)";
+    private static final String CLAIM_SQL =
+            "UPDATE monthly_statement_delivery SET status = 'SENDING', owner = ?, attempts = attempts + 1, updated_at = ? " +
+            "WHERE user_id = ? AND statement_month = ? AND attempts < ? AND (status = 'PENDING' " +
+            "OR (status = 'RETRY' AND next_attempt_at <= ?) OR (status = 'SENDING' AND updated_at < ?))";
+    private static final String CLAIMED_ATTEMPT_SQL =
+            "SELECT attempts FROM monthly_statement_delivery " +
+            "WHERE user_id = ? AND statement_month = ? AND owner = ? AND status = 'SENDING'";
+    private static final String PARTS_SENT_SQL =
+            "SELECT parts_sent FROM monthly_statement_delivery WHERE user_id = ? AND statement_month = ?";
+    private static final String RECORD_PARTS_SENT_SQL =
+            "UPDATE monthly_statement_delivery SET parts_sent = ?, updated_at = ? " +
+            "WHERE user_id = ? AND statement_month = ? AND owner = ? AND attempts = ? AND status = 'SENDING'";
+    private static final String FINISH_SQL =
+            "UPDATE monthly_statement_delivery SET status = ?, message = ?, total_records = ?, file_name = ?, " +
+            "error_message = ?, next_attempt_at = ?, sent_at = ?, updated_at = ? " +
+            "WHERE user_id = ? AND statement_month = ? AND owner = ? AND attempts = ? AND status = 'SENDING'";
+    private static final String ABANDON_SQL =
+            "UPDATE monthly_statement_delivery SET status = 'FAILED', error_message = ?, updated_at = ? " +
+            "WHERE delivery_id = ? AND status = 'SENDING' AND attempts >= ? AND updated_at < ?";
+
+    private final MonthlyStatementSubscriptionRepository subscriptionRepository;
+    private final MonthlyStatementDeliveryRepository deliveryRepository;
+    private final UserRepository userRepository;
+    private final ReportService reportService;
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId;
+    private final Path workDir;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final long staleMinutes;
+    private final ThreadPoolExecutor workers;
+
+    public MonthlyStatementService(MonthlyStatementSubscriptionRepository subscriptionRepository,
+                                   MonthlyStatementDeliveryRepository deliveryRepository,
+                                   UserRepository userRepository,
+                                   ReportService reportService,
+                                   JdbcTemplate jdbcTemplate,
+                                   SchedulerLockService schedulerLockService,
+                                   @Value("${app.reports.monthly.workers:4}") int workerCount,
+                                   @Value("${app.reports.monthly.queue-capacity:100}") int queueCapacity,
+                                   @Value("${app.reports.monthly.work-dir:${java.io.tmpdir}/expense-tracker/statements}") String workDir,
+                                   @Value("${app.reports.monthly.max-attempts:5}") int maxAttempts,
+                                   @Value("${app.reports.monthly.retry-backoff-minutes:5}") long retryBackoffMinutes,
+                                   @Value("${app.reports.monthly.max-retry-backoff-minutes:240}") long maxRetryBackoffMinutes,
+                                   @Value("${app.reports.monthly.stale-minutes:30}") long staleMinutes) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.deliveryRepository     = deliveryRepository;
+        this.userRepository         = userRepository;
+        this.reportService          = reportService;
+        this.jdbcTemplate           = jdbcTemplate;
+        this.nodeId                 = schedulerLockService.getNodeId();
+        this.workDir                = Path.of(workDir);
+        this.maxAttempts            = Math.max(1, maxAttempts);
+        this.retryBackoff           = Duration.ofMinutes(Math.max(1, retryBackoffMinutes));
+        this.maxRetryBackoff        = Duration.ofMinutes(Math.max(1, maxRetryBackoffMinutes));
+        this.staleMinutes           = Math.max(1, staleMinutes);
+
+        int poolSize = Math.max(1, workerCount);
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "monthly-statement-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Subscribes a user to the monthly statement, or updates the subscription.
+     *
+     * @throws BadRequestException if the address is invalid or mail is not configured
+     */
+    public MonthlyStatementSubscriptionResponse subscribe(MonthlyStatementSubscriptionRequest request) {
+        if (request.getUserId() == null || request.getUserId().isBlank()) {
+            throw new BadRequestException("User ID is required");
+        }
+        if (!userRepository.existsByUserId(request.getUserId())) {
+            throw new UserNotFoundException(request.getUserId());
+        }
+        ExportRequest.ExportType exportType = request.getExportType() != null
+                ? request.getExportType() : ExportRequest.ExportType.BOTH;
+        ExportRequest.ExportFormat format = request.getFormat() != null
+                ? request.getFormat() : ExportRequest.ExportFormat.PDF;
+        // Validates the address and mail configuration the same way an on-demand email would
+        reportService.validateEmailRequest(statementRequest(request.getUserId(), request.getEmail(),
+                exportType, format, YearMonth.now().minusMonths(1)));
+
+        LocalDateTime now = LocalDateTime.now();
+        MonthlyStatementSubscription subscription = subscriptionRepository.findById(request.getUserId())
+                .orElseGet(MonthlyStatementSubscription::new);
+        if (subscription.getUserId() == null) {
+            subscription.setUserId(request.getUserId());
+            subscription.setCreatedAt(now);
+        }
+        subscription.setEmail(request.getEmail().trim());
+        subscription.setExportType(exportType);
+        subscription.setFormat(format);
+        subscription.setEnabled(true);
+        subscription.setUpdatedAt(now);
+        subscriptionRepository.save(subscription);
+        logger.info("Monthly statement subscription saved for userId={} ({} {})", subscription.getUserId(),
+                exportType, format);
+        return toResponse(subscription);
+    }
+
+    /**
+     * @throws ResourceNotFoundException if the user never subscribed
+     */
+    public MonthlyStatementSubscriptionResponse getSubscription(String userId) {
+        return toResponse(findSubscription(userId));
+    }
+
+    /**
+     * Stops future statements; statements already sent are unaffected.
+     *
+     * @throws ResourceNotFoundException if the user never subscribed
+     */
+    public void unsubscribe(String userId) {
+        MonthlyStatementSubscription subscription = findSubscription(userId);
+        subscription.setEnabled(false);
+        subscription.setUpdatedAt(LocalDateTime.now());
+        subscriptionRepository.save(subscription);
+        logger.info("Monthly statement subscription disabled for userId={}", userId);
+    }
+
+    /**
+     * Delivers {@code month}'s statement to each subscribed user in {@code userIds} and
+     * returns once every statement has been sent, skipped or scheduled for retry.
+     * Statements are rendered on the worker pool; when its queue is full the calling
+     * thread renders the statement itself, which throttles the caller.
+     *
+     * @return number of statements sent by this call
+     */
+    public int deliverStatements(List<String> userIds, YearMonth month) {
+        String statementMonth = month.toString();
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (MonthlyStatementSubscription subscription : subscriptionRepository.findByUserIdInAndEnabledTrue(userIds)) {
+            seed(subscription.getUserId(), statementMonth);
+            FutureTask<Boolean> task = new FutureTask<>(() -> deliver(subscription, month));
+            try {
+                workers.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+            results.add(task);
+        }
+
+        int sent = 0;
+        for (Future<Boolean> result : results) {
+            try {
+                if (Boolean.TRUE.equals(result.get())) sent++;
+            } catch (ExecutionException e) {
+                logger.error("Monthly statement worker for {} failed unexpectedly", statementMonth, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while waiting for monthly statements of {}", statementMonth);
+                break;
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Re-sends statements whose retry is due, and those left SENDING by a node that
+     * stopped; gives up on the latter once they have used {@code max-attempts}.
+     */
+    @Scheduled(fixedDelayString = "${app.reports.monthly.retry-interval-ms:60000}",
+               initialDelayString = "${app.reports.monthly.retry-initial-delay-ms:60000}")
+    public void retryDueStatements() {
+        LocalDateTime now = LocalDateTime.now();
+        List<MonthlyStatementDelivery> due = new ArrayList<>(
+                deliveryRepository.findByStatusAndNextAttemptAtBefore(STATUS_RETRY, now));
+        for (MonthlyStatementDelivery stale : deliveryRepository.findByStatusAndUpdatedAtBefore(
+                STATUS_SENDING, now.minusMinutes(staleMinutes))) {
+            if (stale.getAttempts() >= maxAttempts) {
+                if (jdbcTemplate.update(ABANDON_SQL, "Statement was interrupted after " + stale.getAttempts()
+                        + " attempt(s).", now, stale.getDeliveryId(), maxAttempts, now.minusMinutes(staleMinutes)) > 0) {
+                    logger.warn("Abandoned monthly statement {} for userId={}", stale.getStatementMonth(), stale.getUserId());
+                }
+                continue;
+            }
+            due.add(stale);
+        }
+
+        for (MonthlyStatementDelivery delivery : due) {
+            MonthlyStatementSubscription subscription = subscriptionRepository.findById(delivery.getUserId())
+                    .filter(MonthlyStatementSubscription::getEnabled)
+                    .orElse(null);
+            YearMonth month = YearMonth.parse(delivery.getStatementMonth());
+            try {
+                workers.execute(() -> {
+                    if (subscription == null) {
+                        cancel(delivery.getUserId(), month);
+                    } else {
+                        deliver(subscription, month);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                logger.debug("Statement workers busy; {} for userId={} waits for the next pass",
+                        delivery.getStatementMonth(), delivery.getUserId());
+                break;
+            }
+        }
+    }
+
+    private void seed(String userId, String statementMonth) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            jdbcTemplate.update(INSERT_SQL, userId, statementMonth, now, now);
+        } catch (DuplicateKeyException e) {
+            // Seeded by an earlier run or another node
+        }
+    }
+
+    /**
+     * Claims, renders and sends one statement.
+     *
+     * @return whether the statement was sent by this call
+     */
+    private boolean deliver(MonthlyStatementSubscription subscription, YearMonth month) {
+        String userId = subscription.getUserId();
+        Integer attempt = claim(userId, month.toString());
+        if (attempt == null) {
+            return false; // Already sent, skipped, not yet due, or claimed elsewhere
+        }
+
+        EmailExportRequest request = statementRequest(userId, subscription.getEmail(),
+                subscription.getExportType(), subscription.getFormat(), month);
+        ExportRequest exportRequest = ReportService.toExportRequest(request);
+        String fileName = reportService.generateFileName(exportRequest);
+        Path workFile = null;
+        try {
+            if (reportService.getTotalRecords(exportRequest) == 0) {
+                finish(userId, month, attempt, STATUS_SKIPPED, null, 0, fileName, "No records in the statement month.");
+                return false;
+            }
+            Files.createDirectories(workDir);
+            workFile = Files.createTempFile(workDir, "statement-" + month + "-", ".tmp");
+            // Parts of a split statement sent by an earlier attempt are not sent again
+            int partsSent = jdbcTemplate.queryForObject(PARTS_SENT_SQL, Integer.class, userId, month.toString());
+            ExportResponse response = reportService.emailReport(request, workFile, partsSent,
+                    sent -> jdbcTemplate.update(RECORD_PARTS_SENT_SQL, sent, LocalDateTime.now(),
+                            userId, month.toString(), nodeId, attempt));
+            finish(userId, month, attempt, STATUS_SENT, response.getMessage(), response.getTotalRecords(), fileName, null);
+            logger.info("Monthly statement {} sent to userId={} ({} records)", month, userId, response.getTotalRecords());
+            return true;
+        } catch (BadRequestException e) {
+            finish(userId, month, attempt, STATUS_FAILED, null, null, fileName, e.getMessage());
+            logger.warn("Monthly statement {} for userId={} cannot be sent: {}", month, userId, e.getMessage());
+        } catch (MessagingException e) {
+            retryLater(userId, month, attempt, fileName, "Failed to send email: " + e.getMessage());
+            logger.warn("Monthly statement {} for userId={} could not be sent (attempt {}): {}",
+                    month, userId, attempt, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            retryLater(userId, month, attempt, fileName, "Failed to generate report: " + e.getMessage());
+            logger.error("Monthly statement {} for userId={} failed (attempt {})", month, userId, attempt, e);
+        } finally {
+            ClaimedJobs.deleteQuietly(workFile);
+        }
+        return false;
+    }
+
+    private void cancel(String userId, YearMonth month) {
+        Integer attempt = claim(userId, month.toString());
+        if (attempt != null) {
+            finish(userId, month, attempt, STATUS_SKIPPED, null, null, null, "Unsubscribed before delivery.");
+        }
+    }
+
+    /**
+     * @return the attempt number of this claim, or {@code null} if the row could not be claimed
+     */
+    private Integer claim(String userId, String statementMonth) {
+        LocalDateTime now = LocalDateTime.now();
+        if (jdbcTemplate.update(CLAIM_SQL, nodeId, now, userId, statementMonth, maxAttempts,
+                now, now.minusMinutes(staleMinutes)) == 0) {
+            return null;
+        }
+        List<Integer> attempts = jdbcTemplate.queryForList(CLAIMED_ATTEMPT_SQL, Integer.class,
+                userId, statementMonth, nodeId);
+        return attempts.isEmpty() ? null : attempts.get(0);
+    }
+
+    private void retryLater(String userId, YearMonth month, int attempt, String fileName, String error) {
+        if (attempt >= maxAttempts) {
+            finish(userId, month, attempt, STATUS_FAILED, null, null, fileName, error);
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(FINISH_SQL, STATUS_RETRY, null, null, fileName, ClaimedJobs.truncateError(error),
+                now.plus(ClaimedJobs.retryBackoff(retryBackoff, maxRetryBackoff, attempt)), null,
+                now, userId, month.toString(), nodeId, attempt);
+    }
+
+    private void finish(String userId, YearMonth month, int attempt, String status, String message,
+                        Integer totalRecords, String fileName, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update(FINISH_SQL, status, message, totalRecords, fileName, ClaimedJobs.truncateError(error), null,
+                STATUS_SENT.equals(status) ? now : null, now, userId, month.toString(), nodeId, attempt);
+    }
+
+    private static EmailExportRequest statementRequest(String userId, String email, ExportRequest.ExportType exportType,
+                                                       ExportRequest.ExportFormat format, YearMonth month) {
+        return new EmailExportRequest(userId, month.atDay(1), month.atEndOfMonth(), exportType, format, email);
+    }
+
+    private MonthlyStatementSubscription findSubscription(String userId) {
+        return subscriptionRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Monthly statement subscription", "userId", userId));
+    }
+
+    private MonthlyStatementSubscriptionResponse toResponse(MonthlyStatementSubscription subscription) {
+        MonthlyStatementSubscriptionResponse response = new MonthlyStatementSubscriptionResponse();
+        response.setUserId(subscription.getUserId());
+        response.setEmail(subscription.getEmail());
+        response.setExportType(subscription.getExportType());
+        response.setFormat(subscription.getFormat());
+        response.setEnabled(Boolean.TRUE.equals(subscription.getEnabled()));
+        response.setUpdatedAt(subscription.getUpdatedAt());
+        response.setRecentDeliveries(deliveryRepository.findTop20ByUserIdOrderByStatementMonthDesc(subscription.getUserId()));
+        return response;
+    }
+}
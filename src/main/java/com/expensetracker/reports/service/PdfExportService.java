@@ -1,7 +1,5 @@
 package com.expensetracker.reports.service;
 
-import com.expensetracker.model.Expense;
-import com.expensetracker.model.Income;
 import com.expensetracker.reports.dto.ExportRequest;
 import com.lowagie.text.*;
 import com.lowagie.text.pdf.PdfPCell;
@@ -9,15 +7,14 @@ import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.awt.Color;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 import java.util.Map;
 
 @Service
@@ -31,20 +28,30 @@ public class PdfExportService {
     private static final Font NORMAL_FONT = new Font(Font.HELVETICA, 9, Font.NORMAL);
     private static final Font BOLD_FONT = new Font(Font.HELVETICA, 10, Font.BOLD);
 
+    private final int flushRows;
+
+    public PdfExportService(@Value("${app.reports.pdf.flush-rows:200}") int flushRows) {
+        this.flushRows = Math.max(1, flushRows);
+    }
+
     /**
-     * Generate PDF report for expenses and/or income.
+     * Writes the PDF report to {@code out} as it is built.
      *
-     * @param incomeStartDate actual start date used to fetch incomes (may differ from startDate when preference is P)
-     * @param incomeEndDate   actual end date used to fetch incomes
-     * @param incomeMonthPref user's income month preference ("C" or "P")
+     * <p>The expense and income tables are incomplete {@link PdfPTable}s that are
+     * added to the document every {@code app.reports.pdf.flush-rows} rows: OpenPDF
+     * lays out and writes the finished rows and drops them, so only one chunk of
+     * rows is held however long the table gets, and the first pages reach the
+     * client while later rows are still being read.  The summary is taken from
+     * {@link ReportRows#summarize()} because it precedes the tables.  {@code out}
+     * is flushed but not closed.</p>
      */
-    public byte[] generateReport(List<Expense> expenses, List<Income> incomes,
-                                  Map<Integer, String> categoryMap,
-                                  Map<Integer, BigDecimal> adjustmentsMap,
-                                  ExportRequest.ExportType exportType,
-                                  LocalDate startDate, LocalDate endDate,
-                                  LocalDate incomeStartDate, LocalDate incomeEndDate,
-                                  String incomeMonthPref) throws IOException {
+    public void writeReport(ReportRows rows,
+                            Map<Integer, String> categoryMap,
+                            ExportRequest.ExportType exportType,
+                            LocalDate startDate, LocalDate endDate,
+                            LocalDate incomeStartDate, LocalDate incomeEndDate,
+                            String incomeMonthPref,
+                            OutputStream out) throws IOException {
 
         // Effective income range fallback
         LocalDate effectiveIncomeStart = incomeStartDate != null ? incomeStartDate : startDate;
@@ -53,9 +60,10 @@ public class PdfExportService {
         logger.info("Generating PDF report for type: {}, expense range: {} to {}, income range: {} to {} (pref={})",
                 exportType, startDate, endDate, effectiveIncomeStart, effectiveIncomeEnd, incomeMonthPref);
 
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            Document document = new Document(PageSize.A4);
-            PdfWriter.getInstance(document, outputStream);
+        Document document = new Document(PageSize.A4);
+        try {
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
             document.open();
 
             // Add metadata
@@ -86,62 +94,50 @@ public class PdfExportService {
 
             // Add summary if BOTH
             if (exportType == ExportRequest.ExportType.BOTH) {
-                addSummarySection(document, expenses, incomes, adjustmentsMap,
+                addSummarySection(document, rows.summarize(),
                         effectiveIncomeStart, effectiveIncomeEnd, incomeMonthPref);
             }
 
             // Add Expenses section if needed
             if (exportType == ExportRequest.ExportType.EXPENSES || exportType == ExportRequest.ExportType.BOTH) {
-                addExpensesSection(document, expenses, categoryMap, adjustmentsMap);
+                addExpensesSection(document, rows, categoryMap);
             }
 
             // Add Income section if needed
             if (exportType == ExportRequest.ExportType.INCOME || exportType == ExportRequest.ExportType.BOTH) {
-                addIncomeSection(document, incomes, effectiveIncomeStart, effectiveIncomeEnd, incomeMonthPref);
+                addIncomeSection(document, rows, effectiveIncomeStart, effectiveIncomeEnd, incomeMonthPref);
             }
 
             document.close();
+            out.flush();
             logger.info("PDF report generated successfully");
-            return outputStream.toByteArray();
         } catch (DocumentException e) {
             logger.error("Error generating PDF report", e);
             throw new IOException("Failed to generate PDF report: " + e.getMessage(), e);
+        } catch (ExceptionConverter e) {
+            // Row callbacks cannot throw DocumentException; they rethrow it wrapped
+            logger.error("Error generating PDF report", e.getException());
+            throw new IOException("Failed to generate PDF report: " + e.getException().getMessage(), e.getException());
+        } finally {
+            if (document.isOpen()) {
+                try {
+                    document.close();
+                } catch (RuntimeException closeFailure) {
+                    logger.debug("Ignoring failure to close a failed PDF report", closeFailure);
+                }
+            }
         }
     }
 
-    /**
-     * Overload for backward compatibility — uses expense range as income range (preference C).
-     */
-    public byte[] generateReport(List<Expense> expenses, List<Income> incomes,
-                                  Map<Integer, String> categoryMap,
-                                  Map<Integer, BigDecimal> adjustmentsMap,
-                                  ExportRequest.ExportType exportType,
-                                  LocalDate startDate, LocalDate endDate) throws IOException {
-        return generateReport(expenses, incomes, categoryMap, adjustmentsMap,
-                exportType, startDate, endDate, startDate, endDate, "C");
-    }
-
-    private void addSummarySection(Document document, List<Expense> expenses, List<Income> incomes,
-                                   Map<Integer, BigDecimal> adjustmentsMap,
+    private void addSummarySection(Document document, ReportSummary summary,
                                    LocalDate incomeStart, LocalDate incomeEnd,
                                    String incomeMonthPref)
             throws DocumentException {
 
-        double totalExpenses = expenses.stream()
-                .filter(e -> e.getExpenseAmount() != null)
-                .mapToDouble(e -> e.getExpenseAmount().doubleValue())
-                .sum();
-
-        double totalAdjustments = adjustmentsMap.values().stream()
-                .mapToDouble(BigDecimal::doubleValue)
-                .sum();
-
+        double totalExpenses = summary.getExpenseTotal().doubleValue();
+        double totalAdjustments = summary.getAdjustmentTotal().doubleValue();
         double netExpenses = Math.max(0, totalExpenses - totalAdjustments);
-
-        double totalIncome = incomes.stream()
-                .filter(i -> i.getAmount() != null)
-                .mapToDouble(i -> i.getAmount().doubleValue())
-                .sum();
+        double totalIncome = summary.getIncomeTotal().doubleValue();
 
         Paragraph sectionTitle = new Paragraph("Financial Summary", BOLD_FONT);
         sectionTitle.setSpacingBefore(10);
@@ -166,8 +162,8 @@ public class PdfExportService {
         addSummaryRow(summaryTable, "Total Adjustments (Refunds/Cashbacks):", String.format("%.2f", totalAdjustments));
         addSummaryRow(summaryTable, "Total Expenses (Net):", String.format("%.2f", netExpenses));
         addSummaryRow(summaryTable, "Net Balance:", String.format("%.2f", totalIncome - netExpenses));
-        addSummaryRow(summaryTable, "Expense Records:", String.valueOf(expenses.size()));
-        addSummaryRow(summaryTable, "Income Records:", String.valueOf(incomes.size()));
+        addSummaryRow(summaryTable, "Expense Records:", String.valueOf(summary.getExpenseCount()));
+        addSummaryRow(summaryTable, "Income Records:", String.valueOf(summary.getIncomeCount()));
 
         document.add(summaryTable);
         document.add(new Paragraph(" ")); // Spacing
@@ -186,8 +182,7 @@ public class PdfExportService {
         table.addCell(valueCell);
     }
 
-    private void addExpensesSection(Document document, List<Expense> expenses, Map<Integer, String> categoryMap,
-                                    Map<Integer, BigDecimal> adjustmentsMap)
+    private void addExpensesSection(Document document, ReportRows rows, Map<Integer, String> categoryMap)
             throws DocumentException {
 
         Paragraph sectionTitle = new Paragraph("Expenses", BOLD_FONT);
@@ -195,64 +190,60 @@ public class PdfExportService {
         sectionTitle.setSpacingAfter(10);
         document.add(sectionTitle);
 
-        if (expenses.isEmpty()) {
-            document.add(new Paragraph("No expense records found for the selected period.", NORMAL_FONT));
-            return;
-        }
-
-        PdfPTable table = new PdfPTable(6);
-        table.setWidthPercentage(100);
-        table.setWidths(new float[]{1.2f, 2f, 1.5f, 1.2f, 1.2f, 1.2f});
-
-        // Add headers
-        addTableHeader(table, "Date");
-        addTableHeader(table, "Expense Name");
-        addTableHeader(table, "Category");
-        addTableHeader(table, "Amount");
-        addTableHeader(table, "Adjustments");
-        addTableHeader(table, "Net Amount");
+        // Created on the first row, so an empty period prints the notice instead of a bare header
+        PdfPTable[] table = {null};
+        int[] pendingRows = {0};
 
         // Add data rows
-        double totalAmount = 0;
-        double totalAdjustments = 0;
-        double totalNet = 0;
+        double[] totals = new double[3]; // amount, adjustments, net
 
-        for (Expense expense : expenses) {
-            addTableCell(table, expense.getExpenseDate() != null ?
+        rows.forEachExpense((expense, adjustment) -> {
+            if (table[0] == null) {
+                table[0] = newStreamingTable(new float[]{1.2f, 2f, 1.5f, 1.2f, 1.2f, 1.2f},
+                        "Date", "Expense Name", "Category", "Amount", "Adjustments", "Net Amount");
+            }
+            PdfPTable t = table[0];
+            addTableCell(t, expense.getExpenseDate() != null ?
                     expense.getExpenseDate().format(DATE_FORMATTER) : "");
-            addTableCell(table, expense.getExpenseName() != null ? expense.getExpenseName() : "");
-            addTableCell(table, categoryMap.getOrDefault(expense.getUserExpenseCategoryId(), "Unknown"));
+            addTableCell(t, expense.getExpenseName() != null ? expense.getExpenseName() : "");
+            addTableCell(t, categoryMap.getOrDefault(expense.getUserExpenseCategoryId(), "Unknown"));
 
             // Original Amount
             double expenseAmount = expense.getExpenseAmount() != null ?
                     expense.getExpenseAmount().doubleValue() : 0.0;
-            addTableCellRight(table, String.format("%.2f", expenseAmount));
-            totalAmount += expenseAmount;
+            addTableCellRight(t, String.format("%.2f", expenseAmount));
+            totals[0] += expenseAmount;
 
             // Adjustments
-            BigDecimal adjustment = adjustmentsMap.get(expense.getExpensesId());
             double adjustmentAmount = adjustment != null ? adjustment.doubleValue() : 0.0;
-            addTableCellRight(table, String.format("%.2f", adjustmentAmount));
-            totalAdjustments += adjustmentAmount;
+            addTableCellRight(t, String.format("%.2f", adjustmentAmount));
+            totals[1] += adjustmentAmount;
 
             // Net Amount
             double netAmount = Math.max(0, expenseAmount - adjustmentAmount);
-            addTableCellRight(table, String.format("%.2f", netAmount));
-            totalNet += netAmount;
-        }
+            addTableCellRight(t, String.format("%.2f", netAmount));
+            totals[2] += netAmount;
+
+            flushIfDue(document, t, pendingRows);
+        });
 
-        document.add(table);
+        if (table[0] == null) {
+            document.add(new Paragraph("No expense records found for the selected period.", NORMAL_FONT));
+            return;
+        }
+        table[0].setComplete(true);
+        document.add(table[0]);
 
         // Add totals
         Paragraph totalPara = new Paragraph(
-                String.format("Total: Amount: %.2f | Adjustments: %.2f | Net: %.2f", totalAmount, totalAdjustments, totalNet),
+                String.format("Total: Amount: %.2f | Adjustments: %.2f | Net: %.2f", totals[0], totals[1], totals[2]),
                 BOLD_FONT);
         totalPara.setAlignment(Element.ALIGN_RIGHT);
         totalPara.setSpacingBefore(5);
         document.add(totalPara);
     }
 
-    private void addIncomeSection(Document document, List<Income> incomes,
+    private void addIncomeSection(Document document, ReportRows rows,
                                    LocalDate incomeStart, LocalDate incomeEnd,
                                    String incomeMonthPref) throws DocumentException {
 
@@ -262,48 +253,79 @@ public class PdfExportService {
         sectionTitle.setSpacingAfter(10);
         document.add(sectionTitle);
 
-        if (incomes.isEmpty()) {
-            document.add(new Paragraph("No income records found for the selected period.", NORMAL_FONT));
-            return;
-        }
-
-        PdfPTable table = new PdfPTable(4);
-        table.setWidthPercentage(100);
-        table.setWidths(new float[]{1.5f, 2.5f, 1.5f, 1.5f});
-
-        // Add headers
-        addTableHeader(table, "Date");
-        addTableHeader(table, "Source");
-        addTableHeader(table, "Month/Year");
-        addTableHeader(table, "Amount");
+        PdfPTable[] table = {null};
+        int[] pendingRows = {0};
 
         // Add data rows
-        double total = 0;
-        for (Income income : incomes) {
-            addTableCell(table, income.getReceivedDate() != null ?
+        double[] total = {0};
+        rows.forEachIncome(income -> {
+            if (table[0] == null) {
+                table[0] = newStreamingTable(new float[]{1.5f, 2.5f, 1.5f, 1.5f},
+                        "Date", "Source", "Month/Year", "Amount");
+            }
+            PdfPTable t = table[0];
+            addTableCell(t, income.getReceivedDate() != null ?
                     income.getReceivedDate().format(DATE_FORMATTER) : "");
-            addTableCell(table, income.getSource() != null ? income.getSource() : "");
-            addTableCell(table, (income.getMonth() != null ? income.getMonth() : "") +
+            addTableCell(t, income.getSource() != null ? income.getSource() : "");
+            addTableCell(t, (income.getMonth() != null ? income.getMonth() : "") +
                     " " + (income.getYear() != null ? income.getYear() : ""));
 
             String amount = income.getAmount() != null ?
                     String.format("%.2f", income.getAmount().doubleValue()) : "0.00";
-            addTableCellRight(table, amount);
+            addTableCellRight(t, amount);
 
             if (income.getAmount() != null) {
-                total += income.getAmount().doubleValue();
+                total[0] += income.getAmount().doubleValue();
             }
-        }
 
-        document.add(table);
+            flushIfDue(document, t, pendingRows);
+        });
+
+        if (table[0] == null) {
+            document.add(new Paragraph("No income records found for the selected period.", NORMAL_FONT));
+            return;
+        }
+        table[0].setComplete(true);
+        document.add(table[0]);
 
         // Add total
-        Paragraph totalPara = new Paragraph(String.format("Total Income: %.2f", total), BOLD_FONT);
+        Paragraph totalPara = new Paragraph(String.format("Total Income: %.2f", total[0]), BOLD_FONT);
         totalPara.setAlignment(Element.ALIGN_RIGHT);
         totalPara.setSpacingBefore(5);
         document.add(totalPara);
     }
 
+    /**
+     * An incomplete table whose header row repeats on every page; rows added to it
+     * are written out by {@link #flushIfDue}.
+     */
+    private PdfPTable newStreamingTable(float[] widths, String... headers) {
+        PdfPTable table = new PdfPTable(headers.length);
+        table.setWidthPercentage(100);
+        try {
+            table.setWidths(widths);
+        } catch (DocumentException e) {
+            throw new ExceptionConverter(e);
+        }
+        for (String header : headers) {
+            addTableHeader(table, header);
+        }
+        table.setHeaderRows(1);
+        table.setComplete(false);
+        return table;
+    }
+
+    /** Adds the rows buffered in {@code table} to the document once enough have accumulated. */
+    private void flushIfDue(Document document, PdfPTable table, int[] pendingRows) {
+        if (++pendingRows[0] < flushRows) return;
+        pendingRows[0] = 0;
+        try {
+            document.add(table);
+        } catch (DocumentException e) {
+            throw new ExceptionConverter(e);
+        }
+    }
+
     private void addTableHeader(PdfPTable table, String text) {
         PdfPCell cell = new PdfPCell(new Phrase(text, HEADER_FONT));
         cell.setBackgroundColor(new Color(70, 130, 180)); // Steel blue
@@ -0,0 +1,243 @@
+package com.expensetracker.reports.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends mail over a small pool of connected SMTP transports instead of opening
+ * (and authenticating) a new connection for every message, as
+ * {@link JavaMailSender#send(MimeMessage)} does.
+ *
+ * <p>At most {@code app.mail.pool.max-connections} connections are open at once;
+ * senders beyond that wait for one to be returned.  A connection is closed after
+ * {@code max-messages-per-connection} messages or {@code idle-timeout-seconds}
+ * without use, since providers drop long-lived sessions.  A message that fails on a
+ * reused connection for a reason other than a rejected address is retried once on
+ * a new connection, which covers connections the server has silently closed.</p>
+ *
+ * <p>Every message from this instance passes one token bucket of
+ * {@code app.mail.rate.per-second} with bursts of {@code app.mail.rate.burst}.  The
+ * limit is per instance; divide the provider's limit by the number of instances.</p>
+ *
+ * <p>If the configured sender is not a {@link JavaMailSenderImpl}, messages go
+ * through {@link JavaMailSender#send(MimeMessage)}, still rate limited.</p>
+ */
+@Service
+public class PooledMailSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledMailSender.class);
+
+    private final JavaMailSender mailSender;
+    private final JavaMailSenderImpl mailSenderImpl;
+    private final int maxMessagesPerConnection;
+    private final long idleTimeoutNanos;
+    private final Semaphore connections;
+    /** Returned connections, most recently used first. */
+    private final Deque<PooledTransport> idle = new ArrayDeque<>();
+
+    private final double burst;
+    private final double nanosPerPermit;
+    private double permits;
+    private long refilledAt;
+
+    public PooledMailSender(ObjectProvider<JavaMailSender> mailSender,
+                            @Value("${app.mail.pool.max-connections:2}") int maxConnections,
+                            @Value("${app.mail.pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+                            @Value("${app.mail.pool.idle-timeout-seconds:30}") long idleTimeoutSeconds,
+                            @Value("${app.mail.rate.per-second:2}") double permitsPerSecond,
+                            @Value("${app.mail.rate.burst:5}") int burst) {
+        this.mailSender = mailSender.getIfAvailable();
+        this.mailSenderImpl = this.mailSender instanceof JavaMailSenderImpl impl ? impl : null;
+        this.maxMessagesPerConnection = Math.max(1, maxMessagesPerConnection);
+        this.idleTimeoutNanos = TimeUnit.SECONDS.toNanos(Math.max(1, idleTimeoutSeconds));
+        this.connections = new Semaphore(Math.max(1, maxConnections), true);
+        this.burst = Math.max(1, burst);
+        this.nanosPerPermit = TimeUnit.SECONDS.toNanos(1) / Math.max(0.01, permitsPerSecond);
+        this.permits = this.burst;
+        this.refilledAt = System.nanoTime();
+    }
+
+    public boolean isAvailable() {
+        return mailSender != null;
+    }
+
+    /**
+     * Sends {@code message}, waiting for the rate limit and a free connection first.
+     */
+    public void send(MimeMessage message) throws MessagingException {
+        if (mailSender == null) {
+            throw new IllegalStateException("Mail service is not configured");
+        }
+        throttle();
+        if (mailSenderImpl == null) {
+            try {
+                mailSender.send(message);
+            } catch (MailException e) {
+                throw new MessagingException(e.getMessage(), e);
+            }
+            return;
+        }
+
+        try {
+            connections.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for a mail connection", e);
+        }
+        PooledTransport connection = null;
+        try {
+            if (message.getSentDate() == null) {
+                message.setSentDate(new Date());
+            }
+            message.saveChanges();
+
+            connection = borrow();
+            try {
+                connection.transport.sendMessage(message, message.getAllRecipients());
+            } catch (SendFailedException e) {
+                throw e; // Rejected address: a new connection would not help
+            } catch (MessagingException e) {
+                if (connection.messagesSent == 0) throw e; // Failed on a new connection already
+                logger.debug("Pooled mail connection failed ({}), retrying on a new connection", e.getMessage());
+                connection.closeQuietly();
+                connection = null; // Not returned to the pool if reconnecting fails
+                connection = open();
+                connection.transport.sendMessage(message, message.getAllRecipients());
+            }
+            connection.messagesSent++;
+        } catch (MessagingException e) {
+            if (connection != null) {
+                connection.closeQuietly();
+                connection = null;
+            }
+            throw e;
+        } finally {
+            if (connection != null) {
+                giveBack(connection);
+            }
+            connections.release();
+        }
+    }
+
+    /** Closes connections that have not been used for {@code idle-timeout-seconds}. */
+    @Scheduled(fixedDelayString = "${app.mail.pool.eviction-interval-ms:15000}")
+    public void closeIdleConnections() {
+        long now = System.nanoTime();
+        synchronized (idle) {
+            Iterator<PooledTransport> eldest = idle.descendingIterator();
+            while (eldest.hasNext()) {
+                PooledTransport connection = eldest.next();
+                if (now - connection.returnedAt < idleTimeoutNanos) break;
+                eldest.remove();
+                connection.closeQuietly();
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        synchronized (idle) {
+            idle.forEach(PooledTransport::closeQuietly);
+            idle.clear();
+        }
+    }
+
+    /**
+     * Takes one permit from the token bucket, sleeping until it is available.  Permits
+     * may go negative, which queues callers in arrival order.
+     */
+    private void throttle() throws MessagingException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            permits = Math.min(burst, permits + (now - refilledAt) / nanosPerPermit);
+            refilledAt = now;
+            permits -= 1;
+            waitNanos = permits >= 0 ? 0 : (long) (-permits * nanosPerPermit);
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MessagingException("Interrupted while waiting for the mail rate limit", e);
+            }
+        }
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        long now = System.nanoTime();
+        synchronized (idle) {
+            while (!idle.isEmpty()) {
+                PooledTransport connection = idle.pollFirst();
+                if (now - connection.returnedAt < idleTimeoutNanos) {
+                    return connection;
+                }
+                connection.closeQuietly();
+            }
+        }
+        return open();
+    }
+
+    private void giveBack(PooledTransport connection) {
+        if (connection.messagesSent >= maxMessagesPerConnection) {
+            connection.closeQuietly();
+            return;
+        }
+        connection.returnedAt = System.nanoTime();
+        synchronized (idle) {
+            idle.addFirst(connection);
+        }
+    }
+
+    private PooledTransport open() throws MessagingException {
+        Session session = mailSenderImpl.getSession();
+        String protocol = mailSenderImpl.getProtocol() != null ? mailSenderImpl.getProtocol() : "smtp";
+        Transport transport = session.getTransport(protocol);
+        String username = mailSenderImpl.getUsername();
+        String password = mailSenderImpl.getPassword();
+        if ("".equals(username)) username = null;
+        if ("".equals(password)) password = null;
+        transport.connect(mailSenderImpl.getHost(), mailSenderImpl.getPort(), username, password);
+        logger.debug("Opened mail connection to {}:{}", mailSenderImpl.getHost(), mailSenderImpl.getPort());
+        return new PooledTransport(transport);
+    }
+
+    private static final class PooledTransport {
+        final Transport transport;
+        int messagesSent;
+        long returnedAt;
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        void closeQuietly() {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                logger.debug("Could not close mail connection: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.expensetracker.reports.service;
+
+import com.expensetracker.reports.dto.ExportRequest;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Local-disk cache of rendered report downloads for closed periods.
+ *
+ * <p>Entries are keyed by user, date range, export type, format, gzip flag, income
+ * preference and the {@linkplain ReportRowCursor#dataVersion data version} of the
+ * range, so a change to any expense, adjustment, income or category the report
+ * covers yields a new key; the superseded entry of the same report is dropped the
+ * next time that report is requested.  Least recently used entries are evicted once
+ * the files exceed {@code app.reports.cache.max-bytes}.</p>
+ *
+ * <p>A miss is rendered to the client and into a temporary file at the same time;
+ * the file joins the cache only if the render completed.  A hit is copied to the
+ * response through a buffer.  The index lives in memory, so the
+ * directory is emptied on startup.</p>
+ */
+@Service
+public class ReportCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportCacheService.class);
+
+    private static final String ENTRY_SUFFIX   = ".bin";
+    private static final String PARTIAL_SUFFIX = ".part";
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    private final boolean enabled;
+    private final Path cacheDir;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final boolean closedPeriodsOnly;
+
+    /** Entry id → entry, in access order (eldest = least recently used). */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /** Report scope (key without data version) → id of its cached entry. */
+    private final Map<String, String> idsByScope = new HashMap<>();
+    private long totalBytes;
+
+    public ReportCacheService(@Value("${app.reports.cache.enabled:true}") boolean enabled,
+                              @Value("${app.reports.cache.dir:${java.io.tmpdir}/expense-tracker/report-cache}") String cacheDir,
+                              @Value("${app.reports.cache.max-bytes:1073741824}") long maxBytes,
+                              @Value("${app.reports.cache.max-entry-bytes:104857600}") long maxEntryBytes,
+                              @Value("${app.reports.cache.closed-periods-only:true}") boolean closedPeriodsOnly) {
+        this.enabled           = enabled;
+        this.cacheDir          = Path.of(cacheDir);
+        this.maxBytes          = Math.max(0, maxBytes);
+        this.maxEntryBytes     = Math.min(Math.max(0, maxEntryBytes), this.maxBytes);
+        this.closedPeriodsOnly = closedPeriodsOnly;
+    }
+
+    @PostConstruct
+    void clearDirectory() {
+        if (!enabled || !Files.isDirectory(cacheDir)) return;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir)) {
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not clear report cache directory {}: {}", cacheDir, e.getMessage());
+        }
+    }
+
+    /**
+     * Whether downloads of this report are cached: only ranges that ended before the
+     * current month, unless {@code closed-periods-only} is off.
+     */
+    public boolean isCacheable(ExportRequest request) {
+        if (!enabled || maxEntryBytes == 0) return false;
+        return !closedPeriodsOnly || request.getEndDate().isBefore(LocalDate.now().withDayOfMonth(1));
+    }
+
+    public CacheKey key(ExportRequest request, String incomePref, String dataVersion) {
+        String scope = String.join("|", request.getUserId(),
+                String.valueOf(request.getStartDate()), String.valueOf(request.getEndDate()),
+                String.valueOf(request.getExportType()), String.valueOf(request.getFormat()),
+                String.valueOf(request.isGzip()), String.valueOf(incomePref));
+        return new CacheKey(sha256(scope), sha256(scope + "|" + dataVersion));
+    }
+
+    /**
+     * Opens the cached render for {@code key}, or returns {@code null} on a miss.  An
+     * entry of the same report with an older data version is removed.
+     */
+    public synchronized Hit open(CacheKey key) {
+        String currentId = idsByScope.get(key.scope);
+        if (currentId != null && !currentId.equals(key.id)) {
+            remove(currentId);
+            logger.debug("Dropped superseded report cache entry {}", currentId);
+        }
+        Entry entry = entries.get(key.id);
+        if (entry == null) return null;
+        try {
+            // Opened under the lock, so a concurrent eviction cannot delete the file first
+            return new Hit(key.getEtag(), entry.size, FileChannel.open(entry.file, StandardOpenOption.READ));
+        } catch (NoSuchFileException e) {
+            remove(key.id);
+            return null;
+        } catch (IOException e) {
+            logger.warn("Could not open cached report {}: {}", entry.file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Wraps a render so that its output is also written to a temporary file, which
+     * becomes the cache entry for {@code key} once the render completes.  Output past
+     * {@code max-entry-bytes} stops the copy; the client still gets the full report.
+     */
+    public StreamingResponseBody fill(CacheKey key, StreamingResponseBody render) {
+        return out -> {
+            Path partial;
+            OutputStream file;
+            try {
+                Files.createDirectories(cacheDir);
+                partial = Files.createTempFile(cacheDir, key.id, PARTIAL_SUFFIX);
+                file = new BufferedOutputStream(Files.newOutputStream(partial), COPY_BUFFER_BYTES);
+            } catch (IOException e) {
+                logger.warn("Report cache unavailable, rendering without caching: {}", e.getMessage());
+                render.writeTo(out);
+                return;
+            }
+
+            TeeOutputStream tee = new TeeOutputStream(out, file, maxEntryBytes);
+            boolean complete = false;
+            try {
+                render.writeTo(tee);
+                complete = true;
+            } finally {
+                if (tee.closeCopy() && complete) {
+                    commit(key, partial, tee.copied);
+                } else {
+                    deleteQuietly(partial);
+                }
+            }
+        };
+    }
+
+    private synchronized void commit(CacheKey key, Path partial, long size) {
+        Path file = cacheDir.resolve(key.id + ENTRY_SUFFIX);
+        try {
+            Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not store report in cache: {}", e.getMessage());
+            deleteQuietly(partial);
+            return;
+        }
+
+        String previousId = idsByScope.put(key.scope, key.id);
+        if (previousId != null && !previousId.equals(key.id)) {
+            remove(previousId);
+        }
+        Entry replaced = entries.put(key.id, new Entry(key.id, file, size, key.scope));
+        if (replaced != null) {
+            totalBytes -= replaced.size;
+        }
+        totalBytes += size;
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Entry> victim = eldest.next();
+            if (victim.getKey().equals(key.id)) continue;
+            eldest.remove();
+            evicted(victim.getValue());
+        }
+        logger.debug("Cached report {} ({} bytes, cache total {} bytes in {} entries)",
+                key.id, size, totalBytes, entries.size());
+    }
+
+    private void remove(String id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            evicted(entry);
+        }
+    }
+
+    private void evicted(Entry entry) {
+        totalBytes -= entry.size;
+        idsByScope.remove(entry.scope, entry.id);
+        // Readers that already opened the file keep reading it after the unlink
+        deleteQuietly(entry.file);
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete report cache file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /** Identity of one render: {@code scope} ignores the data version, {@code id} includes it. */
+    public static final class CacheKey {
+        private final String scope;
+        private final String id;
+
+        private CacheKey(String scope, String id) {
+            this.scope = scope;
+            this.id    = id;
+        }
+
+        /**
+         * Weak ETag of the render; stable for as long as the data version is.  Weak
+         * because the key names the data, not the bytes: two renders of the same
+         * data are equivalent but not byte-identical (workbook and PDF timestamps).
+         */
+        public String getEtag() {
+            return "W/\"" + id.substring(0, 32) + "\"";
+        }
+    }
+
+    /** An open cache entry; {@link #body()} must be written exactly once to release the file. */
+    public static final class Hit {
+        private final String etag;
+        private final long size;
+        private final FileChannel channel;
+
+        private Hit(String etag, long size, FileChannel channel) {
+            this.etag    = etag;
+            this.size    = size;
+            this.channel = channel;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Copies the file to the response with {@link FileChannel#transferTo}, then
+         * closes it.  This is not zero-copy: the servlet output stream is wrapped in a
+         * {@link Channels#newChannel} adapter, so the JDK reads the file through a
+         * user-space buffer and writes it to the stream as any other body.
+         */
+        public StreamingResponseBody body() {
+            return out -> {
+                try (FileChannel source = channel) {
+                    WritableByteChannel target = Channels.newChannel(out);
+                    long position = 0;
+                    while (position < size) {
+                        position += source.transferTo(position, size - position, target);
+                    }
+                }
+            };
+        }
+    }
+
+    private static final class Entry {
+        final String id;
+        final Path file;
+        final long size;
+        final String scope;
+
+        Entry(String id, Path file, long size, String scope) {
+            this.id    = id;
+            this.file  = file;
+            this.size  = size;
+            this.scope = scope;
+        }
+    }
+
+    /** Writes through to the client and copies into the cache file up to a limit. */
+    private static final class TeeOutputStream extends FilterOutputStream {
+        private final OutputStream copy;
+        private final long limit;
+        long copied;
+        boolean overflowed;
+
+        TeeOutputStream(OutputStream out, OutputStream copy, long limit) {
+            super(out);
+            this.copy  = copy;
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (reserve(1)) copy.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (reserve(len)) copy.write(b, off, len);
+        }
+
+        private boolean reserve(int len) {
+            if (overflowed) return false;
+            if (copied + len > limit) {
+                overflowed = true;
+                return false;
+            }
+            copied += len;
+            return true;
+        }
+
+        /**
+         * Closes the cache copy only; the response stream belongs to the container.
+         *
+         * @return whether the copy holds everything written
+         */
+        boolean closeCopy() {
+            try {
+                copy.close();
+            } catch (IOException e) {
+                logger.warn("Could not write report cache file: {}", e.getMessage());
+                return false;
+            }
+            return !overflowed;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
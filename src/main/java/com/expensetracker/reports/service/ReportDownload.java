@@ -0,0 +1,21 @@
+package com.expensetracker.reports.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * A report ready to be written to the client: a cached render (with its length) or
+ * a live render from the row cursor.  {@link #notModified} is set, and there is no
+ * body, when the client's {@code If-None-Match} already names the current render.
+ */
+@Data
+@AllArgsConstructor
+public class ReportDownload {
+    private StreamingResponseBody body;
+    /** Known only for cached renders. */
+    private Long contentLength;
+    /** Present when the report is cacheable. */
+    private String etag;
+    private boolean notModified;
+}
@@ -6,15 +6,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 @Service
 public class ReportEmailService {
@@ -26,12 +26,15 @@ public class ReportEmailService {
     @Autowired
     private final JavaMailSender mailSender;
 
+    private final PooledMailSender pooledMailSender;
+
     @Value("${spring.mail.username}")
     private String fromEmail;
 
     @Autowired(required = false)
-    public ReportEmailService(JavaMailSender mailSender) {
+    public ReportEmailService(JavaMailSender mailSender, PooledMailSender pooledMailSender) {
         this.mailSender = mailSender;
+        this.pooledMailSender = pooledMailSender;
     }
 
     /**
@@ -42,36 +45,50 @@ public class ReportEmailService {
     }
 
     /**
-     * Send report via email. If file exceeds 20MB, split and send multiple emails.
+     * Largest attachment sent in one email; bigger reports are delivered as parts
+     */
+    public long getMaxAttachmentSize() {
+        return MAX_ATTACHMENT_SIZE;
+    }
+
+    /**
+     * Send a report rendered to disk, one email per part.  Attachments are read from
+     * disk as the message is written, so the report is never held in memory.  Messages
+     * go through the {@link PooledMailSender}, which reuses SMTP connections and
+     * applies the mail rate limit.
      *
      * @param toEmail     Recipient email
-     * @param reportData  Report file data
-     * @param fileName    File name
+     * @param parts       Report files, each within {@link #getMaxAttachmentSize()}
      * @param reportType  Type of report (Expenses/Income/Both)
      * @param startDate   Start date of the report
      * @param endDate     End date of the report
-     * @return Number of emails sent
+     * @param partsAlreadySent Parts sent by an earlier attempt, skipped
+     * @param partSent    Told the number of parts sent so far after each email
+     * @return Number of emails the report was sent in, counting those sent earlier
      */
-    public int sendReport(String toEmail, byte[] reportData, String fileName,
-                           String reportType, LocalDate startDate, LocalDate endDate) throws MessagingException {
+    public int sendReport(String toEmail, List<ReportPart> parts,
+                          String reportType, LocalDate startDate, LocalDate endDate,
+                          int partsAlreadySent, IntConsumer partSent) throws MessagingException {
 
         if (mailSender == null) {
             throw new IllegalStateException("Mail service is not configured");
         }
 
-        logger.info("Preparing to send report to: {}, file size: {} bytes", toEmail, reportData.length);
-
-        if (reportData.length <= MAX_ATTACHMENT_SIZE) {
-            // Send single email
-            sendSingleEmail(toEmail, reportData, fileName, reportType, startDate, endDate, 1, 1);
-            return 1;
+        if (partsAlreadySent > 0) {
+            logger.info("Resuming report to: {} after {} of {} part(s)", toEmail,
+                    Math.min(partsAlreadySent, parts.size()), parts.size());
         } else {
-            // Split and send multiple emails
-            return sendSplitEmails(toEmail, reportData, fileName, reportType, startDate, endDate);
+            logger.info("Preparing to send report to: {} in {} part(s)", toEmail, parts.size());
+        }
+
+        for (int i = Math.max(0, partsAlreadySent); i < parts.size(); i++) {
+            sendSingleEmail(toEmail, parts.get(i), reportType, startDate, endDate, i + 1, parts.size());
+            partSent.accept(i + 1);
         }
+        return parts.size();
     }
 
-    private void sendSingleEmail(String toEmail, byte[] reportData, String fileName,
+    private void sendSingleEmail(String toEmail, ReportPart part,
                                   String reportType, LocalDate startDate, LocalDate endDate,
                                   int partNumber, int totalParts) throws MessagingException {
 
@@ -89,51 +106,17 @@ public class ReportEmailService {
         }
         helper.setSubject(subject);
 
-        String body = buildEmailBody(reportType, startDate, endDate, partNumber, totalParts);
+        String body = buildEmailBody(reportType, startDate, endDate, part, partNumber, totalParts);
         helper.setText(body, true);
 
-        String attachmentName = totalParts > 1 ?
-                fileName.replace(".", "_part" + partNumber + ".") : fileName;
-        helper.addAttachment(attachmentName, new ByteArrayResource(reportData));
+        helper.addAttachment(part.getFileName(), new FileSystemResource(part.getFile()));
 
-        mailSender.send(message);
+        pooledMailSender.send(message);
         logger.info("Email sent successfully to: {} (part {} of {})", toEmail, partNumber, totalParts);
     }
 
-    private int sendSplitEmails(String toEmail, byte[] reportData, String fileName,
-                                 String reportType, LocalDate startDate, LocalDate endDate) throws MessagingException {
-
-        List<byte[]> chunks = splitData(reportData, MAX_ATTACHMENT_SIZE);
-        int totalParts = chunks.size();
-
-        logger.info("Report file size {} bytes exceeds limit, splitting into {} parts",
-                reportData.length, totalParts);
-
-        for (int i = 0; i < chunks.size(); i++) {
-            sendSingleEmail(toEmail, chunks.get(i), fileName, reportType,
-                    startDate, endDate, i + 1, totalParts);
-        }
-
-        return totalParts;
-    }
-
-    private List<byte[]> splitData(byte[] data, long maxSize) {
-        List<byte[]> chunks = new ArrayList<>();
-        int offset = 0;
-
-        while (offset < data.length) {
-            int chunkSize = (int) Math.min(maxSize, data.length - offset);
-            byte[] chunk = new byte[chunkSize];
-            System.arraycopy(data, offset, chunk, 0, chunkSize);
-            chunks.add(chunk);
-            offset += chunkSize;
-        }
-
-        return chunks;
-    }
-
     private String buildEmailBody(String reportType, LocalDate startDate, LocalDate endDate,
-                                   int partNumber, int totalParts) {
+                                   ReportPart part, int partNumber, int totalParts) {
         StringBuilder body = new StringBuilder();
         body.append("<html><body>");
         body.append("<h2>Expense Tracker Report</h2>");
@@ -151,7 +134,11 @@ public class ReportEmailService {
                     .append(partNumber)
                     .append(" of ")
                     .append(totalParts)
-                    .append(".</p>");
+                    .append(", with records ")
+                    .append(part.getFirstRecord())
+                    .append(" to ")
+                    .append(part.getLastRecord())
+                    .append("; each attachment opens on its own.</p>");
         }
 
         body.append("<p>This is an automated email from Expense Tracker. Please do not reply to this email.</p>");
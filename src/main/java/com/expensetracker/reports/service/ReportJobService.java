@@ -0,0 +1,358 @@
+package com.expensetracker.reports.service;
+
+import com.expensetracker.exception.BadRequestException;
+import com.expensetracker.exception.ResourceNotFoundException;
+import com.expensetracker.reports.dto.ExportRequest;
+import com.expensetracker.reports.dto.ReportJobResponse;
+import com.expensetracker.reports.model.ReportJob;
+import com.expensetracker.reports.repository.ReportJobRepository;
+import com.expensetracker.service.SchedulerLockService;
+import com.expensetracker.util.ClaimedJobs;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders reports in the background so export requests return immediately with
+ * a job id.  Report emails are queued in the email outbox instead
+ * ({@link ReportService#generateAndEmailReport}).
+ *
+ * <p>A {@code report_job} row (see {@code db/report_job.sql}) holds the serialized
+ * request.  A bounded worker pool claims the row with a conditional UPDATE and
+ * renders the report from a row cursor into {@code app.reports.jobs.artifact-dir},
+ * keeps the file for {@code artifact-ttl-minutes} and serves it from
+ * {@code GET /api/reports/jobs/{jobId}/download}.  {@link #cleanUpExpiredJobs()}
+ * removes expired artifacts and rows.
+ *
+ * <p>Every claim stores a new claim token; while the job renders, a heartbeat
+ * touches {@code updated_at} every third of {@code stale-minutes}.  Jobs whose
+ * {@code updated_at} stops moving (node restart or crash) are re-queued by
+ * {@link #recoverStaleJobs()}.  Each attempt writes its own partial and artifact
+ * file named after its token, and only the current token can finish the job, so a
+ * superseded attempt can neither overwrite nor publish over the current one.</p>
+ *
+ * <p>Artifacts are kept on the disk of the node that rendered them, so downloads
+ * must reach that node (sticky sessions or a shared artifact directory).</p>
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    public static final String TYPE_DOWNLOAD = "DOWNLOAD";
+
+    public static final String STATUS_QUEUED    = "QUEUED";
+    public static final String STATUS_RUNNING   = "RUNNING";
+    public static final String STATUS_SUCCEEDED = "SUCCEEDED";
+    public static final String STATUS_FAILED    = "FAILED";
+
+    private static final String ARTIFACT_SUFFIX = ".report";
+    private static final String PARTIAL_SUFFIX  = ".part";
+
+    private static final String CLAIM_SQL =
+            "UPDATE report_job SET status = 'RUNNING', owner = ?, claim_token = ?, attempts = attempts + 1, " +
+            "started_at = COALESCE(started_at, ?), updated_at = ? WHERE job_id = ? AND status = 'QUEUED'";
+    private static final String TOUCH_SQL =
+            "UPDATE report_job SET updated_at = ? WHERE job_id = ? AND claim_token = ? AND status = 'RUNNING'";
+    private static final String FINISH_SQL =
+            "UPDATE report_job SET status = ?, claim_token = NULL, artifact_path = ?, artifact_bytes = ?, " +
+            "error_message = ?, finished_at = ?, expires_at = ?, updated_at = ? " +
+            "WHERE job_id = ? AND claim_token = ? AND status = 'RUNNING'";
+    private static final String REQUEUE_SQL =
+            "UPDATE report_job SET status = 'QUEUED', owner = NULL, claim_token = NULL, updated_at = ? " +
+            "WHERE job_id = ? AND status IN ('QUEUED', 'RUNNING') AND updated_at = ?";
+    private static final String ABANDON_SQL =
+            "UPDATE report_job SET status = 'FAILED', claim_token = NULL, error_message = ?, finished_at = ?, " +
+            "expires_at = ?, updated_at = ? WHERE job_id = ? AND status IN ('QUEUED', 'RUNNING') AND updated_at = ?";
+    private static final String REJECT_SQL =
+            "UPDATE report_job SET status = 'FAILED', error_message = ?, finished_at = ?, expires_at = ?, updated_at = ? " +
+            "WHERE job_id = ? AND status = 'QUEUED'";
+    private static final String DELETE_EXPIRED_SQL =
+            "DELETE FROM report_job WHERE job_id = ? AND expires_at < ?";
+
+    private final ReportJobRepository jobRepository;
+    private final ReportService reportService;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId;
+    private final Path artifactDir;
+    private final Duration artifactTtl;
+    private final int maxAttempts;
+    private final long staleMinutes;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "report-job-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReportJobService(ReportJobRepository jobRepository,
+                            ReportService reportService,
+                            ObjectMapper objectMapper,
+                            JdbcTemplate jdbcTemplate,
+                            SchedulerLockService schedulerLockService,
+                            @Value("${app.reports.jobs.workers:2}") int workerCount,
+                            @Value("${app.reports.jobs.queue-capacity:50}") int queueCapacity,
+                            @Value("${app.reports.jobs.artifact-dir:${java.io.tmpdir}/expense-tracker/reports}") String artifactDir,
+                            @Value("${app.reports.jobs.artifact-ttl-minutes:60}") long artifactTtlMinutes,
+                            @Value("${app.reports.jobs.max-attempts:2}") int maxAttempts,
+                            @Value("${app.reports.jobs.stale-minutes:15}") long staleMinutes) {
+        this.jobRepository = jobRepository;
+        this.reportService = reportService;
+        this.objectMapper  = objectMapper;
+        this.jdbcTemplate  = jdbcTemplate;
+        this.nodeId        = schedulerLockService.getNodeId();
+        this.artifactDir   = Path.of(artifactDir);
+        this.artifactTtl   = Duration.ofMinutes(Math.max(1, artifactTtlMinutes));
+        this.maxAttempts   = Math.max(1, maxAttempts);
+        this.staleMinutes  = Math.max(1, staleMinutes);
+
+        int poolSize = Math.max(1, workerCount);
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+        heartbeat.shutdownNow();
+    }
+
+    /**
+     * Queues a report to be rendered for download.
+     *
+     * @throws BadRequestException if the request is invalid or the queue is full
+     */
+    public ReportJob submitDownload(ExportRequest request) {
+        reportService.validateRequest(request.getUserId(), request.getStartDate(), request.getEndDate());
+        return submit(request.getUserId(), request, reportService.generateFileName(request),
+                reportService.getContentType(request).toString());
+    }
+
+    private ReportJob submit(String userId, ExportRequest request, String fileName, String contentType) {
+        LocalDateTime now = LocalDateTime.now();
+        ReportJob job = new ReportJob();
+        job.setJobId(UUID.randomUUID().toString());
+        job.setUserId(userId);
+        job.setJobType(TYPE_DOWNLOAD);
+        job.setStatus(STATUS_QUEUED);
+        job.setRequestJson(writeJson(request));
+        job.setFileName(fileName);
+        job.setContentType(contentType);
+        job.setAttempts(0);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        jobRepository.save(job);
+
+        String jobId = job.getJobId();
+        try {
+            workers.execute(() -> run(jobId));
+        } catch (RejectedExecutionException e) {
+            jdbcTemplate.update(REJECT_SQL, "Report queue is full.", now, now.plus(artifactTtl), now, jobId);
+            throw new BadRequestException("Too many reports are being generated. Please try again in a few minutes.");
+        }
+        logger.info("Queued report job {} for userId={}, file={}", jobId, userId, fileName);
+        return job;
+    }
+
+    /**
+     * @throws ResourceNotFoundException if the job does not exist or belongs to another user
+     */
+    public ReportJobResponse getJob(String jobId, String userId) {
+        return toResponse(findJob(jobId, userId));
+    }
+
+    /**
+     * The finished download job whose artifact is on this node's disk.
+     *
+     * @throws ResourceNotFoundException if the job does not exist, is not a finished
+     *         download, or its artifact has expired or was rendered on another node
+     */
+    public ReportJob getDownloadableJob(String jobId, String userId) {
+        ReportJob job = findJob(jobId, userId);
+        if (!TYPE_DOWNLOAD.equals(job.getJobType()) || !STATUS_SUCCEEDED.equals(job.getStatus())
+                || job.getArtifactPath() == null || !Files.isRegularFile(Path.of(job.getArtifactPath()))) {
+            throw new ResourceNotFoundException("Report file", "jobId", jobId);
+        }
+        return job;
+    }
+
+    /**
+     * Deletes expired artifacts and job rows, plus files in the artifact directory
+     * that no row points to any more (e.g. the row was cleaned up by another node).
+     */
+    @Scheduled(fixedDelayString = "${app.reports.jobs.cleanup-interval-ms:600000}",
+               initialDelayString = "${app.reports.jobs.cleanup-initial-delay-ms:60000}")
+    public void cleanUpExpiredJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        int removed = 0;
+        for (ReportJob job : jobRepository.findByExpiresAtBefore(now)) {
+            if (jdbcTemplate.update(DELETE_EXPIRED_SQL, job.getJobId(), now) > 0) {
+                if (job.getArtifactPath() != null) {
+                    ClaimedJobs.deleteQuietly(Path.of(job.getArtifactPath()));
+                }
+                removed++;
+            }
+        }
+
+        Instant orphanedBefore = Instant.now().minus(artifactTtl.multipliedBy(2));
+        if (Files.isDirectory(artifactDir)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(artifactDir)) {
+                for (Path file : files) {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(orphanedBefore)) {
+                        ClaimedJobs.deleteQuietly(file);
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Could not sweep report artifact directory {}: {}", artifactDir, e.getMessage());
+            }
+        }
+        if (removed > 0) {
+            logger.info("Removed {} expired report job(s)", removed);
+        }
+    }
+
+    /**
+     * Re-queues jobs whose owner stopped updating them (node restart or crash);
+     * gives up after {@code max-attempts}.
+     */
+    @Scheduled(fixedDelayString = "${app.reports.jobs.recovery-interval-ms:60000}",
+               initialDelayString = "${app.reports.jobs.recovery-initial-delay-ms:30000}")
+    public void recoverStaleJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ReportJob> stale = jobRepository.findByStatusInAndUpdatedAtBefore(
+                List.of(STATUS_QUEUED, STATUS_RUNNING), now.minusMinutes(staleMinutes));
+        for (ReportJob job : stale) {
+            if (job.getAttempts() >= maxAttempts) {
+                if (jdbcTemplate.update(ABANDON_SQL, "Report could not be generated after "
+                        + job.getAttempts() + " attempt(s).", now, now.plus(artifactTtl), now,
+                        job.getJobId(), job.getUpdatedAt()) > 0) {
+                    logger.warn("Abandoned report job {} after {} attempt(s)", job.getJobId(), job.getAttempts());
+                }
+                continue;
+            }
+            if (jdbcTemplate.update(REQUEUE_SQL, now, job.getJobId(), job.getUpdatedAt()) == 0) {
+                continue; // Another node got there first
+            }
+            try {
+                workers.execute(() -> run(job.getJobId()));
+                logger.info("Re-queued stale report job {}", job.getJobId());
+            } catch (RejectedExecutionException e) {
+                logger.warn("Report queue full; job {} stays queued for the next recovery pass", job.getJobId());
+            }
+        }
+    }
+
+    private void run(String jobId) {
+        String claimToken = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        if (jdbcTemplate.update(CLAIM_SQL, nodeId, claimToken, now, now, jobId) == 0) {
+            return; // Already claimed elsewhere
+        }
+        ReportJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) return;
+
+        // Named per attempt: a superseded attempt still rendering must not clobber the current one
+        Path partial = artifactDir.resolve(jobId + "." + claimToken + PARTIAL_SUFFIX);
+        // Keeps updated_at fresh so recoverStaleJobs() leaves the job alone while it renders
+        ScheduledFuture<?> touch = ClaimedJobs.startHeartbeat(heartbeat, Duration.ofMinutes(staleMinutes).dividedBy(3),
+                "Report job " + jobId, () -> jdbcTemplate.update(TOUCH_SQL, LocalDateTime.now(), jobId, claimToken) > 0);
+        try {
+            Files.createDirectories(artifactDir);
+            ExportRequest request = objectMapper.readValue(job.getRequestJson(), ExportRequest.class);
+            try (OutputStream out = Files.newOutputStream(partial)) {
+                reportService.streamReport(request).writeTo(out);
+            }
+            // Publish under the final name only once complete, so a download never sees a partial file
+            Path artifact = Files.move(partial, artifactDir.resolve(jobId + "." + claimToken + ARTIFACT_SUFFIX),
+                    StandardCopyOption.ATOMIC_MOVE);
+            long bytes = Files.size(artifact);
+            finish(jobId, claimToken, STATUS_SUCCEEDED, artifact.toAbsolutePath().toString(), bytes, null);
+            logger.info("Report job {} rendered {} ({} bytes)", jobId, job.getFileName(), bytes);
+        } catch (BadRequestException e) {
+            finish(jobId, claimToken, STATUS_FAILED, null, null, e.getMessage());
+            logger.warn("Report job {} failed: {}", jobId, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            finish(jobId, claimToken, STATUS_FAILED, null, null, "Failed to generate report. Please try again.");
+            logger.error("Report job {} failed", jobId, e);
+        } finally {
+            touch.cancel(false);
+            ClaimedJobs.deleteQuietly(partial);
+        }
+    }
+
+    private void finish(String jobId, String claimToken, String status, String artifactPath, Long artifactBytes,
+                        String errorMessage) {
+        LocalDateTime now = LocalDateTime.now();
+        if (jdbcTemplate.update(FINISH_SQL, status, artifactPath, artifactBytes, ClaimedJobs.truncateError(errorMessage),
+                now, now.plus(artifactTtl), now, jobId, claimToken) == 0 && artifactPath != null) {
+            ClaimedJobs.deleteQuietly(Path.of(artifactPath)); // Abandoned or taken over meanwhile
+        }
+    }
+
+    private ReportJob findJob(String jobId, String userId) {
+        return jobRepository.findByJobIdAndUserId(jobId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Report job", "jobId", jobId));
+    }
+
+    private ReportJobResponse toResponse(ReportJob job) {
+        ReportJobResponse response = new ReportJobResponse();
+        response.setJobId(job.getJobId());
+        response.setJobType(job.getJobType());
+        response.setStatus(job.getStatus());
+        response.setFileName(job.getFileName());
+        if (TYPE_DOWNLOAD.equals(job.getJobType()) && STATUS_SUCCEEDED.equals(job.getStatus())) {
+            response.setDownloadUrl("/api/reports/jobs/" + job.getJobId() + "/download?userId="
+                    + URLEncoder.encode(job.getUserId(), StandardCharsets.UTF_8));
+            response.setFileSizeBytes(job.getArtifactBytes());
+        }
+        response.setErrorMessage(job.getErrorMessage());
+        response.setCreatedAt(job.getCreatedAt());
+        response.setStartedAt(job.getStartedAt());
+        response.setFinishedAt(job.getFinishedAt());
+        response.setExpiresAt(job.getExpiresAt());
+        return response;
+    }
+
+    private String writeJson(Object request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Could not queue the report request: " + e.getOriginalMessage());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.expensetracker.reports.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * One attachment of an emailed report: the whole report, or a complete file holding
+ * a range of its records when the report is too large for a single email.
+ */
+@Data
+@AllArgsConstructor
+public class ReportPart {
+    private Path file;
+    private String fileName;
+    /** 1-based record range covered by this part. */
+    private long firstRecord;
+    private long lastRecord;
+}
@@ -0,0 +1,296 @@
+package com.expensetracker.reports.service;
+
+import com.expensetracker.model.Expense;
+import com.expensetracker.model.Income;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Reads report rows with forward-only JDBC cursors instead of loading entity lists.
+ *
+ * <p>The default fetch size of {@link Integer#MIN_VALUE} makes MySQL Connector/J
+ * stream the result set row by row; each row is mapped into a detached
+ * {@link Expense}/{@link Income} that the renderer drops after writing it.  Completed
+ * adjustments are summed per expense in the same query, so no id list or
+ * adjustments map is built either.  {@link ReportRows#summarize()} is answered with
+ * aggregate queries on the shared {@link JdbcTemplate}.</p>
+ *
+ * <p>Rows can be limited to id ranges, so a report too large for one email is cut
+ * into parts by key instead of by skipping rows: each part reads only its own rows
+ * and its summary describes only them.</p>
+ */
+@Component
+public class ReportRowCursor {
+
+    private static final String EXPENSES_SQL =
+            "SELECT e.expenses_id, e.expense_name, e.expense_amount, e.user_expense_category_id, " +
+            "       e.expense_date, e.last_update_tmstp, a.adjusted " +
+            "FROM expenses e " +
+            "LEFT JOIN (SELECT expenses_id, SUM(adjustment_amount) AS adjusted FROM expense_adjustments " +
+            "           WHERE user_id = ? AND status = 'COMPLETED' GROUP BY expenses_id) a " +
+            "       ON a.expenses_id = e.expenses_id " +
+            "WHERE e.user_id = ? AND e.expense_date BETWEEN ? AND ? AND e.expenses_id > ? AND e.expenses_id <= ? " +
+            "ORDER BY e.expenses_id";
+
+    private static final String INCOMES_SQL =
+            "SELECT income_id, source, amount, received_date, last_update_tmstp, month, year " +
+            "FROM income WHERE user_id = ? AND received_date BETWEEN ? AND ? AND income_id > ? AND income_id <= ? " +
+            "ORDER BY income_id";
+
+    private static final String EXPENSE_IDS_SQL =
+            "SELECT expenses_id FROM expenses WHERE user_id = ? AND expense_date BETWEEN ? AND ? ORDER BY expenses_id";
+
+    private static final String INCOME_IDS_SQL =
+            "SELECT income_id FROM income WHERE user_id = ? AND received_date BETWEEN ? AND ? ORDER BY income_id";
+
+    private static final String EXPENSE_TOTALS_SQL =
+            "SELECT COUNT(*), COALESCE(SUM(expense_amount), 0) FROM expenses " +
+            "WHERE user_id = ? AND expense_date BETWEEN ? AND ? AND expenses_id > ? AND expenses_id <= ?";
+
+    private static final String ADJUSTMENT_TOTAL_SQL =
+            "SELECT COALESCE(SUM(a.adjustment_amount), 0) FROM expense_adjustments a " +
+            "JOIN expenses e ON e.expenses_id = a.expenses_id " +
+            "WHERE e.user_id = ? AND e.expense_date BETWEEN ? AND ? AND e.expenses_id > ? AND e.expenses_id <= ? " +
+            "AND a.status = 'COMPLETED'";
+
+    private static final String INCOME_TOTALS_SQL =
+            "SELECT COUNT(*), COALESCE(SUM(amount), 0) FROM income " +
+            "WHERE user_id = ? AND received_date BETWEEN ? AND ? AND income_id > ? AND income_id <= ?";
+
+    /**
+     * Fingerprint of everything a report over the range reads: row count, id sum, amount
+     * sum and latest update of each table.  Inserts, deletes and updates (all of which
+     * touch {@code last_update_tmstp}) change it.
+     */
+    private static final String DATA_VERSION_SQL =
+            "SELECT CONCAT_WS('|', " +
+            " (SELECT CONCAT_WS(':', COUNT(*), COALESCE(SUM(expenses_id), 0), COALESCE(SUM(expense_amount), 0), " +
+            "                   COALESCE(MAX(last_update_tmstp), '-')) " +
+            "  FROM expenses WHERE user_id = ? AND expense_date BETWEEN ? AND ?), " +
+            " (SELECT CONCAT_WS(':', COUNT(*), COALESCE(SUM(a.expense_adjustments_id), 0), " +
+            "                   COALESCE(SUM(a.adjustment_amount), 0), COALESCE(MAX(a.last_update_tmstp), '-')) " +
+            "  FROM expense_adjustments a JOIN expenses e ON e.expenses_id = a.expenses_id " +
+            "  WHERE e.user_id = ? AND e.expense_date BETWEEN ? AND ?), " +
+            " (SELECT CONCAT_WS(':', COUNT(*), COALESCE(SUM(income_id), 0), COALESCE(SUM(amount), 0), " +
+            "                   COALESCE(MAX(last_update_tmstp), '-')) " +
+            "  FROM income WHERE user_id = ? AND received_date BETWEEN ? AND ?), " +
+            " (SELECT CONCAT_WS(':', COUNT(*), COALESCE(SUM(user_expense_category_id), 0), " +
+            "                   COALESCE(MAX(last_update_tmstp), '-')) " +
+            "  FROM user_expense_category WHERE user_id = ?))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate cursorTemplate;
+
+    public ReportRowCursor(DataSource dataSource,
+                           JdbcTemplate jdbcTemplate,
+                           @Value("${app.reports.stream.fetch-size:" + Integer.MIN_VALUE + "}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Rows of one report; each {@code forEach} call runs its query again, so a
+     * renderer should visit each section once.
+     */
+    public ReportRows open(String userId,
+                           LocalDate expenseStart, LocalDate expenseEnd,
+                           LocalDate incomeStart, LocalDate incomeEnd) {
+        return open(userId, expenseStart, expenseEnd, incomeStart, incomeEnd, IdRange.ALL, IdRange.ALL);
+    }
+
+    /**
+     * Cuts a report's records, numbered across expenses then income, into consecutive
+     * slices of {@code perPart} records (the last may be shorter).  Only ids are read,
+     * in one pass; each slice's rows are bounded by id, so rendering every slice reads
+     * each row once.  Call inside the snapshot the slices are rendered in.
+     */
+    public List<ReportRowSlice> slice(String userId,
+                                      LocalDate expenseStart, LocalDate expenseEnd,
+                                      LocalDate incomeStart, LocalDate incomeEnd,
+                                      boolean expenses, boolean incomes, long perPart) {
+        Slicer slicer = new Slicer(Math.max(1, perPart),
+                (expenseIds, incomeIds) -> open(userId, expenseStart, expenseEnd, incomeStart, incomeEnd,
+                        expenseIds, incomeIds));
+        if (expenses) {
+            cursorTemplate.query(EXPENSE_IDS_SQL, rs -> {
+                slicer.expense(rs.getLong(1));
+            }, userId, Date.valueOf(expenseStart), Date.valueOf(expenseEnd));
+        }
+        if (incomes) {
+            cursorTemplate.query(INCOME_IDS_SQL, rs -> {
+                slicer.income(rs.getLong(1));
+            }, userId, Date.valueOf(incomeStart), Date.valueOf(incomeEnd));
+        }
+        return slicer.finish();
+    }
+
+    private ReportRows open(String userId,
+                            LocalDate expenseStart, LocalDate expenseEnd,
+                            LocalDate incomeStart, LocalDate incomeEnd,
+                            IdRange expenseIds, IdRange incomeIds) {
+        return new ReportRows() {
+            @Override
+            public void forEachExpense(BiConsumer<Expense, BigDecimal> handler) {
+                if (expenseIds.isEmpty()) return;
+                cursorTemplate.query(EXPENSES_SQL, rs -> {
+                    handler.accept(mapExpense(rs, userId), rs.getBigDecimal("adjusted"));
+                }, userId, userId, Date.valueOf(expenseStart), Date.valueOf(expenseEnd), expenseIds.after, expenseIds.upTo);
+            }
+
+            @Override
+            public void forEachIncome(Consumer<Income> handler) {
+                if (incomeIds.isEmpty()) return;
+                cursorTemplate.query(INCOMES_SQL, rs -> {
+                    handler.accept(mapIncome(rs, userId));
+                }, userId, Date.valueOf(incomeStart), Date.valueOf(incomeEnd), incomeIds.after, incomeIds.upTo);
+            }
+
+            /** Aggregated in the database over the same id ranges; nothing is iterated. */
+            @Override
+            public ReportSummary summarize() {
+                Date from = Date.valueOf(expenseStart);
+                Date to   = Date.valueOf(expenseEnd);
+                Object[] expenses = jdbcTemplate.queryForObject(EXPENSE_TOTALS_SQL,
+                        (rs, n) -> new Object[]{rs.getLong(1), rs.getBigDecimal(2)},
+                        userId, from, to, expenseIds.after, expenseIds.upTo);
+                BigDecimal adjustments = jdbcTemplate.queryForObject(ADJUSTMENT_TOTAL_SQL, BigDecimal.class,
+                        userId, from, to, expenseIds.after, expenseIds.upTo);
+                Object[] incomes = jdbcTemplate.queryForObject(INCOME_TOTALS_SQL,
+                        (rs, n) -> new Object[]{rs.getLong(1), rs.getBigDecimal(2)},
+                        userId, Date.valueOf(incomeStart), Date.valueOf(incomeEnd), incomeIds.after, incomeIds.upTo);
+                return new ReportSummary((Long) expenses[0], (BigDecimal) expenses[1], adjustments,
+                        (Long) incomes[0], (BigDecimal) incomes[1]);
+            }
+        };
+    }
+
+    /**
+     * Version of the data a report over these ranges would show; it changes whenever
+     * an expense, adjustment, income or category the report reads is added, changed or
+     * removed.  Used to key cached renders.
+     */
+    public String dataVersion(String userId,
+                              LocalDate expenseStart, LocalDate expenseEnd,
+                              LocalDate incomeStart, LocalDate incomeEnd) {
+        Date from = Date.valueOf(expenseStart);
+        Date to   = Date.valueOf(expenseEnd);
+        return jdbcTemplate.queryForObject(DATA_VERSION_SQL, String.class,
+                userId, from, to, userId, from, to,
+                userId, Date.valueOf(incomeStart), Date.valueOf(incomeEnd), userId);
+    }
+
+    /** Ids {@code after < id <= upTo}. */
+    private static final class IdRange {
+        static final IdRange ALL  = new IdRange(Long.MIN_VALUE, Long.MAX_VALUE);
+        static final IdRange NONE = new IdRange(0, 0);
+
+        final long after;
+        final long upTo;
+
+        IdRange(long after, long upTo) {
+            this.after = after;
+            this.upTo  = upTo;
+        }
+
+        boolean isEmpty() {
+            return after >= upTo;
+        }
+    }
+
+    /** Closes a slice every {@code perPart} ids; a slice spanning both sections takes the rest of the expenses. */
+    private static final class Slicer {
+        private final long perPart;
+        private final BiFunction<IdRange, IdRange, ReportRows> rows;
+        private final List<ReportRowSlice> slices = new ArrayList<>();
+        private long seen;
+        private long first = 1;
+        private long expenseAfter = Long.MIN_VALUE;
+        private long incomeAfter = Long.MIN_VALUE;
+        private boolean openExpenses;
+        private boolean openIncomes;
+
+        Slicer(long perPart, BiFunction<IdRange, IdRange, ReportRows> rows) {
+            this.perPart = perPart;
+            this.rows = rows;
+        }
+
+        void expense(long id) {
+            seen++;
+            openExpenses = true;
+            if (seen - first + 1 == perPart) {
+                close(new IdRange(expenseAfter, id), IdRange.NONE);
+                expenseAfter = id;
+            }
+        }
+
+        void income(long id) {
+            seen++;
+            openIncomes = true;
+            if (seen - first + 1 == perPart) {
+                close(openExpenses ? new IdRange(expenseAfter, Long.MAX_VALUE) : IdRange.NONE,
+                        new IdRange(incomeAfter, id));
+                incomeAfter = id;
+            }
+        }
+
+        List<ReportRowSlice> finish() {
+            if (openExpenses || openIncomes) {
+                close(openExpenses ? new IdRange(expenseAfter, Long.MAX_VALUE) : IdRange.NONE,
+                        openIncomes ? new IdRange(incomeAfter, Long.MAX_VALUE) : IdRange.NONE);
+            }
+            return slices;
+        }
+
+        private void close(IdRange expenseIds, IdRange incomeIds) {
+            slices.add(new ReportRowSlice(rows.apply(expenseIds, incomeIds), first, seen));
+            first = seen + 1;
+            openExpenses = false;
+            openIncomes = false;
+        }
+    }
+
+    private static Expense mapExpense(ResultSet rs, String userId) throws SQLException {
+        Expense expense = new Expense();
+        expense.setExpensesId(rs.getInt("expenses_id"));
+        expense.setUserId(userId);
+        expense.setExpenseName(rs.getString("expense_name"));
+        expense.setExpenseAmount(rs.getBigDecimal("expense_amount"));
+        expense.setUserExpenseCategoryId(rs.getInt("user_expense_category_id"));
+        Date expenseDate = rs.getDate("expense_date");
+        expense.setExpenseDate(expenseDate != null ? expenseDate.toLocalDate() : null);
+        Timestamp updated = rs.getTimestamp("last_update_tmstp");
+        expense.setLastUpdateTmstp(updated != null ? updated.toLocalDateTime() : null);
+        return expense;
+    }
+
+    private static Income mapIncome(ResultSet rs, String userId) throws SQLException {
+        Income income = new Income();
+        income.setIncomeId(rs.getInt("income_id"));
+        income.setUserId(userId);
+        income.setSource(rs.getString("source"));
+        income.setAmount(rs.getBigDecimal("amount"));
+        Date received = rs.getDate("received_date");
+        income.setReceivedDate(received != null ? received.toLocalDate() : null);
+        Timestamp updated = rs.getTimestamp("last_update_tmstp");
+        income.setLastUpdateTmstp(updated != null ? updated.toLocalDateTime() : null);
+        income.setMonth(rs.getString("month"));
+        int year = rs.getInt("year");
+        income.setYear(rs.wasNull() ? null : year);
+        return income;
+    }
+}
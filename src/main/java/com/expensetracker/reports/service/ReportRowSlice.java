@@ -0,0 +1,35 @@
+package com.expensetracker.reports.service;
+
+/**
+ * A range of a report's records, numbered across expenses then income, so one
+ * report can be rendered as several complete files.  Its rows are bounded by id
+ * and its summary covers only them.  Built by {@link ReportRowCursor#slice}.
+ */
+class ReportRowSlice {
+
+    private final ReportRows rows;
+    private final long firstRecord;
+    private final long lastRecord;
+
+    /**
+     * @param firstRecord first record, 1-based, inclusive
+     * @param lastRecord  last record, inclusive
+     */
+    ReportRowSlice(ReportRows rows, long firstRecord, long lastRecord) {
+        this.rows        = rows;
+        this.firstRecord = firstRecord;
+        this.lastRecord  = lastRecord;
+    }
+
+    ReportRows getRows() {
+        return rows;
+    }
+
+    long getFirstRecord() {
+        return firstRecord;
+    }
+
+    long getLastRecord() {
+        return lastRecord;
+    }
+}
@@ -0,0 +1,33 @@
+package com.expensetracker.reports.service;
+
+import com.expensetracker.model.Expense;
+import com.expensetracker.model.Income;
+
+import java.math.BigDecimal;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Source of the rows of one report, visited once per sheet / section.
+ *
+ * <p>Renderers only iterate, so the rows can come straight from a database
+ * cursor ({@link ReportRowCursor}) and no more than one row is held at a time.</p>
+ */
+public interface ReportRows {
+
+    /**
+     * Visits the report's expenses with the total of their completed adjustments
+     * ({@code null} when an expense has none).
+     */
+    void forEachExpense(BiConsumer<Expense, BigDecimal> handler);
+
+    void forEachIncome(Consumer<Income> handler);
+
+    /**
+     * Totals and record counts of exactly the rows the {@code forEach} methods
+     * visit, for renderers that print the summary before the rows.  For one part of
+     * a split report that is the part, matching the totals a renderer would sum
+     * while visiting.
+     */
+    ReportSummary summarize();
+}
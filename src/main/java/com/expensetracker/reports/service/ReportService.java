@@ -1,32 +1,48 @@
 package com.expensetracker.reports.service;
 
 import com.expensetracker.exception.BadRequestException;
-import com.expensetracker.model.Expense;
-import com.expensetracker.model.ExpenseAdjustment;
-import com.expensetracker.model.Income;
 import com.expensetracker.model.UserExpenseCategory;
 import com.expensetracker.reports.dto.EmailExportRequest;
 import com.expensetracker.reports.dto.ExportRequest;
 import com.expensetracker.reports.dto.ExportResponse;
-import com.expensetracker.repository.ExpenseAdjustmentRepository;
+import com.expensetracker.reports.model.EmailOutboxMessage;
+import com.expensetracker.reports.repository.EmailOutboxRepository;
 import com.expensetracker.repository.ExpenseRepository;
 import com.expensetracker.repository.IncomeRepository;
 import com.expensetracker.repository.UserExpenseCategoryRepository;
 import com.expensetracker.service.AnalyticsService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.mail.MessagingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @Service
 public class ReportService {
@@ -34,32 +50,56 @@ public class ReportService {
     private static final Logger logger = LoggerFactory.getLogger(ReportService.class);
     private static final DateTimeFormatter FILE_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
     private static final long MAX_DATE_RANGE_DAYS = 366; // Max 1 year (including leap year)
+    private static final int GZIP_BUFFER_BYTES = 64 * 1024;
+    private static final int FILE_BUFFER_BYTES = 64 * 1024;
+    /** Target share of the attachment limit when sizing record-range parts. */
+    private static final double PART_FILL_RATIO = 0.8;
 
     private final ExpenseRepository expenseRepository;
     private final IncomeRepository incomeRepository;
     private final UserExpenseCategoryRepository userExpenseCategoryRepository;
-    private final ExpenseAdjustmentRepository adjustmentRepository;
     private final ExcelExportService excelExportService;
     private final PdfExportService pdfExportService;
     private final ReportEmailService reportEmailService;
     private final AnalyticsService analyticsService;
+    private final ReportRowCursor rowCursor;
+    private final CsvExportService csvExportService;
+    private final JsonLinesExportService jsonLinesExportService;
+    private final ReportCacheService reportCache;
+    private final TransactionTemplate snapshotTx;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final ObjectMapper objectMapper;
 
     public ReportService(ExpenseRepository expenseRepository,
                          IncomeRepository incomeRepository,
                          UserExpenseCategoryRepository userExpenseCategoryRepository,
-                         ExpenseAdjustmentRepository adjustmentRepository,
                          ExcelExportService excelExportService,
                          PdfExportService pdfExportService,
                          ReportEmailService reportEmailService,
-                         AnalyticsService analyticsService) {
+                         AnalyticsService analyticsService,
+                         ReportRowCursor rowCursor,
+                         CsvExportService csvExportService,
+                         JsonLinesExportService jsonLinesExportService,
+                         ReportCacheService reportCache,
+                         PlatformTransactionManager transactionManager,
+                         EmailOutboxRepository emailOutboxRepository,
+                         ObjectMapper objectMapper) {
         this.expenseRepository = expenseRepository;
         this.incomeRepository = incomeRepository;
         this.userExpenseCategoryRepository = userExpenseCategoryRepository;
-        this.adjustmentRepository = adjustmentRepository;
         this.excelExportService = excelExportService;
         this.pdfExportService = pdfExportService;
         this.reportEmailService = reportEmailService;
         this.analyticsService = analyticsService;
+        this.rowCursor = rowCursor;
+        this.csvExportService = csvExportService;
+        this.jsonLinesExportService = jsonLinesExportService;
+        this.reportCache = reportCache;
+        this.snapshotTx = new TransactionTemplate(transactionManager);
+        this.snapshotTx.setReadOnly(true);
+        this.snapshotTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -86,84 +126,89 @@ public class ReportService {
     }
 
     /**
-     * Generate report based on format (Excel or PDF).
-     * Income date range is adjusted per the user's incomeMonth preference (C/P).
+     * Prepare a report for streaming to the client.  Validation runs now, so a bad
+     * request fails before the response is committed; the report's inputs and rows
+     * are read when the returned body is written, and rendered straight into the
+     * response stream.
      */
-    public byte[] generateReport(ExportRequest request) throws IOException {
+    public StreamingResponseBody streamReport(ExportRequest request) {
+        validateRequest(request.getUserId(), request.getStartDate(), request.getEndDate());
+        return out -> write(request, out);
+    }
+
+    /**
+     * Prepare a report download.  Reports of closed periods are served from the
+     * {@link ReportCacheService} while their data is unchanged, with an ETag and a
+     * Content-Length; a miss is streamed as usual and cached on the way.
+     *
+     * @param ifNoneMatch the request's {@code If-None-Match} header, if any
+     */
+    public ReportDownload prepareDownload(ExportRequest request, String ifNoneMatch) {
         validateRequest(request.getUserId(), request.getStartDate(), request.getEndDate());
 
-        // Resolve income range based on user preference
         LocalDate[] incomeRange = analyticsService.resolveIncomeRangeForRange(
                 request.getUserId(), request.getStartDate(), request.getEndDate());
-        LocalDate incomeStart = incomeRange[0];
-        LocalDate incomeEnd = incomeRange[1];
         String incomePref = analyticsService.getIncomePreference(request.getUserId());
-
-        logger.info("Generating {} report for user: {}, type: {}, expense range: {} to {}, income range: {} to {} (pref={})",
-                request.getFormat(), request.getUserId(), request.getExportType(),
-                request.getStartDate(), request.getEndDate(), incomeStart, incomeEnd, incomePref);
-
-        // Fetch data
-        List<Expense> expenses = Collections.emptyList();
-        List<Income> incomes = Collections.emptyList();
-        Map<Integer, String> categoryMap = Collections.emptyMap();
-        Map<Integer, BigDecimal> adjustmentsMap = Collections.emptyMap();
-
-        if (request.getExportType() == ExportRequest.ExportType.EXPENSES ||
-                request.getExportType() == ExportRequest.ExportType.BOTH) {
-            expenses = expenseRepository.findByUserIdAndExpenseDateBetween(
-                    request.getUserId(), request.getStartDate(), request.getEndDate());
-            categoryMap = getCategoryMap(request.getUserId());
-
-            // Fetch adjustments for all expenses
-            if (!expenses.isEmpty()) {
-                List<Integer> expenseIds = expenses.stream()
-                        .map(Expense::getExpensesId)
-                        .collect(Collectors.toList());
-                adjustmentsMap = getAdjustmentsMap(expenseIds);
-            }
+        if (!reportCache.isCacheable(request)) {
+            return new ReportDownload(out -> write(request, out), null, null, false);
         }
 
-        if (request.getExportType() == ExportRequest.ExportType.INCOME ||
-                request.getExportType() == ExportRequest.ExportType.BOTH) {
-            // Use preference-adjusted income range
-            incomes = incomeRepository.findByUserIdAndReceivedDateBetween(
-                    request.getUserId(), incomeStart, incomeEnd);
+        String dataVersion = rowCursor.dataVersion(request.getUserId(),
+                request.getStartDate(), request.getEndDate(), incomeRange[0], incomeRange[1]);
+        ReportCacheService.CacheKey key = reportCache.key(request, incomePref, dataVersion);
+        String etag = key.getEtag();
+        if (etagMatches(ifNoneMatch, etag)) {
+            return new ReportDownload(null, null, etag, true);
         }
 
-        // Generate report based on format
-        if (request.getFormat() == ExportRequest.ExportFormat.EXCEL) {
-            return excelExportService.generateReport(expenses, incomes, categoryMap, adjustmentsMap,
-                    request.getExportType(), request.getStartDate(), request.getEndDate(),
-                    incomeStart, incomeEnd, incomePref);
-        } else {
-            return pdfExportService.generateReport(expenses, incomes, categoryMap, adjustmentsMap,
-                    request.getExportType(), request.getStartDate(), request.getEndDate(),
-                    incomeStart, incomeEnd, incomePref);
+        ReportCacheService.Hit hit = reportCache.open(key);
+        if (hit != null) {
+            logger.info("Serving cached {} report for user: {}, type: {}, range: {} to {} ({} bytes)",
+                    request.getFormat(), request.getUserId(), request.getExportType(),
+                    request.getStartDate(), request.getEndDate(), hit.getSize());
+            return new ReportDownload(hit.body(), hit.getSize(), etag, false);
         }
+        return new ReportDownload(reportCache.fill(key, out -> write(request, out)), null, etag, false);
     }
 
     /**
-     * Get a map of expense ID to total completed adjustment amount
+     * Queue a report email.  The request is validated and committed to the email
+     * outbox, and the call returns; the {@link EmailOutboxDispatcher} renders and sends
+     * the report in the background and retries transient failures, so a slow or
+     * unavailable SMTP server neither delays the caller nor loses the email.  The
+     * record count is taken from the database.
      */
-    private Map<Integer, BigDecimal> getAdjustmentsMap(List<Integer> expenseIds) {
-        if (expenseIds == null || expenseIds.isEmpty()) {
-            return Collections.emptyMap();
-        }
-        List<ExpenseAdjustment> completedAdjustments = adjustmentRepository.findCompletedAdjustmentsForExpenses(expenseIds);
-        return completedAdjustments.stream()
-                .collect(Collectors.groupingBy(
-                        ExpenseAdjustment::getExpensesId,
-                        Collectors.reducing(BigDecimal.ZERO,
-                                ExpenseAdjustment::getAdjustmentAmount,
-                                BigDecimal::add)
-                ));
+    public ExportResponse generateAndEmailReport(EmailExportRequest request) {
+        validateEmailRequest(request);
+
+        ExportRequest exportRequest = toExportRequest(request);
+        String fileName = generateFileName(exportRequest);
+        int totalRecords = getTotalRecords(exportRequest);
+
+        LocalDateTime now = LocalDateTime.now();
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setUserId(request.getUserId());
+        message.setEmail(request.getEmail());
+        message.setRequestJson(writeJson(request));
+        message.setFileName(fileName);
+        message.setStatus(EmailOutboxDispatcher.STATUS_PENDING);
+        message.setAttempts(0);
+        message.setPartsSent(0);
+        message.setNextAttemptAt(now);
+        message.setCreatedAt(now);
+        message.setUpdatedAt(now);
+        emailOutboxRepository.save(message);
+
+        logger.info("Queued {} report email {} to: {}, type: {}, date range: {} to {}",
+                request.getFormat(), message.getOutboxId(), request.getEmail(), request.getExportType(),
+                request.getStartDate(), request.getEndDate());
+        return ExportResponse.success("Report queued for delivery to " + request.getEmail(), fileName, totalRecords);
     }
 
     /**
-     * Generate and email report
+     * Validate an email export request: date range, recipient address and mail server
      */
-    public ExportResponse generateAndEmailReport(EmailExportRequest request) {
+    public void validateEmailRequest(EmailExportRequest request) {
         validateRequest(request.getUserId(), request.getStartDate(), request.getEndDate());
 
         if (request.getEmail() == null || request.getEmail().isBlank()) {
@@ -177,82 +222,264 @@ public class ReportService {
         if (!reportEmailService.isMailServiceAvailable()) {
             throw new BadRequestException("Email service is not configured. Please check mail server settings.");
         }
+    }
 
-        logger.info("Generating and emailing {} report to: {}, type: {}, date range: {} to {}",
-                request.getFormat(), request.getEmail(), request.getExportType(),
-                request.getStartDate(), request.getEndDate());
+    /**
+     * Render an email report from a row cursor into {@code workFile} and send it.
+     * Used by monthly statements and the email outbox; the caller owns (and
+     * deletes) the file.
+     */
+    public ExportResponse emailReport(EmailExportRequest request, Path workFile) throws IOException, MessagingException {
+        return emailReport(request, workFile, 0, sent -> { });
+    }
+
+    /**
+     * Like {@link #emailReport(EmailExportRequest, Path)}, for a retry: the first
+     * {@code partsAlreadySent} parts went out on an earlier attempt and are not sent
+     * again.  {@code partSent} is told the number of parts sent so far after each
+     * email, so the caller can record it before the next one.  Parts are cut from the
+     * data at the time of the attempt; if records were added or removed since, the
+     * remaining parts may not line up exactly with those already sent.
+     */
+    public ExportResponse emailReport(EmailExportRequest request, Path workFile,
+                                      int partsAlreadySent, IntConsumer partSent) throws IOException, MessagingException {
+        validateEmailRequest(request);
+        return deliver(request, workFile, partsAlreadySent, partSent);
+    }
 
+    /**
+     * Renders an email report into {@code workFile} and sends it.  A report over the
+     * attachment limit is zipped; if the zip is still too large, the report is
+     * rendered again in record ranges, each a complete file (with a summary of its own
+     * records) zipped on its own and sent in its own email.  All renders read one
+     * snapshot and stream to disk.
+     */
+    private ExportResponse deliver(EmailExportRequest request, Path workFile,
+                                   int partsAlreadySent, IntConsumer partSent) throws IOException, MessagingException {
+        ExportRequest exportRequest = toExportRequest(request);
+        String fileName = generateFileName(exportRequest);
+        List<Path> scratch = new ArrayList<>();
         try {
-            // Convert to ExportRequest
-            ExportRequest exportRequest = new ExportRequest();
-            exportRequest.setUserId(request.getUserId());
-            exportRequest.setStartDate(request.getStartDate());
-            exportRequest.setEndDate(request.getEndDate());
-            exportRequest.setExportType(request.getExportType());
-            exportRequest.setFormat(request.getFormat());
-
-            // Generate report
-            byte[] reportData = generateReport(exportRequest);
-
-            // Generate file name
-            String fileName = generateFileName(request);
-
-            // Get record count
-            int totalRecords = getTotalRecords(request);
-
-            // Send email
-            String reportTypeName = getReportTypeName(request.getExportType());
-            int emailsSent = reportEmailService.sendReport(
-                    request.getEmail(),
-                    reportData,
-                    fileName,
-                    reportTypeName,
-                    request.getStartDate(),
-                    request.getEndDate()
-            );
-
-            String message = emailsSent == 1 ?
-                    "Report sent successfully to " + request.getEmail() :
-                    "Report sent successfully in " + emailsSent + " parts to " + request.getEmail();
-
-            return ExportResponse.success(message, fileName, totalRecords);
+            List<ReportPart> parts = inSnapshot(() -> {
+                ReportPlan plan = plan(exportRequest);
+                CountingReportRows rows = new CountingReportRows(plan.rows);
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(workFile), FILE_BUFFER_BYTES)) {
+                    write(plan, rows, out);
+                }
+                return partition(plan, rows, workFile, fileName, scratch);
+            });
+
+            int emailsSent = reportEmailService.sendReport(request.getEmail(), parts,
+                    getReportTypeName(request.getExportType()), request.getStartDate(), request.getEndDate(),
+                    partsAlreadySent, partSent);
+            long records = parts.get(parts.size() - 1).getLastRecord();
+            return ExportResponse.success(sentMessage(request.getEmail(), emailsSent), fileName, Math.toIntExact(records));
+        } finally {
+            scratch.forEach(ReportService::deleteQuietly);
+        }
+    }
 
-        } catch (IOException e) {
-            logger.error("Error generating report", e);
-            return ExportResponse.error("Failed to generate report: " + e.getMessage());
-        } catch (MessagingException e) {
-            logger.error("Error sending email", e);
-            return ExportResponse.error("Failed to send email: " + e.getMessage());
+    /**
+     * Fits a rendered report into attachments: as is, zipped, or as zipped record
+     * ranges.  Part counts start from the zipped size and double until every part fits.
+     * Ranges are cut by id ({@link ReportRowCursor#slice}), so each round reads every
+     * row once, and each part's summary covers only its own records in every format.
+     */
+    private List<ReportPart> partition(ReportPlan plan, CountingReportRows rows, Path rendered,
+                                       String fileName, List<Path> scratch) throws IOException {
+        long limit = reportEmailService.getMaxAttachmentSize();
+        long records = rows.getRecordCount();
+        if (Files.size(rendered) <= limit) {
+            return List.of(new ReportPart(rendered, fileName, 1, records));
+        }
+
+        int dot = fileName.lastIndexOf('.');
+        String baseName = dot > 0 ? fileName.substring(0, dot) : fileName;
+        String extension = dot > 0 ? fileName.substring(dot) : "";
+
+        Path zip = scratchFile(rendered, ".zip", scratch);
+        zip(rendered, fileName, zip);
+        long zipSize = Files.size(zip);
+        if (zipSize <= limit) {
+            logger.info("Report {} compressed from {} to {} bytes for email", fileName, Files.size(rendered), zipSize);
+            return List.of(new ReportPart(zip, baseName + ".zip", 1, records));
+        }
+
+        long partCount = Math.min(records, Math.max(2, (long) Math.ceil(zipSize / (limit * PART_FILL_RATIO))));
+        while (true) {
+            long perPart = (records + partCount - 1) / partCount;
+            ExportRequest request = plan.request;
+            List<ReportRowSlice> slices = rowCursor.slice(request.getUserId(),
+                    request.getStartDate(), request.getEndDate(), plan.incomeRange[0], plan.incomeRange[1],
+                    includesExpenses(request.getExportType()), includesIncome(request.getExportType()), perPart);
+            List<ReportPart> parts = new ArrayList<>();
+            boolean fits = true;
+            for (int k = 1; k <= slices.size() && fits; k++) {
+                ReportRowSlice slice = slices.get(k - 1);
+                String partName = baseName + "_part" + k;
+                Path partFile = scratchFile(rendered, ".p" + k, scratch);
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partFile), FILE_BUFFER_BYTES)) {
+                    write(plan, slice.getRows(), out);
+                }
+                Path partZip = scratchFile(rendered, ".p" + k + ".zip", scratch);
+                zip(partFile, partName + extension, partZip);
+                deleteQuietly(partFile);
+                fits = Files.size(partZip) <= limit;
+                parts.add(new ReportPart(partZip, partName + ".zip", slice.getFirstRecord(), slice.getLastRecord()));
+            }
+            if (fits) {
+                logger.info("Report {} ({} compressed bytes) split into {} parts of up to {} records",
+                        fileName, zipSize, parts.size(), perPart);
+                return parts;
+            }
+            if (perPart <= 1) {
+                throw new IOException("A single record of the report exceeds the email attachment limit");
+            }
+            partCount = Math.min(records, partCount * 2);
         }
     }
 
     /**
-     * Get total number of records for the report (uses preference-adjusted income range)
+     * Get total number of records for the report (uses preference-adjusted income range).
+     * Counted in the database; no rows are loaded.
      */
     public int getTotalRecords(ExportRequest request) {
-        int count = 0;
-        if (request.getExportType() == ExportRequest.ExportType.EXPENSES ||
-                request.getExportType() == ExportRequest.ExportType.BOTH) {
-            count += expenseRepository.findByUserIdAndExpenseDateBetween(
-                    request.getUserId(), request.getStartDate(), request.getEndDate()).size();
+        validateRequest(request.getUserId(), request.getStartDate(), request.getEndDate());
+
+        long count = 0;
+        if (includesExpenses(request.getExportType())) {
+            count += expenseRepository.countByUserIdAndExpenseDateBetween(
+                    request.getUserId(), request.getStartDate(), request.getEndDate());
         }
-        if (request.getExportType() == ExportRequest.ExportType.INCOME ||
-                request.getExportType() == ExportRequest.ExportType.BOTH) {
+        if (includesIncome(request.getExportType())) {
             LocalDate[] incomeRange = analyticsService.resolveIncomeRangeForRange(
                     request.getUserId(), request.getStartDate(), request.getEndDate());
-            count += incomeRepository.findByUserIdAndReceivedDateBetween(
-                    request.getUserId(), incomeRange[0], incomeRange[1]).size();
+            count += incomeRepository.countByUserIdAndReceivedDateBetween(
+                    request.getUserId(), incomeRange[0], incomeRange[1]);
         }
-        return count;
+        return Math.toIntExact(count);
     }
 
-    private int getTotalRecords(EmailExportRequest request) {
-        ExportRequest exportRequest = new ExportRequest();
-        exportRequest.setUserId(request.getUserId());
-        exportRequest.setStartDate(request.getStartDate());
-        exportRequest.setEndDate(request.getEndDate());
-        exportRequest.setExportType(request.getExportType());
-        return getTotalRecords(exportRequest);
+    /**
+     * Validates the request and resolves everything a report needs besides its rows:
+     * the preference-adjusted income range, the income preference and category names.
+     * Called inside the snapshot transaction, so these inputs and the rows read the
+     * same data.
+     */
+    private ReportPlan plan(ExportRequest request) {
+        validateRequest(request.getUserId(), request.getStartDate(), request.getEndDate());
+
+        LocalDate[] incomeRange = analyticsService.resolveIncomeRangeForRange(
+                request.getUserId(), request.getStartDate(), request.getEndDate());
+        String incomePref = analyticsService.getIncomePreference(request.getUserId());
+        Map<Integer, String> categoryMap = includesExpenses(request.getExportType())
+                ? getCategoryMap(request.getUserId())
+                : Collections.emptyMap();
+        ReportRows rows = rowCursor.open(request.getUserId(),
+                request.getStartDate(), request.getEndDate(), incomeRange[0], incomeRange[1]);
+
+        logger.info("Preparing {} report for user: {}, type: {}, expense range: {} to {}, income range: {} to {} (pref={})",
+                request.getFormat(), request.getUserId(), request.getExportType(),
+                request.getStartDate(), request.getEndDate(), incomeRange[0], incomeRange[1], incomePref);
+
+        return new ReportPlan(request, incomeRange, incomePref, categoryMap, rows);
+    }
+
+    /**
+     * Resolves and renders the report, gzip-compressed if requested, inside one
+     * read-only REPEATABLE READ transaction: the income range, category names, row
+     * cursors and any summary aggregates read the same snapshot, so totals always
+     * match the rows.
+     */
+    private void write(ExportRequest request, OutputStream out) throws IOException {
+        inSnapshot(() -> {
+            ReportPlan plan = plan(request);
+            write(plan, plan.rows, out);
+            return null;
+        });
+    }
+
+    private void write(ReportPlan plan, ReportRows rows, OutputStream out) throws IOException {
+        inSnapshot(() -> {
+            if (!plan.request.isGzip()) {
+                render(plan.request, rows, plan.categoryMap, plan.incomeRange, plan.incomePref, out);
+                return null;
+            }
+            GZIPOutputStream gzip = new GZIPOutputStream(out, GZIP_BUFFER_BYTES);
+            render(plan.request, rows, plan.categoryMap, plan.incomeRange, plan.incomePref, gzip);
+            gzip.finish();
+            return null;
+        });
+    }
+
+    /** Runs {@code work} in the read-only snapshot transaction, joining one already open. */
+    private <T> T inSnapshot(SnapshotWork<T> work) throws IOException {
+        try {
+            return snapshotTx.execute(status -> {
+                try {
+                    return work.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Path scratchFile(Path workFile, String suffix, List<Path> scratch) {
+        Path file = workFile.resolveSibling(workFile.getFileName() + suffix);
+        scratch.add(file);
+        return file;
+    }
+
+    private static void zip(Path source, String entryName, Path target) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(target), FILE_BUFFER_BYTES))) {
+            zip.setLevel(Deflater.BEST_COMPRESSION);
+            zip.putNextEntry(new ZipEntry(entryName));
+            Files.copy(source, zip);
+            zip.closeEntry();
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete report work file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        // If-None-Match uses the weak comparison: W/ prefixes are ignored on both sides
+        String opaqueTag = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeak(tag).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private void render(ExportRequest request, ReportRows rows, Map<Integer, String> categoryMap,
+                        LocalDate[] incomeRange, String incomePref, OutputStream out) throws IOException {
+        switch (request.getFormat()) {
+            case EXCEL -> excelExportService.writeReport(rows, categoryMap, request.getExportType(),
+                    request.getStartDate(), request.getEndDate(), incomeRange[0], incomeRange[1], incomePref, out);
+            case PDF -> pdfExportService.writeReport(rows, categoryMap, request.getExportType(),
+                    request.getStartDate(), request.getEndDate(), incomeRange[0], incomeRange[1], incomePref, out);
+            case CSV -> csvExportService.writeReport(rows, categoryMap, request.getExportType(), out);
+            case NDJSON -> jsonLinesExportService.writeReport(rows, categoryMap, request.getExportType(), out);
+        }
     }
 
     /**
@@ -265,7 +492,15 @@ public class ReportService {
             case BOTH -> "financial_report";
         };
 
-        String extension = request.getFormat() == ExportRequest.ExportFormat.EXCEL ? ".xlsx" : ".pdf";
+        String extension = switch (request.getFormat()) {
+            case EXCEL -> ".xlsx";
+            case PDF -> ".pdf";
+            case CSV -> ".csv";
+            case NDJSON -> ".ndjson";
+        };
+        if (request.isGzip()) {
+            extension += ".gz";
+        }
 
         return String.format("%s_%s_%s%s",
                 typeName,
@@ -274,13 +509,51 @@ public class ReportService {
                 extension);
     }
 
-    private String generateFileName(EmailExportRequest request) {
+    /**
+     * Content type of the downloaded file
+     */
+    public MediaType getContentType(ExportRequest request) {
+        if (request.isGzip()) {
+            return MediaType.parseMediaType("application/gzip");
+        }
+        return switch (request.getFormat()) {
+            case EXCEL -> MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+            case PDF -> MediaType.APPLICATION_PDF;
+            case CSV -> MediaType.parseMediaType("text/csv;charset=UTF-8");
+            case NDJSON -> MediaType.APPLICATION_NDJSON;
+        };
+    }
+
+    static ExportRequest toExportRequest(EmailExportRequest request) {
         ExportRequest exportRequest = new ExportRequest();
+        exportRequest.setUserId(request.getUserId());
         exportRequest.setStartDate(request.getStartDate());
         exportRequest.setEndDate(request.getEndDate());
         exportRequest.setExportType(request.getExportType());
         exportRequest.setFormat(request.getFormat());
-        return generateFileName(exportRequest);
+        return exportRequest;
+    }
+
+    private String writeJson(EmailExportRequest request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Could not queue the report email: " + e.getOriginalMessage());
+        }
+    }
+
+    private static String sentMessage(String email, int emailsSent) {
+        return emailsSent == 1 ?
+                "Report sent successfully to " + email :
+                "Report sent successfully in " + emailsSent + " parts to " + email;
+    }
+
+    private static boolean includesExpenses(ExportRequest.ExportType exportType) {
+        return exportType == ExportRequest.ExportType.EXPENSES || exportType == ExportRequest.ExportType.BOTH;
+    }
+
+    private static boolean includesIncome(ExportRequest.ExportType exportType) {
+        return exportType == ExportRequest.ExportType.INCOME || exportType == ExportRequest.ExportType.BOTH;
     }
 
     private Map<Integer, String> getCategoryMap(String userId) {
@@ -309,4 +582,27 @@ public class ReportService {
         // Basic email validation
         return email.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
     }
+
+    /** One report's request and resolved inputs; its rows are read when it is written. */
+    private static final class ReportPlan {
+        final ExportRequest request;
+        final LocalDate[] incomeRange;
+        final String incomePref;
+        final Map<Integer, String> categoryMap;
+        final ReportRows rows;
+
+        ReportPlan(ExportRequest request, LocalDate[] incomeRange, String incomePref,
+                   Map<Integer, String> categoryMap, ReportRows rows) {
+            this.request     = request;
+            this.incomeRange = incomeRange;
+            this.incomePref  = incomePref;
+            this.categoryMap = categoryMap;
+            this.rows        = rows;
+        }
+    }
+
+    @FunctionalInterface
+    private interface SnapshotWork<T> {
+        T run() throws IOException;
+    }
 }
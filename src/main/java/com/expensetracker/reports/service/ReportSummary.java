@@ -0,0 +1,20 @@
+package com.expensetracker.reports.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Totals of one report: gross expenses, their completed adjustments and income,
+ * with record counts.
+ */
+@Data
+@AllArgsConstructor
+public class ReportSummary {
+    private long expenseCount;
+    private BigDecimal expenseTotal;
+    private BigDecimal adjustmentTotal;
+    private long incomeCount;
+    private BigDecimal incomeTotal;
+}
@@ -0,0 +1,16 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.model.BankStatementImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BankStatementImportJobRepository extends JpaRepository<BankStatementImportJob, String> {
+    Optional<BankStatementImportJob> findByJobIdAndUserId(String jobId, String userId);
+    List<BankStatementImportJob> findByStatusInAndUpdatedAtBefore(Collection<String> statuses, LocalDateTime updatedBefore);
+}
@@ -10,6 +10,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -48,6 +49,19 @@ public interface ExpenseAdjustmentRepository extends JpaRepository<ExpenseAdjust
             @Param("start") LocalDate start,
             @Param("end") LocalDate end);
 
+    /**
+     * Get total completed adjustments per user within a date range, for a batch of users.
+     * Each row is {@code [userId (String), total (BigDecimal)]}; users without adjustments are absent.
+     */
+    @Query("SELECT ea.userId, COALESCE(SUM(ea.adjustmentAmount), 0) FROM ExpenseAdjustment ea " +
+           "WHERE ea.userId IN :userIds AND ea.status = 'COMPLETED' " +
+           "AND ea.adjustmentDate BETWEEN :start AND :end " +
+           "GROUP BY ea.userId")
+    List<Object[]> getTotalCompletedAdjustmentsByUserInRange(
+            @Param("userIds") Collection<String> userIds,
+            @Param("start") LocalDate start,
+            @Param("end") LocalDate end);
+
     /**
      * Get all completed adjustments for expenses in a list of expense IDs.
      */
@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,8 +20,20 @@ public interface ExpenseRepository extends JpaRepository<Expense, Integer>, JpaS
     List<Expense> findByUserIdAndExpenseDateBetween(String userId, LocalDate start, LocalDate end);
     List<Expense> findByUserIdAndExpenseDateBetweenOrderByExpenseDateDescExpensesIdDesc(String userId, LocalDate start, LocalDate end);
     Page<Expense> findByUserIdAndExpenseDateBetween(String userId, LocalDate start, LocalDate end, Pageable pageable);
+    long countByUserIdAndExpenseDateBetween(String userId, LocalDate start, LocalDate end);
     void deleteByUserId(String userId);
     boolean existsByUserExpenseCategoryId(Integer userExpenseCategoryId);
     @Query("SELECT DISTINCT e.userExpenseCategoryId FROM Expense e WHERE e.userId = :userId AND e.userExpenseCategoryId IS NOT NULL")
     List<Integer> findDistinctUserExpenseCategoryIdByUserId(@Param("userId") String userId);
+
+    /**
+     * Total expense amount per user within a date range, for a batch of users.
+     * Each row is {@code [userId (String), total (BigDecimal)]}; users without expenses are absent.
+     */
+    @Query("SELECT e.userId, COALESCE(SUM(e.expenseAmount), 0) FROM Expense e " +
+           "WHERE e.userId IN :userIds AND e.expenseDate BETWEEN :start AND :end " +
+           "GROUP BY e.userId")
+    List<Object[]> sumExpenseAmountByUserIdInAndExpenseDateBetween(@Param("userIds") Collection<String> userIds,
+                                                                   @Param("start") LocalDate start,
+                                                                   @Param("end") LocalDate end);
 }
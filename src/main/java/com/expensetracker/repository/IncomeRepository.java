@@ -5,16 +5,51 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface IncomeRepository extends JpaRepository<Income, Integer>, JpaSpecificationExecutor<Income> {
     List<Income> findByUserIdAndReceivedDateBetween(String userId, LocalDate start, LocalDate end);
     Page<Income> findByUserIdAndReceivedDateBetween(String userId, LocalDate start, LocalDate end, Pageable pageable);
+    long countByUserIdAndReceivedDateBetween(String userId, LocalDate start, LocalDate end);
     List<Income> findByUserId(String userId);
     Page<Income> findByUserId(String userId, Pageable pageable);
     void deleteByUserId(String userId);
+
+    /**
+     * Total income per user within a date range, for a batch of users.
+     * Each row is {@code [userId (String), total (BigDecimal)]}; users without income are absent.
+     */
+    @Query("SELECT i.userId, COALESCE(SUM(i.amount), 0) FROM Income i " +
+           "WHERE i.userId IN :userIds AND i.receivedDate BETWEEN :start AND :end " +
+           "GROUP BY i.userId")
+    List<Object[]> sumAmountByUserIdInAndReceivedDateBetween(
+            @Param("userIds") Collection<String> userIds,
+            @Param("start") LocalDate start,
+            @Param("end") LocalDate end);
+
+    /**
+     * Set-based copy of income_estimates into income, skipping estimates already present.
+     * Dedupe key is (user_id, source, received_date), so re-running the copy is a no-op and
+     * an income the user edited after an earlier copy is not re-added.
+     * Backed by idx_income_user_source_date (see db/income_dedupe_index.sql).
+     *
+     * @return number of income rows inserted
+     */
+    @Modifying
+    @Query(value = "INSERT INTO income (user_id, source, amount, received_date, last_update_tmstp, month, year) " +
+                   "SELECT ie.user_id, ie.source, ie.amount, ie.received_date, :now, ie.month, ie.year " +
+                   "FROM income_estimates ie " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM income i WHERE i.user_id = ie.user_id " +
+                   "AND i.source = ie.source AND i.received_date = ie.received_date)",
+           nativeQuery = true)
+    int copyMissingFromIncomeEstimates(@Param("now") LocalDateTime now);
 }
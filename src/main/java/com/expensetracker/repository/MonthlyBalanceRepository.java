@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +20,9 @@ public interface MonthlyBalanceRepository extends JpaRepository<MonthlyBalance,
 
     Optional<MonthlyBalance> findByUserIdAndYearAndMonth(String userId, Integer year, Integer month);
 
+    // Bulk lookup of one month's snapshot for a page of users
+    List<MonthlyBalance> findByUserIdInAndYearAndMonth(Collection<String> userIds, Integer year, Integer month);
+
     // Get all monthly balances for a user (unpaginated)
     List<MonthlyBalance> findByUserIdOrderByYearDescMonthDesc(String userId);
 
@@ -0,0 +1,12 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.model.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+    List<SchedulerLock> findAllByOrderByLockName();
+}
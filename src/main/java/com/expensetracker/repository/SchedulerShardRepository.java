@@ -0,0 +1,13 @@
+package com.expensetracker.repository;
+
+import com.expensetracker.model.SchedulerShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SchedulerShardRepository extends JpaRepository<SchedulerShard, Long> {
+    List<SchedulerShard> findByJobNameAndRunKeyOrderByShardNo(String jobName, String runKey);
+    List<SchedulerShard> findByRunKeyOrderByJobNameAscShardNoAsc(String runKey);
+}
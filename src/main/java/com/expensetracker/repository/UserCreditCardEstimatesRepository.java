@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,5 +21,7 @@ public interface UserCreditCardEstimatesRepository extends JpaRepository<UserCre
     /** Returns all distinct userIds that have at least one credit card estimate. */
     @Query("SELECT DISTINCT c.userId FROM UserCreditCardEstimates c")
     List<String> findDistinctUserIds();
+
+    void deleteByUserIdIn(Collection<String> userIds);
 }
 
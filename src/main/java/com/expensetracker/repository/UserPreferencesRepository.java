@@ -4,10 +4,13 @@ import com.expensetracker.model.UserPreferences;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserPreferencesRepository extends JpaRepository<UserPreferences, Integer> {
     Optional<UserPreferences> findByUserId(String userId);
     boolean existsByUserId(String userId);
+    List<UserPreferences> findByUserIdIn(Collection<String> userIds);
 }
@@ -1,13 +1,24 @@
 package com.expensetracker.repository;
 
 import com.expensetracker.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, String> {
     Optional<User> findByUserId(String userId);
     boolean existsByUserId(String userId);
+
+    @Query("SELECT u.userId FROM User u")
+    List<String> findAllUserIds();
+
+    /** Pages over user ids only (no entity hydration) for bulk month-end jobs. */
+    @Query("SELECT u.userId FROM User u ORDER BY u.userId")
+    Slice<String> findUserIdsOrderByUserId(Pageable pageable);
 }
@@ -1,47 +1,80 @@
 package com.expensetracker.scheduler;
 
+import com.expensetracker.repository.UserRepository;
 import com.expensetracker.service.CurrentBalanceUpdateService;
+import com.expensetracker.service.ShardedJobService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.YearMonth;
+
 /**
  * Scheduler that runs after the monthly balance snapshot and updates the
  * current_closing_balance for all users based on their income month preference.
  *
- * Runs at 00:05 on the 1st day of every month (5 minutes after the monthly
- * balance scheduler at 00:00) to ensure the monthly balance has been created.
+ * The update reads the previous month's closing balance from monthly_balance, so it
+ * only starts once every shard of that month's "monthly-balance-snapshot" run is
+ * DONE.  The first attempt is at 00:05 on the 1st; until the snapshot is done, and
+ * until this month's update is done itself, it is retried every 15 minutes.
+ *
+ * Every instance joins the run; users are split into hash shards claimed through
+ * the scheduler_shard table, so each user is processed by exactly one node.
  */
 @Component
 public class CurrentBalanceScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(CurrentBalanceScheduler.class);
 
+    private static final String JOB_NAME = "current-balance-update";
+    private static final String SNAPSHOT_JOB_NAME = "monthly-balance-snapshot";
+
     private final CurrentBalanceUpdateService currentBalanceUpdateService;
+    private final UserRepository userRepository;
+    private final ShardedJobService shardedJobService;
 
-    public CurrentBalanceScheduler(CurrentBalanceUpdateService currentBalanceUpdateService) {
+    public CurrentBalanceScheduler(CurrentBalanceUpdateService currentBalanceUpdateService,
+                                   UserRepository userRepository,
+                                   ShardedJobService shardedJobService) {
         this.currentBalanceUpdateService = currentBalanceUpdateService;
+        this.userRepository = userRepository;
+        this.shardedJobService = shardedJobService;
     }
 
     /**
-     * Runs at 00:05 on the 1st day of every month (server time).
-     * Cron expression: "0 5 0 1 * ?"
+     * Runs every 15 minutes from 00:05 (server time); a no-op once this month's
+     * update is done.
+     * Cron expression: "0 5/15 * * * ?"
      * Explanation: second minute hour day-of-month month day-of-week
      *
-     * This runs 5 minutes after the monthly balance scheduler to ensure
-     * the previous month's closing balance is available in the monthly_balance table.
+     * The scheduling pool runs the month-start jobs side by side, so the snapshot of
+     * the previous month may still be running, or have failed shards, when this
+     * fires; the update is then left for the next attempt.
      */
-    @Scheduled(cron = "0 5 0 1 * ?")
+    @Scheduled(cron = "0 5/15 * * * ?")
     public void runMonthlyCurrentBalanceUpdate() {
-        logger.info("Starting monthly current balance update for all users");
+        YearMonth month = YearMonth.now();
+        String runKey = month.toString();
+        String snapshotRunKey = month.minusMonths(1).toString();
 
         try {
-            currentBalanceUpdateService.updateCurrentBalanceForAllUsers();
-            logger.info("Monthly current balance update completed successfully");
+            if (shardedJobService.isRunDone(JOB_NAME, runKey)) {
+                return;
+            }
+            if (!shardedJobService.isRunDone(SNAPSHOT_JOB_NAME, snapshotRunKey)) {
+                logger.info("Monthly balance snapshot {} is not done yet; current balance update for {} will be retried",
+                        snapshotRunKey, runKey);
+                return;
+            }
+
+            logger.info("Starting monthly current balance update for all users");
+            var summary = shardedJobService.run(JOB_NAME, runKey, userRepository.findAllUserIds(),
+                    currentBalanceUpdateService::updateCurrentBalanceForUsers);
+            logger.info("Monthly current balance update finished on this node: {} shards, {} users",
+                    summary.shardsProcessed, summary.usersProcessed);
         } catch (Exception e) {
             logger.error("Error during monthly current balance update", e);
         }
     }
 }
-
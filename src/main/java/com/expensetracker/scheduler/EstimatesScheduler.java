@@ -1,16 +1,27 @@
 package com.expensetracker.scheduler;
 
 import com.expensetracker.service.IncomeEstimatesService;
+import com.expensetracker.service.SchedulerLockService;
+import com.expensetracker.service.ShardedJobService;
 import com.expensetracker.service.UserExpensesEstimatesService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.YearMonth;
+
 /**
  * Scheduler that runs at the start of each month and:
  * 1. Syncs UserExpensesEstimates → UserExpenses for all users.
  * 2. Syncs IncomeEstimates → Income for all users, then clears income_estimates.
+ *
+ * Step 1 runs on every instance over hash shards of users claimed through the
+ * scheduler_shard table. Credit card estimates are cleared only once every shard is
+ * DONE, under the "estimates-sync-cc-cleanup" lock, so a replayed shard still sees them.
+ * Step 2 is a single table-wide copy, guarded by the "income-estimates-sync"
+ * scheduler lock so only one instance runs it.
  */
 @Component
 public class EstimatesScheduler {
@@ -19,11 +30,23 @@ public class EstimatesScheduler {
 
     private final UserExpensesEstimatesService userExpensesEstimatesService;
     private final IncomeEstimatesService incomeEstimatesService;
+    private final SchedulerLockService schedulerLockService;
+    private final ShardedJobService shardedJobService;
+
+    private static final String JOB_NAME = "estimates-sync";
+    private static final String CC_CLEANUP_LOCK_NAME = "estimates-sync-cc-cleanup";
+    public static final String INCOME_LOCK_NAME = "income-estimates-sync";
+    public static final Duration LOCK_LEASE = Duration.ofMinutes(30);
+    private static final Duration LOCK_HOLD_AT_LEAST = Duration.ofMinutes(10);
 
     public EstimatesScheduler(UserExpensesEstimatesService userExpensesEstimatesService,
-                               IncomeEstimatesService incomeEstimatesService) {
+                               IncomeEstimatesService incomeEstimatesService,
+                               SchedulerLockService schedulerLockService,
+                               ShardedJobService shardedJobService) {
         this.userExpensesEstimatesService = userExpensesEstimatesService;
         this.incomeEstimatesService = incomeEstimatesService;
+        this.schedulerLockService = schedulerLockService;
+        this.shardedJobService = shardedJobService;
     }
 
     /**
@@ -33,18 +56,31 @@ public class EstimatesScheduler {
      */
     @Scheduled(cron = "0 1 0 1 * ?")
     public void runMonthlyEstimatesSync() {
-        // ── 1. Expenses estimates → user_expenses ──────────────────────────
+        // ── 1. Expenses estimates → user_expenses (sharded across nodes) ───
         logger.info("Starting monthly estimates → user_expenses sync");
         try {
-            userExpensesEstimatesService.syncAllUsersEstimatesToUserExpenses();
+            String runKey = YearMonth.now().toString();
+            var summary = shardedJobService.run(JOB_NAME, runKey,
+                    userExpensesEstimatesService.findEstimatesSyncUserIds(),
+                    userExpensesEstimatesService::syncEstimatesForUsers);
+            logger.info("Monthly estimates sync finished on this node: {} shards, {} users",
+                    summary.shardsProcessed, summary.usersProcessed);
+            if (shardedJobService.isRunDone(JOB_NAME, runKey)) {
+                schedulerLockService.runExclusively(CC_CLEANUP_LOCK_NAME, LOCK_LEASE, LOCK_HOLD_AT_LEAST,
+                        lock -> userExpensesEstimatesService.clearSyncedCreditCardEstimates());
+            } else {
+                logger.warn("Estimates sync {} has unfinished or failed shards; keeping credit card estimates", runKey);
+            }
         } catch (Exception e) {
             logger.error("Error during monthly estimates sync", e);
         }
 
-        // ── 2. Income estimates → income (then clear income_estimates) ─────
-        logger.info("Starting monthly income estimates → income sync");
+        // ── 2. Income estimates → income (single node) ──────────────────────
         try {
-            incomeEstimatesService.syncAllIncomeEstimatesToIncome();
+            schedulerLockService.runExclusively(INCOME_LOCK_NAME, LOCK_LEASE, LOCK_HOLD_AT_LEAST, lock -> {
+                logger.info("Starting monthly income estimates → income sync");
+                incomeEstimatesService.syncAllIncomeEstimatesToIncome(lock);
+            });
         } catch (Exception e) {
             logger.error("Error during monthly income estimates sync", e);
         }
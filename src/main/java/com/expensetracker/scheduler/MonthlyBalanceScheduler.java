@@ -1,27 +1,40 @@
 package com.expensetracker.scheduler;
 
-import com.expensetracker.controller.MonthlyBalanceController;
+import com.expensetracker.repository.UserRepository;
+import com.expensetracker.service.MonthlyBalanceService;
+import com.expensetracker.service.ShardedJobService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.YearMonth;
+import java.util.List;
 
 @Component
 public class MonthlyBalanceScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(MonthlyBalanceScheduler.class);
 
-    private final MonthlyBalanceController monthlyBalanceController;
+    private static final String JOB_NAME = "monthly-balance-snapshot";
 
-    public MonthlyBalanceScheduler(MonthlyBalanceController monthlyBalanceController) {
-        this.monthlyBalanceController = monthlyBalanceController;
+    private final MonthlyBalanceService monthlyBalanceService;
+    private final UserRepository userRepository;
+    private final ShardedJobService shardedJobService;
+
+    public MonthlyBalanceScheduler(MonthlyBalanceService monthlyBalanceService,
+                                   UserRepository userRepository,
+                                   ShardedJobService shardedJobService) {
+        this.monthlyBalanceService = monthlyBalanceService;
+        this.userRepository = userRepository;
+        this.shardedJobService = shardedJobService;
     }
 
     // Runs at 00:00 on the 1st day of every month (server time).
     // Cron expression: "0 0 0 1 * ?"
     // Explanation: second minute hour day-of-month month day-of-week
+    // Every instance joins the run; users are split into hash shards claimed through
+    // the scheduler_shard table, so each user is processed by exactly one node.
     @Scheduled(cron = "0 0 0 1 * ?")
     public void runMonthlySnapshot() {
         // snapshot for the month that just finished (previous month)
@@ -29,10 +42,26 @@ public class MonthlyBalanceScheduler {
         logger.info("Starting monthly balance generation for {}-{}", previousMonth.getYear(), previousMonth.getMonthValue());
 
         try {
-            var response = monthlyBalanceController.generateForMonth(previousMonth.getYear(), previousMonth.getMonthValue());
-            logger.info("Monthly balance generation invoked via controller, response: {} - {}", response.getStatusCode(), response.getBody());
+            var summary = shardedJobService.run(JOB_NAME, previousMonth.toString(), userRepository.findAllUserIds(),
+                    userIds -> generateForUsers(userIds, previousMonth));
+            logger.info("Monthly balance generation for {} finished on this node: {} shards, {} users",
+                    previousMonth, summary.shardsProcessed, summary.usersProcessed);
         } catch (Exception e) {
-            logger.error("Error invoking monthly balance generation via controller for {}", previousMonth, e);
+            logger.error("Error during monthly balance generation for {}", previousMonth, e);
+        }
+    }
+
+    private void generateForUsers(List<String> userIds, YearMonth month) {
+        for (String userId : userIds) {
+            try {
+                // A re-claimed shard replays at most the chunk its previous owner was in;
+                // generateForUserAndMonth skips users whose balance already exists. The check
+                // is not atomic, so the shard lease (renewed by a heartbeat) is what keeps a
+                // stalled previous owner from running the same user concurrently.
+                monthlyBalanceService.generateForUserAndMonth(userId, month);
+            } catch (Exception e) {
+                logger.error("Failed to generate monthly balance for userId={} for {}", userId, month, e);
+            }
         }
     }
 }
@@ -0,0 +1,166 @@
+package com.expensetracker.service;
+
+import com.expensetracker.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "Already imported?" checks for bank statement rows, keyed by the HDFC reference
+ * number stored in {@code expenses.bank_ref_no} / {@code income.bank_ref_no}
+ * (see {@code db/bank_ref_no.sql}).
+ *
+ * <p>Each user gets an in-memory {@link BloomFilter} loaded from the indexed
+ * column.  A negative answer is final, so a fresh statement costs no queries;
+ * positives are confirmed with one indexed {@code IN} lookup per table.  Filters
+ * are node-local and rebuilt after {@code app.bank-statement.ref-filter.ttl-minutes}
+ * so rows imported on another node are picked up.</p>
+ *
+ * <p>Keys carry the direction ({@link #expenseKey}/{@link #incomeKey}) so a
+ * withdrawal and a reversal deposit sharing a reference are not confused.</p>
+ */
+@Service
+public class BankRefNoIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BankRefNoIndexService.class);
+
+    private static final String EXPENSE_PREFIX = "E:";
+    private static final String INCOME_PREFIX  = "I:";
+    private static final int    IN_CHUNK_SIZE  = 500;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    /** Width of the {@code bank_ref_no} column. */
+    private static final int    MAX_REF_NO_LENGTH = 16;
+
+    private static final String COUNT_REFS_SQL =
+            "SELECT (SELECT COUNT(*) FROM expenses WHERE user_id = ? AND bank_ref_no IS NOT NULL) + " +
+            "(SELECT COUNT(*) FROM income WHERE user_id = ? AND bank_ref_no IS NOT NULL)";
+    private static final String LOAD_EXPENSE_REFS_SQL =
+            "SELECT bank_ref_no FROM expenses WHERE user_id = ? AND bank_ref_no IS NOT NULL";
+    private static final String LOAD_INCOME_REFS_SQL =
+            "SELECT bank_ref_no FROM income WHERE user_id = ? AND bank_ref_no IS NOT NULL";
+
+    private static class UserFilter {
+        final BloomFilter filter;
+        final long builtAtMillis;
+
+        UserFilter(BloomFilter filter, long builtAtMillis) {
+            this.filter        = filter;
+            this.builtAtMillis = builtAtMillis;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlMillis;
+    private final Map<String, UserFilter> filters = new ConcurrentHashMap<>();
+
+    public BankRefNoIndexService(JdbcTemplate jdbcTemplate,
+                                 @Value("${app.bank-statement.ref-filter.ttl-minutes:10}") long ttlMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlMillis    = ttlMinutes * 60_000L;
+    }
+
+    public static String expenseKey(String refNo) {
+        return EXPENSE_PREFIX + refNo;
+    }
+
+    public static String incomeKey(String refNo) {
+        return INCOME_PREFIX + refNo;
+    }
+
+    /**
+     * HDFC prints an all-zero reference for some bank-originated entries; those
+     * are not unique and must never be used for duplicate detection.  References
+     * longer than the {@code bank_ref_no} column (e.g. some OFX FITIDs) are dropped
+     * too, as a truncated value could collide.
+     *
+     * @return the reference number, or {@code null} if it cannot identify a transaction
+     */
+    public static String normalizeRefNo(String refNo) {
+        if (refNo == null || refNo.isBlank() || refNo.chars().allMatch(c -> c == '0')) {
+            return null;
+        }
+        String trimmed = refNo.trim();
+        return trimmed.length() <= MAX_REF_NO_LENGTH ? trimmed : null;
+    }
+
+    /**
+     * @param keys {@link #expenseKey}/{@link #incomeKey} keys to check
+     * @return the subset of {@code keys} already stored for {@code userId}
+     */
+    public Set<String> findExisting(String userId, Collection<String> keys) {
+        if (keys.isEmpty()) return Collections.emptySet();
+
+        BloomFilter filter = filterFor(userId);
+        List<String> expenseRefs = new ArrayList<>();
+        List<String> incomeRefs  = new ArrayList<>();
+        for (String key : keys) {
+            if (!filter.mightContain(key)) continue;
+            if (key.startsWith(EXPENSE_PREFIX)) {
+                expenseRefs.add(key.substring(EXPENSE_PREFIX.length()));
+            } else {
+                incomeRefs.add(key.substring(INCOME_PREFIX.length()));
+            }
+        }
+        if (expenseRefs.isEmpty() && incomeRefs.isEmpty()) return Collections.emptySet();
+
+        Set<String> existing = new HashSet<>();
+        confirm("expenses", userId, expenseRefs, EXPENSE_PREFIX, existing);
+        confirm("income", userId, incomeRefs, INCOME_PREFIX, existing);
+        logger.debug("Ref-no check for userId={}: {} keys, {} filter hits, {} confirmed",
+                userId, keys.size(), expenseRefs.size() + incomeRefs.size(), existing.size());
+        return existing;
+    }
+
+    /**
+     * Adds freshly imported keys to the user's filter.  Keys from a transaction that
+     * later rolls back only cost one extra confirming query.
+     */
+    public void recordImported(String userId, Collection<String> keys) {
+        UserFilter current = filters.get(userId);
+        if (current == null) return; // Built from the table on next use
+        for (String key : keys) {
+            current.filter.put(key);
+        }
+    }
+
+    private BloomFilter filterFor(String userId) {
+        long now = System.currentTimeMillis();
+        return filters.compute(userId, (id, existing) ->
+                existing != null && now - existing.builtAtMillis < ttlMillis ? existing : build(id, now)).filter;
+    }
+
+    private UserFilter build(String userId, long now) {
+        Long count = jdbcTemplate.queryForObject(COUNT_REFS_SQL, Long.class, userId, userId);
+        long expected = Math.max(1024L, (count != null ? count : 0L) * 2);
+        BloomFilter filter = new BloomFilter(expected, FALSE_POSITIVE_RATE);
+        jdbcTemplate.query(LOAD_EXPENSE_REFS_SQL, rs -> { filter.put(expenseKey(rs.getString(1))); }, userId);
+        jdbcTemplate.query(LOAD_INCOME_REFS_SQL, rs -> { filter.put(incomeKey(rs.getString(1))); }, userId);
+        logger.info("Built bank ref-no filter for userId={} ({} refs, sized for {})", userId, count, expected);
+        return new UserFilter(filter, now);
+    }
+
+    private void confirm(String table, String userId, List<String> refs, String prefix, Set<String> out) {
+        for (int from = 0; from < refs.size(); from += IN_CHUNK_SIZE) {
+            List<String> chunk = refs.subList(from, Math.min(from + IN_CHUNK_SIZE, refs.size()));
+            String sql = "SELECT DISTINCT bank_ref_no FROM " + table + " WHERE user_id = ? AND bank_ref_no IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            List<Object> args = new ArrayList<>(chunk.size() + 1);
+            args.add(userId);
+            args.addAll(chunk);
+            for (String ref : jdbcTemplate.queryForList(sql, String.class, args.toArray())) {
+                out.add(prefix + ref);
+            }
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package com.expensetracker.service;
+
+import com.expensetracker.dto.BankStatementImportJobResponse;
+import com.expensetracker.dto.BankStatementImportResult;
+import com.expensetracker.exception.BankStatementProcessingException;
+import com.expensetracker.exception.ResourceNotFoundException;
+import com.expensetracker.exception.UserNotFoundException;
+import com.expensetracker.model.BankStatementImportJob;
+import com.expensetracker.repository.BankStatementImportJobRepository;
+import com.expensetracker.util.ClaimedJobs;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs bank statement imports in the background so the upload request returns
+ * immediately with a job id.
+ *
+ * <p>The upload is spooled to {@code app.bank-statement.import.spool-dir} and a
+ * {@code bank_statement_import_job} row (see {@code db/bank_statement_import_job.sql})
+ * tracks it.  A bounded worker pool claims the row with a conditional UPDATE,
+ * runs {@link BankStatementImportService#importStatement(Path, String, String, boolean, boolean, ImportProgressListener)}
+ * and records phase and row progress in short separate transactions so clients
+ * can poll it.  Jobs left QUEUED or RUNNING by a restart are re-queued by
+ * {@link #recoverStaleJobs()} on a node that can see the spool file.</p>
+ *
+ * <p>Every claim stores a new claim token.  While the import runs, a heartbeat
+ * touches {@code updated_at} every third of {@code stale-minutes}, so long parsing
+ * or saving phases are not mistaken for a dead node.  The import itself is one
+ * transaction, and just before it commits it locks the job row and rolls back
+ * unless it still holds the current token, so a superseded run never inserts
+ * alongside the run that replaced it.  Only the run that finishes the job deletes
+ * the spool file.</p>
+ */
+@Service
+public class BankStatementImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BankStatementImportJobService.class);
+
+    public static final String STATUS_QUEUED    = "QUEUED";
+    public static final String STATUS_RUNNING   = "RUNNING";
+    public static final String STATUS_SUCCEEDED = "SUCCEEDED";
+    public static final String STATUS_FAILED    = "FAILED";
+
+    private static final String PHASE_QUEUED = "QUEUED";
+    private static final String PHASE_DONE   = "DONE";
+
+    /** Minimum gap between progress writes within one phase. */
+    private static final long PROGRESS_WRITE_INTERVAL_MS = 1000;
+
+    /** Upload extensions kept on spooled files; anything else is spooled as {@code .upload}. */
+    private static final List<String> SPOOL_SUFFIXES = List.of(".pdf", ".csv", ".txt", ".ofx", ".qfx");
+
+    private static final String CLAIM_SQL =
+            "UPDATE bank_statement_import_job SET status = 'RUNNING', owner = ?, claim_token = ?, attempts = attempts + 1, " +
+            "started_at = COALESCE(started_at, ?), updated_at = ? WHERE job_id = ? AND status = 'QUEUED'";
+    private static final String PROGRESS_SQL =
+            "UPDATE bank_statement_import_job SET phase = ?, rows_processed = ?, rows_total = ?, updated_at = ? " +
+            "WHERE job_id = ? AND claim_token = ? AND status = 'RUNNING'";
+    private static final String TOUCH_SQL =
+            "UPDATE bank_statement_import_job SET updated_at = ? WHERE job_id = ? AND claim_token = ? AND status = 'RUNNING'";
+    private static final String CURRENT_CLAIM_SQL =
+            "SELECT claim_token FROM bank_statement_import_job WHERE job_id = ? AND status = 'RUNNING' FOR UPDATE";
+    private static final String FINISH_SQL =
+            "UPDATE bank_statement_import_job SET status = ?, phase = ?, claim_token = NULL, result_json = ?, error_message = ?, " +
+            "password_enc = NULL, finished_at = ?, updated_at = ? WHERE job_id = ? AND claim_token = ? AND status = 'RUNNING'";
+    private static final String REQUEUE_SQL =
+            "UPDATE bank_statement_import_job SET status = 'QUEUED', phase = 'QUEUED', owner = NULL, claim_token = NULL, " +
+            "updated_at = ? WHERE job_id = ? AND status IN ('QUEUED', 'RUNNING') AND updated_at = ?";
+    private static final String ABANDON_SQL =
+            "UPDATE bank_statement_import_job SET status = 'FAILED', phase = 'DONE', claim_token = NULL, error_message = ?, " +
+            "password_enc = NULL, finished_at = ?, updated_at = ? " +
+            "WHERE job_id = ? AND status IN ('QUEUED', 'RUNNING') AND updated_at = ?";
+    private static final String REJECT_SQL =
+            "UPDATE bank_statement_import_job SET status = 'FAILED', phase = 'DONE', error_message = ?, " +
+            "password_enc = NULL, finished_at = ?, updated_at = ? WHERE job_id = ? AND status = 'QUEUED'";
+
+    private final BankStatementImportJobRepository jobRepository;
+    private final BankStatementImportService importService;
+    private final BankStatementPasswordService passwordService;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate progressTx;
+    private final String nodeId;
+    private final Path spoolDir;
+    private final int maxAttempts;
+    private final long staleMinutes;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "statement-import-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BankStatementImportJobService(BankStatementImportJobRepository jobRepository,
+                                         BankStatementImportService importService,
+                                         BankStatementPasswordService passwordService,
+                                         ObjectMapper objectMapper,
+                                         JdbcTemplate jdbcTemplate,
+                                         PlatformTransactionManager transactionManager,
+                                         SchedulerLockService schedulerLockService,
+                                         @Value("${app.bank-statement.import.workers:2}") int workerCount,
+                                         @Value("${app.bank-statement.import.queue-capacity:20}") int queueCapacity,
+                                         @Value("${app.bank-statement.import.spool-dir:${java.io.tmpdir}/expense-tracker/imports}") String spoolDir,
+                                         @Value("${app.bank-statement.import.max-attempts:2}") int maxAttempts,
+                                         @Value("${app.bank-statement.import.stale-minutes:10}") long staleMinutes) {
+        this.jobRepository   = jobRepository;
+        this.importService   = importService;
+        this.passwordService = passwordService;
+        this.objectMapper    = objectMapper;
+        this.jdbcTemplate    = jdbcTemplate;
+        this.progressTx      = new TransactionTemplate(transactionManager);
+        this.progressTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nodeId          = schedulerLockService.getNodeId();
+        this.spoolDir        = Path.of(spoolDir);
+        this.maxAttempts     = Math.max(1, maxAttempts);
+        this.staleMinutes    = Math.max(1, staleMinutes);
+
+        int poolSize = Math.max(1, workerCount);
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "statement-import-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+        heartbeat.shutdownNow();
+    }
+
+    /**
+     * Spools the upload, records a QUEUED job and hands it to the worker pool.
+     *
+     * @return the new job
+     * @throws BankStatementProcessingException if the file cannot be spooled or the queue is full
+     */
+    public BankStatementImportJob submit(MultipartFile file,
+                                         String userId,
+                                         String explicitPassword,
+                                         boolean useStoredPassword,
+                                         boolean storePassword) {
+        String jobId = UUID.randomUUID().toString();
+        // Keep the upload's extension: parser detection falls back to it for CSV files
+        Path spoolFile = spoolDir.resolve(jobId + spoolSuffix(file.getOriginalFilename()));
+        try {
+            Files.createDirectories(spoolDir);
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, spoolFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            ClaimedJobs.deleteQuietly(spoolFile);
+            throw new BankStatementProcessingException("Could not store the uploaded bank statement: " + e.getMessage(), e);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        BankStatementImportJob job = new BankStatementImportJob();
+        job.setJobId(jobId);
+        job.setUserId(userId);
+        job.setStatus(STATUS_QUEUED);
+        job.setPhase(PHASE_QUEUED);
+        job.setRowsProcessed(0);
+        job.setRowsTotal(0);
+        job.setSpoolPath(spoolFile.toAbsolutePath().toString());
+        job.setPasswordEnc(explicitPassword != null && !explicitPassword.isBlank()
+                ? passwordService.encryptTransient(explicitPassword) : null);
+        job.setUseStoredPassword(useStoredPassword);
+        job.setStorePassword(storePassword);
+        job.setAttempts(0);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        jobRepository.save(job);
+
+        try {
+            workers.execute(() -> run(jobId));
+        } catch (RejectedExecutionException e) {
+            jdbcTemplate.update(REJECT_SQL, "Import queue is full.", now, now, jobId);
+            ClaimedJobs.deleteQuietly(spoolFile);
+            throw new BankStatementProcessingException(
+                    "Too many bank statement imports are in progress. Please try again in a few minutes.");
+        }
+        logger.info("Queued bank statement import job {} for userId={}", jobId, userId);
+        return job;
+    }
+
+    /**
+     * @throws ResourceNotFoundException if the job does not exist or belongs to another user
+     */
+    public BankStatementImportJobResponse getJob(String jobId, String userId) {
+        BankStatementImportJob job = jobRepository.findByJobIdAndUserId(jobId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Import job", "jobId", jobId));
+        return toResponse(job);
+    }
+
+    /**
+     * Re-queues jobs whose owner stopped updating them (node restart or crash) when
+     * the spool file is visible from this node; gives up after {@code max-attempts}.
+     */
+    @Scheduled(fixedDelayString = "${app.bank-statement.import.recovery-interval-ms:60000}",
+               initialDelayString = "${app.bank-statement.import.recovery-initial-delay-ms:30000}")
+    public void recoverStaleJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        List<BankStatementImportJob> stale = jobRepository.findByStatusInAndUpdatedAtBefore(
+                List.of(STATUS_QUEUED, STATUS_RUNNING), now.minusMinutes(staleMinutes));
+        for (BankStatementImportJob job : stale) {
+            if (job.getSpoolPath() == null || !Files.isRegularFile(Path.of(job.getSpoolPath()))) {
+                continue; // Spooled on another node
+            }
+            if (job.getAttempts() >= maxAttempts) {
+                if (jdbcTemplate.update(ABANDON_SQL, "Import could not be completed after "
+                        + job.getAttempts() + " attempt(s).", now, now, job.getJobId(), job.getUpdatedAt()) > 0) {
+                    ClaimedJobs.deleteQuietly(Path.of(job.getSpoolPath()));
+                    logger.warn("Abandoned bank statement import job {} after {} attempt(s)", job.getJobId(), job.getAttempts());
+                }
+                continue;
+            }
+            if (jdbcTemplate.update(REQUEUE_SQL, now, job.getJobId(), job.getUpdatedAt()) == 0) {
+                continue; // Another node got there first
+            }
+            try {
+                workers.execute(() -> run(job.getJobId()));
+                logger.info("Re-queued stale bank statement import job {}", job.getJobId());
+            } catch (RejectedExecutionException e) {
+                logger.warn("Import queue full; job {} stays queued for the next recovery pass", job.getJobId());
+            }
+        }
+    }
+
+    private void run(String jobId) {
+        String claimToken = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        if (jdbcTemplate.update(CLAIM_SQL, nodeId, claimToken, now, now, jobId) == 0) {
+            return; // Already claimed elsewhere
+        }
+        BankStatementImportJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) return;
+
+        Path spoolFile = Path.of(job.getSpoolPath());
+        // Keeps updated_at fresh so recoverStaleJobs() leaves the job alone while it runs
+        ScheduledFuture<?> touch = ClaimedJobs.startHeartbeat(heartbeat, Duration.ofMinutes(staleMinutes).dividedBy(3),
+                "Bank statement import job " + jobId,
+                () -> jdbcTemplate.update(TOUCH_SQL, LocalDateTime.now(), jobId, claimToken) > 0);
+        boolean finished = false;
+        try {
+            String password = job.getPasswordEnc() != null
+                    ? passwordService.decryptTransient(job.getPasswordEnc()) : null;
+            BankStatementImportResult result = importService.importStatement(spoolFile, job.getUserId(), password,
+                    Boolean.TRUE.equals(job.getUseStoredPassword()), Boolean.TRUE.equals(job.getStorePassword()),
+                    new JobProgress(jobId, claimToken));
+            finished = finish(jobId, claimToken, STATUS_SUCCEEDED, objectMapper.writeValueAsString(result), null);
+            logger.info("Bank statement import job {} succeeded: expenses={}, incomes={}",
+                    jobId, result.getExpensesAdded(), result.getIncomesAdded());
+        } catch (BankStatementProcessingException | UserNotFoundException e) {
+            finished = finish(jobId, claimToken, STATUS_FAILED, null, e.getMessage());
+            logger.warn("Bank statement import job {} failed: {}", jobId, e.getMessage());
+        } catch (JsonProcessingException | RuntimeException e) {
+            finished = finish(jobId, claimToken, STATUS_FAILED, null, "The import failed unexpectedly. Please try again.");
+            logger.error("Bank statement import job {} failed", jobId, e);
+        } finally {
+            touch.cancel(false);
+            if (finished) {
+                ClaimedJobs.deleteQuietly(spoolFile);
+            } else {
+                logger.warn("Bank statement import job {} was taken over; leaving its spool file to the new run", jobId);
+            }
+        }
+    }
+
+    /**
+     * @return whether this run still held the claim and recorded the outcome
+     */
+    private boolean finish(String jobId, String claimToken, String status, String resultJson, String errorMessage) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.update(FINISH_SQL, status, PHASE_DONE, resultJson, ClaimedJobs.truncateError(errorMessage),
+                now, now, jobId, claimToken) > 0;
+    }
+
+    private BankStatementImportJobResponse toResponse(BankStatementImportJob job) {
+        BankStatementImportJobResponse response = new BankStatementImportJobResponse();
+        response.setJobId(job.getJobId());
+        response.setStatus(job.getStatus());
+        response.setPhase(job.getPhase());
+        response.setRowsProcessed(job.getRowsProcessed() != null ? job.getRowsProcessed() : 0);
+        response.setRowsTotal(job.getRowsTotal() != null ? job.getRowsTotal() : 0);
+        response.setErrorMessage(job.getErrorMessage());
+        response.setCreatedAt(job.getCreatedAt());
+        response.setStartedAt(job.getStartedAt());
+        response.setFinishedAt(job.getFinishedAt());
+        if (job.getResultJson() != null) {
+            try {
+                response.setResult(objectMapper.readValue(job.getResultJson(), BankStatementImportResult.class));
+            } catch (JsonProcessingException e) {
+                logger.warn("Could not read result of import job {}: {}", job.getJobId(), e.getMessage());
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Writes progress in its own transaction (the import transaction is still open
+     * on this thread), at most once per second within a phase.  On the first call it
+     * also registers the claim check that runs before the import transaction commits.
+     */
+    private class JobProgress implements ImportProgressListener {
+        private final String jobId;
+        private final String claimToken;
+        private boolean fenced;
+        private String lastPhase;
+        private long lastWriteMillis;
+
+        JobProgress(String jobId, String claimToken) {
+            this.jobId = jobId;
+            this.claimToken = claimToken;
+        }
+
+        @Override
+        public void onProgress(String phase, int rowsProcessed, int rowsTotal) {
+            if (!fenced && TransactionSynchronizationManager.isSynchronizationActive()) {
+                fenced = true;
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        // Holds the row lock until commit, so the claim cannot move in between
+                        List<String> current = jdbcTemplate.queryForList(CURRENT_CLAIM_SQL, String.class, jobId);
+                        if (current.isEmpty() || !claimToken.equals(current.get(0))) {
+                            throw new IllegalStateException("Import job " + jobId + " was taken over; rolling back");
+                        }
+                    }
+                });
+            }
+            long nowMillis = System.currentTimeMillis();
+            if (phase.equals(lastPhase) && nowMillis - lastWriteMillis < PROGRESS_WRITE_INTERVAL_MS) {
+                return;
+            }
+            lastPhase = phase;
+            lastWriteMillis = nowMillis;
+            try {
+                progressTx.executeWithoutResult(status -> jdbcTemplate.update(PROGRESS_SQL,
+                        phase, rowsProcessed, rowsTotal, LocalDateTime.now(), jobId, claimToken));
+            } catch (RuntimeException e) {
+                logger.warn("Could not record progress for import job {}: {}", jobId, e.getMessage());
+            }
+        }
+    }
+
+    private static String spoolSuffix(String originalFilename) {
+        if (originalFilename != null) {
+            String name = originalFilename.toLowerCase(Locale.ROOT);
+            for (String suffix : SPOOL_SUFFIXES) {
+                if (name.endsWith(suffix)) return suffix;
+            }
+        }
+        return ".upload";
+    }
+}
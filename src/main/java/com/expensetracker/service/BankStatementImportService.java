@@ -8,33 +8,43 @@ import com.expensetracker.model.Expense;
 import com.expensetracker.model.Income;
 import com.expensetracker.model.User;
 import com.expensetracker.model.UserExpenseCategory;
-import com.expensetracker.repository.ExpenseRepository;
-import com.expensetracker.repository.IncomeRepository;
 import com.expensetracker.repository.UserRepository;
 import com.expensetracker.repository.UserExpenseCategoryRepository;
+import com.expensetracker.util.Constants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.TextStyle;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
- * Orchestrates importing transactions from an HDFC bank statement PDF into
- * the expense / income tables.
+ * Orchestrates importing transactions from a bank statement (HDFC PDF, CSV or OFX)
+ * into the expense / income tables.
  *
  * <h3>Import algorithm</h3>
  * <ol>
- *   <li>Parse all transactions from the PDF via {@link HdfcStatementParserService}.</li>
+ *   <li>Parse all transactions via a {@link StatementImportSession} opened by the
+ *       {@link StatementParserRegistry} for the file's format.  PDF sessions decrypt
+ *       the document once; every format caches the result by the file's SHA-256.</li>
  *   <li>Fetch the user's {@code current_closing_balance} from the {@code users} table.</li>
  *   <li>Find the first transaction in the statement whose closing balance equals
  *       the user's current closing balance.  If none is found, throw a
@@ -57,29 +67,45 @@ public class BankStatementImportService {
     /** Maximum length for expense_name / income.source columns (DB constraint). */
     private static final int MAX_NAME_LENGTH = 100;
 
-    private final HdfcStatementParserService parserService;
+    private static final String INSERT_EXPENSE_SQL =
+            "INSERT INTO expenses (user_id, expense_name, expense_amount, user_expense_category_id, expense_date, last_update_tmstp, bank_ref_no) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    /** Positions of the name and category in {@link #expenseRow} parameters. */
+    private static final int EXPENSE_NAME_COL     = 1;
+    private static final int EXPENSE_CATEGORY_COL = 3;
+    private static final String INSERT_INCOME_SQL =
+            "INSERT INTO income (user_id, source, amount, received_date, last_update_tmstp, month, year, bank_ref_no) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final StatementParserRegistry parserRegistry;
     private final UserRepository userRepository;
     private final UserExpenseCategoryRepository categoryRepository;
-    private final ExpenseRepository expenseRepository;
-    private final IncomeRepository incomeRepository;
     private final ClosingBalanceService closingBalanceService;
     private final BankStatementPasswordService passwordService;
+    private final BankRefNoIndexService refNoIndexService;
+    private final NarrationCategorizerService categorizerService;
+    private final JdbcTemplate jdbcTemplate;
+    private final int insertBatchSize;
 
     @Autowired
-    public BankStatementImportService(HdfcStatementParserService parserService,
+    public BankStatementImportService(StatementParserRegistry parserRegistry,
                                       UserRepository userRepository,
                                       UserExpenseCategoryRepository categoryRepository,
-                                      ExpenseRepository expenseRepository,
-                                      IncomeRepository incomeRepository,
                                       ClosingBalanceService closingBalanceService,
-                                      BankStatementPasswordService passwordService) {
-        this.parserService        = parserService;
+                                      BankStatementPasswordService passwordService,
+                                      BankRefNoIndexService refNoIndexService,
+                                      NarrationCategorizerService categorizerService,
+                                      JdbcTemplate jdbcTemplate,
+                                      @Value("${app.bank-statement.import.batch-size:500}") int insertBatchSize) {
+        this.parserRegistry       = parserRegistry;
         this.userRepository       = userRepository;
         this.categoryRepository   = categoryRepository;
-        this.expenseRepository    = expenseRepository;
-        this.incomeRepository     = incomeRepository;
         this.closingBalanceService = closingBalanceService;
         this.passwordService      = passwordService;
+        this.refNoIndexService    = refNoIndexService;
+        this.categorizerService   = categorizerService;
+        this.jdbcTemplate         = jdbcTemplate;
+        this.insertBatchSize      = Math.max(1, insertBatchSize);
     }
 
     // -----------------------------------------------------------------------
@@ -87,14 +113,14 @@ public class BankStatementImportService {
     // -----------------------------------------------------------------------
 
     /** Preferred category name for bank-statement imports. */
-    private static final String PREFERRED_CATEGORY = "House Expenses";
+    private static final String PREFERRED_CATEGORY = Constants.IMPORT_DEFAULT_CATEGORY_NAME;
     /** Fallback category name. */
-    private static final String FALLBACK_CATEGORY  = "Miscellaneous";
+    private static final String FALLBACK_CATEGORY  = Constants.IMPORT_FALLBACK_CATEGORY_NAME;
 
     /**
-     * Import transactions from an HDFC bank statement PDF.
+     * Import transactions from an uploaded bank statement (HDFC PDF, CSV or OFX).
      *
-     * <h3>Password scenarios</h3>
+     * <h3>Password scenarios (PDF only; CSV and OFX are never encrypted)</h3>
      * <ol>
      *   <li>{@code useStoredPassword=true}  – decrypt the password stored in DB; fail if none exists.</li>
      *   <li>{@code password} provided + {@code storePassword=true}  – verify the PDF unlocks, then
@@ -103,7 +129,7 @@ public class BankStatementImportService {
      *   <li>No password and {@code useStoredPassword=false}  – treat as an unprotected PDF.</li>
      * </ol>
      *
-     * @param file              the uploaded PDF file
+     * @param file              the uploaded statement file
      * @param userId            the user performing the import
      * @param explicitPassword  plain-text password supplied by the user (may be {@code null})
      * @param useStoredPassword when {@code true} the DB-stored password is used
@@ -111,40 +137,90 @@ public class BankStatementImportService {
      * @return summary of what was imported
      */
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "expenses", allEntries = true),
+            @CacheEvict(cacheNames = "incomes", allEntries = true)
+    })
     public BankStatementImportResult importStatement(MultipartFile file,
                                                      String userId,
                                                      String explicitPassword,
                                                      boolean useStoredPassword,
                                                      boolean storePassword) {
+        return importStatement(() -> parserRegistry.openSession(file, userId),
+                userId, explicitPassword, useStoredPassword, storePassword, ImportProgressListener.NONE);
+    }
+
+    /**
+     * Import transactions from a bank statement already on disk, reporting progress
+     * to {@code listener}.  Used by background import jobs; the file is not deleted.
+     *
+     * @see #importStatement(MultipartFile, String, String, boolean, boolean)
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "expenses", allEntries = true),
+            @CacheEvict(cacheNames = "incomes", allEntries = true)
+    })
+    public BankStatementImportResult importStatement(Path statementFile,
+                                                     String userId,
+                                                     String explicitPassword,
+                                                     boolean useStoredPassword,
+                                                     boolean storePassword,
+                                                     ImportProgressListener listener) {
+        return importStatement(() -> parserRegistry.openSession(statementFile, userId),
+                userId, explicitPassword, useStoredPassword, storePassword, listener);
+    }
+
+    private BankStatementImportResult importStatement(Supplier<StatementImportSession> sessionOpener,
+                                                      String userId,
+                                                      String explicitPassword,
+                                                      boolean useStoredPassword,
+                                                      boolean storePassword,
+                                                      ImportProgressListener listener) {
         // ── 1. Validate user ────────────────────────────────────────────────
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException(userId));
 
         List<String> messages = new ArrayList<>();
 
-        // ── 2. Resolve the effective PDF password ────────────────────────────
-        String effectivePassword = resolvePassword(
-                userId, explicitPassword, useStoredPassword, storePassword, file, messages);
+        // ── 2. Resolve the effective PDF password and parse the PDF ──────────
+        //       The session opens and decrypts the document once for both steps
+        //       and serves retries of the same upload from its parse cache.
+        String effectivePassword;
+        Integer resolvedCategoryId;
+        StatementParseResult parseResult;
+        listener.onProgress(ImportProgressListener.PHASE_PARSING, 0, 0);
+        try (StatementImportSession session = sessionOpener.get()) {
+            if (session.usesPassword()) {
+                effectivePassword = resolvePassword(
+                        userId, explicitPassword, useStoredPassword, storePassword, session, messages);
+            } else {
+                effectivePassword = null;
+                if (useStoredPassword || (explicitPassword != null && !explicitPassword.isBlank())) {
+                    messages.add(session.getFormat() + " statements are not password protected; "
+                            + "the password was ignored and not saved.");
+                }
+            }
+
+            // ── 3. Resolve expense category ──────────────────────────────────
+            resolvedCategoryId = resolveExpenseCategory(userId, messages);
+            if (resolvedCategoryId == null) {
+                throw new BankStatementProcessingException(
+                        "No active expense category found for user " + userId
+                        + ". Please create at least one active expense category before importing.");
+            }
 
-        // ── 3. Resolve expense category ──────────────────────────────────────
-        Integer resolvedCategoryId = resolveExpenseCategory(userId, messages);
-        if (resolvedCategoryId == null) {
-            throw new BankStatementProcessingException(
-                    "No active expense category found for user " + userId
-                    + ". Please create at least one active expense category before importing.");
+            // ── 4. Parse statement ───────────────────────────────────────────
+            parseResult = session.parse(effectivePassword);
         }
 
-        // ── 4. Parse PDF ─────────────────────────────────────────────────────
-        HdfcStatementParserService.StatementParseResult parseResult =
-                parserService.parseStatement(file, effectivePassword);
-
         List<BankStatementTransactionDTO> transactions = parseResult.getTransactions();
         BigDecimal statementSummaryBalance = parseResult.getSummaryClosingBalance();
 
         if (transactions.isEmpty()) {
             throw new BankStatementProcessingException(
                     "No transactions could be parsed from the uploaded bank statement. "
-                    + "Please ensure this is a valid HDFC Bank account statement.");
+                    + "Please ensure this is a valid HDFC PDF, CSV or OFX account statement.");
         }
 
         // ── 5. Match user's current closing balance ──────────────────────────
@@ -163,13 +239,23 @@ public class BankStatementImportService {
         logger.info("Closing balance {} matched at index {} for userId={}", userClosingBalance, matchIndex, userId);
 
         // ── 6. Import transactions after the match point ─────────────────────
-        int expensesAdded = 0;
-        int incomesAdded  = 0;
-        int skippedCount  = 0;
+        //       Rows are accumulated here and written as JDBC batches below.
+        //       Rows whose bank reference number was already imported (overlapping
+        //       statements) are skipped.
+        List<Object[]> expenseRows = new ArrayList<>();
+        List<Object[]> incomeRows  = new ArrayList<>();
+        List<String>   importedKeys = new ArrayList<>();
+        int skippedCount    = 0;
+        int duplicatesCount = 0;
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> alreadyImported = refNoIndexService.findExisting(userId, candidateRefKeys(transactions, matchIndex + 1));
 
         BigDecimal prevClosing = transactions.get(matchIndex).getClosingBalance();
+        int rowsTotal = transactions.size() - matchIndex - 1;
+        listener.onProgress(ImportProgressListener.PHASE_IMPORTING, 0, rowsTotal);
 
         for (int i = matchIndex + 1; i < transactions.size(); i++) {
+            listener.onProgress(ImportProgressListener.PHASE_IMPORTING, i - matchIndex - 1, rowsTotal);
             BankStatementTransactionDTO txn = transactions.get(i);
             BigDecimal currClosing = txn.getClosingBalance();
 
@@ -180,14 +266,19 @@ public class BankStatementImportService {
             }
 
             BigDecimal diff = currClosing.subtract(prevClosing);
-
-            if (diff.compareTo(BigDecimal.ZERO) < 0) {
-                saveExpense(userId, resolvedCategoryId, txn, diff.abs());
-                expensesAdded++;
+            String refNo = BankRefNoIndexService.normalizeRefNo(txn.getReferenceNo());
+
+            if (diff.compareTo(BigDecimal.ZERO) != 0 && refNo != null && alreadyImported.contains(
+                    diff.signum() < 0 ? BankRefNoIndexService.expenseKey(refNo) : BankRefNoIndexService.incomeKey(refNo))) {
+                logger.debug("Skipped already imported transaction: ref={}, narration={}", refNo, txn.getNarration());
+                duplicatesCount++;
+            } else if (diff.compareTo(BigDecimal.ZERO) < 0) {
+                expenseRows.add(expenseRow(userId, resolvedCategoryId, txn, refNo, diff.abs(), now));
+                if (refNo != null) importedKeys.add(BankRefNoIndexService.expenseKey(refNo));
                 logger.debug("Added expense: amount={}, narration={}", diff.abs(), txn.getNarration());
             } else if (diff.compareTo(BigDecimal.ZERO) > 0) {
-                saveIncome(userId, txn, diff);
-                incomesAdded++;
+                incomeRows.add(incomeRow(userId, txn, refNo, diff, now));
+                if (refNo != null) importedKeys.add(BankRefNoIndexService.incomeKey(refNo));
                 logger.debug("Added income: amount={}, narration={}", diff, txn.getNarration());
             } else {
                 messages.add("Skipped transaction on " + txn.getTransactionDate()
@@ -198,18 +289,33 @@ public class BankStatementImportService {
             prevClosing = currClosing;
         }
 
-        // ── 7. Recalculate closing balance ───────────────────────────────────
+        int autoCategorized = applySuggestedCategories(userId, expenseRows);
+        if (autoCategorized > 0) {
+            messages.add(autoCategorized + " expense(s) were categorized automatically based on how you categorized "
+                    + "similar transactions before.");
+        }
+
+        listener.onProgress(ImportProgressListener.PHASE_SAVING, rowsTotal, rowsTotal);
+        batchInsert(INSERT_EXPENSE_SQL, expenseRows);
+        batchInsert(INSERT_INCOME_SQL, incomeRows);
+        refNoIndexService.recordImported(userId, importedKeys);
+        int expensesAdded = expenseRows.size();
+        int incomesAdded  = incomeRows.size();
+        if (duplicatesCount > 0) {
+            messages.add(duplicatesCount + " transaction(s) were already imported from an earlier statement and were skipped.");
+        }
+
+        // ── 7. Recalculate closing balance (once, after all rows are written) ─
+        listener.onProgress(ImportProgressListener.PHASE_RECONCILING, rowsTotal, rowsTotal);
+        BigDecimal trackedBalance = userClosingBalance;
         if (expensesAdded > 0 || incomesAdded > 0) {
-            closingBalanceService.recalculate(userId);
+            BigDecimal recalculated = closingBalanceService.recalculate(userId);
+            trackedBalance = recalculated != null ? recalculated : BigDecimal.ZERO;
         }
 
         // ── 8. Balance reconciliation ────────────────────────────────────────
         String balanceWarning = null;
         if (statementSummaryBalance != null) {
-            BigDecimal trackedBalance = userRepository.findById(userId)
-                    .map(u -> u.getCurrentClosingBalance() != null ? u.getCurrentClosingBalance() : BigDecimal.ZERO)
-                    .orElse(BigDecimal.ZERO);
-
             if (trackedBalance.compareTo(statementSummaryBalance) != 0) {
                 balanceWarning = String.format(
                         "Closing balance mismatch: the bank statement shows ₹%s but your tracked balance is ₹%s. "
@@ -225,13 +331,14 @@ public class BankStatementImportService {
             logger.warn("STATEMENT SUMMARY not found in PDF for userId={}; skipping balance check.", userId);
         }
 
-        logger.info("Import complete for userId={}: expenses={}, incomes={}, skipped={}",
-                userId, expensesAdded, incomesAdded, skippedCount);
+        logger.info("Import complete for userId={}: expenses={}, incomes={}, skipped={}, duplicates={}",
+                userId, expensesAdded, incomesAdded, skippedCount, duplicatesCount);
 
         BankStatementImportResult result = new BankStatementImportResult();
         result.setExpensesAdded(expensesAdded);
         result.setIncomesAdded(incomesAdded);
         result.setSkippedCount(skippedCount);
+        result.setDuplicateCount(duplicatesCount);
         result.setMessages(messages);
         result.setStatementClosingBalance(statementSummaryBalance);
         result.setBalanceMatchWarning(balanceWarning);
@@ -250,7 +357,7 @@ public class BankStatementImportService {
                                    String explicitPassword,
                                    boolean useStoredPassword,
                                    boolean storePassword,
-                                   MultipartFile file,
+                                   StatementImportSession session,
                                    List<String> messages) {
 
         boolean hasExplicit = explicitPassword != null && !explicitPassword.isBlank();
@@ -273,7 +380,7 @@ public class BankStatementImportService {
         if (hasExplicit) {
             if (storePassword) {
                 // Verify the PDF actually unlocks with this password before storing
-                verifyPasswordUnlocksPdf(file, explicitPassword);
+                verifyPasswordUnlocksPdf(session, explicitPassword);
                 passwordService.storePassword(userId, explicitPassword);
                 if (hasStored) {
                     messages.add("Your bank statement password has been updated and saved securely.");
@@ -298,22 +405,15 @@ public class BankStatementImportService {
     }
 
     /**
-     * Attempts to open the PDF with the given password purely to validate it.
+     * Unlocks the session's PDF with the given password to validate it; the
+     * decrypted document stays open and is reused for parsing.
      * Throws {@link BankStatementProcessingException} if the password is wrong.
      */
-    private void verifyPasswordUnlocksPdf(MultipartFile file, String password) {
-        try {
-            byte[] bytes = file.getBytes();
-            org.apache.pdfbox.pdmodel.PDDocument doc =
-                    org.apache.pdfbox.pdmodel.PDDocument.load(bytes, password);
-            doc.close();
-        } catch (org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException e) {
+    private void verifyPasswordUnlocksPdf(StatementImportSession session, String password) {
+        if (!session.tryUnlock(password)) {
             throw new BankStatementProcessingException(
                     "The provided password is incorrect — it could not unlock the PDF. "
                     + "Password has NOT been saved.");
-        } catch (Exception e) {
-            throw new BankStatementProcessingException(
-                    "Could not verify the PDF password: " + e.getMessage());
         }
     }
 
@@ -388,35 +488,82 @@ public class BankStatementImportService {
         return -1;
     }
 
-    /** Persists a withdrawal transaction as an {@link Expense}. */
-    private void saveExpense(String userId,
-                             Integer categoryId,
-                             BankStatementTransactionDTO txn,
-                             BigDecimal amount) {
-        Expense expense = new Expense();
-        expense.setUserId(userId);
-        expense.setExpenseName(truncate(txn.getNarration(), MAX_NAME_LENGTH));
-        expense.setExpenseAmount(amount);
-        expense.setUserExpenseCategoryId(categoryId);
-        expense.setExpenseDate(txn.getTransactionDate());
-        expense.setLastUpdateTmstp(LocalDateTime.now());
-        expenseRepository.save(expense);
+    /** Builds the {@code expenses} insert parameters for a withdrawal transaction. */
+    private Object[] expenseRow(String userId,
+                                Integer categoryId,
+                                BankStatementTransactionDTO txn,
+                                String refNo,
+                                BigDecimal amount,
+                                LocalDateTime now) {
+        return new Object[]{userId, truncate(txn.getNarration(), MAX_NAME_LENGTH), amount,
+                categoryId, txn.getTransactionDate(), now, refNo};
     }
 
-    /** Persists a deposit transaction as an {@link Income}. */
-    private void saveIncome(String userId,
-                            BankStatementTransactionDTO txn,
-                            BigDecimal amount) {
+    /** Builds the {@code income} insert parameters for a deposit transaction. */
+    private Object[] incomeRow(String userId,
+                               BankStatementTransactionDTO txn,
+                               String refNo,
+                               BigDecimal amount,
+                               LocalDateTime now) {
         LocalDate date = txn.getTransactionDate();
-        Income income = new Income();
-        income.setUserId(userId);
-        income.setSource(truncate(txn.getNarration(), MAX_NAME_LENGTH));
-        income.setAmount(amount);
-        income.setReceivedDate(date);
-        income.setMonth(date.getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH).toUpperCase());
-        income.setYear(date.getYear());
-        income.setLastUpdateTmstp(LocalDateTime.now());
-        incomeRepository.save(income);
+        return new Object[]{userId, truncate(txn.getNarration(), MAX_NAME_LENGTH), amount, date, now,
+                date.getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH).toUpperCase(), date.getYear(), refNo};
+    }
+
+    /**
+     * Both direction keys for every referenced transaction from {@code fromIndex};
+     * the direction is only known once the closing-balance diff is computed.
+     */
+    private List<String> candidateRefKeys(List<BankStatementTransactionDTO> transactions, int fromIndex) {
+        List<String> keys = new ArrayList<>();
+        for (int i = fromIndex; i < transactions.size(); i++) {
+            String refNo = BankRefNoIndexService.normalizeRefNo(transactions.get(i).getReferenceNo());
+            if (refNo != null) {
+                keys.add(BankRefNoIndexService.expenseKey(refNo));
+                keys.add(BankRefNoIndexService.incomeKey(refNo));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Replaces the default category of each expense row with the one learned from the
+     * user's past categorizations of similar narrations, where there is a confident match.
+     *
+     * @return number of rows whose category was changed
+     */
+    private int applySuggestedCategories(String userId, List<Object[]> expenseRows) {
+        if (expenseRows.isEmpty()) return 0;
+        Set<Integer> activeCategoryIds = new HashSet<>();
+        for (UserExpenseCategory c : categoryRepository.findByUserIdAndStatusOrderByUserExpenseCategoryName(userId, "A")) {
+            activeCategoryIds.add(c.getUserExpenseCategoryId());
+        }
+        List<String> narrations = new ArrayList<>(expenseRows.size());
+        for (Object[] row : expenseRows) {
+            narrations.add((String) row[EXPENSE_NAME_COL]);
+        }
+
+        int changed = 0;
+        for (Map.Entry<Integer, Integer> suggestion
+                : categorizerService.categorize(userId, narrations, activeCategoryIds).entrySet()) {
+            Object[] row = expenseRows.get(suggestion.getKey());
+            if (!suggestion.getValue().equals(row[EXPENSE_CATEGORY_COL])) {
+                row[EXPENSE_CATEGORY_COL] = suggestion.getValue();
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Writes {@code rows} in JDBC batches of {@code app.bank-statement.import.batch-size}
+     * on the surrounding transaction's connection.
+     */
+    private void batchInsert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += insertBatchSize) {
+            int to = Math.min(from + insertBatchSize, rows.size());
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, to));
+        }
     }
 
     /**
@@ -115,6 +115,27 @@ public class BankStatementPasswordService {
         });
     }
 
+    /**
+     * Encrypts a password that must survive briefly outside the request, e.g. in a
+     * queued import job row.  Uses the same key as stored passwords.
+     */
+    public String encryptTransient(String plainPassword) {
+        try {
+            return encrypt(plainPassword);
+        } catch (Exception e) {
+            throw new BankStatementProcessingException("Failed to secure the PDF password. Please try again.", e);
+        }
+    }
+
+    /** Reverses {@link #encryptTransient(String)}. */
+    public String decryptTransient(String encrypted) {
+        try {
+            return decrypt(encrypted);
+        } catch (Exception e) {
+            throw new BankStatementProcessingException("Failed to read the PDF password for this import.", e);
+        }
+    }
+
     // ── Crypto helpers ───────────────────────────────────────────────────────
 
     private String encrypt(String plainText) throws Exception {
@@ -56,15 +56,17 @@ public class ClosingBalanceService {
     /**
      * Recomputes and persists {@code current_closing_balance} for the given user.
      * Also evicts the "users" cache so stale data is never served.
+     *
+     * @return the new closing balance, or {@code null} if the user does not exist
      */
     @CacheEvict(cacheNames = "users", allEntries = true)
-    public void recalculate(String userId) {
-        if (userId == null || userId.isBlank()) return;
+    public BigDecimal recalculate(String userId) {
+        if (userId == null || userId.isBlank()) return null;
 
         Optional<User> userOpt = userRepository.findById(userId);
         if (userOpt.isEmpty()) {
             logger.warn("ClosingBalanceService.recalculate: user not found – {}", userId);
-            return;
+            return null;
         }
 
         YearMonth now         = YearMonth.now();
@@ -108,6 +110,7 @@ public class ClosingBalanceService {
 
         logger.info("Recalculated current_closing_balance for userId={}: prevClosing={} + prevIncome={} - curExpenses(net)={} = {}",
                 userId, prevClosing, prevIncome, curExpenses, newBalance);
+        return newBalance;
     }
 }
 
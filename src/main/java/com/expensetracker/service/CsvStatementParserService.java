@@ -0,0 +1,318 @@
+package com.expensetracker.service;
+
+import com.expensetracker.dto.BankStatementTransactionDTO;
+import com.expensetracker.exception.BankStatementProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streaming parser for CSV / delimited bank statement exports.
+ *
+ * <p>The file is read one record at a time.  Preamble lines (account details,
+ * statement period) are skipped until a header row naming at least a date and a
+ * closing-balance column; later rows that do not start with a parseable date
+ * (separators, footer totals) are ignored.  Columns are matched by header name, so
+ * the usual Indian bank layouts ({@code Date, Narration, Chq./Ref.No., Value Dt,
+ * Withdrawal Amt., Deposit Amt., Closing Balance} and similar) work unchanged.</p>
+ *
+ * <p>Rows are returned oldest first: a newest-first export is reversed.</p>
+ */
+@Service
+@Order(3)
+public class CsvStatementParserService implements StatementParser {
+
+    public static final String FORMAT = "CSV";
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvStatementParserService.class);
+
+    /** Day-first formats used by Indian banks, plus ISO. */
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ofPattern("dd/MM/yy"),
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+            DateTimeFormatter.ofPattern("dd-MM-yy"),
+            DateTimeFormatter.ofPattern("dd-MM-yyyy"),
+            DateTimeFormatter.ofPattern("dd.MM.yyyy"),
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            caseInsensitive("dd-MMM-yy"),
+            caseInsensitive("dd-MMM-yyyy"),
+            caseInsensitive("dd MMM yyyy"),
+            caseInsensitive("dd/MMM/yyyy"));
+
+    private final StatementParseCache parseCache;
+
+    public CsvStatementParserService(StatementParseCache parseCache) {
+        this.parseCache = parseCache;
+    }
+
+    @Override
+    public String getFormat() {
+        return FORMAT;
+    }
+
+    /**
+     * Accepts {@code .csv}/{@code .txt} uploads, or any text whose first line contains
+     * a delimiter.  Registered last, after the binary and OFX signatures are checked.
+     */
+    @Override
+    public boolean supports(String fileName, byte[] header) {
+        if (fileName != null) {
+            String name = fileName.toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv") || name.endsWith(".txt")) return true;
+        }
+        for (byte b : header) {
+            if (b == 0) return false; // binary
+            if (b == '\n') break;
+            if (b == ',' || b == ';' || b == '\t') return true;
+        }
+        return false;
+    }
+
+    @Override
+    public StatementImportSession openSession(Path file, String sha256, String userId, boolean deleteOnClose) {
+        return new StreamingStatementImportSession(FORMAT, parseCache, userId, file, sha256, deleteOnClose, this::parse);
+    }
+
+    /**
+     * Parses a CSV statement on disk.
+     *
+     * @throws BankStatementProcessingException if the file is unreadable or no header
+     *         row with date and closing-balance columns is found
+     */
+    public StatementParseResult parse(Path file) {
+        // Malformed bytes are replaced rather than failing: exports are often Windows-1252
+        var decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(file), decoder))) {
+            return parse(reader);
+        } catch (IOException e) {
+            throw new BankStatementProcessingException(
+                    "Failed to read CSV bank statement: " + e.getMessage(), e);
+        }
+    }
+
+    private StatementParseResult parse(BufferedReader reader) throws IOException {
+        Columns columns = null;
+        char delimiter = ',';
+        List<BankStatementTransactionDTO> transactions = new ArrayList<>();
+        int skipped = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) continue;
+            if (columns == null) {
+                if (line.charAt(0) == '\uFEFF') line = line.substring(1); // UTF-8 BOM
+                delimiter = detectDelimiter(line);
+                columns = Columns.fromHeader(splitRecord(reader, line, delimiter));
+                continue;
+            }
+            List<String> fields = splitRecord(reader, line, delimiter);
+            BankStatementTransactionDTO txn = columns.toTransaction(fields);
+            if (txn != null) {
+                transactions.add(txn);
+            } else {
+                skipped++;
+            }
+        }
+
+        if (columns == null) {
+            throw new BankStatementProcessingException(
+                    "Could not find the transaction table in the CSV file. "
+                    + "Expected a header row with a date and a closing balance column.");
+        }
+
+        if (transactions.size() > 1 && transactions.get(0).getTransactionDate()
+                .isAfter(transactions.get(transactions.size() - 1).getTransactionDate())) {
+            Collections.reverse(transactions);
+        }
+
+        BigDecimal closing = transactions.isEmpty() ? null
+                : transactions.get(transactions.size() - 1).getClosingBalance();
+        logger.info("Parsed {} transactions from CSV statement ({} non-transaction rows skipped)",
+                transactions.size(), skipped);
+        return new StatementParseResult(transactions, closing);
+    }
+
+    /** Column positions resolved from the header row; {@code -1} when absent. */
+    private static final class Columns {
+        final int date;
+        final int narration;
+        final int refNo;
+        final int valueDate;
+        final int balance;
+
+        private Columns(int date, int narration, int refNo, int valueDate, int balance) {
+            this.date      = date;
+            this.narration = narration;
+            this.refNo     = refNo;
+            this.valueDate = valueDate;
+            this.balance   = balance;
+        }
+
+        /** @return the columns, or {@code null} if {@code header} is not the table header */
+        static Columns fromHeader(List<String> header) {
+            int date = -1, narration = -1, refNo = -1, valueDate = -1, balance = -1;
+            for (int i = 0; i < header.size(); i++) {
+                String h = header.get(i).toLowerCase(Locale.ROOT).replaceAll("[^a-z]", "");
+                if (h.isEmpty()) continue;
+                if (h.contains("balance")) {
+                    if (balance < 0) balance = i;
+                } else if (h.startsWith("value")) {
+                    if (valueDate < 0) valueDate = i;
+                } else if (h.contains("date") || h.equals("dt") || h.equals("txndt")) {
+                    if (date < 0) date = i;
+                } else if (h.contains("ref") || h.contains("chq") || h.contains("cheque")) {
+                    if (refNo < 0) refNo = i;
+                } else if (h.contains("narration") || h.contains("description") || h.contains("particulars")
+                        || h.contains("details") || h.contains("remarks")) {
+                    if (narration < 0) narration = i;
+                }
+            }
+            if (date < 0 || balance < 0) return null;
+            return new Columns(date, narration, refNo, valueDate, balance);
+        }
+
+        /** @return the row as a transaction, or {@code null} if it is not one */
+        BankStatementTransactionDTO toTransaction(List<String> fields) {
+            LocalDate txnDate = parseDate(field(fields, date));
+            BigDecimal closing = parseAmount(field(fields, balance));
+            if (txnDate == null || closing == null) return null;
+
+            LocalDate value = parseDate(field(fields, valueDate));
+            String narr = field(fields, narration);
+            String ref = field(fields, refNo);
+
+            BankStatementTransactionDTO txn = new BankStatementTransactionDTO();
+            txn.setTransactionDate(txnDate);
+            txn.setValueDate(value != null ? value : txnDate);
+            txn.setNarration(narr != null ? narr.replaceAll("\\s+", " ").trim() : "");
+            txn.setReferenceNo(ref != null && !ref.isBlank() ? ref.trim() : null);
+            txn.setClosingBalance(closing);
+            return txn;
+        }
+
+        private static String field(List<String> fields, int index) {
+            return (index >= 0 && index < fields.size()) ? fields.get(index) : null;
+        }
+    }
+
+    private static char detectDelimiter(String line) {
+        int commas = 0, semicolons = 0, tabs = 0;
+        for (int i = 0; i < line.length(); i++) {
+            switch (line.charAt(i)) {
+                case ',' -> commas++;
+                case ';' -> semicolons++;
+                case '\t' -> tabs++;
+                default -> { }
+            }
+        }
+        if (tabs > commas && tabs >= semicolons) return '\t';
+        if (semicolons > commas) return ';';
+        return ',';
+    }
+
+    /**
+     * Splits one CSV record (RFC 4180 quoting).  A quoted field spanning a line break
+     * pulls further lines from {@code reader}.
+     */
+    private static List<String> splitRecord(BufferedReader reader, String line, char delimiter) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        String current = line;
+        int i = 0;
+        while (true) {
+            if (i >= current.length()) {
+                if (!quoted) break;
+                String next = reader.readLine();
+                if (next == null) break;
+                field.append('\n');
+                current = next;
+                i = 0;
+                continue;
+            }
+            char c = current.charAt(i++);
+            if (quoted) {
+                if (c == '"') {
+                    if (i < current.length() && current.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private static LocalDate parseDate(String s) {
+        if (s == null || s.isBlank()) return null;
+        String value = s.trim();
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(value, format);
+            } catch (DateTimeParseException ignored) {
+                // try the next format
+            }
+        }
+        return null;
+    }
+
+    /** Parses {@code "1,23,456.78"}, {@code "1234.50 Cr"} or {@code "(12.00)"}-style amounts. */
+    private static BigDecimal parseAmount(String s) {
+        if (s == null || s.isBlank()) return null;
+        String value = s.replace(",", "").replace(" ", "").trim();
+        boolean negative = false;
+        String upper = value.toUpperCase(Locale.ROOT);
+        if (upper.endsWith("DR")) {
+            negative = true;
+            value = value.substring(0, value.length() - 2).trim();
+        } else if (upper.endsWith("CR")) {
+            value = value.substring(0, value.length() - 2).trim();
+        }
+        if (value.startsWith("(") && value.endsWith(")")) {
+            negative = true;
+            value = value.substring(1, value.length() - 1).trim();
+        }
+        try {
+            BigDecimal amount = new BigDecimal(value);
+            return negative ? amount.negate() : amount;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static DateTimeFormatter caseInsensitive(String pattern) {
+        return new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern(pattern).toFormatter(Locale.ENGLISH);
+    }
+}
@@ -1,24 +1,38 @@
 package com.expensetracker.service;
 
+import com.expensetracker.model.MonthlyBalance;
 import com.expensetracker.model.User;
 import com.expensetracker.model.UserPreferences;
 import com.expensetracker.repository.ExpenseAdjustmentRepository;
 import com.expensetracker.repository.ExpenseRepository;
 import com.expensetracker.repository.IncomeRepository;
 import com.expensetracker.repository.MonthlyBalanceRepository;
+import com.expensetracker.repository.UserPreferencesRepository;
 import com.expensetracker.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service to update current_closing_balance for all users based on their
@@ -36,12 +50,19 @@ public class CurrentBalanceUpdateService {
 
     private static final Logger logger = LoggerFactory.getLogger(CurrentBalanceUpdateService.class);
 
+    private static final String UPDATE_BALANCE_SQL =
+            "UPDATE users SET current_closing_balance = ? WHERE user_id = ?";
+
     private final UserRepository userRepository;
     private final MonthlyBalanceRepository monthlyBalanceRepository;
     private final IncomeRepository incomeRepository;
     private final ExpenseRepository expenseRepository;
     private final ExpenseAdjustmentRepository adjustmentRepository;
     private final UserPreferencesService userPreferencesService;
+    private final UserPreferencesRepository userPreferencesRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int bulkPageSize;
 
     @Autowired
     public CurrentBalanceUpdateService(UserRepository userRepository,
@@ -49,39 +70,150 @@ public class CurrentBalanceUpdateService {
                                       IncomeRepository incomeRepository,
                                       ExpenseRepository expenseRepository,
                                       ExpenseAdjustmentRepository adjustmentRepository,
-                                      UserPreferencesService userPreferencesService) {
+                                      UserPreferencesService userPreferencesService,
+                                      UserPreferencesRepository userPreferencesRepository,
+                                      JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${app.current-balance.bulk-page-size:500}") int bulkPageSize) {
         this.userRepository = userRepository;
         this.monthlyBalanceRepository = monthlyBalanceRepository;
         this.incomeRepository = incomeRepository;
         this.expenseRepository = expenseRepository;
         this.adjustmentRepository = adjustmentRepository;
         this.userPreferencesService = userPreferencesService;
+        this.userPreferencesRepository = userPreferencesRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bulkPageSize = Math.max(1, bulkPageSize);
     }
 
     /**
      * Updates current_closing_balance for all users.
      * This is called by the monthly scheduler after the monthly balance snapshot.
+     *
+     * <p>Runs in bulk mode: users are processed in pages of {@code bulkPageSize}.
+     * For each page, preferences and previous-month balances are preloaded with
+     * IN queries, income / expense / adjustment totals come from grouped aggregates,
+     * and the new balances are written with one batched UPDATE. Each page commits
+     * in its own transaction so a failing page does not roll back the others.</p>
+     *
+     * @return number of users whose balance was updated
      */
     @CacheEvict(cacheNames = "users", allEntries = true)
-    @Transactional
-    public void updateCurrentBalanceForAllUsers() {
-        List<User> allUsers = userRepository.findAll();
-        logger.info("Starting current balance update for {} users", allUsers.size());
-
-        int successCount = 0;
-        int errorCount = 0;
-
-        for (User user : allUsers) {
-            try {
-                updateCurrentBalanceForUser(user.getUserId());
-                successCount++;
-            } catch (Exception e) {
-                logger.error("Failed to update current balance for userId: {}", user.getUserId(), e);
-                errorCount++;
+    public int updateCurrentBalanceForAllUsers() {
+        YearMonth now = YearMonth.now();
+        logger.info("Starting bulk current balance update for {} (page size {})", now, bulkPageSize);
+
+        int updatedCount = 0;
+        int failedPages = 0;
+        Pageable pageable = PageRequest.of(0, bulkPageSize);
+        Slice<String> page;
+        do {
+            page = userRepository.findUserIdsOrderByUserId(pageable);
+            List<String> userIds = page.getContent();
+            if (!userIds.isEmpty()) {
+                try {
+                    Integer updated = transactionTemplate.execute(status -> updatePage(userIds, now));
+                    updatedCount += updated != null ? updated : 0;
+                } catch (Exception e) {
+                    logger.error("Failed to update current balance for page {} ({} users)",
+                            pageable.getPageNumber(), userIds.size(), e);
+                    failedPages++;
+                }
             }
+            pageable = page.nextPageable();
+        } while (page.hasNext());
+
+        logger.info("Current balance update complete: {} users updated, {} pages failed", updatedCount, failedPages);
+        return updatedCount;
+    }
+
+    /**
+     * Updates current_closing_balance for the given users in one transaction, using the
+     * same bulk statements as {@link #updateCurrentBalanceForAllUsers()}. Used by the
+     * sharded month-end run, where each node processes its own chunks of user ids.
+     *
+     * @return number of users whose balance was updated
+     */
+    @CacheEvict(cacheNames = "users", allEntries = true)
+    public int updateCurrentBalanceForUsers(List<String> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return 0;
         }
+        YearMonth now = YearMonth.now();
+        Integer updated = transactionTemplate.execute(status -> updatePage(userIds, now));
+        return updated != null ? updated : 0;
+    }
 
-        logger.info("Current balance update complete: {} successful, {} errors", successCount, errorCount);
+    /**
+     * Computes and writes current_closing_balance for one page of users using
+     * a fixed number of statements regardless of page size.
+     */
+    private int updatePage(List<String> userIds, YearMonth now) {
+        YearMonth prevMonth = now.minusMonths(1);
+        LocalDate curStart = now.atDay(1);
+        LocalDate curEnd = now.atEndOfMonth();
+
+        // 1. Income month preference per user (default P)
+        Set<String> currentMonthIncomeUsers = new HashSet<>();
+        for (UserPreferences prefs : userPreferencesRepository.findByUserIdIn(userIds)) {
+            if ("C".equals(prefs.getIncomeMonth())) {
+                currentMonthIncomeUsers.add(prefs.getUserId());
+            }
+        }
+        List<String> previousMonthIncomeUsers = userIds.stream()
+                .filter(id -> !currentMonthIncomeUsers.contains(id))
+                .toList();
+
+        // 2. Previous month closing balances
+        Map<String, BigDecimal> prevClosing = new HashMap<>();
+        for (MonthlyBalance mb : monthlyBalanceRepository.findByUserIdInAndYearAndMonth(
+                userIds, prevMonth.getYear(), prevMonth.getMonthValue())) {
+            if (mb.getClosingBalance() != null) {
+                prevClosing.put(mb.getUserId(), mb.getClosingBalance());
+            }
+        }
+
+        // 3. Income totals, split by preference
+        Map<String, BigDecimal> income = new HashMap<>();
+        if (!currentMonthIncomeUsers.isEmpty()) {
+            income.putAll(toTotalsByUser(incomeRepository.sumAmountByUserIdInAndReceivedDateBetween(
+                    currentMonthIncomeUsers, curStart, curEnd)));
+        }
+        if (!previousMonthIncomeUsers.isEmpty()) {
+            income.putAll(toTotalsByUser(incomeRepository.sumAmountByUserIdInAndReceivedDateBetween(
+                    previousMonthIncomeUsers, prevMonth.atDay(1), prevMonth.atEndOfMonth())));
+        }
+
+        // 4. Current month expenses and completed adjustments
+        Map<String, BigDecimal> expenses = toTotalsByUser(
+                expenseRepository.sumExpenseAmountByUserIdInAndExpenseDateBetween(userIds, curStart, curEnd));
+        Map<String, BigDecimal> adjustments = toTotalsByUser(
+                adjustmentRepository.getTotalCompletedAdjustmentsByUserInRange(userIds, curStart, curEnd));
+
+        List<Object[]> batchArgs = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            BigDecimal curExpenses = expenses.getOrDefault(userId, BigDecimal.ZERO)
+                    .subtract(adjustments.getOrDefault(userId, BigDecimal.ZERO))
+                    .max(BigDecimal.ZERO);
+            BigDecimal newBalance = prevClosing.getOrDefault(userId, BigDecimal.ZERO)
+                    .add(income.getOrDefault(userId, BigDecimal.ZERO))
+                    .subtract(curExpenses);
+            batchArgs.add(new Object[]{newBalance, userId});
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, batchArgs);
+        logger.debug("Updated current_closing_balance for {} users ({} .. {})",
+                userIds.size(), userIds.get(0), userIds.get(userIds.size() - 1));
+        return batchArgs.size();
+    }
+
+    private static Map<String, BigDecimal> toTotalsByUser(List<Object[]> rows) {
+        Map<String, BigDecimal> totals = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            totals.put((String) row[0], row[1] != null ? (BigDecimal) row[1] : BigDecimal.ZERO);
+        }
+        return totals;
     }
 
     /**
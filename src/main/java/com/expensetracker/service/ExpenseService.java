@@ -47,16 +47,19 @@ public class ExpenseService {
     private final UserExpenseCategoryService userExpenseCategoryService;
     private final ExpenseAdjustmentRepository adjustmentRepository;
     private final ClosingBalanceService closingBalanceService;
+    private final NarrationCategorizerService categorizerService;
 
     @Autowired
     public ExpenseService(ExpenseRepository expenseRepository,
                           UserExpenseCategoryService userExpenseCategoryService,
                           ExpenseAdjustmentRepository adjustmentRepository,
-                          ClosingBalanceService closingBalanceService) {
+                          ClosingBalanceService closingBalanceService,
+                          NarrationCategorizerService categorizerService) {
         this.expenseRepository = expenseRepository;
         this.userExpenseCategoryService = userExpenseCategoryService;
         this.adjustmentRepository = adjustmentRepository;
         this.closingBalanceService = closingBalanceService;
+        this.categorizerService = categorizerService;
     }
 
     public List<Expense> getExpensesByUserId(String userId) {
@@ -277,6 +280,7 @@ public class ExpenseService {
         e.setExpenseDate(request.getExpenseDate());
         e.setLastUpdateTmstp(LocalDateTime.now());
         Expense saved = expenseRepository.save(e);
+        categorizerService.learn(saved.getUserId(), saved.getExpenseName(), saved.getUserExpenseCategoryId());
         closingBalanceService.recalculate(request.getUserId());
         return saved;
     }
@@ -299,6 +303,8 @@ public class ExpenseService {
         if (request.getUserId() != null && !request.getUserId().equals(e.getUserId())) {
             throw new IllegalArgumentException("userId mismatch");
         }
+        String previousName = e.getExpenseName();
+        Integer previousCategoryId = e.getUserExpenseCategoryId();
         if (request.getExpenseName() != null) e.setExpenseName(request.getExpenseName());
         if (request.getExpenseAmount() != null) e.setExpenseAmount(request.getExpenseAmount());
         if (request.getUserExpenseCategoryId() != null) e.setUserExpenseCategoryId(request.getUserExpenseCategoryId());
@@ -306,6 +312,11 @@ public class ExpenseService {
         e.setLastUpdateTmstp(LocalDateTime.now());
         logger.info("Updated expense {} for userId: {}", request.getExpensesId(), e.getUserId());
         Expense saved = expenseRepository.save(e);
+        if (!Objects.equals(previousName, saved.getExpenseName())
+                || !Objects.equals(previousCategoryId, saved.getUserExpenseCategoryId())) {
+            categorizerService.recategorize(saved.getUserId(), previousName, previousCategoryId,
+                    saved.getExpenseName(), saved.getUserExpenseCategoryId());
+        }
         closingBalanceService.recalculate(e.getUserId());
         return saved;
     }
@@ -324,6 +335,7 @@ public class ExpenseService {
             return false;
         }
         expenseRepository.deleteById(expensesId);
+        categorizerService.forget(userId, e.getExpenseName(), e.getUserExpenseCategoryId());
         logger.info("Deleted expense {} for userId: {}", expensesId, userId);
         closingBalanceService.recalculate(userId);
         return true;
@@ -2,18 +2,32 @@ package com.expensetracker.service;
 
 import com.expensetracker.dto.BankStatementTransactionDTO;
 import com.expensetracker.exception.BankStatementProcessingException;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -33,30 +47,10 @@ import java.util.regex.Pattern;
  * {@code STATEMENT SUMMARY}.</p>
  */
 @Service
-public class HdfcStatementParserService {
+@Order(1)
+public class HdfcStatementParserService implements StatementParser {
 
-    // -----------------------------------------------------------------------
-    // Result wrapper
-    // -----------------------------------------------------------------------
-
-    /**
-     * Wraps the list of parsed transactions together with the closing balance
-     * extracted from the {@code STATEMENT SUMMARY} section of the PDF.
-     */
-    public static class StatementParseResult {
-        private final List<BankStatementTransactionDTO> transactions;
-        private final BigDecimal summaryClosingBalance;
-
-        public StatementParseResult(List<BankStatementTransactionDTO> transactions,
-                                    BigDecimal summaryClosingBalance) {
-            this.transactions          = transactions;
-            this.summaryClosingBalance = summaryClosingBalance;
-        }
-
-        public List<BankStatementTransactionDTO> getTransactions() { return transactions; }
-        /** May be {@code null} if the summary section was not found in the PDF. */
-        public BigDecimal getSummaryClosingBalance() { return summaryClosingBalance; }
-    }
+    public static final String FORMAT = "HDFC_PDF";
 
     private static final Logger logger = LoggerFactory.getLogger(HdfcStatementParserService.class);
 
@@ -89,61 +83,251 @@ public class HdfcStatementParserService {
     /** Value-date pattern (same DD/MM/YY). */
     private static final Pattern VALUE_DATE_PATTERN = Pattern.compile("^(\\d{2}/\\d{2}/\\d{2})\\s*");
 
+    /** Below this many pages per worker, parallel extraction is not worth a second document handle. */
+    private static final int MIN_PAGES_PER_WORKER = 2;
+
+    private final long maxMainMemoryBytes;
+    private final long maxTotalMemoryBytes;
+    private final int extractionParallelism;
+    private final ExecutorService extractionPool;
+    private final StatementParseCache parseCache;
+
+    public HdfcStatementParserService(
+            StatementParseCache parseCache,
+            @Value("${app.bank-statement.parser.max-main-memory-mb:16}") long maxMainMemoryMb,
+            @Value("${app.bank-statement.parser.max-total-memory-mb:256}") long maxTotalMemoryMb,
+            @Value("${app.bank-statement.parser.parallelism:1}") int extractionParallelism) {
+        this.parseCache            = parseCache;
+        this.maxMainMemoryBytes    = maxMainMemoryMb * 1024L * 1024L;
+        this.maxTotalMemoryBytes   = Math.max(maxTotalMemoryMb * 1024L * 1024L, this.maxMainMemoryBytes);
+        this.extractionParallelism = Math.max(1, extractionParallelism);
+        this.extractionPool = this.extractionParallelism > 1
+                ? Executors.newFixedThreadPool(this.extractionParallelism - 1, extractionThreadFactory())
+                : null;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (extractionPool != null) {
+            extractionPool.shutdownNow();
+        }
+    }
+
     // -----------------------------------------------------------------------
     // Public API
     // -----------------------------------------------------------------------
 
+    @Override
+    public String getFormat() {
+        return FORMAT;
+    }
+
+    /** Recognises PDFs by their {@code %PDF} signature. */
+    @Override
+    public boolean supports(String fileName, byte[] header) {
+        return header.length >= 4 && header[0] == '%' && header[1] == 'P' && header[2] == 'D' && header[3] == 'F';
+    }
+
+    /**
+     * Opens an import session in which password verification and parsing share one
+     * decrypted document.
+     */
+    @Override
+    public StatementImportSession openSession(Path file, String sha256, String userId, boolean deleteOnClose) {
+        return new PdfStatementImportSession(this, parseCache, userId, file, sha256, deleteOnClose);
+    }
+
     /**
-     * Parse the uploaded PDF bank statement.
+     * Parse a bank statement PDF that is already on disk.
      *
-     * @param file     the multipart PDF file
+     * @param pdfFile  the PDF file
      * @param password the PDF owner/user password (may be {@code null} or blank for unprotected PDFs)
      * @return {@link StatementParseResult} with transactions (oldest first) and summary closing balance
      */
-    public StatementParseResult parseStatement(MultipartFile file, String password) {
-        if (file == null || file.isEmpty()) {
-            throw new BankStatementProcessingException("Bank statement file must not be empty.");
+    public StatementParseResult parseStatement(File pdfFile, String password) {
+        try (PDDocument doc = openDocument(pdfFile, password)) {
+            return parseOpenDocument(pdfFile, password, doc);
+        } catch (InvalidPasswordException e) {
+            throw invalidPassword(e);
+        } catch (IOException e) {
+            throw processingFailure(e);
+        }
+    }
+
+    /**
+     * Opens the PDF with a PDFBox buffer that keeps at most {@code max-main-memory-mb}
+     * in the heap and spills the rest to a scratch file, up to {@code max-total-memory-mb}.
+     */
+    PDDocument openDocument(File pdfFile, String password) throws IOException {
+        MemoryUsageSetting memory = MemoryUsageSetting.setupMixed(maxMainMemoryBytes, maxTotalMemoryBytes);
+        String pdfPassword = (password != null && !password.isBlank()) ? password : "";
+        return PDDocument.load(pdfFile, pdfPassword, memory);
+    }
+
+    // -----------------------------------------------------------------------
+    // Parsing helpers
+    // -----------------------------------------------------------------------
+
+    /**
+     * Extracts the document text page by page and streams each line into a
+     * {@link StatementLineParser}; extraction stops as soon as the parser has
+     * seen the end of the statement.
+     *
+     * <p>With {@code app.bank-statement.parser.parallelism > 1} the pages are split
+     * into contiguous ranges.  The calling thread extracts the first range from
+     * {@code doc} while pool workers extract the others, each from its own
+     * {@link PDDocument} handle ({@link PDFTextStripper} and the document's
+     * resource cache are not thread-safe).  Page texts are always fed to the
+     * single line parser in page order, so blocks that span a page boundary are
+     * stitched exactly as on the sequential path and the result is identical.
+     * The memory cap applies to each document handle.</p>
+     */
+    StatementParseResult parseOpenDocument(File pdfFile, String password, PDDocument doc) {
+        try {
+            return parseDocument(pdfFile, password, doc);
+        } catch (IOException e) {
+            throw processingFailure(e);
         }
+    }
+
+    private StatementParseResult parseDocument(File pdfFile, String password, PDDocument doc) throws IOException {
+        StatementLineParser parser = new StatementLineParser();
+        int pageCount = doc.getNumberOfPages();
+        int workers = Math.min(extractionParallelism, pageCount / MIN_PAGES_PER_WORKER);
 
+        if (workers <= 1) {
+            PDFTextStripper stripper = newStripper();
+            for (int page = 1; page <= pageCount && !parser.isFinished(); page++) {
+                feedText(extractPage(stripper, doc, page), parser);
+            }
+            return parser.finish();
+        }
+
+        int[][] ranges = splitPages(pageCount, workers);
+        List<Future<List<String>>> pending = new ArrayList<>(ranges.length - 1);
         try {
-            byte[] bytes = file.getBytes();
-            PDDocument doc;
-            try {
-                if (password != null && !password.isBlank()) {
-                    doc = PDDocument.load(bytes, password);
-                } else {
-                    doc = PDDocument.load(bytes);
-                }
-            } catch (org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException e) {
-                throw new BankStatementProcessingException(
-                        "Invalid PDF password. Please provide the correct password for the bank statement.", e);
+            for (int r = 1; r < ranges.length; r++) {
+                int from = ranges[r][0];
+                int to   = ranges[r][1];
+                pending.add(extractionPool.submit(() -> {
+                    try (PDDocument own = openDocument(pdfFile, password)) {
+                        return extractPages(own, from, to);
+                    }
+                }));
             }
 
-            try {
-                PDFTextStripper stripper = new PDFTextStripper();
-                stripper.setSortByPosition(true);
-                String text = stripper.getText(doc);
-                logger.debug("Extracted {} characters from bank statement PDF", text.length());
-                return parseTransactions(text);
-            } finally {
-                doc.close();
+            PDFTextStripper stripper = newStripper();
+            for (int page = ranges[0][0]; page <= ranges[0][1] && !parser.isFinished(); page++) {
+                feedText(extractPage(stripper, doc, page), parser);
+            }
+            for (Future<List<String>> range : pending) {
+                if (parser.isFinished()) break;
+                for (String pageText : awaitRange(range)) {
+                    if (!feedText(pageText, parser)) break;
+                }
             }
+        } finally {
+            for (Future<List<String>> range : pending) {
+                range.cancel(true);
+            }
+        }
+        logger.debug("Extracted {} page(s) of bank statement PDF using {} document handles", pageCount, workers);
+        return parser.finish();
+    }
 
-        } catch (BankStatementProcessingException e) {
-            throw e;
-        } catch (Exception e) {
+    /**
+     * Runs the line parser over already-extracted page texts, without PDFBox.
+     * This is the text-level half of {@link #parseOpenDocument}, timed on its own
+     * by {@code HdfcStatementParserBenchmark} (Maven profile {@code benchmarks}).
+     */
+    StatementParseResult parseText(Iterable<String> pageTexts) {
+        StatementLineParser parser = new StatementLineParser();
+        for (String pageText : pageTexts) {
+            if (!feedText(pageText, parser)) break;
+        }
+        return parser.finish();
+    }
+
+    private static PDFTextStripper newStripper() throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setSortByPosition(true);
+        return stripper;
+    }
+
+    private static String extractPage(PDFTextStripper stripper, PDDocument doc, int page) throws IOException {
+        stripper.setStartPage(page);
+        stripper.setEndPage(page);
+        return stripper.getText(doc);
+    }
+
+    /** Extracts pages {@code from..to} (1-based, inclusive) as one string per page. */
+    private static List<String> extractPages(PDDocument doc, int from, int to) throws IOException {
+        PDFTextStripper stripper = newStripper();
+        List<String> pages = new ArrayList<>(to - from + 1);
+        for (int page = from; page <= to; page++) {
+            pages.add(extractPage(stripper, doc, page));
+        }
+        return pages;
+    }
+
+    /** Splits {@code 1..pageCount} into {@code parts} contiguous, near-equal ranges. */
+    private static int[][] splitPages(int pageCount, int parts) {
+        int[][] ranges = new int[parts][2];
+        int base = pageCount / parts;
+        int extra = pageCount % parts;
+        int next = 1;
+        for (int i = 0; i < parts; i++) {
+            int size = base + (i < extra ? 1 : 0);
+            ranges[i][0] = next;
+            ranges[i][1] = next + size - 1;
+            next += size;
+        }
+        return ranges;
+    }
+
+    private static List<String> awaitRange(Future<List<String>> range) throws IOException {
+        try {
+            return range.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BankStatementProcessingException("Bank statement processing was interrupted.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException re) throw re;
             throw new BankStatementProcessingException(
-                    "Failed to process bank statement PDF: " + e.getMessage(), e);
+                    "Failed to process bank statement PDF: " + cause.getMessage(), cause);
         }
     }
 
-    // -----------------------------------------------------------------------
-    // Parsing helpers
-    // -----------------------------------------------------------------------
+    /**
+     * Feeds one page of extracted text to the parser.
+     *
+     * @return {@code false} once the parser has reached the end of the statement
+     */
+    private static boolean feedText(String pageText, StatementLineParser parser) {
+        for (String line : pageText.split("\\r?\\n")) {
+            if (!parser.accept(line)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ThreadFactory extractionThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "statement-extract-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
 
     /**
-     * Splits the raw extracted text into individual transaction blocks and
-     * parses each block into a {@link BankStatementTransactionDTO}.
+     * Incremental line-based parser for the extracted statement text.  Lines are
+     * grouped into transaction blocks and every completed block is parsed into a
+     * {@link BankStatementTransactionDTO} immediately, so the raw text never has
+     * to be accumulated.
      *
      * <h3>Multi-page support</h3>
      * <ul>
@@ -157,18 +341,27 @@ public class HdfcStatementParserService {
      *       authoritative closing balance for balance-reconciliation.</li>
      * </ul>
      */
-    private StatementParseResult parseTransactions(String text) {
-        List<BankStatementTransactionDTO> transactions = new ArrayList<>();
-        String[] lines = text.split("\\r?\\n");
-
-        boolean      inTable               = false;
-        boolean      inSummary             = false;
-        List<String> currentBlock          = new ArrayList<>();
-        BigDecimal   summaryClosingBalance  = null;
+    private class StatementLineParser {
+        private final List<BankStatementTransactionDTO> transactions = new ArrayList<>();
+        private final List<String> currentBlock = new ArrayList<>();
+        private boolean    inTable               = false;
+        private boolean    inSummary             = false;
+        private boolean    finished              = false;
+        private BigDecimal summaryClosingBalance = null;
+
+        boolean isFinished() {
+            return finished;
+        }
 
-        for (String rawLine : lines) {
+        /**
+         * Consumes one raw line of extracted text.
+         *
+         * @return {@code false} once the end of the statement has been reached
+         */
+        boolean accept(String rawLine) {
+            if (finished) return false;
             String line = rawLine.trim();
-            if (line.isEmpty()) continue;
+            if (line.isEmpty()) return true;
 
             // ── STATEMENT SUMMARY section: read until we find the amounts row ──
             if (inSummary) {
@@ -177,42 +370,35 @@ public class HdfcStatementParserService {
                     // The last amount on the values row is the summary closing balance
                     summaryClosingBalance = rowAmounts.get(rowAmounts.size() - 1);
                     logger.info("STATEMENT SUMMARY closing balance = {}", summaryClosingBalance);
-                    break; // Nothing left to parse after this
+                    finished = true; // Nothing left to parse after this
+                    return false;
                 }
                 // Still on the header labels row (Opening Balance, Dr Count…) — continue
-                continue;
+                return true;
             }
 
             // ── STATEMENT SUMMARY start: flush last block, then enter summary mode ──
             if (line.startsWith("STATEMENT SUMMARY")) {
-                if (!currentBlock.isEmpty()) {
-                    parseSingleBlock(currentBlock, transactions);
-                    currentBlock.clear();
-                }
+                flushBlock();
                 inTable   = false;
                 inSummary = true;
-                continue;
+                return true;
             }
 
             // ── Page-break footnote ("*Closing balance includes funds earmarked…")
             //    This is a DISCLAIMER, not an end-of-transactions marker.
             //    Flush the current block and pause the table until the next page header. ──
             if (line.startsWith("*Closing balance") || line.startsWith("*Funds")) {
-                if (!currentBlock.isEmpty()) {
-                    parseSingleBlock(currentBlock, transactions);
-                    currentBlock.clear();
-                }
+                flushBlock();
                 inTable = false;
-                continue;
+                return true;
             }
 
             // ── Generated On = hard stop (footer metadata, never mid-table) ──
             if (line.startsWith("Generated On")) {
-                if (!currentBlock.isEmpty()) {
-                    parseSingleBlock(currentBlock, transactions);
-                    currentBlock.clear();
-                }
-                break;
+                flushBlock();
+                finished = true;
+                return false;
             }
 
             if (!inTable) {
@@ -225,30 +411,74 @@ public class HdfcStatementParserService {
                     inTable = true;
                     currentBlock.add(line);
                 }
-                continue;
+                return true;
             }
 
             // ── New transaction block starts with DD/MM/YY ─────────────────
             if (TRANSACTION_START.matcher(line).find()) {
-                if (!currentBlock.isEmpty()) {
-                    parseSingleBlock(currentBlock, transactions);
-                    currentBlock.clear();
-                }
+                flushBlock();
                 currentBlock.add(line);
             } else if (!currentBlock.isEmpty()) {
                 // Narration overflow / continuation line
                 currentBlock.add(line);
             }
+            return true;
+        }
+
+        /** Flushes any pending block and returns the accumulated result. */
+        StatementParseResult finish() {
+            flushBlock();
+            finished = true;
+            logger.info("Parsed {} transactions from HDFC bank statement. Summary closing balance: {}",
+                    transactions.size(), summaryClosingBalance);
+            return new StatementParseResult(transactions, summaryClosingBalance);
+        }
+
+        private void flushBlock() {
+            if (!currentBlock.isEmpty()) {
+                parseSingleBlock(currentBlock, transactions);
+                currentBlock.clear();
+            }
         }
+    }
+
+    BankStatementProcessingException invalidPassword(Throwable cause) {
+        return new BankStatementProcessingException(
+                "Invalid PDF password. Please provide the correct password for the bank statement.", cause);
+    }
+
+    BankStatementProcessingException processingFailure(IOException e) {
+        if (isMemoryLimitExceeded(e)) {
+            return new BankStatementProcessingException(String.format(
+                    "Bank statement PDF is too large to process: it needs more than the %d MB allowed per import. "
+                            + "Please upload a shorter statement period.",
+                    maxTotalMemoryBytes / (1024L * 1024L)), e);
+        }
+        return new BankStatementProcessingException(
+                "Failed to process bank statement PDF: " + e.getMessage(), e);
+    }
 
-        // Flush any remaining pending block
-        if (!currentBlock.isEmpty()) {
-            parseSingleBlock(currentBlock, transactions);
+    /**
+     * PDFBox reports an exhausted {@link MemoryUsageSetting} budget as a plain
+     * {@link IOException} ("Maximum allowed scratch file memory exceeded").
+     */
+    private static boolean isMemoryLimitExceeded(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            String message = t.getMessage();
+            if (message != null && message.contains("Maximum allowed scratch file memory exceeded")) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        logger.info("Parsed {} transactions from HDFC bank statement. Summary closing balance: {}",
-                transactions.size(), summaryClosingBalance);
-        return new StatementParseResult(transactions, summaryClosingBalance);
+    static void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete temporary bank statement file {}: {}", path, e.getMessage());
+        }
     }
 
     /** Extracts all {@code x,xx,xxx.xx}-style amounts from a line. */
@@ -0,0 +1,25 @@
+package com.expensetracker.service;
+
+/**
+ * Receives progress callbacks from {@link BankStatementImportService} while a
+ * statement is imported.  Called on the importing thread, inside the import
+ * transaction, so implementations must be cheap and must not rely on seeing
+ * the import's own writes.
+ */
+@FunctionalInterface
+public interface ImportProgressListener {
+
+    String PHASE_PARSING     = "PARSING";
+    String PHASE_IMPORTING   = "IMPORTING";
+    String PHASE_SAVING      = "SAVING";
+    String PHASE_RECONCILING = "RECONCILING";
+
+    ImportProgressListener NONE = (phase, rowsProcessed, rowsTotal) -> { };
+
+    /**
+     * @param phase         one of the {@code PHASE_*} constants
+     * @param rowsProcessed statement rows handled so far in this phase
+     * @param rowsTotal     statement rows to handle in this phase ({@code 0} while unknown)
+     */
+    void onProgress(String phase, int rowsProcessed, int rowsTotal);
+}
@@ -3,7 +3,6 @@ package com.expensetracker.service;
 import com.expensetracker.dto.IncomeEstimatesRequest;
 import com.expensetracker.dto.IncomeEstimatesResponse;
 import com.expensetracker.exception.IncomeEstimatesNotFoundException;
-import com.expensetracker.model.Income;
 import com.expensetracker.model.IncomeEstimates;
 import com.expensetracker.repository.IncomeEstimatesRepository;
 import com.expensetracker.repository.IncomeRepository;
@@ -25,12 +24,15 @@ public class IncomeEstimatesService {
 
     private final IncomeEstimatesRepository incomeEstimatesRepository;
     private final IncomeRepository incomeRepository;
+    private final SchedulerLockService schedulerLockService;
 
     @Autowired
     public IncomeEstimatesService(IncomeEstimatesRepository incomeEstimatesRepository,
-                                  IncomeRepository incomeRepository) {
+                                  IncomeRepository incomeRepository,
+                                  SchedulerLockService schedulerLockService) {
         this.incomeEstimatesRepository = incomeEstimatesRepository;
         this.incomeRepository = incomeRepository;
+        this.schedulerLockService = schedulerLockService;
     }
 
     // ─── Find All ─────────────────────────────────────────────────────────────
@@ -114,48 +116,37 @@ public class IncomeEstimatesService {
     // ─── Monthly Sync: IncomeEstimates → Income ───────────────────────────────
 
     /**
-     * Monthly sync: copies every row in income_estimates to the income table
-     * for all users. Income estimates are NOT deleted after sync - they are preserved
-     * for user reference and future planning.
+     * Monthly sync: copies every row in income_estimates that is not already in the
+     * income table for all users. Income estimates are NOT deleted after sync - they are
+     * preserved for user reference and future planning, and re-running the sync does not
+     * duplicate income rows.
      *
      * The "incomes" cache is evicted after this method returns so users receive
      * fresh income data on their next request.
      *
+     * The copy is fenced by {@code lock}: it only commits while that scheduler lock
+     * is still held, and the lock row stays locked until the copy commits.
+     *
      * @return number of income records inserted
      */
+    @Transactional
     @CacheEvict(cacheNames = "incomes", allEntries = true)
-    public int syncAllIncomeEstimatesToIncome() {
+    public int syncAllIncomeEstimatesToIncome(SchedulerLockService.LockHandle lock) {
+        schedulerLockService.checkHeld(lock);
         int inserted = copyIncomeEstimatesToIncome();
         logger.info("Income estimates sync complete: {} records copied to income table (estimates preserved)", inserted);
         return inserted;
     }
 
     /**
-     * Copies all income_estimates rows into the income table.
-     * Income estimates are preserved after the copy.
+     * Copies income_estimates rows into the income table with a single
+     * INSERT ... SELECT ... WHERE NOT EXISTS, so nothing is loaded into memory and
+     * estimates already copied (same user, source and received date) are skipped.
+     * Safe to re-run. Income estimates are preserved after the copy.
      */
     @Transactional
     public int copyIncomeEstimatesToIncome() {
-        List<IncomeEstimates> allEstimates = incomeEstimatesRepository.findAll();
-        if (allEstimates.isEmpty()) {
-            logger.info("No income estimates found to sync");
-            return 0;
-        }
-
-        int count = 0;
-        for (IncomeEstimates estimate : allEstimates) {
-            Income income = new Income();
-            income.setUserId(estimate.getUserId());
-            income.setSource(estimate.getSource());
-            income.setAmount(estimate.getAmount());
-            income.setReceivedDate(estimate.getReceivedDate());
-            income.setMonth(estimate.getMonth());
-            income.setYear(estimate.getYear());
-            income.setLastUpdateTmstp(LocalDateTime.now());
-            incomeRepository.save(income);
-            count++;
-            logger.debug("Copied income estimate id={} to income for userId={}", estimate.getIncomeEstimatesId(), estimate.getUserId());
-        }
+        int count = incomeRepository.copyMissingFromIncomeEstimates(LocalDateTime.now());
         logger.info("Copied {} income estimate(s) to income table", count);
         return count;
     }
@@ -0,0 +1,262 @@
+package com.expensetracker.service;
+
+import com.expensetracker.util.AhoCorasick;
+import com.expensetracker.util.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Suggests an expense category for a bank narration from the user's own history.
+ *
+ * <p>Narrations of the user's existing expenses are split into merchant keywords
+ * (e.g. {@code UPI-SWIGGY-SWIGGY8@YBL-...} → {@code swiggy}); each keyword keeps a
+ * vote count per category.  A keyword becomes a rule when it has at least
+ * {@code min-support} votes and its leading category holds {@code min-confidence}
+ * of them.  All rule keywords of a user are compiled into one {@link AhoCorasick}
+ * automaton, so a narration is matched against every rule in a single pass.</p>
+ *
+ * <p>Per-user rule sets are built from the {@code expenses} table on first use and
+ * kept in a bounded LRU.  Adds, recategorizations and deletes update the vote
+ * counts in place once their transaction commits; the automaton is only recompiled
+ * when a new keyword appears.</p>
+ *
+ * <p>Expenses in the categories imports fall back to ("House Expenses",
+ * "Miscellaneous") never vote: most of them are there because nobody categorized
+ * them, and counting them would make the fallback the usual suggestion.</p>
+ */
+@Service
+public class NarrationCategorizerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NarrationCategorizerService.class);
+
+    private static final String LEARN_SQL =
+            "SELECT e.expense_name, e.user_expense_category_id FROM expenses e " +
+            "WHERE e.user_id = ? AND e.expense_name IS NOT NULL AND e.user_expense_category_id NOT IN (" +
+            "SELECT c.user_expense_category_id FROM user_expense_category c WHERE c.user_id = ? " +
+            "AND LOWER(c.user_expense_category_name) IN (LOWER(?), LOWER(?))) " +
+            "ORDER BY e.expenses_id DESC LIMIT ?";
+    private static final String IGNORED_CATEGORIES_SQL =
+            "SELECT user_expense_category_id FROM user_expense_category WHERE user_id = ? " +
+            "AND LOWER(user_expense_category_name) IN (LOWER(?), LOWER(?))";
+
+    private static final int MIN_KEYWORD_LENGTH = 3;
+
+    /** Payment-rail, bank and VPA-handle tokens that say nothing about the merchant. */
+    private static final Set<String> STOP_WORDS = Set.of(
+            "upi", "neft", "imps", "rtgs", "pos", "atw", "nwd", "ach", "ecs", "nach", "emi", "ref", "txn",
+            "bank", "hdfc", "hdfcbank", "icici", "sbi", "axis", "kotak", "yesbank", "ybl", "ibl", "axl", "apl",
+            "okaxis", "oksbi", "okicici", "okhdfcbank", "paytm", "ptys", "payment", "payments", "transfer",
+            "the", "and", "for", "from", "ltd", "pvt", "private", "limited", "india", "com", "www", "mob");
+
+    /** A user's keyword votes plus the automaton compiled from its current rules. */
+    private static class UserRules {
+        final Map<String, Map<Integer, Integer>> votes = new HashMap<>();
+        /** Import default/fallback categories of the user; their expenses do not vote. */
+        final Set<Integer> ignoredCategoryIds = new HashSet<>();
+        List<String> compiledKeywords = List.of();
+        AhoCorasick automaton = new AhoCorasick(List.of());
+        boolean dirty = true;
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int learnLimit;
+    private final int minSupport;
+    private final double minConfidence;
+    private final Map<String, UserRules> rulesByUser;
+
+    public NarrationCategorizerService(JdbcTemplate jdbcTemplate,
+                                       @Value("${app.categorizer.learn-limit:5000}") int learnLimit,
+                                       @Value("${app.categorizer.min-support:2}") int minSupport,
+                                       @Value("${app.categorizer.min-confidence:0.6}") double minConfidence,
+                                       @Value("${app.categorizer.max-users:500}") int maxUsers) {
+        this.jdbcTemplate  = jdbcTemplate;
+        this.learnLimit    = Math.max(1, learnLimit);
+        this.minSupport    = Math.max(1, minSupport);
+        this.minConfidence = minConfidence;
+        int capacity = Math.max(1, maxUsers);
+        this.rulesByUser = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UserRules> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Suggests categories for many narrations at once (one rule lookup per call).
+     *
+     * @param allowedCategoryIds only these categories may be suggested (e.g. the user's active ones)
+     * @return suggested category per narration index; narrations without a confident match are absent
+     */
+    public Map<Integer, Integer> categorize(String userId, List<String> narrations, Set<Integer> allowedCategoryIds) {
+        UserRules rules = rulesFor(userId);
+        Map<Integer, Integer> suggestions = new HashMap<>();
+        synchronized (rules) {
+            compileIfDirty(rules);
+            if (rules.compiledKeywords.isEmpty()) return suggestions;
+            for (int i = 0; i < narrations.size(); i++) {
+                Integer category = bestCategory(rules, narrations.get(i), allowedCategoryIds);
+                if (category != null) suggestions.put(i, category);
+            }
+        }
+        return suggestions;
+    }
+
+    /** Records that {@code expenseName} now belongs to {@code categoryId}. */
+    public void learn(String userId, String expenseName, Integer categoryId) {
+        adjust(userId, expenseName, categoryId, 1);
+    }
+
+    /** Withdraws a previous {@link #learn} (expense deleted or moved to another category). */
+    public void forget(String userId, String expenseName, Integer categoryId) {
+        adjust(userId, expenseName, categoryId, -1);
+    }
+
+    /** Records a user recategorizing (or renaming) an expense. */
+    public void recategorize(String userId, String oldName, Integer oldCategoryId, String newName, Integer newCategoryId) {
+        forget(userId, oldName, oldCategoryId);
+        learn(userId, newName, newCategoryId);
+    }
+
+    // -----------------------------------------------------------------------
+
+    /**
+     * Applies the vote change after the surrounding transaction commits (at once when
+     * there is none), so a rolled-back change never counts.
+     */
+    private void adjust(String userId, String expenseName, Integer categoryId, int delta) {
+        if (userId == null || expenseName == null || categoryId == null) return;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyVotes(userId, expenseName, categoryId, delta);
+                }
+            });
+        } else {
+            applyVotes(userId, expenseName, categoryId, delta);
+        }
+    }
+
+    private void applyVotes(String userId, String expenseName, Integer categoryId, int delta) {
+        UserRules rules;
+        synchronized (rulesByUser) {
+            rules = rulesByUser.get(userId);
+        }
+        if (rules == null) return; // Learned from the table on next use
+        synchronized (rules) {
+            addVotes(rules, expenseName, categoryId, delta);
+        }
+    }
+
+    private UserRules rulesFor(String userId) {
+        synchronized (rulesByUser) {
+            UserRules cached = rulesByUser.get(userId);
+            if (cached != null) return cached;
+        }
+        UserRules rules = new UserRules();
+        rules.ignoredCategoryIds.addAll(jdbcTemplate.queryForList(IGNORED_CATEGORIES_SQL, Integer.class, userId,
+                Constants.IMPORT_DEFAULT_CATEGORY_NAME, Constants.IMPORT_FALLBACK_CATEGORY_NAME));
+        long[] rows = {0};
+        jdbcTemplate.query(LEARN_SQL, rs -> {
+            addVotes(rules, rs.getString(1), rs.getInt(2), 1);
+            rows[0]++;
+        }, userId, userId, Constants.IMPORT_DEFAULT_CATEGORY_NAME, Constants.IMPORT_FALLBACK_CATEGORY_NAME, learnLimit);
+        logger.info("Learned {} narration keywords from {} expenses for userId={}", rules.votes.size(), rows[0], userId);
+        synchronized (rulesByUser) {
+            UserRules raced = rulesByUser.putIfAbsent(userId, rules);
+            return raced != null ? raced : rules;
+        }
+    }
+
+    private static void addVotes(UserRules rules, String narration, int categoryId, int delta) {
+        if (rules.ignoredCategoryIds.contains(categoryId)) return;
+        for (String keyword : keywords(narration)) {
+            Map<Integer, Integer> counts = rules.votes.get(keyword);
+            if (counts == null) {
+                if (delta < 0) continue;
+                counts = new HashMap<>(4);
+                rules.votes.put(keyword, counts);
+                rules.dirty = true;
+            }
+            int updated = counts.getOrDefault(categoryId, 0) + delta;
+            if (updated > 0) {
+                counts.put(categoryId, updated);
+            } else {
+                counts.remove(categoryId);
+            }
+        }
+    }
+
+    private void compileIfDirty(UserRules rules) {
+        if (!rules.dirty) return;
+        List<String> keywords = new ArrayList<>(rules.votes.keySet());
+        rules.compiledKeywords = keywords;
+        rules.automaton = new AhoCorasick(keywords);
+        rules.dirty = false;
+    }
+
+    /**
+     * Scores every category voted for by the rule keywords found in the narration;
+     * votes are read live, so count changes apply without recompiling.
+     */
+    private Integer bestCategory(UserRules rules, String narration, Set<Integer> allowed) {
+        if (narration == null || narration.isEmpty()) return null;
+        String text = narration.toLowerCase(Locale.ROOT);
+        Set<Integer> seen = new HashSet<>();
+        Map<Integer, Double> scores = new HashMap<>();
+        rules.automaton.search(text, (k, start, end) -> {
+            if (!isWordBoundary(text, start - 1) || !isWordBoundary(text, end) || !seen.add(k)) return;
+            Map<Integer, Integer> counts = rules.votes.get(rules.compiledKeywords.get(k));
+            if (counts == null || counts.isEmpty()) return;
+            int total = 0;
+            Integer top = null;
+            int topCount = 0;
+            for (Map.Entry<Integer, Integer> e : counts.entrySet()) {
+                total += e.getValue();
+                if (e.getValue() > topCount) {
+                    top = e.getKey();
+                    topCount = e.getValue();
+                }
+            }
+            double confidence = (double) topCount / total;
+            if (total < minSupport || confidence < minConfidence || !allowed.contains(top)) return;
+            scores.merge(top, confidence * Math.min(total, 10), Double::sum);
+        });
+        return scores.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+
+    private static boolean isWordBoundary(String text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+
+    /** Merchant keywords of a narration: lower-case alphanumeric runs with a letter, minus stop words. */
+    static Collection<String> keywords(String narration) {
+        if (narration == null) return List.of();
+        Set<String> keywords = new HashSet<>();
+        for (String token : narration.toLowerCase(Locale.ROOT).split("[^a-z0-9]+")) {
+            if (token.length() < MIN_KEYWORD_LENGTH || STOP_WORDS.contains(token)) continue;
+            if (token.chars().noneMatch(Character::isLetter)) continue;
+            keywords.add(token);
+        }
+        return keywords;
+    }
+}
@@ -0,0 +1,268 @@
+package com.expensetracker.service;
+
+import com.expensetracker.dto.BankStatementTransactionDTO;
+import com.expensetracker.exception.BankStatementProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streaming parser for OFX / QFX bank statement downloads (SGML 1.x and XML 2.x).
+ *
+ * <p>The file is read tag by tag with a small tokenizer, so only the current
+ * transaction is held besides the result list.  OFX carries signed amounts
+ * ({@code TRNAMT}) rather than running balances; the closing balance of every row
+ * is derived backwards from the statement's {@code LEDGERBAL/BALAMT}, which is
+ * also reported as the summary closing balance.  {@code FITID} becomes the
+ * reference number.</p>
+ */
+@Service
+@Order(2)
+public class OfxStatementParserService implements StatementParser {
+
+    public static final String FORMAT = "OFX";
+
+    private static final Logger logger = LoggerFactory.getLogger(OfxStatementParserService.class);
+
+    /** OFX dates start with {@code YYYYMMDD}; the time and zone suffix are ignored. */
+    private static final DateTimeFormatter OFX_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final StatementParseCache parseCache;
+
+    public OfxStatementParserService(StatementParseCache parseCache) {
+        this.parseCache = parseCache;
+    }
+
+    @Override
+    public String getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    public boolean supports(String fileName, byte[] header) {
+        String head = new String(header, StandardCharsets.ISO_8859_1).toUpperCase(Locale.ROOT);
+        return head.contains("OFXHEADER") || head.contains("<OFX>");
+    }
+
+    @Override
+    public StatementImportSession openSession(Path file, String sha256, String userId, boolean deleteOnClose) {
+        return new StreamingStatementImportSession(FORMAT, parseCache, userId, file, sha256, deleteOnClose, this::parse);
+    }
+
+    /**
+     * Parses an OFX statement on disk.
+     *
+     * @throws BankStatementProcessingException if the file is unreadable, has no
+     *         ledger balance or contains more than one account statement
+     */
+    public StatementParseResult parse(Path file) {
+        // OFX 1.x declares CHARSET:1252 / ISO-8859-1; ISO-8859-1 decodes either without failing
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+            return parse(reader);
+        } catch (IOException e) {
+            throw new BankStatementProcessingException(
+                    "Failed to read OFX bank statement: " + e.getMessage(), e);
+        }
+    }
+
+    private StatementParseResult parse(Reader reader) throws IOException {
+        OfxTokenizer tokens = new OfxTokenizer(reader);
+        List<BankStatementTransactionDTO> rows = new ArrayList<>();
+        List<BigDecimal> amounts = new ArrayList<>();
+
+        PendingTransaction current = null;
+        boolean inLedgerBalance = false;
+        BigDecimal ledgerBalance = null;
+        int statements = 0;
+
+        String tag;
+        while ((tag = tokens.nextTag()) != null) {
+            switch (tag) {
+                case "STMTRS" -> {
+                    if (++statements > 1) {
+                        throw new BankStatementProcessingException(
+                                "The OFX file contains more than one account statement. "
+                                + "Please download a statement for a single account.");
+                    }
+                }
+                case "STMTTRN" -> current = new PendingTransaction();
+                case "/STMTTRN" -> {
+                    if (current != null && current.complete()) {
+                        rows.add(current.toDto());
+                        amounts.add(current.amount);
+                    } else {
+                        logger.debug("Skipping incomplete OFX transaction");
+                    }
+                    current = null;
+                }
+                case "LEDGERBAL" -> inLedgerBalance = true;
+                case "/LEDGERBAL" -> inLedgerBalance = false;
+                case "BALAMT" -> {
+                    if (inLedgerBalance) ledgerBalance = parseAmount(tokens.text());
+                }
+                default -> {
+                    if (current != null) current.accept(tag, tokens.text());
+                }
+            }
+        }
+
+        if (rows.isEmpty()) {
+            return new StatementParseResult(rows, ledgerBalance);
+        }
+        if (ledgerBalance == null) {
+            throw new BankStatementProcessingException(
+                    "The OFX file has no ledger balance (LEDGERBAL), so running balances cannot be derived.");
+        }
+
+        // Banks list STMTTRN newest- or oldest-first: flip newest-first lists (which also
+        // reverses same-day rows), then a stable sort puts any stragglers in date order.
+        List<Integer> order = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) order.add(i);
+        if (rows.get(0).getTransactionDate().isAfter(rows.get(rows.size() - 1).getTransactionDate())) {
+            Collections.reverse(order);
+        }
+        order.sort(Comparator.comparing(i -> rows.get(i).getTransactionDate()));
+
+        List<BankStatementTransactionDTO> transactions = new ArrayList<>(rows.size());
+        for (int i : order) transactions.add(rows.get(i));
+
+        // Walk back from the ledger balance: balance before a row = balance after it − its amount
+        BigDecimal balance = ledgerBalance;
+        for (int k = order.size() - 1; k >= 0; k--) {
+            transactions.get(k).setClosingBalance(balance);
+            balance = balance.subtract(amounts.get(order.get(k)));
+        }
+
+        logger.info("Parsed {} transactions from OFX statement (ledger balance {})", transactions.size(), ledgerBalance);
+        return new StatementParseResult(transactions, ledgerBalance);
+    }
+
+    private static BigDecimal parseAmount(String s) {
+        if (s == null || s.isBlank()) return null;
+        try {
+            // Some European exports use a decimal comma
+            return new BigDecimal(s.trim().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static LocalDate parseDate(String s) {
+        if (s == null || s.length() < 8) return null;
+        try {
+            return LocalDate.parse(s.substring(0, 8), OFX_DATE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /** Fields of the {@code STMTTRN} being read. */
+    private static class PendingTransaction {
+        LocalDate posted;
+        LocalDate userDate;
+        BigDecimal amount;
+        String fitId;
+        String name;
+        String memo;
+
+        void accept(String tag, String value) {
+            switch (tag) {
+                case "DTPOSTED" -> posted   = parseDate(value);
+                case "DTUSER"   -> userDate = parseDate(value);
+                case "TRNAMT"   -> amount   = parseAmount(value);
+                case "FITID"    -> fitId    = value;
+                case "NAME"     -> name     = value;
+                case "MEMO"     -> memo     = value;
+                default -> { }
+            }
+        }
+
+        boolean complete() {
+            return posted != null && amount != null;
+        }
+
+        BankStatementTransactionDTO toDto() {
+            String narration;
+            if (name == null || name.isBlank()) {
+                narration = memo;
+            } else if (memo == null || memo.isBlank() || name.contains(memo)) {
+                narration = name;
+            } else {
+                narration = name + " " + memo;
+            }
+            BankStatementTransactionDTO txn = new BankStatementTransactionDTO();
+            txn.setTransactionDate(posted);
+            txn.setValueDate(userDate != null ? userDate : posted);
+            txn.setNarration(narration != null ? narration.trim() : "");
+            txn.setReferenceNo(fitId);
+            return txn;
+        }
+    }
+
+    /**
+     * Minimal OFX tokenizer: returns element names ({@code "/NAME"} for end tags) and
+     * the text following the last start tag.  Handles SGML leaf elements without end
+     * tags, and skips processing instructions and comments of OFX 2.x.
+     */
+    private static class OfxTokenizer {
+        private final Reader reader;
+        private final StringBuilder buffer = new StringBuilder();
+        private String text = "";
+        private int pending = -2;
+
+        OfxTokenizer(Reader reader) {
+            this.reader = reader;
+        }
+
+        String nextTag() throws IOException {
+            int c = pending != -2 ? pending : reader.read();
+            pending = -2;
+            while (c != -1 && c != '<') c = reader.read();
+            if (c == -1) return null;
+
+            buffer.setLength(0);
+            while ((c = reader.read()) != -1 && c != '>') buffer.append((char) c);
+            String tag = buffer.toString().trim();
+            if (tag.startsWith("?") || tag.startsWith("!")) {
+                text = "";
+                return nextTag();
+            }
+            int space = tag.indexOf(' ');
+            if (space > 0) tag = tag.substring(0, space);
+
+            buffer.setLength(0);
+            while ((c = reader.read()) != -1 && c != '<') buffer.append((char) c);
+            pending = c;
+            text = unescape(buffer.toString().trim());
+            return tag.toUpperCase(Locale.ROOT);
+        }
+
+        /** Text content of the element returned by the last {@link #nextTag()}. */
+        String text() {
+            return text;
+        }
+
+        private static String unescape(String s) {
+            if (s.indexOf('&') < 0) return s;
+            return s.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                    .replace("&apos;", "'").replace("&amp;", "&");
+        }
+    }
+}
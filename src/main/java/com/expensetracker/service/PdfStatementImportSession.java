@@ -0,0 +1,122 @@
+package com.expensetracker.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * {@link StatementImportSession} over an HDFC PDF statement.  The PDF is opened
+ * and decrypted at most once: the document unlocked by {@link #tryUnlock(String)}
+ * during password verification is reused by {@link #parse(String)}, and parse
+ * results are cached by the file's SHA-256 so a retry of the same upload skips
+ * opening the PDF altogether.
+ */
+class PdfStatementImportSession implements StatementImportSession {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfStatementImportSession.class);
+
+    private final HdfcStatementParserService parserService;
+    private final StatementParseCache parseCache;
+    private final String userId;
+    private final Path pdfFile;
+    private final String sha256;
+    private final boolean deleteOnClose;
+
+    private PDDocument document;
+    private String documentPassword;
+
+    PdfStatementImportSession(HdfcStatementParserService parserService,
+                              StatementParseCache parseCache,
+                              String userId,
+                              Path pdfFile,
+                              String sha256,
+                              boolean deleteOnClose) {
+        this.parserService = parserService;
+        this.parseCache    = parseCache;
+        this.userId        = userId;
+        this.pdfFile       = pdfFile;
+        this.sha256        = sha256;
+        this.deleteOnClose = deleteOnClose;
+    }
+
+    @Override
+    public String getFormat() {
+        return HdfcStatementParserService.FORMAT;
+    }
+
+    @Override
+    public String getSha256() {
+        return sha256;
+    }
+
+    @Override
+    public boolean usesPassword() {
+        return true;
+    }
+
+    /**
+     * Opens and decrypts the document with {@code password}, keeping it open for
+     * {@link #parse(String)}.
+     */
+    @Override
+    public boolean tryUnlock(String password) {
+        if (document != null && Objects.equals(normalize(password), documentPassword)) {
+            return true;
+        }
+        closeDocument();
+        try {
+            document = parserService.openDocument(pdfFile.toFile(), password);
+            documentPassword = normalize(password);
+            return true;
+        } catch (InvalidPasswordException e) {
+            return false;
+        } catch (IOException e) {
+            throw parserService.processingFailure(e);
+        }
+    }
+
+    @Override
+    public StatementParseResult parse(String password) {
+        Optional<StatementParseResult> cached = parseCache.get(userId, sha256, password);
+        if (cached.isPresent()) {
+            logger.info("Reusing cached parse of bank statement {} for userId={}", sha256, userId);
+            return cached.get();
+        }
+
+        if (!tryUnlock(password)) {
+            throw parserService.invalidPassword(null);
+        }
+        StatementParseResult result = parserService.parseOpenDocument(pdfFile.toFile(), password, document);
+        return parseCache.put(userId, sha256, password, result);
+    }
+
+    @Override
+    public void close() {
+        closeDocument();
+        if (deleteOnClose) {
+            HdfcStatementParserService.deleteQuietly(pdfFile);
+        }
+    }
+
+    private void closeDocument() {
+        if (document == null) return;
+        try {
+            document.close();
+        } catch (IOException e) {
+            logger.warn("Could not close bank statement document: {}", e.getMessage());
+        } finally {
+            document = null;
+            documentPassword = null;
+        }
+    }
+
+    private static String normalize(String password) {
+        return (password != null && !password.isBlank()) ? password : "";
+    }
+}
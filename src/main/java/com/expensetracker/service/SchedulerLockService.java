@@ -0,0 +1,241 @@
+package com.expensetracker.service;
+
+import com.expensetracker.model.SchedulerLock;
+import com.expensetracker.repository.SchedulerLockRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Database-backed lease locks so that a {@code @Scheduled} job runs on exactly one
+ * application instance when several nodes share the same MySQL schema.
+ *
+ * <p>A lock is a row in {@code scheduler_lock} (see {@code db/scheduler_lock.sql}).
+ * Acquisition is a single conditional UPDATE (only succeeds when the previous lease
+ * has expired) or, for a brand-new lock name, an INSERT guarded by the primary key.
+ * Lease times are computed with the database's {@code NOW()}, so clock skew between
+ * nodes cannot make two of them see a lease as expired at different times.
+ * Every successful acquisition increments {@code fencing_token}; a holder whose lease
+ * expired and was taken over can detect it with {@link #isHeld(LockHandle)} or
+ * {@link #checkHeld(LockHandle)} and its late release is ignored.</p>
+ *
+ * <p>Statements run outside any surrounding transaction (auto-commit) so the lock is
+ * visible to other nodes immediately.</p>
+ */
+@Service
+public class SchedulerLockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerLockService.class);
+
+    private static final String TAKE_EXPIRED_SQL =
+            "UPDATE scheduler_lock SET locked_by = ?, locked_at = NOW(), lock_until = DATE_ADD(NOW(), INTERVAL ? SECOND), " +
+            "fencing_token = fencing_token + 1 WHERE lock_name = ? AND lock_until <= NOW()";
+    private static final String INSERT_SQL =
+            "INSERT INTO scheduler_lock (lock_name, locked_by, locked_at, lock_until, fencing_token) " +
+            "VALUES (?, ?, NOW(), DATE_ADD(NOW(), INTERVAL ? SECOND), 1)";
+    private static final String SELECT_HOLDER_SQL =
+            "SELECT fencing_token, locked_at FROM scheduler_lock WHERE lock_name = ? AND locked_by = ?";
+    private static final String IS_HELD_SQL =
+            "SELECT COUNT(*) FROM scheduler_lock WHERE lock_name = ? AND locked_by = ? AND fencing_token = ? AND lock_until > NOW()";
+    private static final String CHECK_HELD_SQL =
+            "SELECT fencing_token FROM scheduler_lock WHERE lock_name = ? AND locked_by = ? AND fencing_token = ? " +
+            "AND lock_until > NOW() FOR UPDATE";
+    private static final String RENEW_SQL =
+            "UPDATE scheduler_lock SET lock_until = DATE_ADD(NOW(), INTERVAL ? SECOND) " +
+            "WHERE lock_name = ? AND locked_by = ? AND fencing_token = ? AND lock_until > NOW()";
+    private static final String RELEASE_SQL =
+            "UPDATE scheduler_lock SET lock_until = GREATEST(DATE_ADD(locked_at, INTERVAL ? SECOND), NOW()) " +
+            "WHERE lock_name = ? AND locked_by = ? AND fencing_token = ?";
+
+    /**
+     * Identifies a successful acquisition. The fencing token is strictly increasing
+     * per lock name, so it can be compared to reject work from a superseded holder.
+     */
+    public static class LockHandle {
+        public final String lockName;
+        public final String owner;
+        public final long fencingToken;
+        public final LocalDateTime lockedAt;
+
+        public LockHandle(String lockName, String owner, long fencingToken, LocalDateTime lockedAt) {
+            this.lockName = lockName;
+            this.owner = owner;
+            this.fencingToken = fencingToken;
+            this.lockedAt = lockedAt;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SchedulerLockRepository schedulerLockRepository;
+    private final String nodeId;
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "scheduler-lock-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SchedulerLockService(JdbcTemplate jdbcTemplate,
+                                SchedulerLockRepository schedulerLockRepository,
+                                @Value("${app.scheduler.node-id:}") String nodeId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schedulerLockRepository = schedulerLockRepository;
+        this.nodeId = (nodeId == null || nodeId.isBlank()) ? defaultNodeId() : nodeId.trim();
+        logger.info("Scheduler lock node id: {}", this.nodeId);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeat.shutdownNow();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Attempts to acquire {@code lockName} for {@code lease}. Never blocks.
+     *
+     * @return the handle when this node now holds the lock, empty if another node holds a live lease
+     */
+    public Optional<LockHandle> tryAcquire(String lockName, Duration lease) {
+        long leaseSeconds = Math.max(1, lease.toSeconds());
+
+        int updated = jdbcTemplate.update(TAKE_EXPIRED_SQL, nodeId, leaseSeconds, lockName);
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, lockName, nodeId, leaseSeconds);
+            } catch (DuplicateKeyException e) {
+                logger.debug("Lock '{}' is held by another node", lockName);
+                return Optional.empty();
+            }
+        }
+
+        List<LockHandle> holders = jdbcTemplate.query(SELECT_HOLDER_SQL,
+                (rs, rowNum) -> new LockHandle(lockName, nodeId, rs.getLong("fencing_token"),
+                        rs.getTimestamp("locked_at").toLocalDateTime()),
+                lockName, nodeId);
+        if (holders.isEmpty()) {
+            // Lost the row between write and read (lease shorter than the round trip)
+            return Optional.empty();
+        }
+        LockHandle handle = holders.get(0);
+        logger.info("Acquired lock '{}' (token={}) for {}s", lockName, handle.fencingToken, leaseSeconds);
+        return Optional.of(handle);
+    }
+
+    /**
+     * @return true while this handle is still the live owner of its lock
+     */
+    public boolean isHeld(LockHandle handle) {
+        Integer count = jdbcTemplate.queryForObject(IS_HELD_SQL, Integer.class,
+                handle.lockName, handle.owner, handle.fencingToken);
+        return count != null && count > 0;
+    }
+
+    /**
+     * Fences work done under the lock: fails unless {@code handle} still holds a live
+     * lease. Called inside the transaction that writes the work, the row stays locked
+     * until that transaction ends, so the lease cannot be taken over before the work
+     * commits.
+     *
+     * @throws IllegalStateException if the lease expired or was taken over
+     */
+    public void checkHeld(LockHandle handle) {
+        if (jdbcTemplate.queryForList(CHECK_HELD_SQL, Long.class,
+                handle.lockName, handle.owner, handle.fencingToken).isEmpty()) {
+            throw new IllegalStateException("Lock '" + handle.lockName + "' (token=" + handle.fencingToken
+                    + ") is no longer held by " + handle.owner);
+        }
+    }
+
+    /**
+     * Extends a live lease by {@code lease} from now (database time).
+     *
+     * @return false if the lease already expired or was taken over
+     */
+    public boolean renew(LockHandle handle, Duration lease) {
+        return jdbcTemplate.update(RENEW_SQL, Math.max(1, lease.toSeconds()),
+                handle.lockName, handle.owner, handle.fencingToken) > 0;
+    }
+
+    /**
+     * Releases the lock, but keeps it reserved until at least {@code lockedAt + holdAtLeast}
+     * so that a node whose cron fires slightly later does not repeat the same run.
+     * A release from a superseded holder (stale fencing token) is a no-op.
+     */
+    public void release(LockHandle handle, Duration holdAtLeast) {
+        int updated = jdbcTemplate.update(RELEASE_SQL, Math.max(0, holdAtLeast.toSeconds()),
+                handle.lockName, handle.owner, handle.fencingToken);
+        if (updated == 0) {
+            logger.warn("Lock '{}' (token={}) was taken over before release", handle.lockName, handle.fencingToken);
+        } else {
+            logger.info("Released lock '{}' (token={})", handle.lockName, handle.fencingToken);
+        }
+    }
+
+    /**
+     * Runs {@code task} only if {@code lockName} can be acquired, releasing it afterwards.
+     * The lease is renewed every third of {@code lease} while the task runs; the task
+     * receives the handle so it can fence its writes with {@link #checkHeld(LockHandle)}.
+     *
+     * @return true if the task ran on this node
+     */
+    public boolean runExclusively(String lockName, Duration lease, Duration holdAtLeast, Consumer<LockHandle> task) {
+        Optional<LockHandle> acquired = tryAcquire(lockName, lease);
+        if (acquired.isEmpty()) {
+            logger.info("Skipping '{}': lock held by another node", lockName);
+            return false;
+        }
+        LockHandle handle = acquired.get();
+        long periodMillis = Math.max(1000, lease.toMillis() / 3);
+        ScheduledFuture<?> renewal = heartbeat.scheduleWithFixedDelay(() -> {
+            try {
+                if (!renew(handle, lease)) {
+                    logger.warn("Lock '{}' (token={}) was lost while its task was running", lockName, handle.fencingToken);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not renew lock '{}': {}", lockName, e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        try {
+            task.accept(handle);
+            return true;
+        } finally {
+            renewal.cancel(false);
+            release(handle, holdAtLeast);
+        }
+    }
+
+    /**
+     * Current lock rows, for the admin view.
+     */
+    public List<SchedulerLock> findAllLocks() {
+        return schedulerLockRepository.findAllByOrderByLockName();
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown-host";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
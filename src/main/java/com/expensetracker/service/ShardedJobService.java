@@ -0,0 +1,405 @@
+package com.expensetracker.service;
+
+import com.expensetracker.model.SchedulerShard;
+import com.expensetracker.repository.SchedulerShardRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Spreads per-user month-end work across every running instance.
+ *
+ * <p>Users are partitioned into {@code shardCount} buckets by
+ * {@code floorMod(userId.hashCode(), shardCount)} (String.hashCode is stable across JVMs).
+ * Each (job, run) has one {@code scheduler_shard} row per bucket. Every node seeds the
+ * rows, then its worker threads repeatedly claim a PENDING shard (or a RUNNING shard whose
+ * lease expired because its owner died) with a conditional UPDATE, process it in chunks
+ * and mark it DONE. While a shard is held, a heartbeat thread renews its lease every third
+ * of {@code lease-seconds}, so a chunk may take longer than the lease. Leases are compared
+ * against the database clock. Nodes that run out of claimable shards keep polling until
+ * every shard is finished, so shards of a dead node are picked up once their lease lapses.</p>
+ *
+ * <p>Each bucket is processed in user id order and the last user id of every finished chunk
+ * is stored in {@code resume_after}; a re-claimed shard continues after it instead of
+ * starting over. Only the chunk that was running when the previous owner stopped is
+ * processed again, so chunk processors must still tolerate seeing a user twice.</p>
+ *
+ * <p>The {@code attempts} column is bumped on each claim and acts as a fencing token:
+ * lease renewal, progress and completion only succeed for the current claim, so a stalled
+ * worker stops before its next chunk once its shard has been taken over.</p>
+ */
+@Service
+public class ShardedJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedJobService.class);
+
+    private static final String STATUS_PENDING = "PENDING";
+    private static final String STATUS_DONE = "DONE";
+    private static final String STATUS_FAILED = "FAILED";
+
+    private static final String INSERT_SHARD_SQL =
+            "INSERT INTO scheduler_shard (job_name, run_key, shard_no, shard_count, status, attempts, users_processed) " +
+            "VALUES (?, ?, ?, ?, 'PENDING', 0, 0)";
+    private static final String CLAIMABLE_SQL =
+            "SELECT shard_no FROM scheduler_shard WHERE job_name = ? AND run_key = ? AND attempts < ? " +
+            "AND (status = 'PENDING' OR (status = 'RUNNING' AND lease_until <= NOW())) ORDER BY shard_no";
+    private static final String CLAIM_SQL =
+            "UPDATE scheduler_shard SET status = 'RUNNING', owner = ?, lease_until = DATE_ADD(NOW(), INTERVAL ? SECOND), " +
+            "started_at = NOW(), attempts = attempts + 1 " +
+            "WHERE job_name = ? AND run_key = ? AND shard_no = ? AND attempts < ? " +
+            "AND (status = 'PENDING' OR (status = 'RUNNING' AND lease_until <= NOW()))";
+    private static final String CLAIMED_SQL =
+            "SELECT attempts, users_processed, resume_after FROM scheduler_shard " +
+            "WHERE job_name = ? AND run_key = ? AND shard_no = ? AND owner = ? AND status = 'RUNNING'";
+    private static final String RENEW_SQL =
+            "UPDATE scheduler_shard SET lease_until = DATE_ADD(NOW(), INTERVAL ? SECOND) " +
+            "WHERE job_name = ? AND run_key = ? AND shard_no = ? AND owner = ? AND attempts = ? AND status = 'RUNNING'";
+    private static final String PROGRESS_SQL =
+            "UPDATE scheduler_shard SET users_processed = ?, resume_after = ? " +
+            "WHERE job_name = ? AND run_key = ? AND shard_no = ? AND owner = ? AND attempts = ? AND status = 'RUNNING'";
+    private static final String FINISH_SQL =
+            "UPDATE scheduler_shard SET status = ?, lease_until = NULL, finished_at = NOW(), users_processed = ? " +
+            "WHERE job_name = ? AND run_key = ? AND shard_no = ? AND owner = ? AND attempts = ? AND status = 'RUNNING'";
+    private static final String UNFINISHED_SQL =
+            "SELECT COUNT(*) FROM scheduler_shard WHERE job_name = ? AND run_key = ? " +
+            "AND (status = 'PENDING' OR (status = 'RUNNING' AND (lease_until > NOW() OR attempts < ?)))";
+    private static final String NOT_DONE_SQL =
+            "SELECT COUNT(*) FROM scheduler_shard WHERE job_name = ? AND run_key = ? AND status <> 'DONE'";
+
+    /**
+     * Totals for the shards processed by this node during one call to {@link #run}.
+     */
+    public static class ShardRunSummary {
+        public final String jobName;
+        public final String runKey;
+        public final int shardsProcessed;
+        public final int shardsFailed;
+        public final int usersProcessed;
+
+        public ShardRunSummary(String jobName, String runKey, int shardsProcessed, int shardsFailed, int usersProcessed) {
+            this.jobName = jobName;
+            this.runKey = runKey;
+            this.shardsProcessed = shardsProcessed;
+            this.shardsFailed = shardsFailed;
+            this.usersProcessed = usersProcessed;
+        }
+    }
+
+    private static class ShardClaim {
+        final int shardNo;
+        final int attempt;
+        /** Users finished and the last of them, as left by earlier attempts on this shard. */
+        final int usersProcessed;
+        final String resumeAfter;
+        /** Cleared by the heartbeat once the lease could not be renewed. */
+        volatile boolean held = true;
+
+        ShardClaim(int shardNo, int attempt, int usersProcessed, String resumeAfter) {
+            this.shardNo = shardNo;
+            this.attempt = attempt;
+            this.usersProcessed = usersProcessed;
+            this.resumeAfter = resumeAfter;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SchedulerShardRepository schedulerShardRepository;
+    private final String nodeId;
+    private final int shardCount;
+    private final int parallelism;
+    private final int chunkSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration pollInterval;
+    private final Duration maxWait;
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "scheduler-shard-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ShardedJobService(JdbcTemplate jdbcTemplate,
+                             SchedulerShardRepository schedulerShardRepository,
+                             SchedulerLockService schedulerLockService,
+                             @Value("${app.scheduler.shards.count:16}") int shardCount,
+                             @Value("${app.scheduler.shards.parallelism:4}") int parallelism,
+                             @Value("${app.scheduler.shards.chunk-size:100}") int chunkSize,
+                             @Value("${app.scheduler.shards.max-attempts:3}") int maxAttempts,
+                             @Value("${app.scheduler.shards.lease-seconds:300}") long leaseSeconds,
+                             @Value("${app.scheduler.shards.poll-seconds:10}") long pollSeconds,
+                             @Value("${app.scheduler.shards.max-wait-minutes:60}") long maxWaitMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.schedulerShardRepository = schedulerShardRepository;
+        this.nodeId = schedulerLockService.getNodeId();
+        this.shardCount = Math.max(1, shardCount);
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.lease = Duration.ofSeconds(Math.max(1, leaseSeconds));
+        this.pollInterval = Duration.ofSeconds(Math.max(1, pollSeconds));
+        this.maxWait = Duration.ofMinutes(Math.max(1, maxWaitMinutes));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeat.shutdownNow();
+    }
+
+    /**
+     * Shard a user id belongs to for the configured shard count.
+     */
+    public int shardOf(String userId) {
+        return Math.floorMod(userId.hashCode(), shardCount);
+    }
+
+    /**
+     * Participates in the (jobName, runKey) run on this node and returns once every shard
+     * is DONE or FAILED, or {@code max-wait-minutes} has elapsed.
+     *
+     * @param userIds        all user ids in scope for the job (ids only; each node loads its own copy)
+     * @param chunkProcessor processes a chunk of user ids from one shard; must be thread-safe and
+     *                       handle per-user failures itself — an exception fails the whole shard attempt
+     */
+    public ShardRunSummary run(String jobName, String runKey, Collection<String> userIds,
+                               Consumer<List<String>> chunkProcessor) {
+        seedShards(jobName, runKey);
+
+        List<List<String>> buckets = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (String userId : userIds) {
+            buckets.get(shardOf(userId)).add(userId);
+        }
+        // A fixed order lets a re-claimed shard skip the users finished before it was lost
+        buckets.forEach(Collections::sort);
+
+        logger.info("Node {} joining sharded run {}:{} ({} users, {} shards, {} workers)",
+                nodeId, jobName, runKey, userIds.size(), shardCount, parallelism);
+
+        AtomicInteger shardsProcessed = new AtomicInteger();
+        AtomicInteger shardsFailed = new AtomicInteger();
+        AtomicInteger usersProcessed = new AtomicInteger();
+        LocalDateTime deadline = LocalDateTime.now().plus(maxWait);
+
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<?>> workers = new ArrayList<>(parallelism);
+            for (int w = 0; w < parallelism; w++) {
+                final int workerNo = w;
+                workers.add(pool.submit(() -> workLoop(jobName, runKey, workerNo, buckets, chunkProcessor,
+                        deadline, shardsProcessed, shardsFailed, usersProcessed)));
+            }
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    logger.error("Shard worker for {}:{} terminated unexpectedly", jobName, runKey, e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for shard workers of {}:{}", jobName, runKey);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        ShardRunSummary summary = new ShardRunSummary(jobName, runKey,
+                shardsProcessed.get(), shardsFailed.get(), usersProcessed.get());
+        logger.info("Node {} finished sharded run {}:{}: shards processed={}, failed={}, users={}",
+                nodeId, jobName, runKey, summary.shardsProcessed, summary.shardsFailed, summary.usersProcessed);
+        return summary;
+    }
+
+    /**
+     * Whether every shard of the (jobName, runKey) run has been seeded and is DONE, i.e. no
+     * shard failed or can still be picked up again.
+     */
+    public boolean isRunDone(String jobName, String runKey) {
+        Integer notDone = jdbcTemplate.queryForObject(NOT_DONE_SQL, Integer.class, jobName, runKey);
+        return notDone != null && notDone == 0 && !findShards(jobName, runKey).isEmpty();
+    }
+
+    /**
+     * Shard rows for one run, for the admin view.
+     */
+    public List<SchedulerShard> findShards(String jobName, String runKey) {
+        if (jobName == null || jobName.isBlank()) {
+            return schedulerShardRepository.findByRunKeyOrderByJobNameAscShardNoAsc(runKey);
+        }
+        return schedulerShardRepository.findByJobNameAndRunKeyOrderByShardNo(jobName, runKey);
+    }
+
+    private void workLoop(String jobName, String runKey, int workerNo, List<List<String>> buckets,
+                          Consumer<List<String>> chunkProcessor, LocalDateTime deadline,
+                          AtomicInteger shardsProcessed, AtomicInteger shardsFailed, AtomicInteger usersProcessed) {
+        while (!Thread.currentThread().isInterrupted()) {
+            Optional<ShardClaim> claim = claimNext(jobName, runKey, workerNo);
+            if (claim.isPresent()) {
+                int processed = processShard(jobName, runKey, claim.get(), buckets.get(claim.get().shardNo), chunkProcessor);
+                if (processed >= 0) {
+                    shardsProcessed.incrementAndGet();
+                    usersProcessed.addAndGet(processed);
+                } else {
+                    shardsFailed.incrementAndGet();
+                }
+                continue;
+            }
+
+            if (unfinishedShards(jobName, runKey) == 0) {
+                return;
+            }
+            if (LocalDateTime.now().isAfter(deadline)) {
+                logger.warn("Giving up waiting on unfinished shards of {}:{} after {}", jobName, runKey, maxWait);
+                return;
+            }
+            // Other nodes still hold live leases; wait in case one of them dies
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return users processed by this attempt, or -1 if the shard attempt failed or was taken over
+     */
+    private int processShard(String jobName, String runKey, ShardClaim claim, List<String> userIds,
+                             Consumer<List<String>> chunkProcessor) {
+        int start = 0;
+        if (claim.resumeAfter != null) {
+            int pos = Collections.binarySearch(userIds, claim.resumeAfter);
+            start = pos >= 0 ? pos + 1 : -pos - 1;
+            logger.info("Resuming shard {} of {}:{} after user {} ({} users already done)",
+                    claim.shardNo, jobName, runKey, claim.resumeAfter, claim.usersProcessed);
+        }
+        int processed = claim.usersProcessed;
+        ScheduledFuture<?> renewal = startHeartbeat(jobName, runKey, claim);
+        try {
+            for (int from = start; from < userIds.size(); from += chunkSize) {
+                List<String> chunk = userIds.subList(from, Math.min(from + chunkSize, userIds.size()));
+                if (!claim.held) {
+                    logger.warn("Shard {} of {}:{} was taken over from node {}; stopping",
+                            claim.shardNo, jobName, runKey, nodeId);
+                    return -1;
+                }
+                chunkProcessor.accept(chunk);
+                processed += chunk.size();
+                if (!recordProgress(jobName, runKey, claim, processed, chunk.get(chunk.size() - 1))) {
+                    logger.warn("Shard {} of {}:{} was taken over from node {}; stopping",
+                            claim.shardNo, jobName, runKey, nodeId);
+                    return -1;
+                }
+            }
+            finish(jobName, runKey, claim, STATUS_DONE, processed);
+            logger.info("Shard {} of {}:{} done on node {} ({} users, attempt {})",
+                    claim.shardNo, jobName, runKey, nodeId, processed, claim.attempt);
+            return processed - claim.usersProcessed;
+        } catch (Exception e) {
+            String status = claim.attempt >= maxAttempts ? STATUS_FAILED : STATUS_PENDING;
+            logger.error("Shard {} of {}:{} failed on node {} (attempt {}), marking {}",
+                    claim.shardNo, jobName, runKey, nodeId, claim.attempt, status, e);
+            finish(jobName, runKey, claim, status, processed);
+            return -1;
+        } finally {
+            renewal.cancel(false);
+        }
+    }
+
+    private ScheduledFuture<?> startHeartbeat(String jobName, String runKey, ShardClaim claim) {
+        long periodMillis = Math.max(1000, lease.toMillis() / 3);
+        return heartbeat.scheduleWithFixedDelay(() -> {
+            try {
+                if (claim.held && !renewLease(jobName, runKey, claim)) {
+                    claim.held = false;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not renew the lease of shard {} of {}:{}: {}",
+                        claim.shardNo, jobName, runKey, e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void seedShards(String jobName, String runKey) {
+        for (int shardNo = 0; shardNo < shardCount; shardNo++) {
+            try {
+                jdbcTemplate.update(INSERT_SHARD_SQL, jobName, runKey, shardNo, shardCount);
+            } catch (DuplicateKeyException e) {
+                // Already seeded by another node
+            }
+        }
+    }
+
+    private Optional<ShardClaim> claimNext(String jobName, String runKey, int workerNo) {
+        List<Integer> claimable = jdbcTemplate.queryForList(CLAIMABLE_SQL, Integer.class,
+                jobName, runKey, maxAttempts);
+        if (claimable.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Start at a node/worker specific offset so concurrent claimers rarely collide
+        int offset = Math.floorMod(nodeId.hashCode() + workerNo, claimable.size());
+        for (int i = 0; i < claimable.size(); i++) {
+            int shardNo = claimable.get((offset + i) % claimable.size());
+            int updated = jdbcTemplate.update(CLAIM_SQL, nodeId, lease.toSeconds(),
+                    jobName, runKey, shardNo, maxAttempts);
+            if (updated == 1) {
+                List<ShardClaim> claims = jdbcTemplate.query(CLAIMED_SQL, (rs, rowNum) -> new ShardClaim(shardNo,
+                                rs.getInt("attempts"), rs.getInt("users_processed"), rs.getString("resume_after")),
+                        jobName, runKey, shardNo, nodeId);
+                if (!claims.isEmpty()) {
+                    return Optional.of(claims.get(0));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean renewLease(String jobName, String runKey, ShardClaim claim) {
+        return jdbcTemplate.update(RENEW_SQL, lease.toSeconds(),
+                jobName, runKey, claim.shardNo, nodeId, claim.attempt) == 1;
+    }
+
+    private boolean recordProgress(String jobName, String runKey, ShardClaim claim, int processed, String lastUserId) {
+        return jdbcTemplate.update(PROGRESS_SQL, processed, lastUserId,
+                jobName, runKey, claim.shardNo, nodeId, claim.attempt) == 1;
+    }
+
+    private void finish(String jobName, String runKey, ShardClaim claim, String status, int processed) {
+        int updated = jdbcTemplate.update(FINISH_SQL, status, processed,
+                jobName, runKey, claim.shardNo, nodeId, claim.attempt);
+        if (updated == 0) {
+            logger.warn("Could not mark shard {} of {}:{} as {}: claim superseded", claim.shardNo, jobName, runKey, status);
+        }
+    }
+
+    private int unfinishedShards(String jobName, String runKey) {
+        // A RUNNING shard whose lease lapsed on its last allowed attempt can never be claimed again
+        Integer count = jdbcTemplate.queryForObject(UNFINISHED_SQL, Integer.class,
+                jobName, runKey, maxAttempts);
+        return count != null ? count : 0;
+    }
+}
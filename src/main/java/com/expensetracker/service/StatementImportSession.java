@@ -0,0 +1,36 @@
+package com.expensetracker.service;
+
+/**
+ * One uploaded bank statement, spooled to a file, for the duration of an import.
+ * Created by {@link StatementParserRegistry} through the {@link StatementParser}
+ * that recognised the file; always close it.
+ */
+public interface StatementImportSession extends AutoCloseable {
+
+    /** Format of the underlying parser, e.g. {@code HDFC_PDF}, {@code CSV}, {@code OFX}. */
+    String getFormat();
+
+    /** Hex SHA-256 of the uploaded file. */
+    String getSha256();
+
+    /** Whether the format can be password protected (only PDF statements are). */
+    boolean usesPassword();
+
+    /**
+     * Checks that {@code password} opens the statement (formats without encryption
+     * always return {@code true}).
+     *
+     * @return {@code false} if the password does not unlock the statement
+     */
+    boolean tryUnlock(String password);
+
+    /**
+     * Returns the parse result for this upload, from the cache when the same user
+     * already parsed the same file with the same password.
+     */
+    StatementParseResult parse(String password);
+
+    /** Releases open handles and, for request uploads, deletes the spooled file. */
+    @Override
+    void close();
+}
@@ -0,0 +1,100 @@
+package com.expensetracker.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Small in-memory LRU cache of bank statement parse results, keyed by the
+ * uploading user and the SHA-256 of the uploaded file.
+ *
+ * <p>Re-uploading the same statement (typically right after a "no matching
+ * closing balance" error) then skips PDF decryption and text extraction.
+ * An entry is only returned for the same password that produced it, so a
+ * cached result never bypasses the PDF's own protection.</p>
+ */
+@Component
+public class StatementParseCache {
+
+    private static class Entry {
+        final String passwordDigest;
+        final StatementParseResult result;
+        final long expiresAtMillis;
+
+        Entry(String passwordDigest, StatementParseResult result, long expiresAtMillis) {
+            this.passwordDigest  = passwordDigest;
+            this.result          = result;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    public StatementParseCache(@Value("${app.bank-statement.parse-cache.max-entries:32}") int maxEntries,
+                               @Value("${app.bank-statement.parse-cache.ttl-minutes:15}") long ttlMinutes) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.ttlMillis  = ttlMinutes * 60_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > StatementParseCache.this.maxEntries;
+            }
+        };
+    }
+
+    public synchronized Optional<StatementParseResult> get(String userId, String fileSha256, String password) {
+        if (userId == null || maxEntries == 0) return Optional.empty();
+        String key = key(userId, fileSha256);
+        Entry entry = entries.get(key);
+        if (entry == null) return Optional.empty();
+        if (entry.expiresAtMillis < System.currentTimeMillis()) {
+            entries.remove(key);
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(entry.passwordDigest.getBytes(StandardCharsets.UTF_8),
+                passwordDigest(password).getBytes(StandardCharsets.UTF_8))) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.result);
+    }
+
+    /**
+     * Caches {@code result}; the stored copy has an unmodifiable transaction list
+     * because it is shared by every later hit.
+     *
+     * @return the cached copy
+     */
+    public synchronized StatementParseResult put(String userId, String fileSha256, String password,
+                                                 StatementParseResult result) {
+        StatementParseResult shared = new StatementParseResult(
+                Collections.unmodifiableList(result.getTransactions()), result.getSummaryClosingBalance());
+        if (userId == null || maxEntries == 0) return shared;
+        entries.put(key(userId, fileSha256),
+                new Entry(passwordDigest(password), shared, System.currentTimeMillis() + ttlMillis));
+        return shared;
+    }
+
+    private static String key(String userId, String fileSha256) {
+        return userId + ":" + fileSha256;
+    }
+
+    private static String passwordDigest(String password) {
+        String value = (password != null && !password.isBlank()) ? password : "";
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
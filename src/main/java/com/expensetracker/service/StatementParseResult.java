@@ -0,0 +1,26 @@
+package com.expensetracker.service;
+
+import com.expensetracker.dto.BankStatementTransactionDTO;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Wraps the list of parsed transactions (oldest first) together with the
+ * closing balance reported by the statement itself, as produced by any
+ * {@link StatementParser}.
+ */
+public class StatementParseResult {
+    private final List<BankStatementTransactionDTO> transactions;
+    private final BigDecimal summaryClosingBalance;
+
+    public StatementParseResult(List<BankStatementTransactionDTO> transactions,
+                                BigDecimal summaryClosingBalance) {
+        this.transactions          = transactions;
+        this.summaryClosingBalance = summaryClosingBalance;
+    }
+
+    public List<BankStatementTransactionDTO> getTransactions() { return transactions; }
+    /** May be {@code null} if the statement does not state its closing balance. */
+    public BigDecimal getSummaryClosingBalance() { return summaryClosingBalance; }
+}
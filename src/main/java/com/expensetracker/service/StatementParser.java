@@ -0,0 +1,31 @@
+package com.expensetracker.service;
+
+import java.nio.file.Path;
+
+/**
+ * A bank statement file format that can feed {@link BankStatementImportService}.
+ *
+ * <p>Implementations turn a spooled statement into {@link com.expensetracker.dto.BankStatementTransactionDTO}s
+ * (oldest first, each carrying its running closing balance) so the closing-balance
+ * matching and import pipeline stays format-agnostic.  {@link StatementParserRegistry}
+ * asks each parser, in {@code @Order}, whether it recognises an upload.</p>
+ */
+public interface StatementParser {
+
+    /** Short format name reported in logs and import sessions, e.g. {@code CSV}. */
+    String getFormat();
+
+    /**
+     * @param fileName original upload name (may be {@code null})
+     * @param header   the first bytes of the file
+     * @return {@code true} if this parser can read the file
+     */
+    boolean supports(String fileName, byte[] header);
+
+    /**
+     * Opens an import session over a spooled statement.
+     *
+     * @param deleteOnClose whether closing the session deletes {@code file}
+     */
+    StatementImportSession openSession(Path file, String sha256, String userId, boolean deleteOnClose);
+}
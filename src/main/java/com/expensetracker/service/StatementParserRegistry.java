@@ -0,0 +1,104 @@
+package com.expensetracker.service;
+
+import com.expensetracker.exception.BankStatementProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Spools uploaded statements and picks the {@link StatementParser} that recognises
+ * them (PDF, OFX, CSV — first match in {@code @Order}).  The file is hashed while
+ * it is copied so sessions can cache parse results by SHA-256.
+ */
+@Service
+public class StatementParserRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementParserRegistry.class);
+
+    /** Bytes handed to {@link StatementParser#supports}. */
+    private static final int HEADER_BYTES = 1024;
+
+    private final List<StatementParser> parsers;
+
+    public StatementParserRegistry(List<StatementParser> parsers) {
+        this.parsers = parsers;
+    }
+
+    /**
+     * Copies the upload to a temporary file (deleted when the session closes) and
+     * opens a session with the matching parser.
+     */
+    public StatementImportSession openSession(MultipartFile file, String userId) {
+        if (file == null || file.isEmpty()) {
+            throw new BankStatementProcessingException("Bank statement file must not be empty.");
+        }
+
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile("bank-statement-", ".upload");
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(file.getInputStream(), sha256)) {
+                Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            StatementParser parser = parserFor(file.getOriginalFilename(), tempFile);
+            return parser.openSession(tempFile, HexFormat.of().formatHex(sha256.digest()), userId, true);
+        } catch (BankStatementProcessingException e) {
+            HdfcStatementParserService.deleteQuietly(tempFile);
+            throw e;
+        } catch (Exception e) {
+            HdfcStatementParserService.deleteQuietly(tempFile);
+            throw new BankStatementProcessingException(
+                    "Failed to process bank statement: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Opens a session over a statement that is already on disk (e.g. spooled by a
+     * background import job).  The file is left in place when the session closes.
+     */
+    public StatementImportSession openSession(Path file, String userId) {
+        if (file == null || !Files.isRegularFile(file)) {
+            throw new BankStatementProcessingException("Bank statement file is no longer available.");
+        }
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), sha256)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            StatementParser parser = parserFor(file.getFileName().toString(), file);
+            return parser.openSession(file, HexFormat.of().formatHex(sha256.digest()), userId, false);
+        } catch (BankStatementProcessingException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new BankStatementProcessingException(
+                    "Failed to process bank statement: " + e.getMessage(), e);
+        }
+    }
+
+    private StatementParser parserFor(String fileName, Path file) throws IOException {
+        byte[] header;
+        try (InputStream in = Files.newInputStream(file)) {
+            header = in.readNBytes(HEADER_BYTES);
+        }
+        for (StatementParser parser : parsers) {
+            if (parser.supports(fileName, header)) {
+                logger.debug("Statement '{}' recognised as {}", fileName, parser.getFormat());
+                return parser;
+            }
+        }
+        throw new BankStatementProcessingException(
+                "Unsupported bank statement format. Please upload an HDFC PDF statement, a CSV export or an OFX file.");
+    }
+}
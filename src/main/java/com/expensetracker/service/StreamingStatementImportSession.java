@@ -0,0 +1,74 @@
+package com.expensetracker.service;
+
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * {@link StatementImportSession} for unencrypted text formats (CSV, OFX): the file
+ * is parsed in one streaming pass on {@link #parse(String)}, and results are cached
+ * by SHA-256 like PDF statements.
+ */
+class StreamingStatementImportSession implements StatementImportSession {
+
+    private final String format;
+    private final StatementParseCache parseCache;
+    private final String userId;
+    private final Path file;
+    private final String sha256;
+    private final boolean deleteOnClose;
+    private final Function<Path, StatementParseResult> parser;
+
+    StreamingStatementImportSession(String format,
+                                    StatementParseCache parseCache,
+                                    String userId,
+                                    Path file,
+                                    String sha256,
+                                    boolean deleteOnClose,
+                                    Function<Path, StatementParseResult> parser) {
+        this.format        = format;
+        this.parseCache    = parseCache;
+        this.userId        = userId;
+        this.file          = file;
+        this.sha256        = sha256;
+        this.deleteOnClose = deleteOnClose;
+        this.parser        = parser;
+    }
+
+    @Override
+    public String getFormat() {
+        return format;
+    }
+
+    @Override
+    public String getSha256() {
+        return sha256;
+    }
+
+    @Override
+    public boolean usesPassword() {
+        return false;
+    }
+
+    @Override
+    public boolean tryUnlock(String password) {
+        return true;
+    }
+
+    /** The password is irrelevant for text formats and is not part of the cache key. */
+    @Override
+    public StatementParseResult parse(String password) {
+        Optional<StatementParseResult> cached = parseCache.get(userId, sha256, null);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        return parseCache.put(userId, sha256, null, parser.apply(file));
+    }
+
+    @Override
+    public void close() {
+        if (deleteOnClose) {
+            HdfcStatementParserService.deleteQuietly(file);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.expensetracker.service;
 
+import com.expensetracker.dto.EstimatesSyncReport;
 import com.expensetracker.dto.UserExpensesEstimatesRequest;
 import com.expensetracker.dto.UserExpensesEstimatesResponse;
 import com.expensetracker.exception.UserExpensesEstimatesNotFoundException;
@@ -10,22 +11,38 @@ import com.expensetracker.model.UserExpensesEstimates;
 import com.expensetracker.repository.UserCreditCardEstimatesRepository;
 import com.expensetracker.repository.UserExpenseCategoryRepository;
 import com.expensetracker.repository.UserExpensesEstimatesRepository;
-import com.expensetracker.repository.UserExpensesRepository;
 import com.expensetracker.util.Constants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Caching;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,23 +50,46 @@ public class UserExpensesEstimatesService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserExpensesEstimatesService.class);
 
+    private static final String SELECT_USER_EXPENSES_SQL =
+            "SELECT user_expenses_id, user_expense_name, user_expense_category_id, amount, paid, status " +
+            "FROM user_expenses WHERE user_id = ?";
+    private static final String INSERT_USER_EXPENSE_SQL =
+            "INSERT INTO user_expenses (user_id, user_expense_name, user_expense_category_id, amount, paid, status, last_update_tmstp) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_USER_EXPENSE_SQL =
+            "UPDATE user_expenses SET amount = ?, status = ?, last_update_tmstp = ? WHERE user_expenses_id = ?";
+    private static final String DELETE_USER_EXPENSE_SQL =
+            "DELETE FROM user_expenses WHERE user_expenses_id = ?";
+    /** Credit card estimates whose card is already an active user_expense at the same amount. */
+    private static final String DELETE_SYNCED_CC_ESTIMATES_SQL =
+            "DELETE cce FROM user_credit_card_estimates cce " +
+            "JOIN user_expense_category c ON c.user_id = cce.user_id AND LOWER(c.user_expense_category_name) = LOWER(?) " +
+            "JOIN user_expenses ue ON ue.user_id = cce.user_id AND ue.user_expense_category_id = c.user_expense_category_id " +
+            "AND ue.status = 'A' AND LOWER(ue.user_expense_name) = LOWER(cce.card_name) AND ue.amount <=> cce.amount";
+    private static final String DELETE_BLANK_CC_ESTIMATES_SQL =
+            "DELETE FROM user_credit_card_estimates WHERE TRIM(card_name) = ''";
+    private static final int CC_DELETE_CHUNK_SIZE = 500;
+
     private final UserExpensesEstimatesRepository estimatesRepository;
     private final UserExpenseCategoryRepository userExpenseCategoryRepository;
-    private final UserExpensesRepository userExpensesRepository;
     private final UserCreditCardEstimatesRepository creditCardEstimatesRepository;
-    private final UserCreditCardEstimatesService creditCardEstimatesService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int syncParallelism;
 
     @Autowired
     public UserExpensesEstimatesService(UserExpensesEstimatesRepository estimatesRepository,
                                         UserExpenseCategoryRepository userExpenseCategoryRepository,
-                                        UserExpensesRepository userExpensesRepository,
                                         UserCreditCardEstimatesRepository creditCardEstimatesRepository,
-                                        UserCreditCardEstimatesService creditCardEstimatesService) {
+                                        JdbcTemplate jdbcTemplate,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${app.estimates-sync.parallelism:4}") int syncParallelism) {
         this.estimatesRepository = estimatesRepository;
         this.userExpenseCategoryRepository = userExpenseCategoryRepository;
-        this.userExpensesRepository = userExpensesRepository;
         this.creditCardEstimatesRepository = creditCardEstimatesRepository;
-        this.creditCardEstimatesService = creditCardEstimatesService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.syncParallelism = Math.max(1, syncParallelism);
     }
 
     // ─── CRUD ────────────────────────────────────────────────────────────────
@@ -127,129 +167,203 @@ public class UserExpensesEstimatesService {
      *  - Inactive/deleted estimates: delete the matching UserExpenses record.
      * Also syncs UserCreditCardEstimates → UserExpenses under a "Credit Card" category.
      *
+     * Users are fanned out over {@code app.estimates-sync.parallelism} worker threads and each
+     * user (regular + credit card) is synced in its own transaction, so one failing user no
+     * longer rolls back everyone else. Credit card estimates are then cleared for the users
+     * that succeeded.
+     *
      * After the sync completes, the userExpenses and expenses caches are fully evicted
      * so users receive fresh data on their next request.
      */
-    @Transactional
     @Caching(evict = {
             @CacheEvict(cacheNames = "userExpenses", allEntries = true),
             @CacheEvict(cacheNames = "expenses", allEntries = true)
     })
-    public void syncAllUsersEstimatesToUserExpenses() {
-        // --- Sync regular estimates ---
-        List<String> estimateUserIds = estimatesRepository.findDistinctUserIds();
-        logger.info("Starting monthly estimates sync for {} users (regular)", estimateUserIds.size());
-        int totalInserted = 0, totalUpdated = 0, totalDeactivated = 0;
+    public EstimatesSyncReport syncAllUsersEstimatesToUserExpenses() {
+        Set<String> userIds = findEstimatesSyncUserIds();
+        logger.info("Starting monthly estimates sync for {} users with {} workers", userIds.size(), syncParallelism);
+        EstimatesSyncReport report = syncUsers(userIds, syncParallelism, true);
+        logger.info("Monthly estimates sync complete: users ok={}, failed={}, inserted={}, updated={}, deleted={} in {} ms",
+                report.getSucceededUsers(), report.getFailedUsers(), report.getInserted(), report.getUpdated(),
+                report.getDeleted(), report.getDurationMs());
+        return report;
+    }
 
-        for (String userId : estimateUserIds) {
-            int[] counts = syncUserEstimatesToUserExpenses(userId);
-            totalInserted += counts[0];
-            totalUpdated += counts[1];
-            totalDeactivated += counts[2];
-        }
-        logger.info("Monthly regular estimates sync complete: inserted={}, updated={}, deleted={}",
-                totalInserted, totalUpdated, totalDeactivated);
-
-        // --- Sync credit card estimates ---
-        // Union: users who have CC estimates + users who have a "Credit Card" category
-        // (the latter ensures tombstone runs even when all CC estimates were deleted).
-        Set<String> ccUserIdSet = new HashSet<>(creditCardEstimatesRepository.findDistinctUserIds());
-        ccUserIdSet.addAll(userExpenseCategoryRepository
+    /**
+     * All user ids the monthly estimates sync has to visit: users with expense estimates,
+     * users with credit card estimates, and users owning a "Credit Card" category
+     * (so the CC tombstone pass still runs after all their CC estimates were deleted).
+     */
+    public Set<String> findEstimatesSyncUserIds() {
+        Set<String> userIds = new HashSet<>(estimatesRepository.findDistinctUserIds());
+        userIds.addAll(creditCardEstimatesRepository.findDistinctUserIds());
+        userIds.addAll(userExpenseCategoryRepository
                 .findDistinctUserIdsByCategoryNameIgnoreCase(Constants.CREDIT_CARD_CATEGORY_NAME));
-        logger.info("Starting monthly credit card estimates sync for {} users", ccUserIdSet.size());
-        int ccInserted = 0, ccUpdated = 0, ccDeleted = 0;
-
-        for (String userId : ccUserIdSet) {
-            int[] counts = syncUserCreditCardEstimatesToUserExpenses(userId);
-            ccInserted += counts[0];
-            ccUpdated += counts[1];
-            ccDeleted += counts[2];
+        return userIds;
+    }
+
+    /**
+     * Sharded counterpart of {@link #syncAllUsersEstimatesToUserExpenses()} for one chunk of
+     * users. Runs on the calling thread (the shard runner already parallelises), with the
+     * same per-user transactions.
+     *
+     * Credit card estimates are left in place: a shard that is re-claimed after its owner
+     * stopped replays its last chunk, and a user whose estimates were already cleared would
+     * then lose their Credit Card rows to the tombstone pass. Call
+     * {@link #clearSyncedCreditCardEstimates()} once the whole run is done.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "userExpenses", allEntries = true),
+            @CacheEvict(cacheNames = "expenses", allEntries = true)
+    })
+    public EstimatesSyncReport syncEstimatesForUsers(Collection<String> userIds) {
+        return syncUsers(userIds, 1, false);
+    }
+
+    /**
+     * Deletes the credit card estimates that the sharded sync has copied, i.e. those whose
+     * card is an active user_expense in the user's "Credit Card" category at the same amount,
+     * plus estimates without a card name (never synced). Estimates of users whose sync failed
+     * do not match and are kept for the next run. Safe to run more than once.
+     *
+     * @return number of estimates deleted
+     */
+    @Transactional
+    public int clearSyncedCreditCardEstimates() {
+        int deleted = jdbcTemplate.update(DELETE_SYNCED_CC_ESTIMATES_SQL, Constants.CREDIT_CARD_CATEGORY_NAME)
+                + jdbcTemplate.update(DELETE_BLANK_CC_ESTIMATES_SQL);
+        logger.info("Deleted {} synced credit card estimates", deleted);
+        return deleted;
+    }
+
+    private EstimatesSyncReport syncUsers(Collection<String> userIds, int parallelism, boolean clearCreditCardEstimates) {
+        long startNanos = System.nanoTime();
+        EstimatesSyncReport report = new EstimatesSyncReport();
+        report.setTotalUsers(userIds.size());
+        report.setParallelism(parallelism);
+        Map<String, String> failures = new LinkedHashMap<>();
+        List<String> succeeded = new ArrayList<>(userIds.size());
+        boolean ccChanged = false;
+
+        List<Map.Entry<String, Future<int[]>>> pending = new ArrayList<>(userIds.size());
+        ExecutorService pool = parallelism > 1 ? Executors.newFixedThreadPool(parallelism) : null;
+        try {
+            for (String userId : userIds) {
+                Callable<int[]> task = () -> syncUserInOwnTransaction(userId);
+                Future<int[]> future;
+                if (pool != null) {
+                    future = pool.submit(task);
+                } else {
+                    FutureTask<int[]> inline = new FutureTask<>(task);
+                    inline.run();
+                    future = inline;
+                }
+                pending.add(Map.entry(userId, future));
+            }
+
+            for (Map.Entry<String, Future<int[]>> entry : pending) {
+                String userId = entry.getKey();
+                try {
+                    int[] counts = entry.getValue().get();
+                    report.setInserted(report.getInserted() + counts[0]);
+                    report.setUpdated(report.getUpdated() + counts[1]);
+                    report.setDeleted(report.getDeleted() + counts[2]);
+                    ccChanged |= counts[3] > 0;
+                    succeeded.add(userId);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    logger.error("Estimates sync failed for userId={}, rolled back", userId, cause);
+                    failures.put(userId, cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for estimates sync workers");
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
         }
-        logger.info("Monthly credit card estimates sync complete: inserted={}, updated={}, deleted={}",
-                ccInserted, ccUpdated, ccDeleted);
 
-        // Delete all credit card estimates after successful sync
-        if (ccInserted > 0 || ccUpdated > 0 || ccDeleted > 0) {
-            creditCardEstimatesService.deleteAllCreditCardEstimates();
+        // Clear credit card estimates of users that synced successfully
+        if (clearCreditCardEstimates && ccChanged && !succeeded.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int from = 0; from < succeeded.size(); from += CC_DELETE_CHUNK_SIZE) {
+                    creditCardEstimatesRepository.deleteByUserIdIn(
+                            succeeded.subList(from, Math.min(from + CC_DELETE_CHUNK_SIZE, succeeded.size())));
+                }
+            });
+            report.setCreditCardEstimatesCleared(true);
+            logger.info("Deleted credit card estimates for {} synced users", succeeded.size());
         }
+
+        report.setSucceededUsers(succeeded.size());
+        report.setFailedUsers(failures.size());
+        report.setFailures(failures);
+        report.setDurationMs((System.nanoTime() - startNanos) / 1_000_000);
+        return report;
+    }
+
+    /**
+     * Regular + credit card sync for one user in a single transaction.
+     * Returns [inserted, updated, deleted, creditCardChanges].
+     */
+    private int[] syncUserInOwnTransaction(String userId) {
+        return transactionTemplate.execute(status -> {
+            int[] counts = syncUserEstimatesToUserExpenses(userId);
+            int[] ccCounts = syncUserCreditCardEstimatesToUserExpenses(userId);
+            return new int[]{
+                    counts[0] + ccCounts[0],
+                    counts[1] + ccCounts[1],
+                    counts[2] + ccCounts[2],
+                    ccCounts[0] + ccCounts[1] + ccCounts[2]
+            };
+        });
     }
 
     /**
      * Syncs estimates for a single user. Returns [inserted, updated, deactivated].
      *
-     * Pass 1 – per-estimate: insert/update active ones, deactivate user_expenses for inactive ones.
-     * Pass 2 – tombstone: deactivate any active user_expense in an estimates-managed category
+     * The user's estimates and user_expenses are each loaded once and reconciled in memory
+     * through a (lowercase name | categoryId) index; the resulting inserts, updates and
+     * deletes are written as three JDBC batches, independent of the number of estimates.
+     *
+     * Pass 1 – per-estimate: insert/update active ones, delete user_expenses for inactive ones.
+     * Pass 2 – tombstone: delete any active user_expense in an estimates-managed category
      *           whose (name, categoryId) no longer exists as an active estimate (i.e. was deleted).
      */
     @Transactional
     public int[] syncUserEstimatesToUserExpenses(String userId) {
         List<UserExpensesEstimates> estimates = estimatesRepository.findByUserIdOrderByUserExpenseName(userId);
-        int inserted = 0, updated = 0, deactivated = 0;
+        if (estimates.isEmpty()) {
+            logger.info("Estimates sync for userId={}: no estimates", userId);
+            return new int[]{0, 0, 0};
+        }
+
+        List<UserExpenses> existing = loadUserExpensesForSync(userId);
+        Map<String, UserExpenses> index = indexBySyncKey(existing);
+        SyncPlan plan = new SyncPlan(userId);
 
         // ── Pass 1: process each estimate ────────────────────────────────────
         for (UserExpensesEstimates estimate : estimates) {
             if (estimate.getUserExpenseName() == null || estimate.getUserExpenseCategoryId() == null) {
                 continue;
             }
-
-            Optional<UserExpenses> existingOpt = userExpensesRepository
-                    .findByUserIdAndUserExpenseNameIgnoreCaseAndUserExpenseCategoryId(
-                            userId,
-                            estimate.getUserExpenseName(),
-                            estimate.getUserExpenseCategoryId());
-
+            String key = syncKey(estimate.getUserExpenseName(), estimate.getUserExpenseCategoryId());
             if ("A".equals(estimate.getStatus())) {
-                if (existingOpt.isEmpty()) {
-                    // Insert
-                    UserExpenses ue = new UserExpenses();
-                    ue.setUserId(userId);
-                    ue.setUserExpenseName(estimate.getUserExpenseName());
-                    ue.setUserExpenseCategoryId(estimate.getUserExpenseCategoryId());
-                    ue.setAmount(estimate.getAmount());
-                    ue.setPaid("N");
-                    ue.setStatus("A");
-                    ue.setLastUpdateTmstp(LocalDateTime.now());
-                    userExpensesRepository.save(ue);
-                    inserted++;
-                    logger.debug("Inserted user_expense '{}' for userId={}", estimate.getUserExpenseName(), userId);
-                } else {
-                    // Update only if something changed
-                    UserExpenses ue = existingOpt.get();
-                    boolean changed = false;
-
-                    if (!Objects.equals(ue.getAmount(), estimate.getAmount())) {
-                        ue.setAmount(estimate.getAmount());
-                        changed = true;
-                    }
-                    if (!"A".equals(ue.getStatus())) {
-                        ue.setStatus("A");
-                        changed = true;
-                    }
-                    if (changed) {
-                        ue.setLastUpdateTmstp(LocalDateTime.now());
-                        userExpensesRepository.save(ue);
-                        updated++;
-                        logger.debug("Updated user_expense '{}' for userId={}", estimate.getUserExpenseName(), userId);
-                    }
-                }
+                plan.upsert(index, key, estimate.getUserExpenseName(), estimate.getUserExpenseCategoryId(), estimate.getAmount());
             } else {
                 // Estimate is inactive → delete the matching user_expense if it exists
-                if (existingOpt.isPresent()) {
-                    userExpensesRepository.delete(existingOpt.get());
-                    deactivated++;
-                    logger.debug("Deleted user_expense '{}' (inactive estimate) for userId={}",
-                            estimate.getUserExpenseName(), userId);
-                }
+                plan.delete(index, key);
             }
         }
 
         // ── Pass 2: tombstone – remove orphaned user_expenses ─────────────────
-        // Build a set of (name_lower|categoryId) keys for all ACTIVE estimates.
         Set<String> activeEstimateKeys = estimates.stream()
                 .filter(e -> "A".equals(e.getStatus())
                         && e.getUserExpenseName() != null
                         && e.getUserExpenseCategoryId() != null)
-                .map(e -> e.getUserExpenseName().toLowerCase() + "|" + e.getUserExpenseCategoryId())
+                .map(e -> syncKey(e.getUserExpenseName(), e.getUserExpenseCategoryId()))
                 .collect(Collectors.toSet());
 
         // All category IDs that are managed by estimates for this user (active OR inactive).
@@ -258,27 +372,19 @@ public class UserExpensesEstimatesService {
                 .map(UserExpensesEstimates::getUserExpenseCategoryId)
                 .collect(Collectors.toSet());
 
-        if (!managedCategoryIds.isEmpty()) {
-            // Find all currently-active user_expenses in those categories.
-            List<UserExpenses> activeInCategories = userExpensesRepository
-                    .findByUserIdAndStatusAndUserExpenseCategoryIdIn(userId, "A", managedCategoryIds);
-
-            for (UserExpenses ue : activeInCategories) {
-                if (ue.getUserExpenseName() == null) continue;
-                String key = ue.getUserExpenseName().toLowerCase() + "|" + ue.getUserExpenseCategoryId();
-                if (!activeEstimateKeys.contains(key)) {
-                    // No longer backed by an active estimate — delete it.
-                    userExpensesRepository.delete(ue);
-                    deactivated++;
-                    logger.debug("Deleted orphaned user_expense '{}' (no matching active estimate) for userId={}",
-                            ue.getUserExpenseName(), userId);
-                }
+        for (UserExpenses ue : existing) {
+            if (ue.getUserExpenseName() == null || !managedCategoryIds.contains(ue.getUserExpenseCategoryId())) continue;
+            if ("A".equals(ue.getStatus())
+                    && !activeEstimateKeys.contains(syncKey(ue.getUserExpenseName(), ue.getUserExpenseCategoryId()))) {
+                // No longer backed by an active estimate — delete it.
+                plan.deleteRow(ue);
             }
         }
 
+        int[] counts = applySyncPlan(plan);
         logger.info("Estimates sync for userId={}: inserted={}, updated={}, deleted={}",
-                userId, inserted, updated, deactivated);
-        return new int[]{inserted, updated, deactivated};
+                userId, counts[0], counts[1], counts[2]);
+        return counts;
     }
 
     // ─── Helper ──────────────────────────────────────────────────────────────
@@ -287,17 +393,16 @@ public class UserExpensesEstimatesService {
      * Syncs credit card estimates for a single user into user_expenses under
      * the "Credit Card" category. Returns [inserted, updated, deactivated].
      *
-     * Matching key: userId + cardName + creditCardCategoryId.
+     * Matching key: userId + cardName + creditCardCategoryId, resolved in memory against
+     * the user's user_expenses loaded once; changes are written as JDBC batches.
      * All credit card estimate records are treated as active (no status column).
      *
      * Pass 1 – per-estimate: insert new / update changed.
-     * Pass 2 – tombstone: deactivate any active user_expense in the Credit Card category
+     * Pass 2 – tombstone: delete any active user_expense in the Credit Card category
      *           whose cardName no longer exists in credit card estimates (i.e. was deleted).
      */
     @Transactional
     public int[] syncUserCreditCardEstimatesToUserExpenses(String userId) {
-        List<UserCreditCardEstimates> ccEstimates = creditCardEstimatesRepository.findByUserIdOrderByCardName(userId);
-
         Optional<UserExpenseCategory> creditCardCategoryOpt = userExpenseCategoryRepository
                 .findByUserIdAndUserExpenseCategoryNameIgnoreCase(userId, Constants.CREDIT_CARD_CATEGORY_NAME);
         if (creditCardCategoryOpt.isEmpty()) {
@@ -307,75 +412,159 @@ public class UserExpensesEstimatesService {
         }
         Integer creditCardCategoryId = creditCardCategoryOpt.get().getUserExpenseCategoryId();
 
-        int inserted = 0, updated = 0, deactivated = 0;
+        List<UserCreditCardEstimates> ccEstimates = creditCardEstimatesRepository.findByUserIdOrderByCardName(userId);
+        List<UserExpenses> existing = loadUserExpensesForSync(userId);
+        Map<String, UserExpenses> index = indexBySyncKey(existing);
+        SyncPlan plan = new SyncPlan(userId);
 
         // ── Pass 1: process each CC estimate ─────────────────────────────────
         for (UserCreditCardEstimates cc : ccEstimates) {
             if (cc.getCardName() == null || cc.getCardName().isBlank()) {
                 continue;
             }
+            plan.upsert(index, syncKey(cc.getCardName(), creditCardCategoryId),
+                    cc.getCardName(), creditCardCategoryId, cc.getAmount());
+        }
 
-            Optional<UserExpenses> existingOpt = userExpensesRepository
-                    .findByUserIdAndUserExpenseNameIgnoreCaseAndUserExpenseCategoryId(
-                            userId, cc.getCardName(), creditCardCategoryId);
+        // ── Pass 2: tombstone – delete CC user_expenses with no matching estimate ──
+        Set<String> activeCardNames = ccEstimates.stream()
+                .filter(cc -> cc.getCardName() != null && !cc.getCardName().isBlank())
+                .map(cc -> cc.getCardName().toLowerCase())
+                .collect(Collectors.toSet());
+
+        for (UserExpenses ue : existing) {
+            if (ue.getUserExpenseName() == null || !creditCardCategoryId.equals(ue.getUserExpenseCategoryId())) continue;
+            if ("A".equals(ue.getStatus()) && !activeCardNames.contains(ue.getUserExpenseName().toLowerCase())) {
+                plan.deleteRow(ue);
+            }
+        }
+
+        int[] counts = applySyncPlan(plan);
+        logger.info("Credit card estimates sync for userId={}: inserted={}, updated={}, deleted={}",
+                userId, counts[0], counts[1], counts[2]);
+        return counts;
+    }
 
-            if (existingOpt.isEmpty()) {
-                // INSERT
-                UserExpenses ue = new UserExpenses();
+    /**
+     * Pending user_expenses changes for one user's sync, built in memory and
+     * flushed by {@link #applySyncPlan(SyncPlan)}.
+     */
+    private static class SyncPlan {
+        final String userId;
+        final LocalDateTime now = LocalDateTime.now();
+        final List<UserExpenses> inserts = new ArrayList<>();
+        final Map<Integer, UserExpenses> updates = new LinkedHashMap<>();
+        final Set<Integer> deletes = new LinkedHashSet<>();
+
+        SyncPlan(String userId) {
+            this.userId = userId;
+        }
+
+        /** Inserts the row for {@code key}, or re-activates / re-prices the existing one if it differs. */
+        void upsert(Map<String, UserExpenses> index, String key, String name, Integer categoryId, BigDecimal amount) {
+            UserExpenses ue = index.get(key);
+            if (ue == null) {
+                ue = new UserExpenses();
                 ue.setUserId(userId);
-                ue.setUserExpenseName(cc.getCardName());
-                ue.setUserExpenseCategoryId(creditCardCategoryId);
-                ue.setAmount(cc.getAmount());
+                ue.setUserExpenseName(name);
+                ue.setUserExpenseCategoryId(categoryId);
+                ue.setAmount(amount);
                 ue.setPaid("N");
                 ue.setStatus("A");
-                ue.setLastUpdateTmstp(LocalDateTime.now());
-                userExpensesRepository.save(ue);
-                inserted++;
-                logger.debug("Inserted credit card user_expense '{}' for userId={}", cc.getCardName(), userId);
-            } else {
-                // UPDATE if amount changed or record was inactive
-                UserExpenses ue = existingOpt.get();
-                boolean changed = false;
-
-                if (!Objects.equals(ue.getAmount(), cc.getAmount())) {
-                    ue.setAmount(cc.getAmount());
-                    changed = true;
-                }
-                if (!"A".equals(ue.getStatus())) {
-                    ue.setStatus("A");
-                    changed = true;
-                }
-                if (changed) {
-                    ue.setLastUpdateTmstp(LocalDateTime.now());
-                    userExpensesRepository.save(ue);
-                    updated++;
-                    logger.debug("Updated credit card user_expense '{}' for userId={}", cc.getCardName(), userId);
+                ue.setLastUpdateTmstp(now);
+                inserts.add(ue);
+                index.put(key, ue);
+                return;
+            }
+            if (!Objects.equals(ue.getAmount(), amount) || !"A".equals(ue.getStatus())) {
+                ue.setAmount(amount);
+                ue.setStatus("A");
+                ue.setLastUpdateTmstp(now);
+                if (ue.getUserExpensesId() != null) {
+                    updates.put(ue.getUserExpensesId(), ue);
                 }
             }
         }
 
-        // ── Pass 2: tombstone – deactivate CC user_expenses with no matching estimate ──
-        Set<String> activeCardNames = ccEstimates.stream()
-                .filter(cc -> cc.getCardName() != null && !cc.getCardName().isBlank())
-                .map(cc -> cc.getCardName().toLowerCase())
-                .collect(Collectors.toSet());
+        /** Deletes the row currently indexed under {@code key}, if any. */
+        void delete(Map<String, UserExpenses> index, String key) {
+            UserExpenses ue = index.remove(key);
+            if (ue != null) {
+                deleteRow(ue);
+            }
+        }
+
+        void deleteRow(UserExpenses ue) {
+            if (ue.getUserExpensesId() == null) {
+                inserts.removeIf(pending -> pending == ue);
+            } else {
+                updates.remove(ue.getUserExpensesId());
+                deletes.add(ue.getUserExpensesId());
+            }
+        }
+    }
 
-        List<UserExpenses> activeCcExpenses = userExpensesRepository
-                .findByUserIdAndStatusAndUserExpenseCategoryId(userId, "A", creditCardCategoryId);
+    private static String syncKey(String name, Integer categoryId) {
+        return name.toLowerCase() + "|" + categoryId;
+    }
 
-        for (UserExpenses ue : activeCcExpenses) {
-            if (ue.getUserExpenseName() == null) continue;
-            if (!activeCardNames.contains(ue.getUserExpenseName().toLowerCase())) {
-                userExpensesRepository.delete(ue);
-                deactivated++;
-                logger.debug("Deleted orphaned CC user_expense '{}' (no matching CC estimate) for userId={}",
-                        ue.getUserExpenseName(), userId);
+    /** First row per sync key, matching the single-row lookup the sync previously did per estimate. */
+    private static Map<String, UserExpenses> indexBySyncKey(List<UserExpenses> rows) {
+        Map<String, UserExpenses> index = new HashMap<>(rows.size() * 2);
+        for (UserExpenses ue : rows) {
+            if (ue.getUserExpenseName() != null && ue.getUserExpenseCategoryId() != null) {
+                index.putIfAbsent(syncKey(ue.getUserExpenseName(), ue.getUserExpenseCategoryId()), ue);
             }
         }
+        return index;
+    }
 
-        logger.info("Credit card estimates sync for userId={}: inserted={}, updated={}, deleted={}",
-                userId, inserted, updated, deactivated);
-        return new int[]{inserted, updated, deactivated};
+    /**
+     * Loads the user's user_expenses as detached rows via JDBC so that the batched writes
+     * below never race with managed entities in the persistence context.
+     */
+    private List<UserExpenses> loadUserExpensesForSync(String userId) {
+        return jdbcTemplate.query(SELECT_USER_EXPENSES_SQL, (rs, rowNum) -> {
+            UserExpenses ue = new UserExpenses();
+            ue.setUserExpensesId(rs.getInt("user_expenses_id"));
+            ue.setUserId(userId);
+            ue.setUserExpenseName(rs.getString("user_expense_name"));
+            ue.setUserExpenseCategoryId(rs.getObject("user_expense_category_id", Integer.class));
+            ue.setAmount(rs.getBigDecimal("amount"));
+            ue.setPaid(rs.getString("paid"));
+            ue.setStatus(rs.getString("status"));
+            return ue;
+        }, userId);
+    }
+
+    /**
+     * Writes the plan as at most three JDBC batches (insert, update, delete).
+     * Returns [inserted, updated, deleted].
+     */
+    private int[] applySyncPlan(SyncPlan plan) {
+        if (!plan.inserts.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(plan.inserts.size());
+            for (UserExpenses ue : plan.inserts) {
+                args.add(new Object[]{ue.getUserId(), ue.getUserExpenseName(), ue.getUserExpenseCategoryId(),
+                        ue.getAmount(), ue.getPaid(), ue.getStatus(), ue.getLastUpdateTmstp()});
+            }
+            jdbcTemplate.batchUpdate(INSERT_USER_EXPENSE_SQL, args);
+        }
+        if (!plan.updates.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(plan.updates.size());
+            for (UserExpenses ue : plan.updates.values()) {
+                args.add(new Object[]{ue.getAmount(), ue.getStatus(), ue.getLastUpdateTmstp(), ue.getUserExpensesId()});
+            }
+            jdbcTemplate.batchUpdate(UPDATE_USER_EXPENSE_SQL, args);
+        }
+        if (!plan.deletes.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(plan.deletes.size());
+            for (Integer id : plan.deletes) {
+                args.add(new Object[]{id});
+            }
+            jdbcTemplate.batchUpdate(DELETE_USER_EXPENSE_SQL, args);
+        }
+        return new int[]{plan.inserts.size(), plan.updates.size(), plan.deletes.size()};
     }
 
     private UserExpensesEstimatesResponse toResponse(UserExpensesEstimates e) {
@@ -0,0 +1,110 @@
+package com.expensetracker.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aho–Corasick automaton: finds every occurrence of a fixed set of keywords in
+ * one left-to-right pass over the text, independent of the number of keywords.
+ *
+ * <p>Immutable once built and safe to share between threads.  Keywords are
+ * matched exactly (callers normalize case).</p>
+ */
+public final class AhoCorasick {
+
+    /** Receives each match as the keyword index and its {@code [start, end)} span in the text. */
+    @FunctionalInterface
+    public interface MatchHandler {
+        void onMatch(int keywordIndex, int start, int end);
+    }
+
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final List<Map<Character, Integer>> transitions;
+    private final int[] failure;
+    private final int[][] outputs;
+    private final int[] keywordLengths;
+
+    public AhoCorasick(List<String> keywords) {
+        this.transitions = new ArrayList<>();
+        this.transitions.add(new HashMap<>());
+        this.keywordLengths = new int[keywords.size()];
+
+        List<List<Integer>> out = new ArrayList<>();
+        out.add(new ArrayList<>());
+        for (int k = 0; k < keywords.size(); k++) {
+            String keyword = keywords.get(k);
+            keywordLengths[k] = keyword.length();
+            if (keyword.isEmpty()) continue;
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                Integer next = transitions.get(state).get(c);
+                if (next == null) {
+                    next = transitions.size();
+                    transitions.add(new HashMap<>());
+                    out.add(new ArrayList<>());
+                    transitions.get(state).put(c, next);
+                }
+                state = next;
+            }
+            out.get(state).add(k);
+        }
+
+        // Breadth-first: failure link of a node is the longest proper suffix that is also a trie path;
+        // outputs are merged along failure links so a match never needs to walk them at search time.
+        this.failure = new int[transitions.size()];
+        Deque<Integer> queue = new ArrayDeque<>(transitions.get(0).values());
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Map.Entry<Character, Integer> edge : transitions.get(state).entrySet()) {
+                int child = edge.getValue();
+                int f = failure[state];
+                while (f != 0 && !transitions.get(f).containsKey(edge.getKey())) {
+                    f = failure[f];
+                }
+                Integer target = transitions.get(f).get(edge.getKey());
+                failure[child] = (target != null && target != child) ? target : 0;
+                out.get(child).addAll(out.get(failure[child]));
+                queue.add(child);
+            }
+        }
+
+        this.outputs = new int[out.size()][];
+        for (int s = 0; s < out.size(); s++) {
+            List<Integer> ids = out.get(s);
+            outputs[s] = ids.isEmpty() ? NO_OUTPUT : ids.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public int size() {
+        return keywordLengths.length;
+    }
+
+    /** Reports every keyword occurrence in {@code text}, in order of end position. */
+    public void search(CharSequence text, MatchHandler handler) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            Integer next;
+            while ((next = transitions.get(state).get(c)) == null && state != 0) {
+                state = failure[state];
+            }
+            state = next != null ? next : 0;
+            for (int k : outputs[state]) {
+                handler.onMatch(k, i + 1 - keywordLengths[k], i + 1);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AhoCorasick{keywords=" + keywordLengths.length + ", states=" + transitions.size()
+                + ", maxOutputs=" + Arrays.stream(outputs).mapToInt(o -> o.length).max().orElse(0) + "}";
+    }
+}
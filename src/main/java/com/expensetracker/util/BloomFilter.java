@@ -0,0 +1,81 @@
+package com.expensetracker.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Minimal thread-safe Bloom filter over strings.
+ *
+ * <p>{@link #mightContain(String)} never returns {@code false} for a key that was
+ * {@link #put(String) put}; it returns {@code true} for an absent key with roughly
+ * the false-positive probability the filter was sized for.  Bits are set with
+ * CAS, so concurrent puts and lookups need no locking.</p>
+ */
+public final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * @param expectedKeys           number of keys the filter is sized for
+     * @param falsePositiveRate      target false-positive probability, e.g. {@code 0.01}
+     */
+    public BloomFilter(long expectedKeys, double falsePositiveRate) {
+        long n = Math.max(1, expectedKeys);
+        double p = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, m);
+        this.bits = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, (m + 63) / 64));
+        this.bitCount = (long) bits.length() * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+    }
+
+    public void put(String key) {
+        long[] hashes = hashes(key);
+        for (int i = 0; i < hashCount; i++) {
+            setBit(index(hashes, i));
+        }
+    }
+
+    public boolean mightContain(String key) {
+        long[] hashes = hashes(key);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = index(hashes, i);
+            if ((bits.get((int) (bit >>> 6)) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void setBit(long bit) {
+        int word = (int) (bit >>> 6);
+        long mask = 1L << (bit & 63);
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) return;
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    /** Double hashing (Kirsch–Mitzenmacher): index_i = h1 + i * h2. */
+    private long index(long[] hashes, int i) {
+        return Math.floorMod(hashes[0] + i * hashes[1], bitCount);
+    }
+
+    /** Two independent 64-bit FNV-1a style hashes of the key's UTF-8 bytes. */
+    private static long[] hashes(String key) {
+        byte[] data = key.getBytes(StandardCharsets.UTF_8);
+        long h1 = 0xcbf29ce484222325L;
+        long h2 = 0x84222325cbf29ce4L;
+        for (byte b : data) {
+            h1 ^= (b & 0xff);
+            h1 *= 0x100000001b3L;
+            h2 += (b & 0xff);
+            h2 *= 0xff51afd7ed558ccdL;
+            h2 ^= (h2 >>> 33);
+        }
+        return new long[]{h1, h2 | 1L};
+    }
+}
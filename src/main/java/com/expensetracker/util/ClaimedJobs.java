@@ -0,0 +1,78 @@
+package com.expensetracker.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Helpers shared by the services that run work from a claimed database row: report
+ * jobs, bank statement import jobs, the email outbox and monthly statements.
+ */
+public final class ClaimedJobs {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClaimedJobs.class);
+
+    /** Length of the error columns of the job tables. */
+    public static final int MAX_ERROR_LENGTH = 1000;
+
+    private ClaimedJobs() {}
+
+    /**
+     * Calls {@code touch} every {@code period} until the returned task is cancelled, to
+     * keep a claimed row from being taken for stale.  Once {@code touch} returns false
+     * the claim is gone (another run took the row over) and the task stops touching;
+     * the run that started it still cancels it when it ends.
+     *
+     * @param description names the row in log messages, e.g. {@code "report job 42"}
+     */
+    public static ScheduledFuture<?> startHeartbeat(ScheduledExecutorService scheduler, Duration period,
+                                                    String description, BooleanSupplier touch) {
+        long periodMillis = Math.max(1000, period.toMillis());
+        AtomicBoolean held = new AtomicBoolean(true);
+        return scheduler.scheduleWithFixedDelay(() -> {
+            if (!held.get()) return;
+            try {
+                if (!touch.getAsBoolean()) {
+                    logger.warn("{} was taken over by another run; its result will be discarded", description);
+                    held.set(false);
+                }
+            } catch (DataAccessException e) {
+                logger.warn("Could not touch {}: {}", description, e.getMessage());
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Delay before retry {@code attempt + 1}: 1x, 2x, 4x ... {@code base} after
+     * attempts 1, 2, 3 ..., capped at {@code max}.
+     */
+    public static Duration retryBackoff(Duration base, Duration max, int attempt) {
+        Duration backoff = base.multipliedBy(1L << Math.min(Math.max(attempt - 1, 0), 20));
+        return backoff.compareTo(max) > 0 ? max : backoff;
+    }
+
+    /** {@code error} cut to fit the error columns. */
+    public static String truncateError(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    /** Deletes a work, spool or artifact file, logging instead of failing. */
+    public static void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -66,4 +66,9 @@ public final class Constants {
     // Lookup is case-insensitive so "credit card", "Credit Card", "CREDIT CARD" all match.
     public static final String CREDIT_CARD_CATEGORY_NAME = "Credit Card";
 
+    // Categories bank statement imports put expenses in when nothing better is known
+    // (preferred, then fallback); matched case-insensitively.
+    public static final String IMPORT_DEFAULT_CATEGORY_NAME = "House Expenses";
+    public static final String IMPORT_FALLBACK_CATEGORY_NAME = "Miscellaneous";
+
 }
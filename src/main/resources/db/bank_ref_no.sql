@@ -0,0 +1,9 @@
+-- Stores the 16-digit HDFC Chq./Ref.No. of rows created by bank statement imports
+-- so overlapping statements can be re-imported without duplicating transactions.
+-- Rows entered manually keep bank_ref_no NULL.
+-- Apply manually (ddl-auto is 'none').
+ALTER TABLE expenses ADD COLUMN bank_ref_no VARCHAR(16) NULL;
+ALTER TABLE income   ADD COLUMN bank_ref_no VARCHAR(16) NULL;
+
+CREATE INDEX idx_expenses_user_bank_ref ON expenses (user_id, bank_ref_no);
+CREATE INDEX idx_income_user_bank_ref   ON income   (user_id, bank_ref_no);
@@ -0,0 +1,27 @@
+-- Background bank statement imports (POST /api/expense/import/hdfc?async=true).
+-- Rows survive restarts; a node re-queues stale jobs whose spool file it can see.
+-- Apply manually (ddl-auto is 'none').
+CREATE TABLE IF NOT EXISTS bank_statement_import_job (
+    job_id              VARCHAR(36)   NOT NULL,
+    user_id             VARCHAR(100)  NOT NULL,
+    status              VARCHAR(10)   NOT NULL DEFAULT 'QUEUED',
+    phase               VARCHAR(20)   NOT NULL DEFAULT 'QUEUED',
+    rows_processed      INT           NOT NULL DEFAULT 0,
+    rows_total          INT           NOT NULL DEFAULT 0,
+    spool_path          VARCHAR(500)  NULL,
+    password_enc        VARCHAR(512)  NULL,
+    use_stored_password BOOLEAN       NOT NULL DEFAULT FALSE,
+    store_password      BOOLEAN       NOT NULL DEFAULT FALSE,
+    owner               VARCHAR(255)  NULL,
+    claim_token         VARCHAR(36)   NULL,
+    attempts            INT           NOT NULL DEFAULT 0,
+    result_json         TEXT          NULL,
+    error_message       VARCHAR(1000) NULL,
+    created_at          DATETIME      NOT NULL,
+    started_at          DATETIME      NULL,
+    finished_at         DATETIME      NULL,
+    updated_at          DATETIME      NOT NULL,
+    PRIMARY KEY (job_id),
+    KEY idx_import_job_user (user_id, created_at),
+    KEY idx_import_job_status (status, updated_at)
+);
@@ -0,0 +1,29 @@
+-- Outbox of report emails (POST /api/reports/email and friends). The API commits a
+-- row and returns; EmailOutboxDispatcher claims rows in batches, renders and sends
+-- them, and records every attempt. Sent and failed rows are removed after
+-- app.reports.outbox.retention-days.
+-- Apply manually (ddl-auto is 'none').
+CREATE TABLE IF NOT EXISTS email_outbox (
+    outbox_id       BIGINT        NOT NULL AUTO_INCREMENT,
+    user_id         VARCHAR(100)  NOT NULL,
+    email           VARCHAR(255)  NOT NULL,
+    request_json    TEXT          NOT NULL,
+    file_name       VARCHAR(255)  NOT NULL,
+    status          VARCHAR(10)   NOT NULL DEFAULT 'PENDING',
+    claim_token     VARCHAR(36)   NULL,
+    owner           VARCHAR(255)  NULL,
+    attempts        INT           NOT NULL DEFAULT 0,
+    parts_sent      INT           NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME      NOT NULL,
+    claimed_at      DATETIME      NULL,
+    sent_at         DATETIME      NULL,
+    total_records   INT           NULL,
+    message         VARCHAR(500)  NULL,
+    last_error      VARCHAR(1000) NULL,
+    created_at      DATETIME      NOT NULL,
+    updated_at      DATETIME      NOT NULL,
+    PRIMARY KEY (outbox_id),
+    KEY idx_email_outbox_due (status, next_attempt_at),
+    KEY idx_email_outbox_claim (claim_token),
+    KEY idx_email_outbox_user (user_id, created_at)
+);
@@ -0,0 +1,4 @@
+-- Supports the NOT EXISTS dedupe in IncomeRepository.copyMissingFromIncomeEstimates
+-- so re-running the income estimates copy stays an index lookup per estimate.
+-- Apply manually (ddl-auto is 'none').
+CREATE INDEX idx_income_user_source_date ON income (user_id, source, received_date);
@@ -0,0 +1,36 @@
+-- Monthly statement emails (PUT /api/reports/monthly-statement to opt in).
+-- monthly_statement_delivery holds one row per user and statement month, so a
+-- restarted or re-claimed run skips users whose statement was already sent.
+-- Apply manually (ddl-auto is 'none').
+CREATE TABLE IF NOT EXISTS monthly_statement_subscription (
+    user_id         VARCHAR(100)  NOT NULL,
+    email           VARCHAR(255)  NOT NULL,
+    export_type     VARCHAR(10)   NOT NULL DEFAULT 'BOTH',
+    format          VARCHAR(10)   NOT NULL DEFAULT 'PDF',
+    enabled         BOOLEAN       NOT NULL DEFAULT TRUE,
+    created_at      DATETIME      NOT NULL,
+    updated_at      DATETIME      NOT NULL,
+    PRIMARY KEY (user_id),
+    KEY idx_monthly_statement_subscription_enabled (enabled)
+);
+
+CREATE TABLE IF NOT EXISTS monthly_statement_delivery (
+    delivery_id     BIGINT        NOT NULL AUTO_INCREMENT,
+    user_id         VARCHAR(100)  NOT NULL,
+    statement_month VARCHAR(7)    NOT NULL,
+    status          VARCHAR(10)   NOT NULL DEFAULT 'PENDING',
+    owner           VARCHAR(255)  NULL,
+    attempts        INT           NOT NULL DEFAULT 0,
+    parts_sent      INT           NOT NULL DEFAULT 0,
+    total_records   INT           NULL,
+    file_name       VARCHAR(255)  NULL,
+    message         VARCHAR(500)  NULL,
+    error_message   VARCHAR(1000) NULL,
+    next_attempt_at DATETIME      NULL,
+    sent_at         DATETIME      NULL,
+    created_at      DATETIME      NOT NULL,
+    updated_at      DATETIME      NOT NULL,
+    PRIMARY KEY (delivery_id),
+    UNIQUE KEY uk_monthly_statement_delivery (user_id, statement_month),
+    KEY idx_monthly_statement_delivery_status (status, next_attempt_at)
+);
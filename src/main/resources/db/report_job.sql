@@ -0,0 +1,28 @@
+-- Background report generation for download (POST /api/reports/jobs).
+-- Download artifacts live in the rendering node's app.reports.jobs.artifact-dir; rows
+-- and artifacts are removed once expires_at has passed.
+-- Apply manually (ddl-auto is 'none').
+CREATE TABLE IF NOT EXISTS report_job (
+    job_id          VARCHAR(36)   NOT NULL,
+    user_id         VARCHAR(100)  NOT NULL,
+    job_type        VARCHAR(10)   NOT NULL,
+    status          VARCHAR(10)   NOT NULL DEFAULT 'QUEUED',
+    request_json    TEXT          NOT NULL,
+    file_name       VARCHAR(255)  NOT NULL,
+    content_type    VARCHAR(100)  NOT NULL,
+    artifact_path   VARCHAR(500)  NULL,
+    artifact_bytes  BIGINT        NULL,
+    owner           VARCHAR(255)  NULL,
+    claim_token     VARCHAR(36)   NULL,
+    attempts        INT           NOT NULL DEFAULT 0,
+    error_message   VARCHAR(1000) NULL,
+    created_at      DATETIME      NOT NULL,
+    started_at      DATETIME      NULL,
+    finished_at     DATETIME      NULL,
+    expires_at      DATETIME      NULL,
+    updated_at      DATETIME      NOT NULL,
+    PRIMARY KEY (job_id),
+    KEY idx_report_job_user (user_id, created_at),
+    KEY idx_report_job_status (status, updated_at),
+    KEY idx_report_job_expiry (expires_at)
+);
@@ -0,0 +1,10 @@
+-- Lease lock table used by SchedulerLockService to run each @Scheduled job
+-- on a single instance. Apply manually (ddl-auto is 'none').
+CREATE TABLE IF NOT EXISTS scheduler_lock (
+    lock_name     VARCHAR(100) NOT NULL,
+    locked_by     VARCHAR(255) NOT NULL,
+    locked_at     DATETIME     NOT NULL,
+    lock_until    DATETIME     NOT NULL,
+    fencing_token BIGINT       NOT NULL DEFAULT 0,
+    PRIMARY KEY (lock_name)
+);
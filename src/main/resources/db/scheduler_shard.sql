@@ -0,0 +1,19 @@
+-- Per-shard claim table used by ShardedJobService to spread month-end per-user
+-- work across all running instances. Apply manually (ddl-auto is 'none').
+CREATE TABLE IF NOT EXISTS scheduler_shard (
+    scheduler_shard_id BIGINT       NOT NULL AUTO_INCREMENT,
+    job_name           VARCHAR(100) NOT NULL,
+    run_key            VARCHAR(50)  NOT NULL,
+    shard_no           INT          NOT NULL,
+    shard_count        INT          NOT NULL,
+    status             VARCHAR(10)  NOT NULL DEFAULT 'PENDING',
+    owner              VARCHAR(255) NULL,
+    lease_until        DATETIME     NULL,
+    attempts           INT          NOT NULL DEFAULT 0,
+    users_processed    INT          NOT NULL DEFAULT 0,
+    resume_after       VARCHAR(100) NULL,
+    started_at         DATETIME     NULL,
+    finished_at        DATETIME     NULL,
+    PRIMARY KEY (scheduler_shard_id),
+    UNIQUE KEY uk_scheduler_shard (job_name, run_key, shard_no)
+);
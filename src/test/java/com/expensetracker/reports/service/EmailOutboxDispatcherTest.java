@@ -0,0 +1,259 @@
+package com.expensetracker.reports.service;
+
+import com.expensetracker.reports.dto.EmailExportRequest;
+import com.expensetracker.reports.dto.ExportRequest;
+import com.expensetracker.reports.dto.ExportResponse;
+import com.expensetracker.reports.model.EmailOutboxMessage;
+import com.expensetracker.reports.repository.EmailOutboxRepository;
+import com.expensetracker.service.SchedulerLockService;
+import com.expensetracker.support.EmbeddedMariaDb;
+import com.expensetracker.support.TcpProxy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the dispatcher's claim, retry and release SQL against MariaDB and its sends
+ * against an embedded SMTP server, reached through a {@link TcpProxy} that can refuse
+ * connections to stand in for an SMTP outage.
+ */
+class EmailOutboxDispatcherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort());
+
+    private static EmbeddedMariaDb database;
+    private static JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path workDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private TcpProxy proxy;
+    private JavaMailSenderImpl javaMailSender;
+    private PooledMailSender mailSender;
+    private ReportService reportService;
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        database = EmbeddedMariaDb.start("db/email_outbox.sql");
+        jdbcTemplate = new JdbcTemplate(database.dataSource());
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        database.close();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate.update("DELETE FROM email_outbox");
+        proxy = new TcpProxy(greenMail.getSmtp().getPort());
+        javaMailSender = PooledMailSenderTest.mailSender(proxy.getPort());
+        mailSender = PooledMailSenderTest.pooledMailSender(javaMailSender, 2, 100, 1000, 1000);
+
+        // Sends a one-line message in place of the rendered report
+        reportService = mock(ReportService.class);
+        when(reportService.emailReport(any(), any(), anyInt(), any())).thenAnswer(invocation -> {
+            EmailExportRequest request = invocation.getArgument(0);
+            mailSender.send(PooledMailSenderTest.message(javaMailSender, request.getEmail()));
+            return ExportResponse.success("Report emailed", "report.xlsx", 3);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        mailSender.shutdown();
+        proxy.close();
+    }
+
+    @Test
+    void retriesWithBackoffUntilSent() throws Exception {
+        EmailOutboxDispatcher dispatcher = dispatcher("node-a");
+        long id = enqueue("user@example.com");
+        proxy.setRefusing(true);
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.drain();
+        assertThat(status(id)).isEqualTo(EmailOutboxDispatcher.STATUS_RETRY);
+        assertThat(attempts(id)).isEqualTo(1);
+        assertThat(lastError(id)).startsWith("Failed to send email");
+        assertDueAfter(id, before, Duration.ofSeconds(30));
+
+        // Not due yet: nothing is claimed
+        dispatcher.drain();
+        assertThat(attempts(id)).isEqualTo(1);
+
+        makeDue(id);
+        before = LocalDateTime.now();
+        dispatcher.drain();
+        assertThat(status(id)).isEqualTo(EmailOutboxDispatcher.STATUS_RETRY);
+        assertThat(attempts(id)).isEqualTo(2);
+        assertDueAfter(id, before, Duration.ofSeconds(60));
+
+        proxy.setRefusing(false);
+        makeDue(id);
+        dispatcher.drain();
+        assertThat(status(id)).isEqualTo(EmailOutboxDispatcher.STATUS_SENT);
+        assertThat(attempts(id)).isEqualTo(3);
+        assertThat(lastError(id)).isNull();
+        assertThat(recipients()).containsExactly("user@example.com");
+        verify(reportService, times(3)).emailReport(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void failsAfterMaxAttempts() throws Exception {
+        EmailOutboxDispatcher dispatcher = dispatcher("node-a");
+        long id = enqueue("user@example.com");
+        proxy.setRefusing(true);
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            makeDue(id);
+            dispatcher.drain();
+        }
+
+        assertThat(status(id)).isEqualTo(EmailOutboxDispatcher.STATUS_FAILED);
+        assertThat(attempts(id)).isEqualTo(MAX_ATTEMPTS);
+
+        makeDue(id);
+        proxy.setRefusing(false);
+        dispatcher.drain();
+        assertThat(attempts(id)).isEqualTo(MAX_ATTEMPTS);
+        assertThat(recipients()).isEmpty();
+    }
+
+    @Test
+    void doesNotResendAfterRestart() throws Exception {
+        EmailOutboxDispatcher first = dispatcher("node-a");
+        long sent1 = enqueue("first@example.com");
+        long sent2 = enqueue("second@example.com");
+        first.drain();
+        assertThat(status(sent1)).isEqualTo(EmailOutboxDispatcher.STATUS_SENT);
+        assertThat(status(sent2)).isEqualTo(EmailOutboxDispatcher.STATUS_SENT);
+
+        // node-a stopped while sending a third email
+        long interrupted = enqueue("third@example.com");
+        LocalDateTime claimedAt = LocalDateTime.now().minusMinutes(20);
+        jdbcTemplate.update("UPDATE email_outbox SET status = 'SENDING', claim_token = 'stopped-node', " +
+                "owner = 'node-a', attempts = 1, claimed_at = ? WHERE outbox_id = ?", claimedAt, interrupted);
+        first.shutdown();
+        mailSender.shutdown();
+
+        mailSender = PooledMailSenderTest.pooledMailSender(javaMailSender, 2, 100, 1000, 1000);
+        EmailOutboxDispatcher second = dispatcher("node-b");
+        second.drain();
+        assertThat(recipients()).containsExactly("first@example.com", "second@example.com");
+
+        second.maintain();
+        assertThat(status(interrupted)).isEqualTo(EmailOutboxDispatcher.STATUS_RETRY);
+        second.drain();
+        second.drain();
+
+        assertThat(status(interrupted)).isEqualTo(EmailOutboxDispatcher.STATUS_SENT);
+        assertThat(owner(interrupted)).isEqualTo("node-b");
+        assertThat(owner(sent1)).isEqualTo("node-a");
+        assertThat(owner(sent2)).isEqualTo("node-a");
+        assertThat(recipients()).containsExactly("first@example.com", "second@example.com", "third@example.com");
+        verify(reportService, times(3)).emailReport(any(), any(), anyInt(), any());
+    }
+
+    private EmailOutboxDispatcher dispatcher(String nodeId) {
+        EmailOutboxRepository repository = mock(EmailOutboxRepository.class);
+        when(repository.findByClaimTokenOrderByOutboxId(anyString())).thenAnswer(invocation -> jdbcTemplate.query(
+                "SELECT * FROM email_outbox WHERE claim_token = ? ORDER BY outbox_id",
+                new BeanPropertyRowMapper<>(EmailOutboxMessage.class), invocation.<String>getArgument(0)));
+        SchedulerLockService schedulerLockService = mock(SchedulerLockService.class);
+        when(schedulerLockService.getNodeId()).thenReturn(nodeId);
+        return new EmailOutboxDispatcher(repository, reportService, objectMapper, jdbcTemplate, schedulerLockService,
+                workDir.toString(), 20, MAX_ATTEMPTS, 30, 60, 15, 30);
+    }
+
+    private long enqueue(String email) throws Exception {
+        EmailExportRequest request = new EmailExportRequest();
+        request.setUserId("user-1");
+        request.setStartDate(LocalDate.of(2024, 1, 1));
+        request.setEndDate(LocalDate.of(2024, 1, 31));
+        request.setExportType(ExportRequest.ExportType.BOTH);
+        request.setFormat(ExportRequest.ExportFormat.EXCEL);
+        request.setEmail(email);
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO email_outbox (user_id, email, request_json, file_name, status, " +
+                        "next_attempt_at, created_at, updated_at) VALUES (?, ?, ?, ?, 'PENDING', ?, ?, ?)",
+                request.getUserId(), email, objectMapper.writeValueAsString(request), "report.xlsx", now, now, now);
+        return jdbcTemplate.queryForObject("SELECT MAX(outbox_id) FROM email_outbox", Long.class);
+    }
+
+    private void makeDue(long id) {
+        jdbcTemplate.update("UPDATE email_outbox SET next_attempt_at = ? WHERE outbox_id = ?",
+                LocalDateTime.now().minusSeconds(1), id);
+    }
+
+    private void assertDueAfter(long id, LocalDateTime failedFrom, Duration backoff) {
+        LocalDateTime nextAttemptAt = jdbcTemplate.queryForObject(
+                "SELECT next_attempt_at FROM email_outbox WHERE outbox_id = ?", LocalDateTime.class, id);
+        // DATETIME keeps whole seconds
+        assertThat(nextAttemptAt).isBetween(failedFrom.plus(backoff).minusSeconds(1),
+                LocalDateTime.now().plus(backoff).plusSeconds(1));
+    }
+
+    private String status(long id) {
+        return column(id, "status");
+    }
+
+    private String owner(long id) {
+        return column(id, "owner");
+    }
+
+    private String lastError(long id) {
+        return column(id, "last_error");
+    }
+
+    private int attempts(long id) {
+        return jdbcTemplate.queryForObject("SELECT attempts FROM email_outbox WHERE outbox_id = ?", Integer.class, id);
+    }
+
+    private String column(long id, String column) {
+        return jdbcTemplate.queryForObject("SELECT " + column + " FROM email_outbox WHERE outbox_id = ?", String.class, id);
+    }
+
+    /** First recipient of each received message, in order of receipt. */
+    private List<String> recipients() throws MessagingException {
+        List<String> recipients = new ArrayList<>();
+        for (MimeMessage message : greenMail.getReceivedMessages()) {
+            Address[] to = message.getAllRecipients();
+            recipients.add(to[0].toString());
+        }
+        return recipients;
+    }
+}
@@ -0,0 +1,141 @@
+package com.expensetracker.reports.service;
+
+import com.expensetracker.support.TcpProxy;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PooledMailSenderTest {
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP.dynamicPort());
+
+    private TcpProxy proxy;
+    private JavaMailSenderImpl javaMailSender;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        proxy = new TcpProxy(greenMail.getSmtp().getPort());
+        javaMailSender = mailSender(proxy.getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        proxy.close();
+    }
+
+    @Test
+    void reusesOneConnectionForConsecutiveMessages() throws Exception {
+        PooledMailSender sender = pooled(2, 100, 1000, 1000);
+
+        for (int i = 0; i < 5; i++) {
+            sender.send(message("user" + i + "@example.com"));
+        }
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(5);
+        assertThat(proxy.getConnectionsAccepted()).isEqualTo(1);
+        sender.shutdown();
+    }
+
+    @Test
+    void replacesConnectionAfterMaxMessages() throws Exception {
+        PooledMailSender sender = pooled(2, 2, 1000, 1000);
+
+        for (int i = 0; i < 5; i++) {
+            sender.send(message("user" + i + "@example.com"));
+        }
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(5);
+        assertThat(proxy.getConnectionsAccepted()).isEqualTo(3);
+        sender.shutdown();
+    }
+
+    @Test
+    void resendsOnNewConnectionWhenPooledOneWasDropped() throws Exception {
+        PooledMailSender sender = pooled(2, 100, 1000, 1000);
+        sender.send(message("first@example.com"));
+
+        proxy.dropConnections();
+        sender.send(message("second@example.com"));
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(2);
+        assertThat(proxy.getConnectionsAccepted()).isEqualTo(2);
+        sender.shutdown();
+    }
+
+    @Test
+    void failsWhenServerRefusesConnections() throws Exception {
+        PooledMailSender sender = pooled(2, 100, 1000, 1000);
+        proxy.setRefusing(true);
+
+        MimeMessage message = message("nobody@example.com");
+        assertThatThrownBy(() -> sender.send(message)).isInstanceOf(MessagingException.class);
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+        sender.shutdown();
+    }
+
+    @Test
+    void limitsRateAfterBurst() throws Exception {
+        // 10 per second with bursts of 2: the 3rd to 6th messages wait 100 ms each
+        PooledMailSender sender = pooled(2, 100, 10, 2);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            sender.send(message("user" + i + "@example.com"));
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertThat(greenMail.getReceivedMessages()).hasSize(6);
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(350);
+        sender.shutdown();
+    }
+
+    private PooledMailSender pooled(int maxConnections, int maxMessagesPerConnection, double perSecond, int burst) {
+        return pooledMailSender(javaMailSender, maxConnections, maxMessagesPerConnection, perSecond, burst);
+    }
+
+    private MimeMessage message(String to) throws MessagingException {
+        return message(javaMailSender, to);
+    }
+
+    static JavaMailSenderImpl mailSender(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(port);
+        mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+        mailSender.getJavaMailProperties().put("mail.smtp.timeout", "2000");
+        return mailSender;
+    }
+
+    static PooledMailSender pooledMailSender(JavaMailSender mailSender, int maxConnections,
+                                             int maxMessagesPerConnection, double perSecond, int burst) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("mailSender", mailSender));
+        return new PooledMailSender(beans.getBeanProvider(JavaMailSender.class),
+                maxConnections, maxMessagesPerConnection, 30, perSecond, burst);
+    }
+
+    static MimeMessage message(JavaMailSenderImpl mailSender, String to) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message);
+        helper.setFrom("reports@example.com");
+        helper.setTo(to);
+        helper.setSubject("Expense report");
+        helper.setText("Report attached.");
+        return message;
+    }
+}
@@ -0,0 +1,179 @@
+package com.expensetracker.service;
+
+import com.expensetracker.repository.SchedulerLockRepository;
+import com.expensetracker.service.SchedulerLockService.LockHandle;
+import com.expensetracker.support.EmbeddedMariaDb;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Two application contexts, each with its own connection pool and node id, share one
+ * MariaDB schema the way two instances share the production MySQL schema.
+ */
+class SchedulerLockServiceTest {
+
+    private static final Duration LEASE = Duration.ofSeconds(30);
+
+    private static EmbeddedMariaDb database;
+
+    private AnnotationConfigApplicationContext nodeA;
+    private AnnotationConfigApplicationContext nodeB;
+    private SchedulerLockService lockA;
+    private SchedulerLockService lockB;
+
+    @BeforeAll
+    static void startDatabase() throws Exception {
+        database = EmbeddedMariaDb.start("db/scheduler_lock.sql");
+    }
+
+    @AfterAll
+    static void stopDatabase() throws Exception {
+        database.close();
+    }
+
+    @BeforeEach
+    void startNodes() {
+        new JdbcTemplate(database.dataSource()).update("DELETE FROM scheduler_lock");
+        nodeA = node("node-a");
+        nodeB = node("node-b");
+        lockA = nodeA.getBean(SchedulerLockService.class);
+        lockB = nodeB.getBean(SchedulerLockService.class);
+    }
+
+    @AfterEach
+    void stopNodes() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    @Test
+    void onlyOneNodeHoldsTheLock() {
+        LockHandle first = lockA.tryAcquire("job", LEASE).orElseThrow();
+        assertThat(first.owner).isEqualTo("node-a");
+        assertThat(lockB.tryAcquire("job", LEASE)).isEmpty();
+        assertThat(lockA.isHeld(first)).isTrue();
+
+        lockA.release(first, Duration.ZERO);
+        LockHandle second = lockB.tryAcquire("job", LEASE).orElseThrow();
+        assertThat(second.owner).isEqualTo("node-b");
+        assertThat(second.fencingToken).isEqualTo(first.fencingToken + 1);
+        assertThat(lockA.tryAcquire("job", LEASE)).isEmpty();
+    }
+
+    @Test
+    void exactlyOneNodeWinsConcurrentAcquires() throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 20; round++) {
+                String lockName = "race-" + round;
+                CyclicBarrier start = new CyclicBarrier(2);
+                Future<Optional<LockHandle>> a = threads.submit(() -> {
+                    start.await();
+                    return lockA.tryAcquire(lockName, LEASE);
+                });
+                Future<Optional<LockHandle>> b = threads.submit(() -> {
+                    start.await();
+                    return lockB.tryAcquire(lockName, LEASE);
+                });
+                assertThat(a.get().isPresent() ^ b.get().isPresent()).as(lockName).isTrue();
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    void expiredLeaseIsTakenOverAndFencesTheOldHolder() throws Exception {
+        LockHandle stale = lockA.tryAcquire("job", Duration.ofSeconds(1)).orElseThrow();
+        assertThat(lockB.tryAcquire("job", LEASE)).isEmpty();
+
+        // lock_until is DATETIME: whole seconds
+        Thread.sleep(2100);
+        LockHandle current = lockB.tryAcquire("job", LEASE).orElseThrow();
+        assertThat(current.fencingToken).isEqualTo(stale.fencingToken + 1);
+
+        assertThat(lockA.isHeld(stale)).isFalse();
+        assertThat(lockA.renew(stale, LEASE)).isFalse();
+        assertThatThrownBy(() -> lockA.checkHeld(stale)).isInstanceOf(IllegalStateException.class);
+        lockA.release(stale, Duration.ZERO);
+
+        assertThat(lockB.isHeld(current)).isTrue();
+        lockB.checkHeld(current);
+        assertThat(lockA.tryAcquire("job", LEASE)).isEmpty();
+    }
+
+    @Test
+    void runExclusivelySkipsWhileAnotherNodeRuns() {
+        AtomicBoolean ranOnB = new AtomicBoolean();
+        List<Boolean> results = new ArrayList<>();
+
+        boolean ranOnA = lockA.runExclusively("job", LEASE, Duration.ZERO, handle ->
+                results.add(lockB.runExclusively("job", LEASE, Duration.ZERO, other -> ranOnB.set(true))));
+
+        assertThat(ranOnA).isTrue();
+        assertThat(results).containsExactly(false);
+        assertThat(ranOnB).isFalse();
+        assertThat(lockB.runExclusively("job", LEASE, Duration.ZERO, handle -> ranOnB.set(true))).isTrue();
+        assertThat(ranOnB).isTrue();
+    }
+
+    @Test
+    void releaseKeepsTheLockForHoldAtLeast() {
+        assertThat(lockA.runExclusively("job", LEASE, Duration.ofMinutes(1), handle -> { })).isTrue();
+
+        // A node whose cron fires a moment later does not repeat the run
+        assertThat(lockB.runExclusively("job", LEASE, Duration.ZERO, handle -> { })).isFalse();
+    }
+
+    private static AnnotationConfigApplicationContext node(String nodeId) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources()
+                .addFirst(new MapPropertySource("node", Map.of("app.scheduler.node-id", nodeId)));
+        context.register(NodeConfig.class, SchedulerLockService.class);
+        context.refresh();
+        return context;
+    }
+
+    @Configuration
+    static class NodeConfig {
+
+        @Bean
+        DataSource dataSource() {
+            return database.dataSource();
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        SchedulerLockRepository schedulerLockRepository() {
+            return mock(SchedulerLockRepository.class);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.expensetracker.support;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
+/**
+ * A MariaDB server started from the test classpath, for code whose SQL is MySQL
+ * dialect ({@code DATE_ADD}, {@code UPDATE ... LIMIT}).  The schema is created from
+ * the scripts under {@code src/main/resources/db}, so tests run against the DDL that
+ * ships.
+ */
+public final class EmbeddedMariaDb implements AutoCloseable {
+
+    private static final String DATABASE = "expense_tracker";
+
+    private final DB db;
+    private final String url;
+
+    private EmbeddedMariaDb(DB db, String url) {
+        this.db = db;
+        this.url = url;
+    }
+
+    /**
+     * Starts a server on a free port and runs {@code scripts} (classpath resources,
+     * e.g. {@code "db/email_outbox.sql"}) against a new database.
+     */
+    public static EmbeddedMariaDb start(String... scripts) throws Exception {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(freePort());
+        DB db = DB.newEmbeddedDB(config.build());
+        db.start();
+        db.createDB(DATABASE);
+        EmbeddedMariaDb server = new EmbeddedMariaDb(db, config.getURL(DATABASE));
+
+        ResourceDatabasePopulator schema = new ResourceDatabasePopulator();
+        for (String script : scripts) {
+            schema.addScript(new ClassPathResource(script));
+        }
+        schema.execute(server.dataSource());
+        return server;
+    }
+
+    /** A new data source on the test database; each call stands for another node's pool. */
+    public DataSource dataSource() {
+        return new DriverManagerDataSource(url, "root", "");
+    }
+
+    @Override
+    public void close() throws Exception {
+        db.stop();
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
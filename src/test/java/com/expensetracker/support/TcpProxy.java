@@ -0,0 +1,105 @@
+package com.expensetracker.support;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Forwards local TCP connections to {@code targetPort}, counting them, so a test can
+ * see how many connections a client opened and can break or refuse them, as a
+ * server that drops idle sessions or goes down would.
+ */
+public final class TcpProxy implements Closeable {
+
+    private final ServerSocket server;
+    private final int targetPort;
+    private final AtomicInteger accepted = new AtomicInteger();
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+    private final ExecutorService threads = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "tcp-proxy");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean refusing;
+
+    public TcpProxy(int targetPort) throws IOException {
+        this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.targetPort = targetPort;
+        threads.execute(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /** Connections accepted and forwarded so far. */
+    public int getConnectionsAccepted() {
+        return accepted.get();
+    }
+
+    /** While set, new connections are closed as soon as they are accepted. */
+    public void setRefusing(boolean refusing) {
+        this.refusing = refusing;
+    }
+
+    /** Closes every forwarded connection, as a server timing out idle sessions would. */
+    public void dropConnections() {
+        sockets.forEach(TcpProxy::closeQuietly);
+        sockets.clear();
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(server);
+        dropConnections();
+        threads.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket client = server.accept();
+                if (refusing) {
+                    closeQuietly(client);
+                    continue;
+                }
+                Socket upstream = new Socket(InetAddress.getLoopbackAddress(), targetPort);
+                accepted.incrementAndGet();
+                sockets.add(client);
+                sockets.add(upstream);
+                threads.execute(() -> pipe(client, upstream));
+                threads.execute(() -> pipe(upstream, client));
+            } catch (IOException e) {
+                // Closed
+            }
+        }
+    }
+
+    private static void pipe(Socket from, Socket to) {
+        try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            // Either side closed
+        } finally {
+            closeQuietly(from);
+            closeQuietly(to);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+}